@@ -0,0 +1,69 @@
+package jakemarsden.opengl;
+
+import static org.checkerframework.checker.units.UnitsTools.s;
+
+import jakemarsden.opengl.engine.display.HeadlessDisplay;
+import jakemarsden.opengl.engine.gl.NoopGl;
+import jakemarsden.opengl.engine.profiling.Profiler;
+import jakemarsden.opengl.engine.res.ResourceLoader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.units.qual.s;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the CPU side of each frame of the real game, with a {@link NoopGl} and a {@link
+ * HeadlessDisplay} standing in for the GPU and window, so it doesn't include any time spent in the
+ * driver
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MainGameBenchmark {
+
+  private static final @s float STEP_TIME = 1 / 60f * s;
+
+  private HeadlessDisplay display;
+  private MainGame game;
+  private @s float elapsedTime = 0 * s;
+
+  @Setup
+  public void setUp() {
+    this.display = HeadlessDisplay.create(1024, 768, "benchmark");
+    final var resLoader = ResourceLoader.create(Application.class, "res");
+    this.game =
+        new MainGame(
+            NoopGl.create(), this.display, resLoader, Profiler.disabled(), new Random(0));
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.game.destroy();
+    this.display.destroy();
+  }
+
+  @Benchmark
+  public void update() {
+    this.elapsedTime += STEP_TIME;
+    this.game.update(STEP_TIME, this.elapsedTime);
+  }
+
+  @Benchmark
+  public void render() {
+    this.game.render(0.5f);
+  }
+
+  @Benchmark
+  public void frame() {
+    this.elapsedTime += STEP_TIME;
+    this.game.update(STEP_TIME, this.elapsedTime);
+    this.game.render(0.5f);
+  }
+}
@@ -0,0 +1,84 @@
+package jakemarsden.opengl.engine.entity;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+
+import jakemarsden.opengl.engine.camera.PerspectiveCamera;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.BoxMesh;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares culling every entity in an {@link EntityStore} with a {@link FrustumCuller}, which reads
+ * the store's bounds columns directly, against fetching and testing each entity's bounds one by one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrustumCullerBenchmark {
+
+  @Param({"100000"})
+  public int entityCount;
+
+  private EntityStore store;
+  private Entity[] entities;
+  private Matrix4 pv;
+  private FrustumCuller culler;
+  private Frustum frustum;
+
+  @Setup
+  public void setUp() {
+    final var rnd = new Random(0);
+    final var model = ModelLoader.load(new Mesh[] {new BoxMesh()});
+
+    this.store = EntityStore.create(this.entityCount);
+    this.entities = new Entity[this.entityCount];
+    for (var i = 0; i < this.entityCount; i++) {
+      this.entities[i] =
+          Entity.builder(this.store, model)
+              .withPosition(
+                  Vector3.of(
+                      200 * rnd.nextFloat() - 100,
+                      200 * rnd.nextFloat() - 100,
+                      200 * rnd.nextFloat() - 100))
+              .withRotation(Vector3.of(2 * PI * rnd.nextFloat(), 2 * PI * rnd.nextFloat(), 0))
+              .withScale(Vector3.of(0.5f))
+              .build();
+    }
+    this.store.update(0, 0);
+
+    // only the entities in front of the camera are in view
+    final var camera =
+        new PerspectiveCamera(Vector3.zero(), Vector3.unit(0, 0, -1), 0.1f, 100, PI / 2, 16 / 9f);
+    this.pv = camera.calculatePvTransform();
+    this.culler = FrustumCuller.create();
+    this.frustum = Frustum.create().set(this.pv);
+  }
+
+  @Benchmark
+  public int culler() {
+    this.culler.cull(this.store, this.pv);
+    return this.culler.getVisibleCount();
+  }
+
+  @Benchmark
+  public int perEntity() {
+    var visible = 0;
+    for (final var entity : this.entities) {
+      if (this.frustum.intersects(entity.getBounds())) visible++;
+    }
+    return visible;
+  }
+}
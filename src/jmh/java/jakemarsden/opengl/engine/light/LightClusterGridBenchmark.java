@@ -0,0 +1,66 @@
+package jakemarsden.opengl.engine.light;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+
+import jakemarsden.opengl.engine.camera.PerspectiveCamera;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures binning every light into a {@link LightClusterGrid} with the same dimensions as {@code
+ * MainShader}'s, which has to happen once per frame
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LightClusterGridBenchmark {
+
+  @Param({"1000", "10000"})
+  public int lightCount;
+
+  private PointLight[] lights;
+  private LightClusterGrid grid;
+  private PerspectiveCamera camera;
+
+  @Setup
+  public void setUp() {
+    final var rnd = new Random(0);
+    // keep the density of lights the same as in MainGame, regardless of how many there are
+    final var extent = 10 * (float) Math.cbrt(this.lightCount / 100.0);
+
+    this.lights = new PointLight[this.lightCount];
+    for (var i = 0; i < this.lightCount; i++) {
+      this.lights[i] =
+          new PointLight(
+              Vector3.of(
+                  extent * (2 * rnd.nextFloat() - 1),
+                  extent * (2 * rnd.nextFloat() - 1),
+                  extent * (2 * rnd.nextFloat() - 1)),
+              Attenuation.range(5),
+              Color3.white(),
+              Color3.white(),
+              Color3.white());
+    }
+
+    this.grid = LightClusterGrid.create(16, 9, 24, 1 << 20);
+    this.camera =
+        new PerspectiveCamera(
+            Vector3.of(0, 0, extent), Vector3.unit(0, 0, -1), 0.1f, 100, PI / 4, 16 / 9f);
+  }
+
+  @Benchmark
+  public int bin() {
+    this.grid.bin(this.lights, this.lightCount, this.camera);
+    return this.grid.getLightIndexCount();
+  }
+}
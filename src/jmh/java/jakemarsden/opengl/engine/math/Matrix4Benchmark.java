@@ -0,0 +1,118 @@
+package jakemarsden.opengl.engine.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link Matrix4} operations done for every entity every frame, against their
+ * allocation-free {@link MutableMatrix4} equivalents. Run with the GC profiler (the default for
+ * this project's {@code jmh} task), so the allocation rate of each is reported alongside its time
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Matrix4Benchmark {
+
+  private Vector3 translation;
+  private Vector3 rotation;
+  private Quaternion orientation;
+  private Vector3 scale;
+  private Vector4 vector;
+  private Matrix4 a;
+  private Matrix4 b;
+
+  private MutableMatrix4 mutableA;
+  private MutableMatrix4 mutableB;
+  private MutableMatrix4 dest;
+
+  @Setup
+  public void setUp() {
+    this.translation = Vector3.of(1, -2, 3);
+    this.rotation = Vector3.of(0.3f, 1.2f, -0.7f);
+    this.orientation = Quaternion.euler(this.rotation);
+    this.scale = Vector3.of(2, 0.5f, 1.5f);
+    this.vector = Vector4.of(4, 5, 6, 1);
+    this.a = Matrix4.transform(this.translation, this.rotation, this.scale);
+    this.b = Projection.perspective(Math.PI / 4, 16 / 9f, 0.1f, 100);
+
+    this.mutableA = MutableMatrix4.of(this.a);
+    this.mutableB = MutableMatrix4.of(this.b);
+    this.dest = MutableMatrix4.identity();
+  }
+
+  @Benchmark
+  public Matrix4 times() {
+    return this.a.times(this.b);
+  }
+
+  @Benchmark
+  public Vector4 timesVector() {
+    return this.a.times(this.vector);
+  }
+
+  @Benchmark
+  public Matrix4 invert() {
+    return this.a.invert();
+  }
+
+  @Benchmark
+  public Matrix4 transpose() {
+    return this.a.transpose();
+  }
+
+  @Benchmark
+  public Matrix4 transform() {
+    return Matrix4.transform(this.translation, this.rotation, this.scale);
+  }
+
+  @Benchmark
+  public Matrix4 normalTransform() {
+    return Matrix4.normalTransform(this.rotation, this.scale);
+  }
+
+  @Benchmark
+  public Matrix4 invertTranspose() {
+    return this.a.invert().transpose();
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableSetProduct() {
+    return this.dest.setProduct(this.mutableA, this.mutableB);
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableInvert() {
+    return this.dest.set(this.mutableA).invert();
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableTranspose() {
+    return this.dest.set(this.mutableA).transpose();
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableSetTransform() {
+    return this.dest.setTransform(this.translation, this.rotation, this.scale);
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableSetTransformQuaternion() {
+    return this.dest.setTransform(this.translation, this.orientation, this.scale);
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableSetNormalTransform() {
+    return this.dest.setNormalTransform(this.mutableA);
+  }
+
+  @Benchmark
+  public MutableMatrix4 mutableInvertTranspose() {
+    return this.dest.set(this.mutableA).invert().transpose();
+  }
+}
@@ -0,0 +1,46 @@
+package jakemarsden.opengl.engine.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures building the camera's transforms, which happens whenever it moves */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+  private float fovY;
+  private float ar;
+  private float nearZ;
+  private float farZ;
+  private Vector3 eye;
+  private Vector3 centre;
+  private Vector3 up;
+
+  @Setup
+  public void setUp() {
+    this.fovY = Math.PI / 4;
+    this.ar = 16 / 9f;
+    this.nearZ = 0.1f;
+    this.farZ = 100;
+    this.eye = Vector3.of(3, 4, 5);
+    this.centre = Vector3.of(0, 1, -2);
+    this.up = Vector3.unit(0, 1, 0);
+  }
+
+  @Benchmark
+  public Matrix4 perspective() {
+    return Projection.perspective(this.fovY, this.ar, this.nearZ, this.farZ);
+  }
+
+  @Benchmark
+  public Matrix4 lookAt() {
+    return Projection.lookAt(this.eye, this.centre, this.up);
+  }
+}
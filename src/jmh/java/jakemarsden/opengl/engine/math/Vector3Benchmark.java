@@ -0,0 +1,84 @@
+package jakemarsden.opengl.engine.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link Vector3} operations against their allocation-free {@link MutableVector3}
+ * equivalents. Each mutable benchmark resets its destination first, so it doesn't drift towards
+ * infinity or zero over the run
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Vector3Benchmark {
+
+  private Vector3 a;
+  private Vector3 b;
+  private float factor;
+  private MutableVector3 dest;
+
+  @Setup
+  public void setUp() {
+    this.a = Vector3.of(1, -2, 3);
+    this.b = Vector3.of(-4, 5, 0.5f);
+    this.factor = 1.5f;
+    this.dest = MutableVector3.zero();
+  }
+
+  @Benchmark
+  public Vector3 plus() {
+    return this.a.plus(this.b);
+  }
+
+  @Benchmark
+  public Vector3 minus() {
+    return this.a.minus(this.b);
+  }
+
+  @Benchmark
+  public Vector3 times() {
+    return this.a.times(this.factor);
+  }
+
+  @Benchmark
+  public float dot() {
+    return this.a.dot(this.b);
+  }
+
+  @Benchmark
+  public Vector3 cross() {
+    return this.a.cross(this.b);
+  }
+
+  @Benchmark
+  public float length() {
+    return this.a.length();
+  }
+
+  @Benchmark
+  public Vector3 normalise() {
+    return this.a.normalise();
+  }
+
+  @Benchmark
+  public MutableVector3 mutableAdd() {
+    return this.dest.set(this.a).add(this.b);
+  }
+
+  @Benchmark
+  public MutableVector3 mutableCross() {
+    return this.dest.set(this.a).cross(this.b);
+  }
+
+  @Benchmark
+  public MutableVector3 mutableNormalise() {
+    return this.dest.set(this.a).normalise();
+  }
+}
@@ -0,0 +1,107 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.Projection;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the scalar {@link MathKernels} with the Vector API ones, over a column of {@code count}
+ * matrices, points or boxes. Without {@code -PsimdJavaHome} pointing at a JDK 16+, the {@code
+ * vector} kernels aren't available and every {@code best*} benchmark measures the scalar ones
+ * again
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MathKernelsBenchmark {
+
+  @Param({"1000", "10000"})
+  public int count;
+
+  private MathKernels scalar;
+  private MathKernels best;
+
+  private float[] camera;
+  private float[] models;
+  private float[] points;
+  private float[] bounds;
+  private float[] destMatrices;
+  private float[] destPoints;
+  private float[] destBounds;
+
+  @Setup
+  public void setUp() {
+    this.scalar = MathKernels.scalar();
+    this.best = MathKernels.best();
+
+    final var rnd = new Random(0);
+    this.camera = Projection.perspective(PI / 4, 16 / 9f, 0.1f, 100).toArray();
+    this.models = new float[16 * this.count];
+    this.points = new float[3 * this.count];
+    this.bounds = new float[6 * this.count];
+    for (var i = 0; i < this.count; i++) {
+      final var model =
+          Matrix4.transform(
+              Vector3.of(rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat()),
+              Vector3.of(rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat()),
+              Vector3.of(rnd.nextFloat() + 0.5f));
+      System.arraycopy(model.toArray(), 0, this.models, 16 * i, 16);
+      for (var axis = 0; axis < 3; axis++) {
+        this.points[3 * i + axis] = 10 * rnd.nextFloat();
+        this.bounds[6 * i + axis] = -rnd.nextFloat();
+        this.bounds[6 * i + 3 + axis] = rnd.nextFloat();
+      }
+    }
+    this.destMatrices = new float[this.models.length];
+    this.destPoints = new float[this.points.length];
+    this.destBounds = new float[this.bounds.length];
+  }
+
+  @Benchmark
+  public float[] scalarMultiply() {
+    this.scalar.multiply(this.camera, 0, this.models, 0, this.destMatrices, 0, this.count);
+    return this.destMatrices;
+  }
+
+  @Benchmark
+  public float[] bestMultiply() {
+    this.best.multiply(this.camera, 0, this.models, 0, this.destMatrices, 0, this.count);
+    return this.destMatrices;
+  }
+
+  @Benchmark
+  public float[] scalarTransformPoints() {
+    this.scalar.transformPoints(this.models, 0, this.points, 0, this.destPoints, 0, this.count);
+    return this.destPoints;
+  }
+
+  @Benchmark
+  public float[] bestTransformPoints() {
+    this.best.transformPoints(this.models, 0, this.points, 0, this.destPoints, 0, this.count);
+    return this.destPoints;
+  }
+
+  @Benchmark
+  public float[] scalarTransformBounds() {
+    this.scalar.transformBounds(this.models, 0, this.bounds, 0, this.destBounds, 0, this.count);
+    return this.destBounds;
+  }
+
+  @Benchmark
+  public float[] bestTransformBounds() {
+    this.best.transformBounds(this.models, 0, this.bounds, 0, this.destBounds, 0, this.count);
+    return this.destBounds;
+  }
+}
@@ -0,0 +1,79 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static org.lwjgl.BufferUtils.createByteBuffer;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures converting a 4K texture with a {@link PixelConverter}, compared to calling {@link
+ * BufferedImage#getRGB(int, int)} and putting each byte one pixel at a time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PixelConverterBenchmark {
+
+  private static final int WIDTH = 3840;
+  private static final int HEIGHT = 2160;
+
+  /** What {@code ImageIO} decodes opaque and translucent PNGs into */
+  @Param({"" + BufferedImage.TYPE_3BYTE_BGR, "" + BufferedImage.TYPE_4BYTE_ABGR})
+  public int imageType;
+
+  @Param({"false", "true"})
+  public boolean useAlpha;
+
+  private BufferedImage img;
+  private final PixelConverter sequential = PixelConverter.sequential();
+  private final PixelConverter parallel = PixelConverter.parallel();
+
+  @Setup
+  public void setUp() {
+    final var rnd = new Random(0);
+    this.img = new BufferedImage(WIDTH, HEIGHT, this.imageType);
+    final var row = new int[WIDTH];
+    for (var y = 0; y < HEIGHT; y++) {
+      for (var x = 0; x < WIDTH; x++) row[x] = rnd.nextInt();
+      this.img.setRGB(0, y, WIDTH, 1, row, 0, WIDTH);
+    }
+  }
+
+  @Benchmark
+  public ByteBuffer getRgbPerPixel() {
+    final var img = this.img;
+    final var useAlpha = this.useAlpha;
+    final var pixBuf = createByteBuffer(WIDTH * HEIGHT * (useAlpha ? 4 : 3));
+    for (var y = 0; y < HEIGHT; y++) {
+      for (var x = 0; x < WIDTH; x++) {
+        final var pix = img.getRGB(x, y);
+        pixBuf.put((byte) (0xff & (pix >> 16)));
+        pixBuf.put((byte) (0xff & (pix >> 8)));
+        pixBuf.put((byte) (0xff & pix));
+        if (useAlpha) pixBuf.put((byte) (0xff & (pix >> 24)));
+      }
+    }
+    pixBuf.flip();
+    return pixBuf;
+  }
+
+  @Benchmark
+  public ByteBuffer sequential() {
+    return this.sequential.convert(this.img, this.useAlpha);
+  }
+
+  @Benchmark
+  public ByteBuffer parallel() {
+    return this.parallel.convert(this.img, this.useAlpha);
+  }
+}
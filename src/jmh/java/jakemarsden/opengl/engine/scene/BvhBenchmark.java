@@ -0,0 +1,129 @@
+package jakemarsden.opengl.engine.scene;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+
+import jakemarsden.opengl.engine.camera.PerspectiveCamera;
+import jakemarsden.opengl.engine.entity.Entity;
+import jakemarsden.opengl.engine.entity.EntityStore;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.BoxMesh;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures building and refitting a {@link Bvh}, and querying it compared to scanning every
+ * entity's bounds
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BvhBenchmark {
+
+  @Param({"10000", "100000"})
+  public int entityCount;
+
+  private Entity[] entities;
+  private Bvh sequential;
+  private Bvh parallel;
+  private Frustum frustum;
+  private Vector3 rayOrigin;
+  private Vector3 rayDirection;
+  private final float[] bounds = new float[6];
+  private int visited;
+  private final Bvh.Visitor counter = this::count;
+
+  @Setup
+  public void setUp() {
+    final var rnd = new Random(0);
+    final var model = ModelLoader.load(new Mesh[] {new BoxMesh()});
+
+    final var store = EntityStore.create(this.entityCount);
+    this.entities = new Entity[this.entityCount];
+    for (var i = 0; i < this.entityCount; i++) {
+      this.entities[i] =
+          Entity.builder(store, model)
+              .withPosition(
+                  Vector3.of(
+                      200 * rnd.nextFloat() - 100,
+                      200 * rnd.nextFloat() - 100,
+                      200 * rnd.nextFloat() - 100))
+              .withRotation(Vector3.of(2 * PI * rnd.nextFloat(), 2 * PI * rnd.nextFloat(), 0))
+              .withScale(Vector3.of(0.5f))
+              .build();
+    }
+    store.update(0, 0);
+
+    this.sequential = Bvh.sequential();
+    this.sequential.build(this.entities, this.entityCount);
+    this.parallel = Bvh.parallel();
+    this.parallel.build(this.entities, this.entityCount);
+
+    final var camera =
+        new PerspectiveCamera(Vector3.zero(), Vector3.unit(0, 0, -1), 0.1f, 100, PI / 2, 16 / 9f);
+    this.frustum = Frustum.create().set(camera.calculatePvTransform());
+    this.rayOrigin = Vector3.of(-100, 1, 2);
+    this.rayDirection = Vector3.unit(1, 0.05f, -0.02f);
+  }
+
+  @Benchmark
+  public int buildSequential() {
+    this.sequential.rebuild();
+    return this.sequential.getNodeCount();
+  }
+
+  @Benchmark
+  public int buildParallel() {
+    this.parallel.rebuild();
+    return this.parallel.getNodeCount();
+  }
+
+  @Benchmark
+  public float refit() {
+    this.sequential.refit();
+    return this.sequential.getCost();
+  }
+
+  @Benchmark
+  public int queryFrustum() {
+    this.visited = 0;
+    this.sequential.queryFrustum(this.frustum, this.counter);
+    return this.visited;
+  }
+
+  @Benchmark
+  public int scanFrustum() {
+    var visited = 0;
+    final var b = this.bounds;
+    for (final var entity : this.entities) {
+      entity.getBounds(b, 0);
+      if (this.frustum.intersects(b[0], b[1], b[2], b[3], b[4], b[5])) visited++;
+    }
+    return visited;
+  }
+
+  @Benchmark
+  public Entity raycastClosest() {
+    return this.sequential.raycastClosest(this.rayOrigin, this.rayDirection, 1000);
+  }
+
+  @Benchmark
+  public Entity findNearest() {
+    return this.sequential.findNearest(Vector3.zero(), 1000);
+  }
+
+  private boolean count(Entity entity) {
+    this.visited++;
+    return true;
+  }
+}
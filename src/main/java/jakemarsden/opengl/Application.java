@@ -1,19 +1,30 @@
 package jakemarsden.opengl;
 
+import static org.checkerframework.checker.units.UnitsTools.s;
 import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
 
+import jakemarsden.opengl.engine.Clock;
 import jakemarsden.opengl.engine.Engine;
 import jakemarsden.opengl.engine.display.GlfwDisplay;
+import jakemarsden.opengl.engine.gl.LwjglGl;
+import jakemarsden.opengl.engine.profiling.Profiler;
 import jakemarsden.opengl.engine.res.ResourceLoader;
 import jakemarsden.opengl.lwjgl.LwjglToSlf4jAdapter;
+import java.time.Duration;
 import java.util.Random;
+import org.checkerframework.checker.units.qual.s;
 import org.fissore.slf4j.FluentLogger;
+import org.lwjgl.opengl.GL;
 import org.lwjgl.system.Configuration;
 
 public class Application implements Runnable {
 
   private static final FluentLogger LOGGER = getLogger(Application.class);
 
+  private static final @s float UPDATE_STEP_TIME = 1 / 60f * s;
+  private static final int MAX_UPDATES_PER_FRAME = 5;
+  private static final Duration PROFILER_SUMMARY_INTERVAL = Duration.ofSeconds(5);
+
   public static void main(String[] args) {
     LOGGER.info().log("#main: args={}", (Object) args);
 
@@ -30,10 +41,17 @@ public class Application implements Runnable {
 
     final var display = GlfwDisplay.create(1024, 768, "Learning OpenGL");
     final var resLoader = ResourceLoader.create(Application.class, "res");
+    GL.createCapabilities();
+
+    final var profiler = Profiler.create();
+    profiler.setSummaryInterval(PROFILER_SUMMARY_INTERVAL);
 
-    final var game = new MainGame(display, resLoader, new Random());
-    new Engine(game).run();
+    final var game = new MainGame(LwjglGl.create(), display, resLoader, profiler, new Random());
+    Engine.fixedStep(game, Clock.glfw(), UPDATE_STEP_TIME, MAX_UPDATES_PER_FRAME)
+        .withProfiler(profiler)
+        .run();
     game.destroy();
+    GL.destroy();
     display.destroy();
 
     LOGGER.info().log("Application shutdown");
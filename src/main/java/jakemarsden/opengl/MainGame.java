@@ -2,65 +2,120 @@ package jakemarsden.opengl;
 
 import static jakemarsden.opengl.engine.math.Math.PI;
 import static jakemarsden.opengl.engine.math.Math.toRadians;
-import static java.util.Comparator.comparingDouble;
 import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
-import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
+import static org.lwjgl.opengl.GL11.GL_LESS;
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
 
 import jakemarsden.opengl.engine.Game;
 import jakemarsden.opengl.engine.camera.PerspectiveCamera;
 import jakemarsden.opengl.engine.display.Display;
 import jakemarsden.opengl.engine.entity.Entity;
+import jakemarsden.opengl.engine.entity.EntityStore;
+import jakemarsden.opengl.engine.entity.EntityUpdateScheduler;
+import jakemarsden.opengl.engine.entity.FrustumCuller;
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.RenderStats;
 import jakemarsden.opengl.engine.light.Attenuation;
 import jakemarsden.opengl.engine.light.DirectionalLight;
+import jakemarsden.opengl.engine.light.LightClusterGrid;
 import jakemarsden.opengl.engine.light.PointLight;
 import jakemarsden.opengl.engine.light.SpotLight;
 import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
 import jakemarsden.opengl.engine.math.Vector2;
 import jakemarsden.opengl.engine.math.Vector3;
 import jakemarsden.opengl.engine.model.*;
+import jakemarsden.opengl.engine.profiling.GpuTimer;
+import jakemarsden.opengl.engine.profiling.Profiler;
+import jakemarsden.opengl.engine.profiling.ScopedTimer;
+import jakemarsden.opengl.engine.render.RenderQueue;
 import jakemarsden.opengl.engine.res.ResourceLoader;
 import jakemarsden.opengl.engine.res.material.Material;
 import jakemarsden.opengl.engine.res.material.MaterialLoader;
 import jakemarsden.opengl.engine.res.texture.TextureLoader;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.units.qual.s;
 import org.fissore.slf4j.FluentLogger;
-import org.lwjgl.opengl.GL;
 
 final class MainGame implements Game {
 
   private static final FluentLogger LOGGER = getLogger(MainGame.class);
 
+  /** How long each frame can spend uploading textures which have been decoded in the background */
+  private static final Duration TEXTURE_UPLOAD_BUDGET = Duration.ofMillis(2);
+
+  private final Gl gl;
+  private final TextureLoader texLoader;
   private final MaterialLoader matLoader;
 
   private final Display display;
   private final Random rnd;
 
+  private final ScopedTimer uploadTimer;
+  private final ScopedTimer cullTimer;
+  private final ScopedTimer swapTimer;
+  /** How long the GPU spends drawing each frame, as opposed to how long it takes to submit it */
+  private final GpuTimer drawTimer;
+
   private final PerspectiveCamera camera;
   private final MainShader shader;
+  private final RenderQueue renderQueue;
+  /** Counts the GL calls made while rendering each frame */
+  private final RenderStats renderStats;
 
+  private final EntityStore entities;
+  private final EntityUpdateScheduler entityUpdater;
+  private final FrustumCuller culler;
   private final List<Entity> crates;
   private final List<Entity> lamps;
 
-  private final DirectionalLight sunLight;
-  private final List<PointLight> lampLights;
-  private final List<SpotLight> spotLights;
+  /** Every crate shares the same geometry, and is drawn with a single instanced draw call */
+  private final Model crateModel;
+  private final InstancedMesh crateInstances;
+  /** Every lamp shares the same geometry, and is drawn with a single instanced draw call */
+  private final Model lampModel;
+  private final InstancedMesh lampInstances;
+  /** Reused for copying each entity's transforms into its instance buffer */
+  private final MutableMatrix4 instanceTransform = MutableMatrix4.identity();
+  /** Reused for copying each entity's normal transform into its instance buffer */
+  private final MutableMatrix4 instanceNormalTransform = MutableMatrix4.identity();
 
-  MainGame(@NonNull Display display, @NonNull ResourceLoader resLoader, @NonNull Random rnd) {
+  private final DirectionalLight sunLight;
+  private final PointLight[] lampLights;
+  private final SpotLight[] spotLights;
+  /** Rebuilt every frame, so each fragment only considers the lamps which can reach it */
+  private final LightClusterGrid lightClusters;
+
+  MainGame(
+      @NonNull Gl gl,
+      @NonNull Display display,
+      @NonNull ResourceLoader resLoader,
+      @NonNull Profiler profiler,
+      @NonNull Random rnd) {
     LOGGER.info().log("#<init>");
 
+    this.gl = gl;
     this.display = display;
-    this.matLoader = MaterialLoader.create(resLoader, TextureLoader.create(resLoader));
+    this.texLoader = TextureLoader.async(gl, resLoader);
+    this.matLoader = MaterialLoader.create(resLoader, this.texLoader);
     this.rnd = rnd;
 
-    GL.createCapabilities();
-    glEnable(GL_DEPTH_TEST);
-    glDepthFunc(GL_LESS);
-    glClearColor(0.4f, 0.4f, 0.5f, 1);
+    gl.enable(GL_DEPTH_TEST);
+    gl.depthFunc(GL_LESS);
+    gl.clearColor(0.4f, 0.4f, 0.5f, 1);
+
+    this.uploadTimer = profiler.section("upload");
+    this.cullTimer = profiler.section("cull");
+    this.swapTimer = profiler.section("swap");
+    this.drawTimer = profiler.gpuTimer("gpu", gl);
+    this.renderStats = gl.getStats();
 
     this.camera =
         new PerspectiveCamera(
@@ -68,10 +123,22 @@ final class MainGame implements Game {
             Vector3.unit(0, 0, -1),
             display.getWidth() / (float) display.getHeight());
 
-    this.shader = new MainShader();
+    this.shader = new MainShader(gl);
+    this.renderQueue = RenderQueue.create(this.camera.getFarZ());
 
     final var crateCount = 400;
     final var crateSize = 0.375f;
+    final var lampCount = 100;
+    final var lampSize = 0.1f;
+    final var lampAttn = Attenuation.range(30);
+
+    this.entities = EntityStore.interpolated(crateCount + lampCount);
+    this.entityUpdater = EntityUpdateScheduler.parallel();
+    this.culler = FrustumCuller.create();
+
+    final var crateMesh = createCubeMesh(gl, this.matLoader.load("crate.material.yml"));
+    this.crateModel = ModelLoader.load(new Mesh[] {crateMesh});
+    this.crateInstances = InstancedMeshLoader.load(gl, crateMesh, crateCount);
 
     this.crates = new ArrayList<>(crateCount);
     for (var idx = 0; idx < crateCount; idx++) {
@@ -86,7 +153,7 @@ final class MainGame implements Game {
       final var rotVel = Vector3.of(0, nextFloat(rnd, -0.25f * PI, 0.25f * PI), 0);
 
       this.crates.add(
-          Entity.builder(createCubeModel(this.matLoader.load("crate.material.yml")))
+          Entity.builder(this.entities, this.crateModel)
               .withPosition(pos)
               .withRotation(rot)
               .withRotationalVelocity(rotVel)
@@ -94,12 +161,12 @@ final class MainGame implements Game {
               .build());
     }
 
-    final var lampCount = 100;
-    final var lampSize = 0.1f;
-    final var lampAttn = Attenuation.range(30);
+    final var lampMesh = createCubeMesh(gl, this.matLoader.load("lamp.material.yml"));
+    this.lampModel = ModelLoader.load(new Mesh[] {lampMesh});
+    this.lampInstances = InstancedMeshLoader.load(gl, lampMesh, lampCount);
 
     this.lamps = new ArrayList<>(lampCount);
-    this.lampLights = new ArrayList<>(lampCount);
+    this.lampLights = new PointLight[lampCount];
     for (var i = 0; i < lampCount; i++) {
       final var pos =
           Vector3.of(
@@ -113,15 +180,22 @@ final class MainGame implements Game {
               nextFloat(rnd, 0, 2 * PI));
 
       this.lamps.add(
-          Entity.builder(createCubeModel(this.matLoader.load("lamp.material.yml")))
+          Entity.builder(this.entities, this.lampModel)
               .withPosition(pos)
               .withRotation(rot)
               .withScale(Vector3.of(lampSize))
               .build());
-      this.lampLights.add(
-          new PointLight(
-              pos, lampAttn, Color3.white().times(0.1f), Color3.white(), Color3.white()));
+      // lamps never move, so neither do their lights
+      final var lampLight =
+          new PointLight(pos, lampAttn, Color3.white().times(0.1f), Color3.white(), Color3.white());
+      this.lampLights[i] = lampLight;
     }
+    this.lightClusters =
+        LightClusterGrid.create(
+            MainShader.CLUSTER_TILES_X,
+            MainShader.CLUSTER_TILES_Y,
+            MainShader.CLUSTER_SLICES,
+            this.shader.getMaxClusterLightIndices());
 
     final var sunColor = Color3.gray(0.5f);
     this.sunLight =
@@ -138,12 +212,12 @@ final class MainGame implements Game {
             torchColor.times(0.1f),
             torchColor,
             torchColor);
-    this.spotLights = List.of(torchLight);
+    this.spotLights = new SpotLight[] {torchLight};
 
-    glViewport(0, 0, this.display.getWidth(), this.display.getHeight());
+    gl.viewport(0, 0, this.display.getWidth(), this.display.getHeight());
     this.display.setResizeCallback(
         (newWidth, newHeight) -> {
-          glViewport(0, 0, newWidth, newHeight);
+          gl.viewport(0, 0, newWidth, newHeight);
           this.camera.setAspectRatio(newWidth / (float) newHeight);
         });
     this.display.setVisible(true);
@@ -157,10 +231,14 @@ final class MainGame implements Game {
 
     this.crates.forEach(Entity::destroy);
     this.lamps.forEach(Entity::destroy);
+    this.crateInstances.destroy();
+    this.lampInstances.destroy();
+    this.crateModel.destroy();
+    this.lampModel.destroy();
 
     this.shader.destroy();
-
-    GL.destroy();
+    this.texLoader.destroy();
+    this.drawTimer.destroy();
   }
 
   @Override
@@ -173,51 +251,60 @@ final class MainGame implements Game {
 
   @Override
   public void update(@s float deltaTime, @s float elapsedTime) {
-    this.crates.forEach(crate -> crate.update(deltaTime, elapsedTime));
-
-    for (var i = 0; i < this.lamps.size(); i++) {
-      final var lamp = this.lamps.get(i);
-      lamp.update(deltaTime, elapsedTime);
-      this.lampLights.get(i).setPosition(lamp.getPosition());
-    }
+    this.entityUpdater.update(this.entities, deltaTime);
   }
 
   @Override
-  public void render() {
-    glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+  public void render(float alpha) {
+    this.entityUpdater.interpolate(this.entities, alpha);
+    this.uploadTimer.start();
+    this.texLoader.processUploads(TEXTURE_UPLOAD_BUDGET);
+    this.uploadTimer.stop();
 
-    this.shader.start();
+    this.drawTimer.begin();
+    this.gl.clear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+
+    // uploaded when the render queue starts the shader
     this.shader.setCameraPosition(this.camera.getPosition());
     this.shader.setCameraTransform(this.camera.calculatePvTransform());
 
-    this.shader.setDirectionalLight(this.sunLight);
-    this.shader.setSpotLights(this.spotLights.toArray(SpotLight[]::new));
-
-    final var lightCount = this.shader.getMaxSupportedPointLights();
-    final var entities = Stream.concat(this.crates.stream(), this.lamps.stream());
-    entities.forEach(
-        entity -> {
-          final var closestLightsToEntity =
-              this.findClosestPointLightsTo(entity.getPosition())
-                  .limit(lightCount)
-                  .toArray(PointLight[]::new);
+    this.shader.setLights(this.sunLight, this.lampLights, this.lampLights.length, this.spotLights);
+    this.lightClusters.bin(this.lampLights, this.lampLights.length, this.camera);
+    this.shader.setLightClusters(this.lightClusters);
 
-          this.shader.setPointLights(closestLightsToEntity);
-          entity.draw(shader);
-        });
-
-    this.shader.stop();
+    this.cullTimer.start();
+    this.culler.cull(this.entities, this.camera);
+    this.cullTimer.stop();
+    this.submitAll(this.crates, this.crateInstances);
+    this.submitAll(this.lamps, this.lampInstances);
+    // starts the shader, and stops it again once it's done
+    this.renderQueue.flush();
+    this.drawTimer.end();
 
+    this.swapTimer.start();
     this.display.swapDrawBuffers();
+    this.swapTimer.stop();
     this.display.processPendingInputEvents();
+    // so the store's counters cover a single frame, however many updates it took
+    this.renderStats.countNormalTransforms(this.entities.getNormalTransformCount());
+    this.entities.resetCounters();
+    LOGGER.trace().log("Frame rendered: {}", this.renderStats);
+    this.renderStats.reset();
   }
 
-  private @NonNull Stream<@NonNull PointLight> findClosestPointLightsTo(@NonNull Vector3 target) {
-    return this.lampLights.stream()
-        .sorted(comparingDouble(light -> light.getPosition().minus(target).length2()));
+  private void submitAll(@NonNull List<@NonNull Entity> entities, @NonNull InstancedMesh mesh) {
+    mesh.clear();
+    for (var idx = 0; idx < entities.size(); idx++) {
+      final var entity = entities.get(idx);
+      if (!entity.isVisible()) continue;
+      mesh.add(
+          entity.getTransform(this.instanceTransform),
+          entity.getNormalTransform(this.instanceNormalTransform));
+    }
+    this.renderQueue.submit(this.shader, mesh, null, 0);
   }
 
-  private static @NonNull Model createCubeModel(@NonNull Material mat) {
+  private static @NonNull StaticMesh createCubeMesh(@NonNull Gl gl, @NonNull Material mat) {
     final Vertex[] vertices = {
       // back
       Vertex.of(Vector3.of(-1, -1, -1), Vector3.of(0, 0, -1), Vector2.of(0, 1)),
@@ -260,8 +347,7 @@ final class MainGame implements Game {
       20, 21, 22, 22, 20, 23, // bottom
     };
 
-    final Mesh[] meshes = {StaticMeshLoader.load(GL_TRIANGLES, vertices, indices, mat)};
-    return ModelLoader.load(meshes);
+    return StaticMeshLoader.load(gl, GL_TRIANGLES, vertices, indices, mat);
   }
 
   private static float nextFloat(@NonNull Random rnd, float min, float max) {
@@ -1,23 +1,39 @@
 package jakemarsden.opengl;
 
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
-
+import static org.lwjgl.opengl.GL13.GL_TEXTURE10;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE8;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE9;
+import static org.lwjgl.opengl.GL30.GL_R32UI;
+import static org.lwjgl.opengl.GL30.GL_RG32UI;
+import static org.lwjgl.opengl.GL30.GL_RGBA32F;
+import static org.lwjgl.opengl.GL31.GL_MAX_TEXTURE_BUFFER_SIZE;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.RenderStats;
 import jakemarsden.opengl.engine.light.DirectionalLight;
-import jakemarsden.opengl.engine.light.Light;
+import jakemarsden.opengl.engine.light.LightClusterGrid;
 import jakemarsden.opengl.engine.light.PointLight;
 import jakemarsden.opengl.engine.light.SpotLight;
-import jakemarsden.opengl.engine.math.Color3;
 import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
 import jakemarsden.opengl.engine.math.Vector3;
 import jakemarsden.opengl.engine.res.material.Material;
+import jakemarsden.opengl.engine.shader.BufferTexture;
+import jakemarsden.opengl.engine.shader.LightBlock;
+import jakemarsden.opengl.engine.shader.PointLightBuffer;
 import jakemarsden.opengl.engine.shader.Shader;
 import jakemarsden.opengl.engine.shader.ShaderProgram;
 import jakemarsden.opengl.engine.shader.ShaderProgramLoader;
+import jakemarsden.opengl.engine.shader.Uniform;
+import jakemarsden.opengl.engine.shader.UniformBuffer;
 import java.io.IOException;
-import java.util.stream.IntStream;
+import java.util.Arrays;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.fissore.slf4j.FluentLogger;
 
 final class MainShader implements Shader {
@@ -26,10 +42,21 @@ final class MainShader implements Shader {
   private static final String NAME = "main";
 
   /**
-   * Maximum number of point lights allowed in one frame. Must match the shader program's
-   * corresponding pre-processor directive
+   * Number of light clusters across, up and into the screen. Must match the shader program's
+   * corresponding pre-processor directives
+   */
+  static final int CLUSTER_TILES_X = 16;
+  static final int CLUSTER_TILES_Y = 9;
+  static final int CLUSTER_SLICES = 24;
+  /**
+   * Maximum number of light indices, summed over every cluster. Enough for an average of 18 lights
+   * in every cluster, which is plenty for lights which only reach a few units. It's also the most
+   * texels a buffer texture's guaranteed to hold, though it's still {@link
+   * #getMaxClusterLightIndices() clamped} to whatever the GPU actually supports
    */
-  private static final int MAX_POINT_LIGHTS = 4;
+  private static final int MAX_CLUSTER_LIGHT_INDICES = 1 << 16;
+  /** Maximum number of point lights allowed in one frame */
+  private static final int MAX_POINT_LIGHTS = 8192;
   /**
    * Maximum number of spotlights allowed in one frame. Must match the shader program's
    * corresponding pre-processor directive
@@ -39,35 +66,21 @@ final class MainShader implements Shader {
   private static final String UNIFORM_CAMERA_POSITION = "cameraPosition";
   private static final String UNIFORM_CAMERA_TRANSFORM = "cameraTransform";
   private static final String UNIFORM_MODEL_TRANSFORM = "modelTransform";
-  private static final String UNIFORM_MODEL_TRANSFORM_INVERSE = "invModelTransform";
-
-  private static final String UNIFORM_DIRECTIONAL_LIGHT = "directionalLight";
-  private static final String UNIFORM_DIRECTIONAL_LIGHT_DIRECTION = "directionalLight.direction";
-
-  private static final String[] UNIFORM_POINT_LIGHT;
-  private static final String[] UNIFORM_POINT_LIGHT_POSITION;
-  private static final String[] UNIFORM_POINT_LIGHT_ATTENUATION;
-
-  static {
-    UNIFORM_POINT_LIGHT = arrUniNames("pointLights[%d]", MAX_POINT_LIGHTS);
-    UNIFORM_POINT_LIGHT_POSITION = arrUniNames("pointLights[%d].position", MAX_POINT_LIGHTS);
-    UNIFORM_POINT_LIGHT_ATTENUATION = arrUniNames("pointLights[%d].attenuation", MAX_POINT_LIGHTS);
-  }
-
-  private static final String[] UNIFORM_SPOT_LIGHT;
-  private static final String[] UNIFORM_SPOT_LIGHT_POSITION;
-  private static final String[] UNIFORM_SPOT_LIGHT_DIRECTION;
-  private static final String[] UNIFORM_SPOT_LIGHT_APERTURE;
-  private static final String[] UNIFORM_SPOT_LIGHT_OUTER_APERTURE;
-
-  static {
-    UNIFORM_SPOT_LIGHT = arrUniNames("spotLights[%d]", MAX_SPOT_LIGHTS);
-    UNIFORM_SPOT_LIGHT_POSITION = arrUniNames("spotLights[%d].position", MAX_SPOT_LIGHTS);
-    UNIFORM_SPOT_LIGHT_DIRECTION = arrUniNames("spotLights[%d].direction", MAX_SPOT_LIGHTS);
-    UNIFORM_SPOT_LIGHT_APERTURE = arrUniNames("spotLights[%d].aperture", MAX_SPOT_LIGHTS);
-    UNIFORM_SPOT_LIGHT_OUTER_APERTURE =
-        arrUniNames("spotLights[%d].outerAperture", MAX_SPOT_LIGHTS);
-  }
+  private static final String UNIFORM_NORMAL_TRANSFORM = "normalTransform";
+  private static final String UNIFORM_INSTANCED = "instanced";
+
+  private static final String UNIFORM_BLOCK_LIGHTS = "Lights";
+  private static final int UNIFORM_BLOCK_LIGHTS_BINDING = 0;
+  private static final String UNIFORM_POINT_LIGHTS = "pointLights";
+  private static final String UNIFORM_LIGHT_CLUSTERS = "lightClusters";
+  private static final String UNIFORM_LIGHT_INDICES = "lightIndices";
+  private static final String UNIFORM_CLUSTER_NEAR_Z = "clusterNearZ";
+  private static final String UNIFORM_CLUSTER_FAR_Z = "clusterFarZ";
+
+  // after the material's texture units
+  private static final int TEX_UNIT_POINT_LIGHTS = GL_TEXTURE8;
+  private static final int TEX_UNIT_LIGHT_CLUSTERS = GL_TEXTURE9;
+  private static final int TEX_UNIT_LIGHT_INDICES = GL_TEXTURE10;
 
   private static final String UNIFORM_MATERIAL_AMBIENT = "material.ambientMap";
   private static final String UNIFORM_MATERIAL_DIFFUSE = "material.diffuseMap";
@@ -75,137 +88,245 @@ final class MainShader implements Shader {
   private static final String UNIFORM_MATERIAL_EMISSION = "material.emissionMap";
   private static final String UNIFORM_MATERIAL_SHININESS = "material.shininess";
 
-  private static @NonNull String @NonNull [] arrUniNames(@NonNull String format, int count) {
-    return IntStream.range(0, count)
-        .mapToObj(idx -> String.format(format, idx))
-        .toArray(String[]::new);
-  }
-
   private final ShaderProgram prog;
+  /** Where the normal transforms calculated for each draw are counted */
+  private final RenderStats stats;
+  private final LightBlock lights = LightBlock.create(MAX_SPOT_LIGHTS);
+  private final UniformBuffer lightBuffer;
+  private final PointLightBuffer pointLights = PointLightBuffer.create(MAX_POINT_LIGHTS);
+  private final BufferTexture pointLightTexture;
+  private final BufferTexture lightClusterTexture;
+  private final BufferTexture lightIndexTexture;
+  /** Lower than {@link #MAX_CLUSTER_LIGHT_INDICES} if the GPU can't fit that many */
+  private final int maxClusterLightIndices;
+  /** Reused for copying immutable model transforms, to avoid allocating on every draw */
+  private final MutableMatrix4 tmpModelTransform = MutableMatrix4.identity();
+  /** Reused for calculating each model's normal matrix, to avoid allocating on every draw */
+  private final MutableMatrix4 tmpNormalTransform = MutableMatrix4.identity();
+
+  private final Uniform cameraPosition;
+  private final Uniform cameraTransform;
+  private final Uniform modelTransform;
+  private final Uniform normalTransform;
+  private final Uniform instanced;
+  private final Uniform clusterNearZ;
+  private final Uniform clusterFarZ;
+  private final Uniform materialAmbient;
+  private final Uniform materialDiffuse;
+  private final Uniform materialSpecular;
+  private final Uniform materialEmission;
+  private final Uniform materialShininess;
+
+  /** Whether the program's currently in use, so uniforms can be uploaded straight away */
+  private boolean started = false;
+  /**
+   * Per-frame uniforms which were set while the program wasn't in use, to be uploaded when it's
+   * next {@link #start() started}. {@code null} once they have been
+   */
+  private @Nullable Vector3 pendingCameraPosition = null;
+
+  private @Nullable Matrix4 pendingCameraTransform = null;
+  private @Nullable LightClusterGrid pendingClusters = null;
+
+  /** @throws IllegalStateException if the GPU's buffer textures are too small for the lights */
+  MainShader(@NonNull Gl gl) {
+    final var maxTexels = gl.getInteger(GL_MAX_TEXTURE_BUFFER_SIZE);
+    final var minTexels =
+        max(
+            CLUSTER_TILES_X * CLUSTER_TILES_Y * CLUSTER_SLICES,
+            PointLightBuffer.TEXELS_PER_LIGHT * MAX_POINT_LIGHTS);
+    if (maxTexels < minTexels)
+      throw new IllegalStateException(
+          "Expected GL_MAX_TEXTURE_BUFFER_SIZE: >=" + minTexels + " but was: " + maxTexels);
+    this.maxClusterLightIndices = min(MAX_CLUSTER_LIGHT_INDICES, maxTexels);
+    this.stats = gl.getStats();
 
-  MainShader() {
     try {
-      this.prog = ShaderProgramLoader.load(NAME, MainShader.class);
+      this.prog = ShaderProgramLoader.load(gl, NAME, MainShader.class);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    this.cameraPosition = this.prog.getUniform(UNIFORM_CAMERA_POSITION);
+    this.cameraTransform = this.prog.getUniform(UNIFORM_CAMERA_TRANSFORM);
+    this.modelTransform = this.prog.getUniform(UNIFORM_MODEL_TRANSFORM);
+    this.normalTransform = this.prog.getUniform(UNIFORM_NORMAL_TRANSFORM);
+    this.instanced = this.prog.getUniform(UNIFORM_INSTANCED);
+    this.clusterNearZ = this.prog.getUniform(UNIFORM_CLUSTER_NEAR_Z);
+    this.clusterFarZ = this.prog.getUniform(UNIFORM_CLUSTER_FAR_Z);
+    this.materialAmbient = this.prog.getUniform(UNIFORM_MATERIAL_AMBIENT);
+    this.materialDiffuse = this.prog.getUniform(UNIFORM_MATERIAL_DIFFUSE);
+    this.materialSpecular = this.prog.getUniform(UNIFORM_MATERIAL_SPECULAR);
+    this.materialEmission = this.prog.getUniform(UNIFORM_MATERIAL_EMISSION);
+    this.materialShininess = this.prog.getUniform(UNIFORM_MATERIAL_SHININESS);
+
+    this.lightBuffer = UniformBuffer.create(gl, this.lights.size(), UNIFORM_BLOCK_LIGHTS_BINDING);
+    this.prog.bindUniformBlock(UNIFORM_BLOCK_LIGHTS, this.lightBuffer.getBinding());
+
+    this.pointLightTexture = BufferTexture.create(gl, GL_RGBA32F, TEX_UNIT_POINT_LIGHTS);
+    this.lightClusterTexture = BufferTexture.create(gl, GL_RG32UI, TEX_UNIT_LIGHT_CLUSTERS);
+    this.lightIndexTexture = BufferTexture.create(gl, GL_R32UI, TEX_UNIT_LIGHT_INDICES);
+    // the samplers never change which unit they read from
+    this.prog.start();
+    this.prog.setUniformTexture(UNIFORM_POINT_LIGHTS, TEX_UNIT_POINT_LIGHTS);
+    this.prog.setUniformTexture(UNIFORM_LIGHT_CLUSTERS, TEX_UNIT_LIGHT_CLUSTERS);
+    this.prog.setUniformTexture(UNIFORM_LIGHT_INDICES, TEX_UNIT_LIGHT_INDICES);
+    this.prog.stop();
   }
 
-  @Override
-  public byte getMaxSupportedPointLights() {
-    return MAX_POINT_LIGHTS;
+  /** @return how many light indices a {@link LightClusterGrid} can bin for this shader, at most */
+  int getMaxClusterLightIndices() {
+    return this.maxClusterLightIndices;
   }
 
   @Override
   public void setCameraPosition(@NonNull Vector3 pos) {
-    this.prog.setUniformVec3(UNIFORM_CAMERA_POSITION, pos);
+    if (this.started) {
+      this.prog.setUniformVec3(this.cameraPosition, pos);
+    } else {
+      this.pendingCameraPosition = pos;
+    }
   }
 
   @Override
   public void setCameraTransform(@NonNull Matrix4 camera) {
-    this.prog.setUniformMat4(UNIFORM_CAMERA_TRANSFORM, camera);
+    if (this.started) {
+      this.prog.setUniformMat4(this.cameraTransform, camera);
+    } else {
+      this.pendingCameraTransform = camera;
+    }
   }
 
   @Override
   public void setModelTransform(@NonNull Matrix4 model) {
-    this.prog.setUniformMat4(UNIFORM_MODEL_TRANSFORM, model);
-    this.prog.setUniformMat4(UNIFORM_MODEL_TRANSFORM_INVERSE, model.invert().transpose());
+    this.setModelTransform(this.tmpModelTransform.set(model));
   }
 
   @Override
-  public void setDirectionalLight(@NonNull DirectionalLight light) {
-    this.prog.setUniformVec3(UNIFORM_DIRECTIONAL_LIGHT_DIRECTION, light.getDirection());
-    this.setLight(UNIFORM_DIRECTIONAL_LIGHT, light);
+  public void setModelTransform(@NonNull MutableMatrix4 model) {
+    // model transforms are always built from a translation, rotation and scale, so this doesn't
+    // need a general inversion
+    this.setModelTransform(model, this.tmpNormalTransform.setNormalTransform(model));
+    this.stats.countNormalTransforms(1);
   }
 
   @Override
-  public void setPointLights(@NonNull PointLight @NonNull [] lights) {
-    if (lights.length > MAX_POINT_LIGHTS) {
+  public void setModelTransform(@NonNull MutableMatrix4 model, @NonNull MutableMatrix4 normal) {
+    this.prog.setUniformMat4(this.modelTransform, model);
+    this.prog.setUniformMat3(this.normalTransform, normal);
+  }
+
+  @Override
+  public void setInstanced(boolean instanced) {
+    this.prog.setUniformBool(this.instanced, instanced);
+  }
+
+  @Override
+  public void setLights(
+      @NonNull DirectionalLight directionalLight,
+      @Nullable PointLight @NonNull [] pointLights,
+      int pointLightCount,
+      @NonNull SpotLight @NonNull [] spotLights) {
+
+    if (pointLightCount > MAX_POINT_LIGHTS) {
       final var msgFormat =
           "Exceeded maximum number of point lights, expected: <={} but was: {}. Some won't have a "
+              + "visual effect, consider removing some or increase the limit";
+      LOGGER.warn().every(60, SECONDS).log(msgFormat, MAX_POINT_LIGHTS, pointLightCount);
+    }
+    if (spotLights.length > MAX_SPOT_LIGHTS) {
+      final var msgFormat =
+          "Exceeded maximum number of spot lights, expected: <={} but was: {}. Some won't have a "
               + "visual effect, consider using only the {} closest or increase the limit";
       LOGGER
           .warn()
           .every(60, SECONDS)
-          .log(msgFormat, MAX_POINT_LIGHTS, lights.length, MAX_POINT_LIGHTS);
+          .log(msgFormat, MAX_SPOT_LIGHTS, spotLights.length, MAX_SPOT_LIGHTS);
     }
-    int idx = 0;
-    for (; idx < min(lights.length, MAX_POINT_LIGHTS); idx++) this.setPointLight(idx, lights[idx]);
-    for (; idx < MAX_POINT_LIGHTS; idx++) this.unsetPointLight(idx);
-  }
-
-  private void setPointLight(int idx, @NonNull PointLight light) {
-    this.prog.setUniformVec3(UNIFORM_POINT_LIGHT_POSITION[idx], light.getPosition());
-    this.prog.setUniformVec3(UNIFORM_POINT_LIGHT_ATTENUATION[idx], light.getAttenuation());
-    this.setLight(UNIFORM_POINT_LIGHT[idx], light);
-  }
-
-  private void unsetPointLight(int idx) {
-    this.unsetLight(UNIFORM_POINT_LIGHT[idx]);
+    final var spots =
+        spotLights.length > MAX_SPOT_LIGHTS
+            ? Arrays.copyOf(spotLights, MAX_SPOT_LIGHTS)
+            : spotLights;
+    this.lights.set(directionalLight, spots);
+    this.lightBuffer.upload(this.lights.getData());
+
+    this.pointLights.set(pointLights, min(pointLightCount, MAX_POINT_LIGHTS));
+    this.pointLightTexture.upload(this.pointLights.getData());
+    this.pointLightTexture.bind();
   }
 
   @Override
-  public void setSpotLights(@NonNull SpotLight @NonNull [] lights) {
-    if (lights.length > MAX_SPOT_LIGHTS) {
+  public void setLightClusters(@NonNull LightClusterGrid clusters) {
+    if (clusters.getTilesX() != CLUSTER_TILES_X
+        || clusters.getTilesY() != CLUSTER_TILES_Y
+        || clusters.getSlices() != CLUSTER_SLICES)
+      throw new IllegalArgumentException("Unexpected cluster dimensions: " + clusters);
+    if (clusters.getDroppedLightIndexCount() != 0) {
       final var msgFormat =
-          "Exceeded maximum number of spot lights, expected: <={} but was: {}. Some won't have a "
-              + "visual effect, consider using only the {} closest or increase the limit";
+          "Exceeded maximum number of clustered lights, expected: <={} but was: {}. Some won't "
+              + "have a visual effect, consider shortening their range or increase the limit";
       LOGGER
           .warn()
           .every(60, SECONDS)
-          .log(msgFormat, MAX_SPOT_LIGHTS, lights.length, MAX_SPOT_LIGHTS);
+          .log(
+              msgFormat,
+              this.maxClusterLightIndices,
+              this.maxClusterLightIndices + clusters.getDroppedLightIndexCount());
     }
-    int idx = 0;
-    for (; idx < min(lights.length, MAX_SPOT_LIGHTS); idx++) this.setSpotLight(idx, lights[idx]);
-    for (; idx < MAX_SPOT_LIGHTS; idx++) this.unsetSpotLight(idx);
-  }
 
-  private void setSpotLight(int idx, @NonNull SpotLight light) {
-    this.prog.setUniformVec3(UNIFORM_SPOT_LIGHT_POSITION[idx], light.getPosition());
-    this.prog.setUniformVec3(UNIFORM_SPOT_LIGHT_DIRECTION[idx], light.getDirection());
-    this.prog.setUniformFloat(UNIFORM_SPOT_LIGHT_APERTURE[idx], light.getAperture());
-    this.prog.setUniformFloat(UNIFORM_SPOT_LIGHT_OUTER_APERTURE[idx], light.getOuterAperture());
-    this.setLight(UNIFORM_SPOT_LIGHT[idx], light);
-  }
-
-  private void unsetSpotLight(int idx) {
-    this.unsetLight(UNIFORM_SPOT_LIGHT[idx]);
-  }
-
-  private void setLight(@NonNull String prefix, @NonNull Light light) {
-    this.prog.setUniformVec3(prefix + ".ambient", light.getAmbient());
-    this.prog.setUniformVec3(prefix + ".diffuse", light.getDiffuse());
-    this.prog.setUniformVec3(prefix + ".specular", light.getSpecular());
+    final var clusterData = clusters.getClusters();
+    this.lightClusterTexture.upload(clusterData, clusterData.length);
+    this.lightClusterTexture.bind();
+    this.lightIndexTexture.upload(clusters.getLightIndices(), clusters.getLightIndexCount());
+    this.lightIndexTexture.bind();
+    if (this.started) {
+      this.setClusterRange(clusters);
+    } else {
+      this.pendingClusters = clusters;
+    }
   }
 
-  private void unsetLight(@NonNull String prefix) {
-    // disable by making it emit nothing
-    this.prog.setUniformVec3(prefix + ".ambient", Color3.black());
-    this.prog.setUniformVec3(prefix + ".diffuse", Color3.black());
-    this.prog.setUniformVec3(prefix + ".specular", Color3.black());
+  private void setClusterRange(@NonNull LightClusterGrid clusters) {
+    this.prog.setUniformFloat(this.clusterNearZ, clusters.getNearZ());
+    this.prog.setUniformFloat(this.clusterFarZ, clusters.getFarZ());
   }
 
   @Override
   public void setMaterial(@NonNull Material mat) {
-    this.prog.setUniformTexture(UNIFORM_MATERIAL_AMBIENT, mat.getAmbientTexUnit());
-    this.prog.setUniformTexture(UNIFORM_MATERIAL_DIFFUSE, mat.getDiffuseTexUnit());
-    this.prog.setUniformTexture(UNIFORM_MATERIAL_SPECULAR, mat.getSpecularTexUnit());
-    this.prog.setUniformTexture(UNIFORM_MATERIAL_EMISSION, mat.getEmissionTexUnit());
-    this.prog.setUniformFloat(UNIFORM_MATERIAL_SHININESS, mat.getShininess());
+    this.prog.setUniformTexture(this.materialAmbient, mat.getAmbientTexUnit());
+    this.prog.setUniformTexture(this.materialDiffuse, mat.getDiffuseTexUnit());
+    this.prog.setUniformTexture(this.materialSpecular, mat.getSpecularTexUnit());
+    this.prog.setUniformTexture(this.materialEmission, mat.getEmissionTexUnit());
+    this.prog.setUniformFloat(this.materialShininess, mat.getShininess());
   }
 
   @Override
   public void start() {
     this.prog.start();
+    this.started = true;
+
+    final var cameraPosition = this.pendingCameraPosition;
+    if (cameraPosition != null) this.prog.setUniformVec3(this.cameraPosition, cameraPosition);
+    final var cameraTransform = this.pendingCameraTransform;
+    if (cameraTransform != null) this.prog.setUniformMat4(this.cameraTransform, cameraTransform);
+    final var clusters = this.pendingClusters;
+    if (clusters != null) this.setClusterRange(clusters);
+    this.pendingCameraPosition = null;
+    this.pendingCameraTransform = null;
+    this.pendingClusters = null;
   }
 
   @Override
   public void stop() {
     this.prog.stop();
+    this.started = false;
   }
 
   @Override
   public void destroy() {
+    this.lightBuffer.destroy();
+    this.pointLightTexture.destroy();
+    this.lightClusterTexture.destroy();
+    this.lightIndexTexture.destroy();
     this.prog.destroy();
   }
 }
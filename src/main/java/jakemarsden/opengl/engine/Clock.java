@@ -0,0 +1,30 @@
+package jakemarsden.opengl.engine;
+
+import static org.checkerframework.checker.units.UnitsTools.s;
+import static org.lwjgl.glfw.GLFW.glfwGetTime;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.units.qual.s;
+
+/**
+ * Where the {@link Engine} gets the time from. Only differences between two readings are
+ * meaningful, so a clock can start from anywhere
+ *
+ * @see ManualClock
+ */
+@FunctionalInterface
+public interface Clock {
+
+  /** Reads GLFW's timer, which needs GLFW to have been initialised */
+  static @NonNull Clock glfw() {
+    return () -> glfwGetTime() * s;
+  }
+
+  /** Reads {@link System#nanoTime()}, so works without GLFW, e.g. when running headless */
+  static @NonNull Clock system() {
+    return () -> System.nanoTime() / 1e9 * s;
+  }
+
+  @s
+  double getTime();
+}
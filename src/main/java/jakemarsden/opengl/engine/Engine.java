@@ -1,37 +1,176 @@
 package jakemarsden.opengl.engine;
 
 import static org.checkerframework.checker.units.UnitsTools.s;
-import static org.lwjgl.glfw.GLFW.glfwGetTime;
-import static org.lwjgl.glfw.GLFW.glfwSetTime;
 
+import jakemarsden.opengl.engine.profiling.Profiler;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.units.qual.s;
 
+/**
+ * Runs a {@link Game}'s loop until it asks to stop.
+ *
+ * <p>In {@link #variableStep variable-step} mode, the game is updated once per frame, by however
+ * long the last frame took. In {@link #fixedStep fixed-step} mode, the time each frame took is
+ * added to an accumulator, and the game is updated in steps of exactly {@code stepTime} until
+ * there's less than one step left. The simulation then behaves the same however fast it's
+ * rendered, and what's left over is passed to {@link Game#render(float)} so it can interpolate
+ * between the last two steps. If the game falls so far behind that it can't catch up within
+ * {@code maxStepsPerFrame}, the rest is dropped, so the simulation slows down rather than spending
+ * ever longer catching up (the "spiral of death").
+ *
+ * <p>When given a {@link #withProfiler profiler}, each frame is timed as a whole ({@value
+ * #FRAME_SECTION}), along with its {@value #INPUT_SECTION}, {@value #UPDATE_SECTION} (covering
+ * every step) and {@value #RENDER_SECTION} phases
+ */
 public final class Engine implements Runnable {
 
+  public static final String FRAME_SECTION = "frame";
+  public static final String INPUT_SECTION = "input";
+  public static final String UPDATE_SECTION = "update";
+  public static final String RENDER_SECTION = "render";
+
   private final Game game;
+  private final Clock clock;
+
+  /** {@code 0} in variable-step mode */
+  private final @s float stepTime;
+
+  private final int maxStepsPerFrame;
+  private final @NonNull Profiler profiler;
+
+  public static @NonNull Engine variableStep(@NonNull Game game, @NonNull Clock clock) {
+    return new Engine(game, clock, 0 * s, 1, Profiler.disabled());
+  }
+
+  public static @NonNull Engine fixedStep(
+      @NonNull Game game, @NonNull Clock clock, @s float stepTime, int maxStepsPerFrame) {
+
+    if (!(stepTime > 0))
+      throw new IllegalArgumentException("Expected step time: >0 but was: " + stepTime);
+    if (maxStepsPerFrame <= 0)
+      throw new IllegalArgumentException(
+          "Expected max steps per frame: >0 but was: " + maxStepsPerFrame);
+    return new Engine(game, clock, stepTime, maxStepsPerFrame, Profiler.disabled());
+  }
 
-  public Engine(@NonNull Game game) {
+  private Engine(
+      @NonNull Game game,
+      @NonNull Clock clock,
+      @s float stepTime,
+      int maxStepsPerFrame,
+      @NonNull Profiler profiler) {
     this.game = game;
+    this.clock = clock;
+    this.stepTime = stepTime;
+    this.maxStepsPerFrame = maxStepsPerFrame;
+    this.profiler = profiler;
+  }
+
+  /** @return a copy of this engine, which times each phase of every frame with {@code profiler} */
+  public @NonNull Engine withProfiler(@NonNull Profiler profiler) {
+    return new Engine(this.game, this.clock, this.stepTime, this.maxStepsPerFrame, profiler);
+  }
+
+  public @NonNull Profiler getProfiler() {
+    return this.profiler;
+  }
+
+  public boolean isFixedStep() {
+    return this.stepTime != 0;
   }
 
   @Override
   public void run() {
+    if (this.isFixedStep()) {
+      this.runFixedStep();
+    } else {
+      this.runVariableStep();
+    }
+  }
+
+  private void runVariableStep() {
     final var game = this.game;
+    final var clock = this.clock;
+    final var profiler = this.profiler;
+    final var frameTimer = profiler.section(FRAME_SECTION);
+    final var inputTimer = profiler.section(INPUT_SECTION);
+    final var updateTimer = profiler.section(UPDATE_SECTION);
+    final var renderTimer = profiler.section(RENDER_SECTION);
 
+    // so frame 0 is at 0 elapsed time
+    final var startTime = clock.getTime();
     @s float elapsedTime = 0 * s;
     @s float lastUpdateTime = 0 * s;
 
-    // reset clock so frame 0 is at 0 elapsed time
-    glfwSetTime(glfwGetTime());
-
     while (game.shouldContinue()) {
+      frameTimer.start();
+      inputTimer.start();
       game.processInput();
+      inputTimer.stop();
+      updateTimer.start();
       game.update(elapsedTime - lastUpdateTime, elapsedTime);
-      game.render();
+      updateTimer.stop();
+      renderTimer.start();
+      game.render(1);
+      renderTimer.stop();
+      frameTimer.stop();
+      profiler.endFrame();
 
       lastUpdateTime = elapsedTime;
-      elapsedTime = (float) glfwGetTime() * s;
+      elapsedTime = (float) (clock.getTime() - startTime) * s;
     }
   }
+
+  private void runFixedStep() {
+    final var game = this.game;
+    final var clock = this.clock;
+    final var stepTime = this.stepTime;
+    final var profiler = this.profiler;
+    final var frameTimer = profiler.section(FRAME_SECTION);
+    final var inputTimer = profiler.section(INPUT_SECTION);
+    final var updateTimer = profiler.section(UPDATE_SECTION);
+    final var renderTimer = profiler.section(RENDER_SECTION);
+
+    var lastTime = clock.getTime();
+    @s double accumulator = 0 * s;
+    // counted rather than summed, so rounding errors don't build up
+    long stepCount = 0;
+
+    while (game.shouldContinue()) {
+      final var time = clock.getTime();
+      accumulator += time - lastTime;
+      lastTime = time;
+      frameTimer.start();
+
+      inputTimer.start();
+      game.processInput();
+      inputTimer.stop();
+      updateTimer.start();
+      var steps = 0;
+      while (accumulator >= stepTime) {
+        if (steps == this.maxStepsPerFrame) {
+          // too far behind to catch up, so give up on all but the partial step
+          accumulator %= stepTime;
+          break;
+        }
+        stepCount++;
+        game.update(stepTime, stepCount * stepTime);
+        accumulator -= stepTime;
+        steps++;
+      }
+      updateTimer.stop();
+      renderTimer.start();
+      game.render((float) (accumulator / stepTime));
+      renderTimer.stop();
+      frameTimer.stop();
+      profiler.endFrame();
+    }
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return this.isFixedStep()
+        ? "Engine{stepTime=" + this.stepTime + ", maxStepsPerFrame=" + this.maxStepsPerFrame + "}"
+        : "Engine{variableStep}";
+  }
 }
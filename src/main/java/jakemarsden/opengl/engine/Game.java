@@ -10,7 +10,12 @@ public interface Game {
 
   void update(@s float deltaTime, @s float elapsedTime);
 
-  void render();
+  /**
+   * @param alpha how far this frame is between the last two {@link #update updates}, from {@code
+   *     0} (the one before last) to {@code 1} (the last one), for interpolating between them.
+   *     Always {@code 1} when the {@link Engine} isn't using a fixed step
+   */
+  void render(float alpha);
 
   void destroy();
 }
@@ -0,0 +1,52 @@
+package jakemarsden.opengl.engine;
+
+import static org.checkerframework.checker.units.UnitsTools.s;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.units.qual.s;
+
+/**
+ * A {@link Clock} which only moves when it's told to, for deterministic tests. A {@link
+ * #ticking(double) ticking} clock also moves on by a fixed amount every time it's read, so an
+ * {@link Engine} driven by it simulates time passing as fast as the game can be updated, rather
+ * than in real time
+ */
+public final class ManualClock implements Clock {
+
+  private @s double time = 0 * s;
+  private final @s double tickTime;
+
+  /** Starts at {@code 0}, and only moves when {@link #advance advanced} */
+  public static @NonNull ManualClock create() {
+    return new ManualClock(0 * s);
+  }
+
+  /** Starts at {@code 0}, and moves on by {@code tickTime} after each time it's read */
+  public static @NonNull ManualClock ticking(@s double tickTime) {
+    if (!(tickTime >= 0))
+      throw new IllegalArgumentException("Expected tick time: >=0 but was: " + tickTime);
+    return new ManualClock(tickTime);
+  }
+
+  private ManualClock(@s double tickTime) {
+    this.tickTime = tickTime;
+  }
+
+  @Override
+  public @s double getTime() {
+    final var time = this.time;
+    this.time += this.tickTime;
+    return time;
+  }
+
+  public void advance(@s double deltaTime) {
+    if (!(deltaTime >= 0))
+      throw new IllegalArgumentException("Expected delta time: >=0 but was: " + deltaTime);
+    this.time += deltaTime;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "ManualClock{time=" + this.time + ", tickTime=" + this.tickTime + "}";
+  }
+}
@@ -44,16 +44,20 @@ abstract class BaseCamera implements Camera {
     this.dirtyView();
   }
 
+  @Override
+  public final @NonNull Matrix4 calculateViewTransform() {
+    var v = this.view;
+    if (v == null) v = this.view = this.calculateView();
+    return v;
+  }
+
   @Override
   public final @NonNull Matrix4 calculatePvTransform() {
     if (this.pv == null) {
       var p = this.projection;
       if (p == null) p = this.projection = this.calculateProjection();
 
-      var v = this.view;
-      if (v == null) v = this.view = this.calculateView();
-
-      this.pv = p.times(v);
+      this.pv = p.times(this.calculateViewTransform());
     }
     return this.pv;
   }
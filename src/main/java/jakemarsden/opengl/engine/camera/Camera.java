@@ -16,6 +16,10 @@ public interface Camera {
 
   void setDirection(@NonNull Vector3 rot);
 
+  /** @return the view transformation, from world space into this camera's view space */
+  @NonNull
+  Matrix4 calculateViewTransform();
+
   /** @return combination of the projection and view transformations representing this camera */
   @NonNull
   Matrix4 calculatePvTransform();
@@ -0,0 +1,153 @@
+package jakemarsden.opengl.engine.display;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Display} without a window (or GLFW, or a GL context), for running a game's loop on a
+ * machine without a GPU, e.g. for soak and throughput tests in CI. Moving and resizing it calls its
+ * callbacks straight away, as if a window manager had done it, and it counts the frames {@link
+ * #swapDrawBuffers() presented}. It can ask to be closed after a set number of frames, which ends
+ * the {@link jakemarsden.opengl.engine.Engine Engine}'s loop
+ */
+public final class HeadlessDisplay implements Display {
+
+  private int posX = 0;
+  private int posY = 0;
+  private int width;
+  private int height;
+  private boolean visible = false;
+  private String title;
+  private boolean closeRequested = false;
+
+  private long frameCount = 0;
+  /** {@code -1} if it shouldn't close on its own */
+  private long maxFrameCount = -1;
+
+  private @Nullable MoveCallback moveCallback;
+  private @Nullable ResizeCallback resizeCallback;
+
+  public static @NonNull HeadlessDisplay create(int width, int height, @NonNull String title) {
+    if (width <= 0) throw new IllegalArgumentException("Expected width: >0 but was: " + width);
+    if (height <= 0) throw new IllegalArgumentException("Expected height: >0 but was: " + height);
+    return new HeadlessDisplay(width, height, title);
+  }
+
+  private HeadlessDisplay(int width, int height, @NonNull String title) {
+    this.width = width;
+    this.height = height;
+    this.title = title;
+  }
+
+  /** Requests to be closed once {@code maxFrameCount} frames have been presented in total */
+  public void setCloseRequestedAfter(long maxFrameCount) {
+    if (maxFrameCount < 0)
+      throw new IllegalArgumentException("Expected max frame count: >=0 but was: " + maxFrameCount);
+    this.maxFrameCount = maxFrameCount;
+    if (this.frameCount >= maxFrameCount) this.closeRequested = true;
+  }
+
+  /** @return how many times {@link #swapDrawBuffers()} has been called */
+  public long getFrameCount() {
+    return this.frameCount;
+  }
+
+  @Override
+  public int getPosX() {
+    return this.posX;
+  }
+
+  @Override
+  public int getPosY() {
+    return this.posY;
+  }
+
+  @Override
+  public void setPos(int posX, int posY) {
+    if (posX == this.posX && posY == this.posY) return;
+    this.posX = posX;
+    this.posY = posY;
+    if (this.moveCallback != null) this.moveCallback.onMove(posX, posY);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public void setSize(int width, int height) {
+    if (width == this.width && height == this.height) return;
+    this.width = width;
+    this.height = height;
+    if (this.resizeCallback != null) this.resizeCallback.onResize(width, height);
+  }
+
+  @Override
+  public boolean isVisible() {
+    return this.visible;
+  }
+
+  @Override
+  public void setVisible(boolean visible) {
+    this.visible = visible;
+  }
+
+  @Override
+  public @NonNull String getTitle() {
+    return this.title;
+  }
+
+  @Override
+  public void setTitle(@NonNull String title) {
+    this.title = title;
+  }
+
+  @Override
+  public boolean isCloseRequested() {
+    return this.closeRequested;
+  }
+
+  @Override
+  public void setCloseRequested(boolean closeRequested) {
+    this.closeRequested = closeRequested;
+  }
+
+  @Override
+  public void setMoveCallback(@Nullable MoveCallback cb) {
+    this.moveCallback = cb;
+  }
+
+  @Override
+  public void setResizeCallback(@Nullable ResizeCallback cb) {
+    this.resizeCallback = cb;
+  }
+
+  /** There aren't any input events without a window */
+  @Override
+  public void processPendingInputEvents() {}
+
+  @Override
+  public void swapDrawBuffers() {
+    this.frameCount++;
+    if (this.maxFrameCount >= 0 && this.frameCount >= this.maxFrameCount) {
+      this.closeRequested = true;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    this.moveCallback = null;
+    this.resizeCallback = null;
+  }
+
+  @Override
+  public String toString() {
+    return "HeadlessDisplay{" + this.width + "x" + this.height + "}";
+  }
+}
@@ -1,6 +1,9 @@
 package jakemarsden.opengl.engine.entity;
 
+import jakemarsden.opengl.engine.math.Aabb;
 import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Quaternion;
 import jakemarsden.opengl.engine.math.Vector3;
 import jakemarsden.opengl.engine.model.Model;
 import jakemarsden.opengl.engine.shader.Shader;
@@ -8,37 +11,30 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.units.qual.s;
 
+/**
+ * A handle to one entity in an {@link EntityStore}. The entity's state lives in the store's
+ * columns rather than in this object
+ */
 public final class Entity {
 
+  private final EntityStore store;
   private final Model model;
 
-  private Vector3 pos;
-  private Vector3 rot;
-  private Vector3 scale;
+  /** This entity's index within {@link #store}, which changes as other entities are removed */
+  int index = -1;
 
-  private Vector3 vel;
-  private Vector3 rotVel;
+  /** Rebuilt in place from the store's transform column on every draw, rather than reallocated */
+  private final MutableMatrix4 transform = MutableMatrix4.identity();
+  /** Copied from the store's normal column on every draw, which is only recalculated when dirty */
+  private final MutableMatrix4 normalTransform = MutableMatrix4.identity();
 
-  private @Nullable Matrix4 transform;
-
-  public static Entity.@NonNull Builder builder(@NonNull Model model) {
-    return new Builder(model);
+  public static Entity.@NonNull Builder builder(@NonNull EntityStore store, @NonNull Model model) {
+    return new Builder(store, model);
   }
 
-  private Entity(
-      @NonNull Model model,
-      @NonNull Vector3 pos,
-      @NonNull Vector3 rot,
-      @NonNull Vector3 scale,
-      @NonNull Vector3 vel,
-      @NonNull Vector3 rotVel) {
-
+  private Entity(@NonNull EntityStore store, @NonNull Model model) {
+    this.store = store;
     this.model = model;
-    this.pos = pos;
-    this.rot = rot;
-    this.scale = scale;
-    this.vel = vel;
-    this.rotVel = rotVel;
   }
 
   public @NonNull Model getModel() {
@@ -46,89 +42,129 @@ public final class Entity {
   }
 
   public @NonNull Vector3 getPosition() {
-    return pos;
+    return this.store.getPosition(this.index);
   }
 
   public void setPosition(@NonNull Vector3 pos) {
-    this.pos = pos;
-    this.dirty();
+    this.store.setPosition(this.index, pos);
+  }
+
+  public @NonNull Quaternion getOrientation() {
+    return this.store.getOrientation(this.index);
   }
 
-  public @NonNull Vector3 getRotation() {
-    return rot;
+  public void setOrientation(@NonNull Quaternion orientation) {
+    this.store.setOrientation(this.index, orientation);
   }
 
+  /** Sets this entity's orientation from Euler angles, like {@link Matrix4#rotate(Vector3)} */
   public void setRotation(@NonNull Vector3 rot) {
-    this.rot = rot;
-    this.dirty();
+    this.store.setOrientation(this.index, Quaternion.euler(rot));
   }
 
   public @NonNull Vector3 getScale() {
-    return scale;
+    return this.store.getScale(this.index);
   }
 
   public void setScale(@NonNull Vector3 scale) {
-    this.scale = scale;
-    this.dirty();
+    this.store.setScale(this.index, scale);
   }
 
   public @NonNull Vector3 getVelocity() {
-    return this.vel;
+    return this.store.getVelocity(this.index);
   }
 
   public void setVelocity(@NonNull Vector3 vel) {
-    this.vel = vel;
+    this.store.setVelocity(this.index, vel);
   }
 
+  /**
+   * @return the axis this entity is rotating about, in world space, scaled by its speed in radians
+   *     per second
+   */
   public @NonNull Vector3 getRotationalVelocity() {
-    return this.rotVel;
+    return this.store.getRotationalVelocity(this.index);
   }
 
   public void setRotationalVelocity(@NonNull Vector3 rotVel) {
-    this.rotVel = rotVel;
+    this.store.setRotationalVelocity(this.index, rotVel);
   }
 
+  /**
+   * Updates just this entity. Prefer {@link EntityStore#update(float, float)} when updating every
+   * entity in the store
+   */
   public void update(@s float deltaTime, @s float elapsedTime) {
-    if (!this.vel.equals(Vector3.zero())) {
-      this.pos = this.pos.plus(this.vel.times(deltaTime));
-      this.dirty();
-    }
-    if (!this.rotVel.equals(Vector3.zero())) {
-      this.rot = this.rot.plus(this.rotVel.times(deltaTime));
-      this.dirty();
-    }
+    this.store.integrate(this.index, this.index + 1, deltaTime);
   }
 
-  public void draw(Shader shader) {
-    shader.setModelTransform(this.calculateTransform());
-    this.model.draw(shader);
+  /** Copies this entity's current model transform into {@code dest} */
+  public @NonNull MutableMatrix4 getTransform(@NonNull MutableMatrix4 dest) {
+    return this.store.getTransform(this.index, dest);
   }
 
-  public void destroy() {
-    this.model.destroy();
+  /**
+   * Copies this entity's current normal transform (the inverse-transpose of its model transform)
+   * into the upper-left 3x3 of {@code dest}. Cached, so this doesn't invert anything
+   */
+  public @NonNull MutableMatrix4 getNormalTransform(@NonNull MutableMatrix4 dest) {
+    return this.store.getNormalTransform(this.index, dest);
+  }
+
+  /** @return this entity's bounds in world space */
+  public @NonNull Aabb getBounds() {
+    return this.store.getBounds(this.index);
   }
 
-  private @NonNull Matrix4 calculateTransform() {
-    if (this.transform == null) this.transform = Matrix4.transform(this.pos, this.rot, this.scale);
-    return this.transform;
+  /**
+   * Copies this entity's bounds in world space into {@code dest}, starting at {@code offset}, as
+   * {@code minX, minY, minZ, maxX, maxY, maxZ}. Empty bounds have {@code min > max}
+   */
+  public void getBounds(float @NonNull [] dest, int offset) {
+    this.store.getBounds(this.index, dest, offset);
   }
 
-  private void dirty() {
-    this.transform = null;
+  /**
+   * @return whether this entity was inside the camera's frustum when it was last {@link
+   *     FrustumCuller culled}. Entities which have never been culled are visible
+   */
+  public boolean isVisible() {
+    return this.store.isVisible(this.index);
+  }
+
+  /** Does nothing if this entity isn't {@link #isVisible() visible} */
+  public void draw(Shader shader) {
+    if (!this.store.isVisible(this.index)) return;
+    shader.setModelTransform(
+        this.store.getTransform(this.index, this.transform),
+        this.store.getNormalTransform(this.index, this.normalTransform));
+    this.model.draw(shader);
+  }
+
+  /**
+   * Removes this entity from its store, after which this handle can't be used. Its model may be
+   * shared with other entities, so destroying it remains the responsibility of whoever created it
+   *
+   * @throws IllegalStateException if it's already been destroyed
+   */
+  public void destroy() {
+    this.store.remove(this.index);
   }
 
   public static final class Builder {
 
+    private final @NonNull EntityStore store;
     private final @NonNull Model model;
 
     private @Nullable Vector3 pos;
-    private @Nullable Vector3 rot;
+    private @Nullable Quaternion orientation;
     private @Nullable Vector3 scale;
 
     private @Nullable Vector3 vel;
     private @Nullable Vector3 rotVel;
 
-    private Builder(@NonNull Model model) {
+    private Builder(@NonNull EntityStore store, @NonNull Model model) {
+      this.store = store;
       this.model = model;
     }
 
@@ -137,8 +173,14 @@ public final class Entity {
       return this;
     }
 
+    public @NonNull Builder withOrientation(@NonNull Quaternion orientation) {
+      this.orientation = orientation;
+      return this;
+    }
+
+    /** Euler angles, like {@link Matrix4#rotate(Vector3)} */
     public @NonNull Builder withRotation(@NonNull Vector3 rot) {
-      this.rot = rot;
+      this.orientation = Quaternion.euler(rot);
       return this;
     }
 
@@ -158,13 +200,17 @@ public final class Entity {
     }
 
     public @NonNull Entity build() {
-      return new Entity(
-          this.model,
-          this.pos != null ? this.pos : Vector3.zero(),
-          this.rot != null ? this.rot : Vector3.zero(),
-          this.scale != null ? this.scale : Vector3.zero(),
-          this.vel != null ? this.vel : Vector3.zero(),
-          this.rotVel != null ? this.rotVel : Vector3.zero());
+      final var entity = new Entity(this.store, this.model);
+      entity.index =
+          this.store.add(
+              entity,
+              this.model.getBounds(),
+              this.pos != null ? this.pos : Vector3.zero(),
+              this.orientation != null ? this.orientation : Quaternion.identity(),
+              this.scale != null ? this.scale : Vector3.zero(),
+              this.vel != null ? this.vel : Vector3.zero(),
+              this.rotVel != null ? this.rotVel : Vector3.zero());
+      return entity;
     }
   }
 }
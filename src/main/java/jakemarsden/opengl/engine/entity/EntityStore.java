@@ -0,0 +1,700 @@
+package jakemarsden.opengl.engine.entity;
+
+import static java.lang.Math.abs;
+
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Quaternion;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.units.qual.s;
+
+/**
+ * Holds the state of many {@link Entity entities} in flat, primitive columns (structure-of-arrays)
+ * rather than as separate objects, so updating every entity is a tight loop over contiguous
+ * memory rather than a walk over a graph of small objects.
+ *
+ * <p>Entity {@code i}'s position is {@code pos[3 * i + 0..2]}, and similarly for its scale,
+ * velocity and rotational velocity. Its orientation is a unit quaternion, {@code orientations[4 *
+ * i + 0..3]}: {@code x, y, z, w}, so integrating its rotational velocity and rebuilding its
+ * transform don't need any trig. Its transform is {@code transforms[16 * i + 0..15]}, in the same
+ * (row-major) order as {@link jakemarsden.opengl.engine.math.Matrix4}, and its normal transform
+ * (the inverse-transpose of the transform's upper 3x3) is {@code normals[9 * i + 0..8]}. Both are
+ * only recalculated when the entity changes, so static entities cost nothing per frame. Each
+ * position and orientation is also snapshotted, in {@code prevPos} and {@code prevOrientations},
+ * at the start of every update, so rendering can {@link #interpolate} between the last two
+ * updates if the store was created {@link #interpolated}. Its bounds are {@code bounds[6 * i +
+ * 0..5]}: {@code minX, minY, minZ, maxX, maxY, maxZ} in world space, kept up to date along with
+ * its transform. Entities are kept densely packed: removing one moves the last entity into its
+ * place, and updates its handle
+ */
+public final class EntityStore {
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int ORIENTATION_SIZE = 4;
+  private static final int TRANSFORM_SIZE = 16;
+  private static final int NORMAL_SIZE = 9;
+  private static final int BOUNDS_SIZE = 6;
+  /** A position followed by an orientation */
+  static final int BLEND_SIZE = 3 + ORIENTATION_SIZE;
+
+  private @Nullable Entity @NonNull [] handles;
+
+  private float[] pos;
+  private float[] orientations;
+  /** Each entity's position and orientation as they were before the last update */
+  private float[] prevPos;
+
+  private float[] prevOrientations;
+  private float[] scale;
+  private float[] vel;
+  private float[] rotVel;
+
+  private float[] transforms;
+  private float[] normals;
+  private boolean[] transformDirty;
+  /**
+   * Whether each entity's transform was last built from an {@link #interpolate interpolated} pose,
+   * rather than its current one
+   */
+  private boolean[] interpolated;
+  /**
+   * Whether each entity moved during an update and its transform has been left for the next
+   * {@link #interpolate} to build. Until then, it keeps the transform it was last rendered with
+   */
+  private boolean[] awaitingInterpolation;
+  /** Whether the store was created {@link #interpolated} */
+  private final boolean interpolating;
+
+  /** The bounds of each entity's model, in model space */
+  private float[] localBounds;
+  /** The bounds of each entity's model, in world space */
+  private float[] bounds;
+  /** Whether each entity was inside the frustum at the last {@link #cull} */
+  private boolean[] visible;
+
+  private int size = 0;
+
+  /** Updated concurrently when transforms are rebuilt in parallel */
+  private final LongAdder normalTransformCount = new LongAdder();
+
+  /** Used for building each transform before copying it into its column */
+  private final MutableMatrix4 tmpTransform = MutableMatrix4.identity();
+  /** The pose each transform is built from while {@link #interpolate interpolating} */
+  private final float[] tmpBlend = new float[BLEND_SIZE];
+
+  public static @NonNull EntityStore create() {
+    return EntityStore.create(INITIAL_CAPACITY);
+  }
+
+  public static @NonNull EntityStore create(int initialCapacity) {
+    if (initialCapacity <= 0)
+      throw new IllegalArgumentException("Expected capacity: >0 but was: " + initialCapacity);
+    return new EntityStore(initialCapacity, false);
+  }
+
+  /**
+   * Creates a store which is rendered {@link #interpolate interpolated} between updates. Its
+   * updates leave the transforms of entities which moved for the next interpolation to build, so
+   * each one's only built once per frame however many updates there were
+   */
+  public static @NonNull EntityStore interpolated() {
+    return EntityStore.interpolated(INITIAL_CAPACITY);
+  }
+
+  /** @see #interpolated() */
+  public static @NonNull EntityStore interpolated(int initialCapacity) {
+    if (initialCapacity <= 0)
+      throw new IllegalArgumentException("Expected capacity: >0 but was: " + initialCapacity);
+    return new EntityStore(initialCapacity, true);
+  }
+
+  private EntityStore(int capacity, boolean interpolating) {
+    this.interpolating = interpolating;
+    this.handles = new Entity[capacity];
+    this.pos = new float[3 * capacity];
+    this.orientations = new float[ORIENTATION_SIZE * capacity];
+    this.prevPos = new float[3 * capacity];
+    this.prevOrientations = new float[ORIENTATION_SIZE * capacity];
+    this.scale = new float[3 * capacity];
+    this.vel = new float[3 * capacity];
+    this.rotVel = new float[3 * capacity];
+    this.transforms = new float[TRANSFORM_SIZE * capacity];
+    this.normals = new float[NORMAL_SIZE * capacity];
+    this.transformDirty = new boolean[capacity];
+    this.interpolated = new boolean[capacity];
+    this.awaitingInterpolation = new boolean[capacity];
+    this.localBounds = new float[BOUNDS_SIZE * capacity];
+    this.bounds = new float[BOUNDS_SIZE * capacity];
+    this.visible = new boolean[capacity];
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /** @return whether the store was created {@link #interpolated} */
+  public boolean isInterpolated() {
+    return this.interpolating;
+  }
+
+  /**
+   * @return how many normal transforms have been calculated since the last {@link
+   *     #resetCounters()}. Each one replaces a matrix inversion, and only happens when an entity's
+   *     transform changes
+   */
+  public long getNormalTransformCount() {
+    return this.normalTransformCount.sum();
+  }
+
+  /** Usually called once at the start of each frame */
+  public void resetCounters() {
+    this.normalTransformCount.reset();
+  }
+
+  /**
+   * Integrates the velocity and rotational velocity of every entity over {@code deltaTime}, then
+   * rebuilds the transform of every entity which changed
+   */
+  public void update(@s float deltaTime, @s float elapsedTime) {
+    this.integrate(0, this.size, deltaTime);
+    this.updateTransforms(0, this.size, this.tmpTransform);
+  }
+
+  /**
+   * Snapshots the pose of entities {@code [from, to)}, then integrates them over {@code
+   * deltaTime}. Disjoint ranges may be integrated concurrently
+   */
+  void integrate(int from, int to, @s float deltaTime) {
+    System.arraycopy(this.pos, 3 * from, this.prevPos, 3 * from, 3 * (to - from));
+    System.arraycopy(
+        this.orientations,
+        ORIENTATION_SIZE * from,
+        this.prevOrientations,
+        ORIENTATION_SIZE * from,
+        ORIENTATION_SIZE * (to - from));
+
+    final var pos = this.pos;
+    final var orientations = this.orientations;
+    final var vel = this.vel;
+    final var rotVel = this.rotVel;
+    final var dirty = this.transformDirty;
+
+    for (var idx = from; idx < to; idx++) {
+      final var x = 3 * idx;
+      final var y = x + 1;
+      final var z = x + 2;
+
+      if (vel[x] != 0 || vel[y] != 0 || vel[z] != 0) {
+        pos[x] += vel[x] * deltaTime;
+        pos[y] += vel[y] * deltaTime;
+        pos[z] += vel[z] * deltaTime;
+        dirty[idx] = true;
+      }
+      if (rotVel[x] != 0 || rotVel[y] != 0 || rotVel[z] != 0) {
+        Quaternion.integrate(
+            orientations, ORIENTATION_SIZE * idx, rotVel[x], rotVel[y], rotVel[z], deltaTime);
+        dirty[idx] = true;
+      }
+    }
+  }
+
+  /**
+   * Rebuilds the transforms of any dirty entities in {@code [from, to)}, except those which moved
+   * if the store's {@link #interpolated}, which are left for the next interpolation to build.
+   * Disjoint ranges may be updated concurrently, as long as each caller provides its own {@code
+   * tmp} matrix
+   */
+  void updateTransforms(int from, int to, @NonNull MutableMatrix4 tmp) {
+    final var dirty = this.transformDirty;
+    final var interpolating = this.interpolating;
+    var rebuilt = 0;
+    for (var idx = from; idx < to; idx++) {
+      if (!dirty[idx]) continue;
+      if (interpolating && this.hasMoved(idx)) {
+        this.awaitingInterpolation[idx] = true;
+      } else {
+        this.buildTransform(idx, tmp);
+        rebuilt++;
+      }
+      dirty[idx] = false;
+    }
+    if (rebuilt != 0) this.normalTransformCount.add(rebuilt);
+  }
+
+  private void rebuildTransform(int idx, @NonNull MutableMatrix4 tmp) {
+    this.buildTransform(idx, tmp);
+    this.normalTransformCount.increment();
+  }
+
+  /**
+   * Recalculates entity {@code idx}'s transform, normal transform and world bounds, from its
+   * current pose
+   */
+  private void buildTransform(int idx, @NonNull MutableMatrix4 tmp) {
+    this.buildTransform(idx, tmp, this.pos, 3 * idx, this.orientations, ORIENTATION_SIZE * idx);
+    this.interpolated[idx] = false;
+    this.awaitingInterpolation[idx] = false;
+  }
+
+  /**
+   * Recalculates entity {@code idx}'s transform, normal transform and world bounds, with its
+   * position at {@code pos[p + 0..2]} and its orientation at {@code orientations[q + 0..3]}
+   */
+  private void buildTransform(
+      int idx,
+      @NonNull MutableMatrix4 tmp,
+      float @NonNull [] pos,
+      int p,
+      float @NonNull [] orientations,
+      int q) {
+
+    final var x = 3 * idx;
+    final var y = x + 1;
+    final var z = x + 2;
+    tmp.setTransform(
+        pos[p],
+        pos[p + 1],
+        pos[p + 2],
+        orientations[q],
+        orientations[q + 1],
+        orientations[q + 2],
+        orientations[q + 3],
+        this.scale[x],
+        this.scale[y],
+        this.scale[z]);
+    tmp.toArray(this.transforms, TRANSFORM_SIZE * idx);
+    this.transformBounds(idx, tmp);
+
+    // closed-form, from the same components, rather than inverting the transform
+    tmp.setNormalTransform(
+        orientations[q],
+        orientations[q + 1],
+        orientations[q + 2],
+        orientations[q + 3],
+        this.scale[x],
+        this.scale[y],
+        this.scale[z]);
+    tmp.toMat3Array(this.normals, NORMAL_SIZE * idx);
+  }
+
+  /**
+   * Rebuilds the transform of every entity which moved during the last update from a pose {@code
+   * alpha} of the way from its previous pose to its current one, so rendering between two
+   * fixed-step updates is smooth. Positions are interpolated linearly, and orientations along the
+   * shortest arc. Entities which didn't move keep their current transform.
+   *
+   * <p>This only changes the transforms, bounds and normal transforms (i.e. what's rendered and
+   * culled), never the entities' actual state. The next update carries on from the current pose.
+   * Updates leave moving entities' transforms to be built here instead, so anything which reads
+   * their transforms or bounds, e.g. {@link jakemarsden.opengl.engine.scene.Bvh#refit()}, should
+   * do so after interpolating
+   *
+   * @throws IllegalStateException if the store wasn't created {@link #interpolated}
+   * @see EntityUpdateScheduler#interpolate(EntityStore, float)
+   */
+  public void interpolate(float alpha) {
+    this.checkInterpolated();
+    this.interpolate(0, this.size, alpha, this.tmpTransform, this.tmpBlend);
+  }
+
+  /** @throws IllegalStateException if the store wasn't created {@link #interpolated} */
+  void checkInterpolated() {
+    if (!this.interpolating)
+      throw new IllegalStateException("Expected an interpolated store but was: " + this);
+  }
+
+  /**
+   * {@link #interpolate(float) Interpolates} entities {@code [from, to)}. Disjoint ranges may be
+   * interpolated concurrently, as long as each caller provides its own {@code tmp} matrix and
+   * {@code blend} array of {@link #BLEND_SIZE}
+   */
+  void interpolate(
+      int from, int to, float alpha, @NonNull MutableMatrix4 tmp, float @NonNull [] blend) {
+
+    var rebuilt = 0;
+    for (var idx = from; idx < to; idx++) {
+      if (!this.hasMoved(idx)) {
+        // either its transform is still somewhere between its last two poses but it's stopped
+        // since, or it's changed some other way
+        if (this.interpolated[idx]
+            || this.transformDirty[idx]
+            || this.awaitingInterpolation[idx]) {
+          this.buildTransform(idx, tmp);
+          this.transformDirty[idx] = false;
+          rebuilt++;
+        }
+        continue;
+      }
+
+      final var p = 3 * idx;
+      for (var axis = 0; axis < 3; axis++) {
+        final var prev = this.prevPos[p + axis];
+        blend[axis] = prev + alpha * (this.pos[p + axis] - prev);
+      }
+      Quaternion.nlerp(
+          this.prevOrientations,
+          ORIENTATION_SIZE * idx,
+          this.orientations,
+          ORIENTATION_SIZE * idx,
+          alpha,
+          blend,
+          3);
+      this.buildTransform(idx, tmp, blend, 0, blend, 3);
+      this.interpolated[idx] = true;
+      this.awaitingInterpolation[idx] = false;
+      this.transformDirty[idx] = false;
+      rebuilt++;
+    }
+    if (rebuilt != 0) this.normalTransformCount.add(rebuilt);
+  }
+
+  /** @return whether entity {@code idx}'s pose changed during the last update */
+  private boolean hasMoved(int idx) {
+    final var p = 3 * idx;
+    final var q = ORIENTATION_SIZE * idx;
+    return this.pos[p] != this.prevPos[p]
+        || this.pos[p + 1] != this.prevPos[p + 1]
+        || this.pos[p + 2] != this.prevPos[p + 2]
+        || this.orientations[q] != this.prevOrientations[q]
+        || this.orientations[q + 1] != this.prevOrientations[q + 1]
+        || this.orientations[q + 2] != this.prevOrientations[q + 2]
+        || this.orientations[q + 3] != this.prevOrientations[q + 3];
+  }
+
+  /**
+   * Recalculates entity {@code idx}'s world bounds, as the box enclosing its local bounds once
+   * {@code transform} has been applied to them
+   *
+   * @see <a
+   *     href="https://github.com/erich666/GraphicsGems/blob/master/gems/TransBox.c">Transforming
+   *     Axis-Aligned Bounding Boxes (Graphics Gems)</a>
+   */
+  private void transformBounds(int idx, @NonNull MutableMatrix4 transform) {
+    final var local = this.localBounds;
+    final var b = BOUNDS_SIZE * idx;
+    if (local[b] > local[b + 3]) {
+      // nothing to transform, so the world bounds are empty too
+      System.arraycopy(local, b, this.bounds, b, BOUNDS_SIZE);
+      return;
+    }
+
+    final var centreX = (local[b] + local[b + 3]) / 2;
+    final var centreY = (local[b + 1] + local[b + 4]) / 2;
+    final var centreZ = (local[b + 2] + local[b + 5]) / 2;
+    final var extentX = (local[b + 3] - local[b]) / 2;
+    final var extentY = (local[b + 4] - local[b + 1]) / 2;
+    final var extentZ = (local[b + 5] - local[b + 2]) / 2;
+
+    for (var row = 0; row < 3; row++) {
+      final var m0 = transform.get(row, 0);
+      final var m1 = transform.get(row, 1);
+      final var m2 = transform.get(row, 2);
+      final var centre = m0 * centreX + m1 * centreY + m2 * centreZ + transform.get(row, 3);
+      final var extent = abs(m0) * extentX + abs(m1) * extentY + abs(m2) * extentZ;
+      this.bounds[b + row] = centre - extent;
+      this.bounds[b + 3 + row] = centre + extent;
+    }
+  }
+
+  /**
+   * Tests entities {@code [from, to)} against {@code frustum}, rebuilding the transforms of any
+   * dirty entities first. Entities whose bounds are empty are never visible
+   *
+   * @return how many of them are visible
+   */
+  int cull(int from, int to, @NonNull Frustum frustum) {
+    final var bounds = this.bounds;
+    var visibleCount = 0;
+    for (var idx = from; idx < to; idx++) {
+      if (this.transformDirty[idx]) {
+        this.rebuildTransform(idx, this.tmpTransform);
+        this.transformDirty[idx] = false;
+      }
+      final var b = BOUNDS_SIZE * idx;
+      final var visible =
+          bounds[b] <= bounds[b + 3]
+              && frustum.intersects(
+                  bounds[b],
+                  bounds[b + 1],
+                  bounds[b + 2],
+                  bounds[b + 3],
+                  bounds[b + 4],
+                  bounds[b + 5]);
+      this.visible[idx] = visible;
+      if (visible) visibleCount++;
+    }
+    return visibleCount;
+  }
+
+  int add(
+      @NonNull Entity handle,
+      @NonNull Aabb localBounds,
+      @NonNull Vector3 pos,
+      @NonNull Quaternion orientation,
+      @NonNull Vector3 scale,
+      @NonNull Vector3 vel,
+      @NonNull Vector3 rotVel) {
+
+    if (this.size == this.handles.length) this.grow();
+
+    final var idx = this.size++;
+    this.handles[idx] = handle;
+    set(this.pos, idx, pos);
+    this.setOrientationColumn(idx, orientation);
+    System.arraycopy(this.pos, 3 * idx, this.prevPos, 3 * idx, 3);
+    System.arraycopy(
+        this.orientations,
+        ORIENTATION_SIZE * idx,
+        this.prevOrientations,
+        ORIENTATION_SIZE * idx,
+        ORIENTATION_SIZE);
+    set(this.scale, idx, scale);
+    set(this.vel, idx, vel);
+    set(this.rotVel, idx, rotVel);
+    this.transformDirty[idx] = true;
+    this.interpolated[idx] = false;
+    this.awaitingInterpolation[idx] = false;
+
+    final var b = BOUNDS_SIZE * idx;
+    this.localBounds[b] = localBounds.minX;
+    this.localBounds[b + 1] = localBounds.minY;
+    this.localBounds[b + 2] = localBounds.minZ;
+    this.localBounds[b + 3] = localBounds.maxX;
+    this.localBounds[b + 4] = localBounds.maxY;
+    this.localBounds[b + 5] = localBounds.maxZ;
+    // until it's been culled for the first time
+    this.visible[idx] = true;
+    return idx;
+  }
+
+  /**
+   * Also invalidates the removed entity's handle, so removing it again fails rather than removing
+   * whichever entity has taken its place
+   *
+   * @throws IllegalStateException if there's no entity at {@code idx}, e.g. because it's already
+   *     been removed
+   */
+  void remove(int idx) {
+    if (idx < 0 || idx >= this.size)
+      throw new IllegalStateException(
+          "Expected entity index: [0, " + this.size + ") but was: " + idx);
+    final var removed = this.handles[idx];
+    assert removed != null;
+    removed.index = -1;
+
+    final var last = --this.size;
+    if (idx != last) {
+      // fill the gap with the last entity, so the columns stay densely packed
+      final var moved = this.handles[last];
+      assert moved != null;
+      this.handles[idx] = moved;
+      moved.index = idx;
+
+      System.arraycopy(this.pos, 3 * last, this.pos, 3 * idx, 3);
+      System.arraycopy(
+          this.orientations,
+          ORIENTATION_SIZE * last,
+          this.orientations,
+          ORIENTATION_SIZE * idx,
+          ORIENTATION_SIZE);
+      System.arraycopy(this.prevPos, 3 * last, this.prevPos, 3 * idx, 3);
+      System.arraycopy(
+          this.prevOrientations,
+          ORIENTATION_SIZE * last,
+          this.prevOrientations,
+          ORIENTATION_SIZE * idx,
+          ORIENTATION_SIZE);
+      System.arraycopy(this.scale, 3 * last, this.scale, 3 * idx, 3);
+      System.arraycopy(this.vel, 3 * last, this.vel, 3 * idx, 3);
+      System.arraycopy(this.rotVel, 3 * last, this.rotVel, 3 * idx, 3);
+      System.arraycopy(
+          this.transforms,
+          TRANSFORM_SIZE * last,
+          this.transforms,
+          TRANSFORM_SIZE * idx,
+          TRANSFORM_SIZE);
+      System.arraycopy(
+          this.normals, NORMAL_SIZE * last, this.normals, NORMAL_SIZE * idx, NORMAL_SIZE);
+      this.transformDirty[idx] = this.transformDirty[last];
+      this.interpolated[idx] = this.interpolated[last];
+      this.awaitingInterpolation[idx] = this.awaitingInterpolation[last];
+      System.arraycopy(
+          this.localBounds, BOUNDS_SIZE * last, this.localBounds, BOUNDS_SIZE * idx, BOUNDS_SIZE);
+      System.arraycopy(
+          this.bounds, BOUNDS_SIZE * last, this.bounds, BOUNDS_SIZE * idx, BOUNDS_SIZE);
+      this.visible[idx] = this.visible[last];
+    }
+    this.handles[last] = null;
+  }
+
+  @NonNull
+  Vector3 getPosition(int idx) {
+    return get(this.pos, idx);
+  }
+
+  /** Moves it straight there, so it's not {@link #interpolate interpolated} from where it was */
+  void setPosition(int idx, @NonNull Vector3 value) {
+    set(this.pos, idx, value);
+    set(this.prevPos, idx, value);
+    this.transformDirty[idx] = true;
+  }
+
+  @NonNull
+  Quaternion getOrientation(int idx) {
+    final var q = ORIENTATION_SIZE * idx;
+    return Quaternion.of(
+        this.orientations[q],
+        this.orientations[q + 1],
+        this.orientations[q + 2],
+        this.orientations[q + 3]);
+  }
+
+  /** Turns it straight there, so it's not {@link #interpolate interpolated} from where it was */
+  void setOrientation(int idx, @NonNull Quaternion value) {
+    this.setOrientationColumn(idx, value);
+    System.arraycopy(
+        this.orientations,
+        ORIENTATION_SIZE * idx,
+        this.prevOrientations,
+        ORIENTATION_SIZE * idx,
+        ORIENTATION_SIZE);
+    this.transformDirty[idx] = true;
+  }
+
+  @NonNull
+  Vector3 getScale(int idx) {
+    return get(this.scale, idx);
+  }
+
+  void setScale(int idx, @NonNull Vector3 value) {
+    set(this.scale, idx, value);
+    this.transformDirty[idx] = true;
+  }
+
+  @NonNull
+  Vector3 getVelocity(int idx) {
+    return get(this.vel, idx);
+  }
+
+  void setVelocity(int idx, @NonNull Vector3 value) {
+    set(this.vel, idx, value);
+  }
+
+  @NonNull
+  Vector3 getRotationalVelocity(int idx) {
+    return get(this.rotVel, idx);
+  }
+
+  void setRotationalVelocity(int idx, @NonNull Vector3 value) {
+    set(this.rotVel, idx, value);
+  }
+
+  boolean isTransformDirty(int idx) {
+    return this.transformDirty[idx];
+  }
+
+  /** Copies entity {@code idx}'s transform into {@code dest}, rebuilding it first if necessary */
+  @NonNull
+  MutableMatrix4 getTransform(int idx, @NonNull MutableMatrix4 dest) {
+    if (this.transformDirty[idx]) {
+      this.rebuildTransform(idx, this.tmpTransform);
+      this.transformDirty[idx] = false;
+    }
+    return dest.set(this.transforms, TRANSFORM_SIZE * idx);
+  }
+
+  /**
+   * Copies entity {@code idx}'s normal transform into the upper-left 3x3 of {@code dest},
+   * rebuilding it first if necessary
+   */
+  @NonNull
+  MutableMatrix4 getNormalTransform(int idx, @NonNull MutableMatrix4 dest) {
+    if (this.transformDirty[idx]) {
+      this.rebuildTransform(idx, this.tmpTransform);
+      this.transformDirty[idx] = false;
+    }
+    return dest.setMat3(this.normals, NORMAL_SIZE * idx);
+  }
+
+  /** @return entity {@code idx}'s bounds in world space, rebuilding its transform if necessary */
+  @NonNull
+  Aabb getBounds(int idx) {
+    if (this.transformDirty[idx]) {
+      this.rebuildTransform(idx, this.tmpTransform);
+      this.transformDirty[idx] = false;
+    }
+    final var b = BOUNDS_SIZE * idx;
+    if (this.bounds[b] > this.bounds[b + 3]) return Aabb.empty();
+    return Aabb.of(
+        this.bounds[b],
+        this.bounds[b + 1],
+        this.bounds[b + 2],
+        this.bounds[b + 3],
+        this.bounds[b + 4],
+        this.bounds[b + 5]);
+  }
+
+  /**
+   * Copies entity {@code idx}'s world bounds into {@code dest}, starting at {@code offset}, as
+   * {@code minX, minY, minZ, maxX, maxY, maxZ}, rebuilding its transform first if necessary
+   */
+  void getBounds(int idx, float @NonNull [] dest, int offset) {
+    if (this.transformDirty[idx]) {
+      this.rebuildTransform(idx, this.tmpTransform);
+      this.transformDirty[idx] = false;
+    }
+    System.arraycopy(this.bounds, BOUNDS_SIZE * idx, dest, offset, BOUNDS_SIZE);
+  }
+
+  boolean isVisible(int idx) {
+    return this.visible[idx];
+  }
+
+  private void grow() {
+    final var capacity = 2 * this.handles.length;
+    this.handles = Arrays.copyOf(this.handles, capacity);
+    this.pos = Arrays.copyOf(this.pos, 3 * capacity);
+    this.orientations = Arrays.copyOf(this.orientations, ORIENTATION_SIZE * capacity);
+    this.prevPos = Arrays.copyOf(this.prevPos, 3 * capacity);
+    this.prevOrientations = Arrays.copyOf(this.prevOrientations, ORIENTATION_SIZE * capacity);
+    this.scale = Arrays.copyOf(this.scale, 3 * capacity);
+    this.vel = Arrays.copyOf(this.vel, 3 * capacity);
+    this.rotVel = Arrays.copyOf(this.rotVel, 3 * capacity);
+    this.transforms = Arrays.copyOf(this.transforms, TRANSFORM_SIZE * capacity);
+    this.normals = Arrays.copyOf(this.normals, NORMAL_SIZE * capacity);
+    this.transformDirty = Arrays.copyOf(this.transformDirty, capacity);
+    this.interpolated = Arrays.copyOf(this.interpolated, capacity);
+    this.awaitingInterpolation = Arrays.copyOf(this.awaitingInterpolation, capacity);
+    this.localBounds = Arrays.copyOf(this.localBounds, BOUNDS_SIZE * capacity);
+    this.bounds = Arrays.copyOf(this.bounds, BOUNDS_SIZE * capacity);
+    this.visible = Arrays.copyOf(this.visible, capacity);
+  }
+
+  private void setOrientationColumn(int idx, @NonNull Quaternion value) {
+    final var q = ORIENTATION_SIZE * idx;
+    this.orientations[q] = value.x;
+    this.orientations[q + 1] = value.y;
+    this.orientations[q + 2] = value.z;
+    this.orientations[q + 3] = value.w;
+  }
+
+  private static @NonNull Vector3 get(float @NonNull [] column, int idx) {
+    return Vector3.of(column[3 * idx], column[3 * idx + 1], column[3 * idx + 2]);
+  }
+
+  private static void set(float @NonNull [] column, int idx, @NonNull Vector3 value) {
+    column[3 * idx] = value.x;
+    column[3 * idx + 1] = value.y;
+    column[3 * idx + 2] = value.z;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "EntityStore{size=" + this.size + ", interpolated=" + this.interpolating + "}";
+  }
+}
@@ -0,0 +1,163 @@
+package jakemarsden.opengl.engine.entity;
+
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.units.qual.s;
+
+/**
+ * Runs the update phase for every entity in an {@link EntityStore}: integrating velocities, then
+ * eagerly rebuilding the transforms of any entities which changed, so the render thread only has to
+ * upload them. None of this touches GL state, so in {@link #parallel() parallel} mode the entities
+ * are split into ranges which are updated concurrently on a {@link ForkJoinPool}.
+ *
+ * <p>{@link #sequential() Sequential} mode updates every entity in order on the calling thread,
+ * for tests and anything else that needs to be reproducible. Every entity's update only depends
+ * on its own state, so both modes produce exactly the same results
+ */
+public final class EntityUpdateScheduler {
+
+  /** Ranges smaller than this aren't worth the overhead of splitting any further */
+  private static final int DEFAULT_GRAIN_SIZE = 256;
+
+  /** {@code null} in sequential mode */
+  private final @Nullable ForkJoinPool pool;
+
+  private final int grainSize;
+
+  /** Used for building each transform, one per thread so ranges can be updated concurrently */
+  private final ThreadLocal<@NonNull MutableMatrix4> tmpTransform =
+      ThreadLocal.withInitial(MutableMatrix4::identity);
+  /** Used for blending each pose while interpolating, one per thread like {@link #tmpTransform} */
+  private final ThreadLocal<float @NonNull []> tmpBlend =
+      ThreadLocal.withInitial(() -> new float[EntityStore.BLEND_SIZE]);
+
+  public static @NonNull EntityUpdateScheduler sequential() {
+    return new EntityUpdateScheduler(null, Integer.MAX_VALUE);
+  }
+
+  public static @NonNull EntityUpdateScheduler parallel() {
+    return EntityUpdateScheduler.parallel(ForkJoinPool.commonPool(), DEFAULT_GRAIN_SIZE);
+  }
+
+  public static @NonNull EntityUpdateScheduler parallel(@NonNull ForkJoinPool pool, int grainSize) {
+    if (grainSize <= 0)
+      throw new IllegalArgumentException("Expected grain size: >0 but was: " + grainSize);
+    return new EntityUpdateScheduler(pool, grainSize);
+  }
+
+  private EntityUpdateScheduler(@Nullable ForkJoinPool pool, int grainSize) {
+    this.pool = pool;
+    this.grainSize = grainSize;
+  }
+
+  public boolean isParallel() {
+    return this.pool != null;
+  }
+
+  /** Updates every entity in {@code store}, returning once they've all been updated */
+  public void update(@NonNull EntityStore store, @s float deltaTime) {
+    final var pool = this.pool;
+    final var size = store.size();
+    if (pool == null || size <= this.grainSize) {
+      this.updateRange(store, 0, size, deltaTime);
+    } else {
+      pool.invoke(new UpdateTask(store, 0, size, deltaTime));
+    }
+  }
+
+  /**
+   * {@link EntityStore#interpolate(float) Interpolates} every entity in {@code store}, split up the
+   * same way as an update, returning once they've all been interpolated
+   *
+   * @throws IllegalStateException if {@code store} wasn't created {@link EntityStore#interpolated}
+   */
+  public void interpolate(@NonNull EntityStore store, float alpha) {
+    store.checkInterpolated();
+    final var pool = this.pool;
+    final var size = store.size();
+    if (pool == null || size <= this.grainSize) {
+      this.interpolateRange(store, 0, size, alpha);
+    } else {
+      pool.invoke(new InterpolateTask(store, 0, size, alpha));
+    }
+  }
+
+  private void updateRange(@NonNull EntityStore store, int from, int to, @s float deltaTime) {
+    store.integrate(from, to, deltaTime);
+    store.updateTransforms(from, to, this.tmpTransform.get());
+  }
+
+  private void interpolateRange(@NonNull EntityStore store, int from, int to, float alpha) {
+    store.interpolate(from, to, alpha, this.tmpTransform.get(), this.tmpBlend.get());
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return this.pool != null
+        ? "EntityUpdateScheduler{parallelism=" + this.pool.getParallelism() + "}"
+        : "EntityUpdateScheduler{sequential}";
+  }
+
+  private final class UpdateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient EntityStore store;
+    private final int from;
+    private final int to;
+    private final @s float deltaTime;
+
+    private UpdateTask(@NonNull EntityStore store, int from, int to, @s float deltaTime) {
+      this.store = store;
+      this.from = from;
+      this.to = to;
+      this.deltaTime = deltaTime;
+    }
+
+    @Override
+    protected void compute() {
+      final var grainSize = EntityUpdateScheduler.this.grainSize;
+      if (this.to - this.from <= grainSize) {
+        EntityUpdateScheduler.this.updateRange(this.store, this.from, this.to, this.deltaTime);
+        return;
+      }
+      final var mid = (this.from + this.to) >>> 1;
+      invokeAll(
+          new UpdateTask(this.store, this.from, mid, this.deltaTime),
+          new UpdateTask(this.store, mid, this.to, this.deltaTime));
+    }
+  }
+
+  private final class InterpolateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient EntityStore store;
+    private final int from;
+    private final int to;
+    private final float alpha;
+
+    private InterpolateTask(@NonNull EntityStore store, int from, int to, float alpha) {
+      this.store = store;
+      this.from = from;
+      this.to = to;
+      this.alpha = alpha;
+    }
+
+    @Override
+    protected void compute() {
+      final var grainSize = EntityUpdateScheduler.this.grainSize;
+      if (this.to - this.from <= grainSize) {
+        EntityUpdateScheduler.this.interpolateRange(this.store, this.from, this.to, this.alpha);
+        return;
+      }
+      final var mid = (this.from + this.to) >>> 1;
+      invokeAll(
+          new InterpolateTask(this.store, this.from, mid, this.alpha),
+          new InterpolateTask(this.store, mid, this.to, this.alpha));
+    }
+  }
+}
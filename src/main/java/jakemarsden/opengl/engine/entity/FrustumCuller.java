@@ -0,0 +1,53 @@
+package jakemarsden.opengl.engine.entity;
+
+import jakemarsden.opengl.engine.camera.Camera;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.Matrix4;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Works out which entities in an {@link EntityStore} are inside a camera's view frustum, by testing
+ * their world-space bounds against its planes. Run once per frame, before anything is drawn, so
+ * entities which can't be seen are skipped before any per-entity work is done for them. See
+ * {@link Entity#isVisible()}
+ */
+public final class FrustumCuller {
+
+  private final Frustum frustum = Frustum.create();
+
+  private int visibleCount = 0;
+  private int culledCount = 0;
+
+  public static @NonNull FrustumCuller create() {
+    return new FrustumCuller();
+  }
+
+  private FrustumCuller() {}
+
+  public void cull(@NonNull EntityStore store, @NonNull Camera camera) {
+    this.cull(store, camera.calculatePvTransform());
+  }
+
+  /** @param pv the camera's combined projection and view transform */
+  public void cull(@NonNull EntityStore store, @NonNull Matrix4 pv) {
+    this.frustum.set(pv);
+    final var size = store.size();
+    this.visibleCount = store.cull(0, size, this.frustum);
+    this.culledCount = size - this.visibleCount;
+  }
+
+  /** @return how many entities were visible at the last {@link #cull} */
+  public int getVisibleCount() {
+    return this.visibleCount;
+  }
+
+  /** @return how many entities were rejected at the last {@link #cull} */
+  public int getCulledCount() {
+    return this.culledCount;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "FrustumCuller{visible=" + this.visibleCount + ", culled=" + this.culledCount + "}";
+  }
+}
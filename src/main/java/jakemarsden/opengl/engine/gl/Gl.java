@@ -0,0 +1,184 @@
+package jakemarsden.opengl.engine.gl;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The subset of OpenGL used by the engine, so that everything above it can be tested and
+ * benchmarked without a GPU. Each method is equivalent to the OpenGL function of the same name,
+ * with the {@code gl} prefix removed. Draw calls, state changes and uploads are counted in its
+ * {@link #getStats() stats}
+ *
+ * @see LwjglGl
+ * @see NoopGl
+ * @see RecordingGl
+ */
+public interface Gl {
+
+  @NonNull
+  RenderStats getStats();
+
+  void enable(int cap);
+
+  void depthFunc(int func);
+
+  void viewport(int x, int y, int width, int height);
+
+  void clearColor(float r, float g, float b, float a);
+
+  void clear(int mask);
+
+  int getInteger(int pname);
+
+  int genBuffers();
+
+  void deleteBuffers(int buffer);
+
+  void bindBuffer(int target, int buffer);
+
+  void bindBufferBase(int target, int index, int buffer);
+
+  void bufferData(int target, long size, int usage);
+
+  void bufferData(int target, float @NonNull [] data, int usage);
+
+  void bufferData(int target, short @NonNull [] data, int usage);
+
+  void bufferData(int target, @NonNull FloatBuffer data, int usage);
+
+  void bufferData(int target, @NonNull IntBuffer data, int usage);
+
+  void bufferSubData(int target, long offset, @NonNull FloatBuffer data);
+
+  void bufferSubData(int target, long offset, @NonNull ByteBuffer data);
+
+  /** @return {@code null} if the buffer couldn't be mapped */
+  @Nullable
+  ByteBuffer mapBufferRange(int target, long offset, long length, int access);
+
+  /** @return {@code false} if the buffer's contents were lost while it was mapped */
+  boolean unmapBuffer(int target);
+
+  int genVertexArrays();
+
+  void deleteVertexArrays(int array);
+
+  void bindVertexArray(int array);
+
+  void enableVertexAttribArray(int index);
+
+  void disableVertexAttribArray(int index);
+
+  void vertexAttribPointer(
+      int index, int size, int type, boolean normalized, int stride, long pointer);
+
+  void vertexAttribDivisor(int index, int divisor);
+
+  void drawElements(int mode, int count, int type, long indices);
+
+  void drawElementsInstanced(int mode, int count, int type, long indices, int instanceCount);
+
+  int genTextures();
+
+  void deleteTextures(int texture);
+
+  void activeTexture(int texture);
+
+  void bindTexture(int target, int texture);
+
+  void texParameteri(int target, int pname, int param);
+
+  void pixelStorei(int pname, int param);
+
+  void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      @Nullable ByteBuffer pixels);
+
+  /** @param pixelsOffset into the buffer bound to {@code GL_PIXEL_UNPACK_BUFFER} */
+  void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      long pixelsOffset);
+
+  void generateMipmap(int target);
+
+  void texBuffer(int target, int internalFormat, int buffer);
+
+  int createShader(int type);
+
+  void shaderSource(int shader, @NonNull CharSequence source);
+
+  void compileShader(int shader);
+
+  int getShaderi(int shader, int pname);
+
+  @NonNull
+  String getShaderInfoLog(int shader);
+
+  void deleteShader(int shader);
+
+  int createProgram();
+
+  void attachShader(int program, int shader);
+
+  void linkProgram(int program);
+
+  void validateProgram(int program);
+
+  int getProgrami(int program, int pname);
+
+  @NonNull
+  String getProgramInfoLog(int program);
+
+  void deleteProgram(int program);
+
+  void useProgram(int program);
+
+  int getUniformLocation(int program, @NonNull CharSequence name);
+
+  int getUniformBlockIndex(int program, @NonNull CharSequence name);
+
+  void uniformBlockBinding(int program, int blockIndex, int blockBinding);
+
+  void uniform1i(int location, int value);
+
+  void uniform1iv(int location, int @NonNull [] values);
+
+  void uniform1f(int location, float value);
+
+  void uniform2f(int location, float x, float y);
+
+  void uniform3f(int location, float x, float y, float z);
+
+  void uniform4f(int location, float x, float y, float z, float w);
+
+  void uniformMatrix3fv(int location, boolean transpose, float @NonNull [] value);
+
+  void uniformMatrix4fv(int location, boolean transpose, float @NonNull [] value);
+
+  int genQueries();
+
+  void deleteQueries(int query);
+
+  void queryCounter(int query, int target);
+
+  int getQueryObjecti(int query, int pname);
+
+  long getQueryObjectui64(int query, int pname);
+}
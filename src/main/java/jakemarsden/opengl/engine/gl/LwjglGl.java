@@ -0,0 +1,423 @@
+package jakemarsden.opengl.engine.gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.glGetQueryObjectui64;
+import static org.lwjgl.opengl.GL33.glQueryCounter;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Passes every call straight through to LWJGL, and so to the current thread's GL context. There's
+ * only ever one of these, so its stats cover every call made through it
+ */
+public final class LwjglGl implements Gl {
+
+  private static final LwjglGl INSTANCE = new LwjglGl();
+
+  public static @NonNull LwjglGl create() {
+    return INSTANCE;
+  }
+
+  private final RenderStats stats = RenderStats.create();
+
+  private LwjglGl() {}
+
+  @Override
+  public @NonNull RenderStats getStats() {
+    return this.stats;
+  }
+
+  @Override
+  public void enable(int cap) {
+    glEnable(cap);
+  }
+
+  @Override
+  public void depthFunc(int func) {
+    glDepthFunc(func);
+  }
+
+  @Override
+  public void viewport(int x, int y, int width, int height) {
+    glViewport(x, y, width, height);
+  }
+
+  @Override
+  public void clearColor(float r, float g, float b, float a) {
+    glClearColor(r, g, b, a);
+  }
+
+  @Override
+  public void clear(int mask) {
+    glClear(mask);
+  }
+
+  @Override
+  public int getInteger(int pname) {
+    return glGetInteger(pname);
+  }
+
+  @Override
+  public int genBuffers() {
+    return glGenBuffers();
+  }
+
+  @Override
+  public void deleteBuffers(int buffer) {
+    glDeleteBuffers(buffer);
+  }
+
+  @Override
+  public void bindBuffer(int target, int buffer) {
+    glBindBuffer(target, buffer);
+  }
+
+  @Override
+  public void bindBufferBase(int target, int index, int buffer) {
+    glBindBufferBase(target, index, buffer);
+  }
+
+  @Override
+  public void bufferData(int target, long size, int usage) {
+    glBufferData(target, size, usage);
+  }
+
+  @Override
+  public void bufferData(int target, float @NonNull [] data, int usage) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.length);
+    glBufferData(target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, short @NonNull [] data, int usage) {
+    this.stats.countBufferUpload(Short.BYTES * (long) data.length);
+    glBufferData(target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, @NonNull FloatBuffer data, int usage) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.remaining());
+    glBufferData(target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, @NonNull IntBuffer data, int usage) {
+    this.stats.countBufferUpload(Integer.BYTES * (long) data.remaining());
+    glBufferData(target, data, usage);
+  }
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull FloatBuffer data) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.remaining());
+    glBufferSubData(target, offset, data);
+  }
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull ByteBuffer data) {
+    this.stats.countBufferUpload(data.remaining());
+    glBufferSubData(target, offset, data);
+  }
+
+  @Override
+  public @Nullable ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+    return glMapBufferRange(target, offset, length, access);
+  }
+
+  @Override
+  public boolean unmapBuffer(int target) {
+    return glUnmapBuffer(target);
+  }
+
+  @Override
+  public int genVertexArrays() {
+    return glGenVertexArrays();
+  }
+
+  @Override
+  public void deleteVertexArrays(int array) {
+    glDeleteVertexArrays(array);
+  }
+
+  @Override
+  public void bindVertexArray(int array) {
+    glBindVertexArray(array);
+  }
+
+  @Override
+  public void enableVertexAttribArray(int index) {
+    glEnableVertexAttribArray(index);
+  }
+
+  @Override
+  public void disableVertexAttribArray(int index) {
+    glDisableVertexAttribArray(index);
+  }
+
+  @Override
+  public void vertexAttribPointer(
+      int index, int size, int type, boolean normalized, int stride, long pointer) {
+    glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+  }
+
+  @Override
+  public void vertexAttribDivisor(int index, int divisor) {
+    glVertexAttribDivisor(index, divisor);
+  }
+
+  @Override
+  public void drawElements(int mode, int count, int type, long indices) {
+    this.stats.countDraw();
+    glDrawElements(mode, count, type, indices);
+  }
+
+  @Override
+  public void drawElementsInstanced(
+      int mode, int count, int type, long indices, int instanceCount) {
+    this.stats.countInstancedDraw(instanceCount);
+    glDrawElementsInstanced(mode, count, type, indices, instanceCount);
+  }
+
+  @Override
+  public int genTextures() {
+    return glGenTextures();
+  }
+
+  @Override
+  public void deleteTextures(int texture) {
+    glDeleteTextures(texture);
+  }
+
+  @Override
+  public void activeTexture(int texture) {
+    glActiveTexture(texture);
+  }
+
+  @Override
+  public void bindTexture(int target, int texture) {
+    this.stats.countTextureBind();
+    glBindTexture(target, texture);
+  }
+
+  @Override
+  public void texParameteri(int target, int pname, int param) {
+    glTexParameteri(target, pname, param);
+  }
+
+  @Override
+  public void pixelStorei(int pname, int param) {
+    glPixelStorei(pname, param);
+  }
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      @Nullable ByteBuffer pixels) {
+    glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+  }
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      long pixelsOffset) {
+    glTexImage2D(
+        target, level, internalFormat, width, height, border, format, type, pixelsOffset);
+  }
+
+  @Override
+  public void generateMipmap(int target) {
+    glGenerateMipmap(target);
+  }
+
+  @Override
+  public void texBuffer(int target, int internalFormat, int buffer) {
+    glTexBuffer(target, internalFormat, buffer);
+  }
+
+  @Override
+  public int createShader(int type) {
+    return glCreateShader(type);
+  }
+
+  @Override
+  public void shaderSource(int shader, @NonNull CharSequence source) {
+    glShaderSource(shader, source);
+  }
+
+  @Override
+  public void compileShader(int shader) {
+    glCompileShader(shader);
+  }
+
+  @Override
+  public int getShaderi(int shader, int pname) {
+    return glGetShaderi(shader, pname);
+  }
+
+  @Override
+  public @NonNull String getShaderInfoLog(int shader) {
+    return glGetShaderInfoLog(shader);
+  }
+
+  @Override
+  public void deleteShader(int shader) {
+    glDeleteShader(shader);
+  }
+
+  @Override
+  public int createProgram() {
+    return glCreateProgram();
+  }
+
+  @Override
+  public void attachShader(int program, int shader) {
+    glAttachShader(program, shader);
+  }
+
+  @Override
+  public void linkProgram(int program) {
+    glLinkProgram(program);
+  }
+
+  @Override
+  public void validateProgram(int program) {
+    glValidateProgram(program);
+  }
+
+  @Override
+  public int getProgrami(int program, int pname) {
+    return glGetProgrami(program, pname);
+  }
+
+  @Override
+  public @NonNull String getProgramInfoLog(int program) {
+    return glGetProgramInfoLog(program);
+  }
+
+  @Override
+  public void deleteProgram(int program) {
+    glDeleteProgram(program);
+  }
+
+  @Override
+  public void useProgram(int program) {
+    this.stats.countProgramBind();
+    glUseProgram(program);
+  }
+
+  @Override
+  public int getUniformLocation(int program, @NonNull CharSequence name) {
+    return glGetUniformLocation(program, name);
+  }
+
+  @Override
+  public int getUniformBlockIndex(int program, @NonNull CharSequence name) {
+    return glGetUniformBlockIndex(program, name);
+  }
+
+  @Override
+  public void uniformBlockBinding(int program, int blockIndex, int blockBinding) {
+    glUniformBlockBinding(program, blockIndex, blockBinding);
+  }
+
+  @Override
+  public void uniform1i(int location, int value) {
+    this.stats.countUniformUpload();
+    glUniform1i(location, value);
+  }
+
+  @Override
+  public void uniform1iv(int location, int @NonNull [] values) {
+    this.stats.countUniformUpload();
+    glUniform1iv(location, values);
+  }
+
+  @Override
+  public void uniform1f(int location, float value) {
+    this.stats.countUniformUpload();
+    glUniform1f(location, value);
+  }
+
+  @Override
+  public void uniform2f(int location, float x, float y) {
+    this.stats.countUniformUpload();
+    glUniform2f(location, x, y);
+  }
+
+  @Override
+  public void uniform3f(int location, float x, float y, float z) {
+    this.stats.countUniformUpload();
+    glUniform3f(location, x, y, z);
+  }
+
+  @Override
+  public void uniform4f(int location, float x, float y, float z, float w) {
+    this.stats.countUniformUpload();
+    glUniform4f(location, x, y, z, w);
+  }
+
+  @Override
+  public void uniformMatrix3fv(int location, boolean transpose, float @NonNull [] value) {
+    this.stats.countUniformUpload();
+    glUniformMatrix3fv(location, transpose, value);
+  }
+
+  @Override
+  public void uniformMatrix4fv(int location, boolean transpose, float @NonNull [] value) {
+    this.stats.countUniformUpload();
+    glUniformMatrix4fv(location, transpose, value);
+  }
+
+  @Override
+  public int genQueries() {
+    return glGenQueries();
+  }
+
+  @Override
+  public void deleteQueries(int query) {
+    glDeleteQueries(query);
+  }
+
+  @Override
+  public void queryCounter(int query, int target) {
+    glQueryCounter(query, target);
+  }
+
+  @Override
+  public int getQueryObjecti(int query, int pname) {
+    return glGetQueryObjecti(query, pname);
+  }
+
+  @Override
+  public long getQueryObjectui64(int query, int pname) {
+    return glGetQueryObjectui64(query, pname);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "LwjglGl{}";
+  }
+}
@@ -0,0 +1,306 @@
+package jakemarsden.opengl.engine.gl;
+
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL31.GL_MAX_TEXTURE_BUFFER_SIZE;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Doesn't do anything at all, so everything above it can be run and benchmarked without a GPU, for
+ * as close to the cost of the CPU side alone as possible. Nothing is counted, so its stats always
+ * stay at zero (see {@link RecordingGl} for that). Generated names start at 1 and are never reused,
+ * so objects can still tell each other apart. Shaders always compile and link, every uniform is at
+ * location {@code 0}, and query results are never available. {@code GL_MAX_TEXTURE_BUFFER_SIZE} is
+ * the least GL 3.3 allows, and any other state queried is {@code 0}. Every mapped buffer shares the
+ * same scratch memory, which only grows
+ */
+public final class NoopGl implements Gl {
+
+  /** The least any GL 3.3 context supports */
+  private static final int MIN_MAX_TEXTURE_BUFFER_SIZE = 65536;
+
+  private final RenderStats stats = RenderStats.create();
+  private int nextName = 1;
+  private ByteBuffer mapped = ByteBuffer.allocateDirect(0);
+
+  public static @NonNull NoopGl create() {
+    return new NoopGl();
+  }
+
+  private NoopGl() {}
+
+  @Override
+  public @NonNull RenderStats getStats() {
+    return this.stats;
+  }
+
+  @Override
+  public void enable(int cap) {}
+
+  @Override
+  public void depthFunc(int func) {}
+
+  @Override
+  public void viewport(int x, int y, int width, int height) {}
+
+  @Override
+  public void clearColor(float r, float g, float b, float a) {}
+
+  @Override
+  public void clear(int mask) {}
+
+  @Override
+  public int getInteger(int pname) {
+    return pname == GL_MAX_TEXTURE_BUFFER_SIZE ? MIN_MAX_TEXTURE_BUFFER_SIZE : 0;
+  }
+
+  @Override
+  public int genBuffers() {
+    return this.nextName++;
+  }
+
+  @Override
+  public void deleteBuffers(int buffer) {}
+
+  @Override
+  public void bindBuffer(int target, int buffer) {}
+
+  @Override
+  public void bindBufferBase(int target, int index, int buffer) {}
+
+  @Override
+  public void bufferData(int target, long size, int usage) {}
+
+  @Override
+  public void bufferData(int target, float @NonNull [] data, int usage) {}
+
+  @Override
+  public void bufferData(int target, short @NonNull [] data, int usage) {}
+
+  @Override
+  public void bufferData(int target, @NonNull FloatBuffer data, int usage) {}
+
+  @Override
+  public void bufferData(int target, @NonNull IntBuffer data, int usage) {}
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull FloatBuffer data) {}
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull ByteBuffer data) {}
+
+  @Override
+  public @NonNull ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+    if (this.mapped.capacity() < length) this.mapped = ByteBuffer.allocateDirect((int) length);
+    return this.mapped.clear().limit((int) length);
+  }
+
+  @Override
+  public boolean unmapBuffer(int target) {
+    return true;
+  }
+
+  @Override
+  public int genVertexArrays() {
+    return this.nextName++;
+  }
+
+  @Override
+  public void deleteVertexArrays(int array) {}
+
+  @Override
+  public void bindVertexArray(int array) {}
+
+  @Override
+  public void enableVertexAttribArray(int index) {}
+
+  @Override
+  public void disableVertexAttribArray(int index) {}
+
+  @Override
+  public void vertexAttribPointer(
+      int index, int size, int type, boolean normalized, int stride, long pointer) {}
+
+  @Override
+  public void vertexAttribDivisor(int index, int divisor) {}
+
+  @Override
+  public void drawElements(int mode, int count, int type, long indices) {}
+
+  @Override
+  public void drawElementsInstanced(
+      int mode, int count, int type, long indices, int instanceCount) {}
+
+  @Override
+  public int genTextures() {
+    return this.nextName++;
+  }
+
+  @Override
+  public void deleteTextures(int texture) {}
+
+  @Override
+  public void activeTexture(int texture) {}
+
+  @Override
+  public void bindTexture(int target, int texture) {}
+
+  @Override
+  public void texParameteri(int target, int pname, int param) {}
+
+  @Override
+  public void pixelStorei(int pname, int param) {}
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      @Nullable ByteBuffer pixels) {}
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      long pixelsOffset) {}
+
+  @Override
+  public void generateMipmap(int target) {}
+
+  @Override
+  public void texBuffer(int target, int internalFormat, int buffer) {}
+
+  @Override
+  public int createShader(int type) {
+    return this.nextName++;
+  }
+
+  @Override
+  public void shaderSource(int shader, @NonNull CharSequence source) {}
+
+  @Override
+  public void compileShader(int shader) {}
+
+  /** @return {@code GL_TRUE}, so every status check passes */
+  @Override
+  public int getShaderi(int shader, int pname) {
+    return GL_TRUE;
+  }
+
+  @Override
+  public @NonNull String getShaderInfoLog(int shader) {
+    return "";
+  }
+
+  @Override
+  public void deleteShader(int shader) {}
+
+  @Override
+  public int createProgram() {
+    return this.nextName++;
+  }
+
+  @Override
+  public void attachShader(int program, int shader) {}
+
+  @Override
+  public void linkProgram(int program) {}
+
+  @Override
+  public void validateProgram(int program) {}
+
+  /** @return {@code GL_TRUE}, so every status check passes */
+  @Override
+  public int getProgrami(int program, int pname) {
+    return GL_TRUE;
+  }
+
+  @Override
+  public @NonNull String getProgramInfoLog(int program) {
+    return "";
+  }
+
+  @Override
+  public void deleteProgram(int program) {}
+
+  @Override
+  public void useProgram(int program) {}
+
+  @Override
+  public int getUniformLocation(int program, @NonNull CharSequence name) {
+    return 0;
+  }
+
+  @Override
+  public int getUniformBlockIndex(int program, @NonNull CharSequence name) {
+    return 0;
+  }
+
+  @Override
+  public void uniformBlockBinding(int program, int blockIndex, int blockBinding) {}
+
+  @Override
+  public void uniform1i(int location, int value) {}
+
+  @Override
+  public void uniform1iv(int location, int @NonNull [] values) {}
+
+  @Override
+  public void uniform1f(int location, float value) {}
+
+  @Override
+  public void uniform2f(int location, float x, float y) {}
+
+  @Override
+  public void uniform3f(int location, float x, float y, float z) {}
+
+  @Override
+  public void uniform4f(int location, float x, float y, float z, float w) {}
+
+  @Override
+  public void uniformMatrix3fv(int location, boolean transpose, float @NonNull [] value) {}
+
+  @Override
+  public void uniformMatrix4fv(int location, boolean transpose, float @NonNull [] value) {}
+
+  @Override
+  public int genQueries() {
+    return this.nextName++;
+  }
+
+  @Override
+  public void deleteQueries(int query) {}
+
+  @Override
+  public void queryCounter(int query, int target) {}
+
+  @Override
+  public int getQueryObjecti(int query, int pname) {
+    return 0;
+  }
+
+  @Override
+  public long getQueryObjectui64(int query, int pname) {
+    return 0;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "NoopGl{}";
+  }
+}
@@ -0,0 +1,565 @@
+package jakemarsden.opengl.engine.gl;
+
+import static org.lwjgl.opengl.GL11.GL_RGB;
+import static org.lwjgl.opengl.GL11.GL_RGBA;
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_MAX_TEXTURE_BUFFER_SIZE;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Doesn't talk to a GPU at all, it just records what would have been asked of one, so tests can
+ * make assertions about the calls something makes. Every call is logged as a {@link #getCommands()
+ * command}, e.g. {@code "bindTexture(3553, 2)"}, with arrays and buffers shown by their type and
+ * length, e.g. {@code "bufferData(34962, float[24], 35044)"}. Draw calls, state changes and
+ * uploads are also counted in its {@link #getStats() stats}.
+ *
+ * <p>Generated names start at 1 and are never reused. Shaders always compile and link, and each
+ * uniform gets its own location. Any state queried is {@code 0} until it's {@link #setInteger
+ * set}, apart from {@code GL_MAX_TEXTURE_BUFFER_SIZE}, which starts at the least GL 3.3 allows.
+ * Timestamp queries record whatever {@link #setTimestamp the GPU's time} is set to when they're
+ * issued, and their results are available straight away. Mapping a buffer gives fresh memory each
+ * time, which is forgotten about once it's unmapped. Textures filled from a pixel unpack buffer
+ * which is too small for them, given the unpack alignment, fail like they would on a GPU
+ */
+public final class RecordingGl implements Gl {
+
+  private final RenderStats stats = RenderStats.create();
+  private final List<String> commands = new ArrayList<>();
+
+  private int nextName = 1;
+  /** Keyed by program and name */
+  private final Map<String, Integer> uniformLocations = new HashMap<>();
+
+  /** What {@link #getInteger(int)} returns for each state which has been set */
+  private final Map<Integer, Integer> integers =
+      new HashMap<>(Map.of(GL_MAX_TEXTURE_BUFFER_SIZE, 65536));
+
+  private int unpackAlignment = 4;
+  /** {@code 0} if there isn't one bound */
+  private int unpackBuffer = 0;
+  /** The size of each pixel unpack buffer which has been allocated, in bytes */
+  private final Map<Integer, Long> bufferSizes = new HashMap<>();
+
+  private long timestamp = 0;
+  /** The timestamp recorded by each query which has been issued */
+  private final Map<Integer, Long> queryResults = new HashMap<>();
+
+  public static @NonNull RecordingGl create() {
+    return new RecordingGl();
+  }
+
+  private RecordingGl() {}
+
+  @Override
+  public @NonNull RenderStats getStats() {
+    return this.stats;
+  }
+
+  /** @return every call made since creation or the last {@link #reset()}, oldest first */
+  public @NonNull List<@NonNull String> getCommands() {
+    return Collections.unmodifiableList(this.commands);
+  }
+
+  /** @return how many draw calls have been made since creation or the last {@link #reset()} */
+  public int getDrawCalls() {
+    return this.stats.getDrawCalls();
+  }
+
+  /** @return the total instance count of every instanced draw call */
+  public int getInstancesDrawn() {
+    return this.stats.getInstancesDrawn();
+  }
+
+  /** @return how many times data has been uploaded into a buffer */
+  public int getBufferUploads() {
+    return this.stats.getBufferUploads();
+  }
+
+  public long getBytesUploaded() {
+    return this.stats.getBytesUploaded();
+  }
+
+  /** Sets what {@link #getInteger(int)} returns for {@code pname} from now on */
+  public void setInteger(int pname, int value) {
+    this.integers.put(pname, value);
+  }
+
+  /** Sets the time, in nanoseconds, recorded by timestamp queries from now on */
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  /** Forgets every command and zeroes every counter, but keeps any GL objects which were created */
+  public void reset() {
+    this.stats.reset();
+    this.commands.clear();
+  }
+
+  @Override
+  public void enable(int cap) {
+    this.record("enable", cap);
+  }
+
+  @Override
+  public void depthFunc(int func) {
+    this.record("depthFunc", func);
+  }
+
+  @Override
+  public void viewport(int x, int y, int width, int height) {
+    this.record("viewport", x, y, width, height);
+  }
+
+  @Override
+  public void clearColor(float r, float g, float b, float a) {
+    this.record("clearColor", r, g, b, a);
+  }
+
+  @Override
+  public void clear(int mask) {
+    this.record("clear", mask);
+  }
+
+  @Override
+  public int getInteger(int pname) {
+    this.record("getInteger", pname);
+    return this.integers.getOrDefault(pname, 0);
+  }
+
+  @Override
+  public int genBuffers() {
+    return this.gen("genBuffers");
+  }
+
+  @Override
+  public void deleteBuffers(int buffer) {
+    this.record("deleteBuffers", buffer);
+  }
+
+  @Override
+  public void bindBuffer(int target, int buffer) {
+    this.record("bindBuffer", target, buffer);
+    if (target == GL_PIXEL_UNPACK_BUFFER) this.unpackBuffer = buffer;
+  }
+
+  @Override
+  public void bindBufferBase(int target, int index, int buffer) {
+    this.record("bindBufferBase", target, index, buffer);
+  }
+
+  @Override
+  public void bufferData(int target, long size, int usage) {
+    this.record("bufferData", target, size, usage);
+    if (target == GL_PIXEL_UNPACK_BUFFER) this.bufferSizes.put(this.unpackBuffer, size);
+  }
+
+  @Override
+  public void bufferData(int target, float @NonNull [] data, int usage) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.length);
+    this.record("bufferData", target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, short @NonNull [] data, int usage) {
+    this.stats.countBufferUpload(Short.BYTES * (long) data.length);
+    this.record("bufferData", target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, @NonNull FloatBuffer data, int usage) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.remaining());
+    this.record("bufferData", target, data, usage);
+  }
+
+  @Override
+  public void bufferData(int target, @NonNull IntBuffer data, int usage) {
+    this.stats.countBufferUpload(Integer.BYTES * (long) data.remaining());
+    this.record("bufferData", target, data, usage);
+  }
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull FloatBuffer data) {
+    this.stats.countBufferUpload(Float.BYTES * (long) data.remaining());
+    this.record("bufferSubData", target, offset, data);
+  }
+
+  @Override
+  public void bufferSubData(int target, long offset, @NonNull ByteBuffer data) {
+    this.stats.countBufferUpload(data.remaining());
+    this.record("bufferSubData", target, offset, data);
+  }
+
+  @Override
+  public @NonNull ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+    this.record("mapBufferRange", target, offset, length, access);
+    return ByteBuffer.allocateDirect((int) length);
+  }
+
+  @Override
+  public boolean unmapBuffer(int target) {
+    this.record("unmapBuffer", target);
+    return true;
+  }
+
+  @Override
+  public int genVertexArrays() {
+    return this.gen("genVertexArrays");
+  }
+
+  @Override
+  public void deleteVertexArrays(int array) {
+    this.record("deleteVertexArrays", array);
+  }
+
+  @Override
+  public void bindVertexArray(int array) {
+    this.record("bindVertexArray", array);
+  }
+
+  @Override
+  public void enableVertexAttribArray(int index) {
+    this.record("enableVertexAttribArray", index);
+  }
+
+  @Override
+  public void disableVertexAttribArray(int index) {
+    this.record("disableVertexAttribArray", index);
+  }
+
+  @Override
+  public void vertexAttribPointer(
+      int index, int size, int type, boolean normalized, int stride, long pointer) {
+    this.record("vertexAttribPointer", index, size, type, normalized, stride, pointer);
+  }
+
+  @Override
+  public void vertexAttribDivisor(int index, int divisor) {
+    this.record("vertexAttribDivisor", index, divisor);
+  }
+
+  @Override
+  public void drawElements(int mode, int count, int type, long indices) {
+    this.stats.countDraw();
+    this.record("drawElements", mode, count, type, indices);
+  }
+
+  @Override
+  public void drawElementsInstanced(
+      int mode, int count, int type, long indices, int instanceCount) {
+    this.stats.countInstancedDraw(instanceCount);
+    this.record("drawElementsInstanced", mode, count, type, indices, instanceCount);
+  }
+
+  @Override
+  public int genTextures() {
+    return this.gen("genTextures");
+  }
+
+  @Override
+  public void deleteTextures(int texture) {
+    this.record("deleteTextures", texture);
+  }
+
+  @Override
+  public void activeTexture(int texture) {
+    this.record("activeTexture", texture);
+  }
+
+  @Override
+  public void bindTexture(int target, int texture) {
+    this.stats.countTextureBind();
+    this.record("bindTexture", target, texture);
+  }
+
+  @Override
+  public void texParameteri(int target, int pname, int param) {
+    this.record("texParameteri", target, pname, param);
+  }
+
+  @Override
+  public void pixelStorei(int pname, int param) {
+    this.record("pixelStorei", pname, param);
+    if (pname == GL_UNPACK_ALIGNMENT) this.unpackAlignment = param;
+  }
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      @Nullable ByteBuffer pixels) {
+    this.record(
+        "texImage2D", target, level, internalFormat, width, height, border, format, type, pixels);
+  }
+
+  @Override
+  public void texImage2D(
+      int target,
+      int level,
+      int internalFormat,
+      int width,
+      int height,
+      int border,
+      int format,
+      int type,
+      long pixelsOffset) {
+    this.checkUnpack(width, height, format, type, pixelsOffset);
+    this.record(
+        "texImage2D",
+        target,
+        level,
+        internalFormat,
+        width,
+        height,
+        border,
+        format,
+        type,
+        pixelsOffset);
+  }
+
+  @Override
+  public void generateMipmap(int target) {
+    this.record("generateMipmap", target);
+  }
+
+  @Override
+  public void texBuffer(int target, int internalFormat, int buffer) {
+    this.record("texBuffer", target, internalFormat, buffer);
+  }
+
+  @Override
+  public int createShader(int type) {
+    return this.gen("createShader", type);
+  }
+
+  /** Only the length of {@code source} is recorded */
+  @Override
+  public void shaderSource(int shader, @NonNull CharSequence source) {
+    this.record("shaderSource", shader, "char[" + source.length() + "]");
+  }
+
+  @Override
+  public void compileShader(int shader) {
+    this.record("compileShader", shader);
+  }
+
+  @Override
+  public int getShaderi(int shader, int pname) {
+    return GL_TRUE;
+  }
+
+  @Override
+  public @NonNull String getShaderInfoLog(int shader) {
+    return "";
+  }
+
+  @Override
+  public void deleteShader(int shader) {
+    this.record("deleteShader", shader);
+  }
+
+  @Override
+  public int createProgram() {
+    return this.gen("createProgram");
+  }
+
+  @Override
+  public void attachShader(int program, int shader) {
+    this.record("attachShader", program, shader);
+  }
+
+  @Override
+  public void linkProgram(int program) {
+    this.record("linkProgram", program);
+  }
+
+  @Override
+  public void validateProgram(int program) {
+    this.record("validateProgram", program);
+  }
+
+  @Override
+  public int getProgrami(int program, int pname) {
+    return GL_TRUE;
+  }
+
+  @Override
+  public @NonNull String getProgramInfoLog(int program) {
+    return "";
+  }
+
+  @Override
+  public void deleteProgram(int program) {
+    this.record("deleteProgram", program);
+  }
+
+  @Override
+  public void useProgram(int program) {
+    this.stats.countProgramBind();
+    this.record("useProgram", program);
+  }
+
+  /** @return a different location for each uniform of each program, starting from {@code 0} */
+  @Override
+  public int getUniformLocation(int program, @NonNull CharSequence name) {
+    this.record("getUniformLocation", program, name);
+    final var key = program + ":" + name;
+    return this.uniformLocations.computeIfAbsent(key, it -> this.uniformLocations.size());
+  }
+
+  @Override
+  public int getUniformBlockIndex(int program, @NonNull CharSequence name) {
+    this.record("getUniformBlockIndex", program, name);
+    return 0;
+  }
+
+  @Override
+  public void uniformBlockBinding(int program, int blockIndex, int blockBinding) {
+    this.record("uniformBlockBinding", program, blockIndex, blockBinding);
+  }
+
+  @Override
+  public void uniform1i(int location, int value) {
+    this.stats.countUniformUpload();
+    this.record("uniform1i", location, value);
+  }
+
+  @Override
+  public void uniform1iv(int location, int @NonNull [] values) {
+    this.stats.countUniformUpload();
+    this.record("uniform1iv", location, values);
+  }
+
+  @Override
+  public void uniform1f(int location, float value) {
+    this.stats.countUniformUpload();
+    this.record("uniform1f", location, value);
+  }
+
+  @Override
+  public void uniform2f(int location, float x, float y) {
+    this.stats.countUniformUpload();
+    this.record("uniform2f", location, x, y);
+  }
+
+  @Override
+  public void uniform3f(int location, float x, float y, float z) {
+    this.stats.countUniformUpload();
+    this.record("uniform3f", location, x, y, z);
+  }
+
+  @Override
+  public void uniform4f(int location, float x, float y, float z, float w) {
+    this.stats.countUniformUpload();
+    this.record("uniform4f", location, x, y, z, w);
+  }
+
+  @Override
+  public void uniformMatrix3fv(int location, boolean transpose, float @NonNull [] value) {
+    this.stats.countUniformUpload();
+    this.record("uniformMatrix3fv", location, transpose, value);
+  }
+
+  @Override
+  public void uniformMatrix4fv(int location, boolean transpose, float @NonNull [] value) {
+    this.stats.countUniformUpload();
+    this.record("uniformMatrix4fv", location, transpose, value);
+  }
+
+  @Override
+  public int genQueries() {
+    return this.gen("genQueries");
+  }
+
+  @Override
+  public void deleteQueries(int query) {
+    this.queryResults.remove(query);
+    this.record("deleteQueries", query);
+  }
+
+  @Override
+  public void queryCounter(int query, int target) {
+    this.queryResults.put(query, this.timestamp);
+    this.record("queryCounter", query, target);
+  }
+
+  @Override
+  public int getQueryObjecti(int query, int pname) {
+    if (pname == GL_QUERY_RESULT_AVAILABLE) return this.queryResults.containsKey(query) ? 1 : 0;
+    return (int) this.getQueryObjectui64(query, pname);
+  }
+
+  @Override
+  public long getQueryObjectui64(int query, int pname) {
+    final var result = this.queryResults.get(query);
+    return result != null ? result : 0;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "RecordingGl{" + this.stats + "}";
+  }
+
+  /**
+   * @throws IllegalStateException if the upload would read past the end of the bound pixel unpack
+   *     buffer, where GL would raise {@code GL_INVALID_OPERATION}
+   */
+  private void checkUnpack(int width, int height, int format, int type, long offset) {
+    final var size = this.bufferSizes.get(this.unpackBuffer);
+    if (size == null || type != GL_UNSIGNED_BYTE || (format != GL_RGB && format != GL_RGBA))
+      return;
+
+    // every row but the last is padded out to the unpack alignment
+    final var rowBytes = (long) width * (format == GL_RGBA ? 4 : 3);
+    final var alignment = this.unpackAlignment;
+    final var stride = (rowBytes + alignment - 1) / alignment * alignment;
+    final var needed = offset + stride * (height - 1) + rowBytes;
+    if (needed > size)
+      throw new IllegalStateException(
+          "GL_INVALID_OPERATION: expected unpack buffer size: >=" + needed + " but was: " + size);
+  }
+
+  private int gen(@NonNull String name, @NonNull Object... args) {
+    this.record(name, args);
+    return this.nextName++;
+  }
+
+  private void record(@NonNull String name, @Nullable Object... args) {
+    final var command = new StringBuilder(name).append('(');
+    for (var idx = 0; idx < args.length; idx++) {
+      if (idx != 0) command.append(", ");
+      command.append(describe(args[idx]));
+    }
+    this.commands.add(command.append(')').toString());
+  }
+
+  private static @NonNull String describe(@Nullable Object arg) {
+    if (arg instanceof float[]) return "float[" + ((float[]) arg).length + "]";
+    if (arg instanceof short[]) return "short[" + ((short[]) arg).length + "]";
+    if (arg instanceof int[]) return "int[" + ((int[]) arg).length + "]";
+    if (arg instanceof FloatBuffer) return "FloatBuffer[" + ((Buffer) arg).remaining() + "]";
+    if (arg instanceof IntBuffer) return "IntBuffer[" + ((Buffer) arg).remaining() + "]";
+    if (arg instanceof ByteBuffer) return "ByteBuffer[" + ((Buffer) arg).remaining() + "]";
+    return String.valueOf(arg);
+  }
+}
@@ -0,0 +1,133 @@
+package jakemarsden.opengl.engine.gl;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Counts the GL calls which tend to dominate the CPU cost of a frame, as they're made through a
+ * {@link Gl}, along with the normal transforms built for them. Every counter is a plain field, so
+ * counting costs next to nothing, and they keep going up until they're {@link #reset()}, usually
+ * at the end of each frame
+ */
+public final class RenderStats {
+
+  private int drawCalls = 0;
+  private int instancesDrawn = 0;
+  private int textureBinds = 0;
+  private int programBinds = 0;
+  private int uniformUploads = 0;
+  private int bufferUploads = 0;
+  private long bytesUploaded = 0;
+  private long normalTransforms = 0;
+
+  public static @NonNull RenderStats create() {
+    return new RenderStats();
+  }
+
+  private RenderStats() {}
+
+  /** @return how many draw calls have been made, instanced or not */
+  public int getDrawCalls() {
+    return this.drawCalls;
+  }
+
+  /** @return the total instance count of every instanced draw call */
+  public int getInstancesDrawn() {
+    return this.instancesDrawn;
+  }
+
+  /** @return how many times a texture has been bound (or unbound) */
+  public int getTextureBinds() {
+    return this.textureBinds;
+  }
+
+  /** @return how many times a shader program has been made current (or stopped) */
+  public int getProgramBinds() {
+    return this.programBinds;
+  }
+
+  /** @return how many {@code glUniform*} calls have been made */
+  public int getUniformUploads() {
+    return this.uniformUploads;
+  }
+
+  /** @return how many times data has been uploaded into a buffer */
+  public int getBufferUploads() {
+    return this.bufferUploads;
+  }
+
+  /** @return the total size of every buffer upload, in bytes */
+  public long getBytesUploaded() {
+    return this.bytesUploaded;
+  }
+
+  /**
+   * @return how many normal transforms have been built, each of which replaces a matrix inversion,
+   *     as {@link #countNormalTransforms counted} by whoever built them
+   */
+  public long getNormalTransforms() {
+    return this.normalTransforms;
+  }
+
+  /** Unlike the other counters, not counted by the {@link Gl} itself */
+  public void countNormalTransforms(long count) {
+    this.normalTransforms += count;
+  }
+
+  public void reset() {
+    this.drawCalls = 0;
+    this.instancesDrawn = 0;
+    this.textureBinds = 0;
+    this.programBinds = 0;
+    this.uniformUploads = 0;
+    this.bufferUploads = 0;
+    this.bytesUploaded = 0;
+    this.normalTransforms = 0;
+  }
+
+  void countDraw() {
+    this.drawCalls++;
+  }
+
+  void countInstancedDraw(int instanceCount) {
+    this.drawCalls++;
+    this.instancesDrawn += instanceCount;
+  }
+
+  void countTextureBind() {
+    this.textureBinds++;
+  }
+
+  void countProgramBind() {
+    this.programBinds++;
+  }
+
+  void countUniformUpload() {
+    this.uniformUploads++;
+  }
+
+  void countBufferUpload(long bytes) {
+    this.bufferUploads++;
+    this.bytesUploaded += bytes;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "RenderStats{drawCalls="
+        + this.drawCalls
+        + ", instancesDrawn="
+        + this.instancesDrawn
+        + ", textureBinds="
+        + this.textureBinds
+        + ", programBinds="
+        + this.programBinds
+        + ", uniformUploads="
+        + this.uniformUploads
+        + ", bufferUploads="
+        + this.bufferUploads
+        + ", bytesUploaded="
+        + this.bytesUploaded
+        + ", normalTransforms="
+        + this.normalTransforms
+        + "}";
+  }
+}
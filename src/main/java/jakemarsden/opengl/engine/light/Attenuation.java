@@ -1,6 +1,7 @@
 package jakemarsden.opengl.engine.light;
 
 import static jakemarsden.opengl.engine.math.Math.pow;
+import static jakemarsden.opengl.engine.math.Math.sqrt;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -47,6 +48,24 @@ public final class Attenuation {
     return 1 / (this.k + this.l * distance + this.q * pow(distance, 2));
   }
 
+  /**
+   * The inverse of {@link #calculateIntensity(float)}: how far from a light its intensity falls to
+   * {@code minIntensity}. Beyond this distance the light can be treated as having no effect
+   *
+   * @return {@link Float#POSITIVE_INFINITY} if the intensity never falls that low
+   */
+  public float calculateRange(float minIntensity) {
+    if (!(minIntensity > 0))
+      throw new IllegalArgumentException("Expected intensity: >0 but was: " + minIntensity);
+
+    // solve q*d^2 + l*d + k = 1/minIntensity for d
+    final var c = this.k - 1 / minIntensity;
+    if (c >= 0) return 0;
+    if (this.q > 0) return (-this.l + sqrt(this.l * this.l - 4 * this.q * c)) / (2 * this.q);
+    if (this.l > 0) return -c / this.l;
+    return Float.POSITIVE_INFINITY;
+  }
+
   @Override
   public @NonNull String toString() {
     return String.format("Attenuation{k=%.2f, l=%.2f, q=%.2f}", this.k, this.l, this.q);
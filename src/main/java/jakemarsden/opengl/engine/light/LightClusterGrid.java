@@ -0,0 +1,354 @@
+package jakemarsden.opengl.engine.light;
+
+import static java.lang.Math.floor;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.tan;
+
+import jakemarsden.opengl.engine.camera.PerspectiveCamera;
+import jakemarsden.opengl.engine.math.Matrix4;
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.units.qual.radians;
+
+/**
+ * Bins {@link PointLight}s into clusters of a camera's view frustum, so each fragment only has to
+ * consider the lights which can actually reach it rather than every light in the scene.
+ *
+ * <p>The frustum is divided into {@code tilesX * tilesY} tiles across the screen, and each tile
+ * into {@code slices} slices by depth. Slices get exponentially deeper with distance from the
+ * camera, so clusters stay roughly cubic. Each light is treated as a sphere reaching as far as its
+ * {@link PointLight#getRange() range}, and is added to every cluster the sphere's
+ * bounding box might overlap. The test is conservative: a light may be binned into a few clusters
+ * it doesn't quite reach, but never misses a cluster it does.
+ *
+ * <p>The result is a flat list of light indices, with each cluster's lights stored contiguously,
+ * plus an {@code (offset, count)} pair for each cluster saying where its lights are in that list.
+ * Cluster {@code (x, y, z)} is at index {@code x + tilesX * (y + tilesY * z)}, where {@code x} and
+ * {@code y} count from the bottom-left of the screen. If there are more than {@code
+ * maxLightIndices} in total, every cluster is trimmed to the same cap, so the busiest clusters lose
+ * some of their lights rather than later clusters losing all of theirs. All storage is primitive
+ * arrays, so once the grid has grown to fit its lights, {@link #bin} doesn't allocate anything. Not
+ * thread-safe
+ */
+public final class LightClusterGrid {
+
+  private static final int INITIAL_LIGHT_CAPACITY = 64;
+  private static final int BOUNDS_SIZE = 6;
+
+  private final int tilesX;
+  private final int tilesY;
+  private final int slices;
+  private final int maxLightIndices;
+
+  /** {@code (offset, count)} of each cluster's lights within {@link #lightIndices} */
+  private final int[] clusters;
+  /** Where the next light binned into each cluster should go */
+  private final int[] cursors;
+
+  private int[] lightIndices = new int[INITIAL_LIGHT_CAPACITY];
+  private int lightIndexCount = 0;
+  private int droppedLightIndexCount = 0;
+
+  /** The range of clusters overlapped by each light: {@code x0, x1, y0, y1, z0, z1} (inclusive) */
+  private int[] lightBounds = new int[BOUNDS_SIZE * INITIAL_LIGHT_CAPACITY];
+
+  /** Row-major, like {@link Matrix4} */
+  private final float[] view = new float[4 * 4];
+
+  private float nearZ = 0;
+  private float farZ = 0;
+
+  /**
+   * @param maxLightIndices the most lights which can be binned in total, summed over every
+   *     cluster. Any beyond this are dropped
+   */
+  public static @NonNull LightClusterGrid create(
+      int tilesX, int tilesY, int slices, int maxLightIndices) {
+
+    if (tilesX <= 0) throw new IllegalArgumentException("Expected tiles x: >0 but was: " + tilesX);
+    if (tilesY <= 0) throw new IllegalArgumentException("Expected tiles y: >0 but was: " + tilesY);
+    if (slices <= 0) throw new IllegalArgumentException("Expected slices: >0 but was: " + slices);
+    if (maxLightIndices <= 0)
+      throw new IllegalArgumentException(
+          "Expected max light indices: >0 but was: " + maxLightIndices);
+    return new LightClusterGrid(tilesX, tilesY, slices, maxLightIndices);
+  }
+
+  private LightClusterGrid(int tilesX, int tilesY, int slices, int maxLightIndices) {
+    this.tilesX = tilesX;
+    this.tilesY = tilesY;
+    this.slices = slices;
+    this.maxLightIndices = maxLightIndices;
+    this.clusters = new int[2 * tilesX * tilesY * slices];
+    this.cursors = new int[tilesX * tilesY * slices];
+  }
+
+  public int getTilesX() {
+    return this.tilesX;
+  }
+
+  public int getTilesY() {
+    return this.tilesY;
+  }
+
+  public int getSlices() {
+    return this.slices;
+  }
+
+  public int getClusterCount() {
+    return this.tilesX * this.tilesY * this.slices;
+  }
+
+  public int getClusterIndex(int x, int y, int z) {
+    return x + this.tilesX * (y + this.tilesY * z);
+  }
+
+  /** @return the near clipping distance of the camera the lights were last binned for */
+  public float getNearZ() {
+    return this.nearZ;
+  }
+
+  /** @return the far clipping distance of the camera the lights were last binned for */
+  public float getFarZ() {
+    return this.farZ;
+  }
+
+  /**
+   * @return {@code (offset, count)} of each cluster's lights within {@link #getLightIndices()}.
+   *     Owned by the grid, and only valid until the next {@link #bin}
+   */
+  public int @NonNull [] getClusters() {
+    return this.clusters;
+  }
+
+  public int getLightOffset(int cluster) {
+    return this.clusters[2 * cluster];
+  }
+
+  public int getLightCount(int cluster) {
+    return this.clusters[2 * cluster + 1];
+  }
+
+  /**
+   * @return indices into the binned lights, grouped by cluster. Only the first {@link
+   *     #getLightIndexCount()} elements are valid. Owned by the grid, and only valid until the next
+   *     {@link #bin}
+   */
+  public int @NonNull [] getLightIndices() {
+    return this.lightIndices;
+  }
+
+  public int getLightIndexCount() {
+    return this.lightIndexCount;
+  }
+
+  /** @return how many light indices didn't fit in the last {@link #bin}, and were dropped */
+  public int getDroppedLightIndexCount() {
+    return this.droppedLightIndexCount;
+  }
+
+  /** @see #bin(PointLight[], int, Matrix4, float, float, float, float) */
+  public void bin(
+      @Nullable PointLight @NonNull [] lights, int count, @NonNull PerspectiveCamera camera) {
+
+    this.bin(
+        lights,
+        count,
+        camera.calculateViewTransform(),
+        camera.getFovY(),
+        camera.getAspectRatio(),
+        camera.getNearZ(),
+        camera.getFarZ());
+  }
+
+  /**
+   * Replaces the contents of every cluster with the first {@code count} elements of {@code
+   * lights}, as seen by a perspective camera. Light indices refer to positions within {@code
+   * lights}
+   */
+  public void bin(
+      @Nullable PointLight @NonNull [] lights,
+      int count,
+      @NonNull Matrix4 view,
+      @radians float fovY,
+      float ar,
+      float nearZ,
+      float farZ) {
+
+    if (!(nearZ > 0) || !(farZ > nearZ))
+      throw new IllegalArgumentException(
+          "Expected depth range: 0<near<far but was: " + nearZ + ", " + farZ);
+    if (this.lightBounds.length < BOUNDS_SIZE * count)
+      this.lightBounds = new int[max(BOUNDS_SIZE * count, 2 * this.lightBounds.length)];
+
+    view.toArray(this.view);
+    this.nearZ = nearZ;
+    this.farZ = farZ;
+
+    final var tanY = (float) tan(fovY / 2);
+    final var tanX = tanY * ar;
+    final var sliceScale = this.slices / (float) log(farZ / nearZ);
+
+    // first pass: find which clusters each light overlaps, and count the lights in each cluster
+    Arrays.fill(this.cursors, 0);
+    for (var idx = 0; idx < count; idx++) {
+      final var light = lights[idx];
+      if (light == null) throw new IllegalArgumentException("Null point light at: " + idx);
+      if (this.calculateBounds(idx, light, tanX, tanY, sliceScale)) this.countLight(idx);
+    }
+
+    // the lights in each cluster are packed one after the other, each trimmed to the same cap if
+    // they don't all fit, so it's the busiest clusters which lose lights rather than the last ones
+    final var cap = this.calculateClusterCap();
+    var spare = this.maxLightIndices - this.countUpTo(cap);
+    var offset = 0;
+    for (var cluster = 0; cluster < this.cursors.length; cluster++) {
+      var clusterCount = min(this.cursors[cluster], cap);
+      if (clusterCount < this.cursors[cluster] && spare > 0) {
+        // whatever the cap leaves unused is shared out one each
+        clusterCount++;
+        spare--;
+      }
+      this.clusters[2 * cluster] = offset;
+      this.clusters[2 * cluster + 1] = clusterCount;
+      this.cursors[cluster] = offset;
+      offset += clusterCount;
+    }
+    if (this.lightIndices.length < offset) {
+      final var capacity = min(2 * this.lightIndices.length, this.maxLightIndices);
+      this.lightIndices = new int[max(offset, capacity)];
+    }
+
+    // second pass: write each light into the clusters it overlaps
+    var total = 0;
+    for (var idx = 0; idx < count; idx++) {
+      final var bounds = BOUNDS_SIZE * idx;
+      if (this.lightBounds[bounds] > this.lightBounds[bounds + 1]) continue;
+      total += this.writeLight(idx);
+    }
+    this.lightIndexCount = offset;
+    this.droppedLightIndexCount = total - offset;
+  }
+
+  /**
+   * @return the most lights any one cluster can have without the total going over {@link
+   *     #maxLightIndices}, which is {@link Integer#MAX_VALUE} if they all fit
+   */
+  private int calculateClusterCap() {
+    var maxCount = 0;
+    for (final var count : this.cursors) maxCount = max(maxCount, count);
+    if (this.countUpTo(maxCount) <= this.maxLightIndices) return Integer.MAX_VALUE;
+
+    // the largest cap which fits, somewhere in [lo, hi)
+    var lo = 0;
+    var hi = maxCount;
+    while (hi - lo > 1) {
+      final var mid = (lo + hi) >>> 1;
+      if (this.countUpTo(mid) <= this.maxLightIndices) lo = mid;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  /** @return how many light indices there'd be in total if no cluster had more than {@code cap} */
+  private long countUpTo(int cap) {
+    var total = 0L;
+    for (final var count : this.cursors) total += min(count, cap);
+    return total;
+  }
+
+  /** @return {@code false} if the light can't affect anything the camera can see */
+  private boolean calculateBounds(
+      int idx, @NonNull PointLight light, float tanX, float tanY, float sliceScale) {
+
+    final var bounds = BOUNDS_SIZE * idx;
+    final var pos = light.getPosition();
+    final var range = light.getRange();
+    final var m = this.view;
+    final var x = m[0] * pos.x + m[1] * pos.y + m[2] * pos.z + m[3];
+    final var y = m[4] * pos.x + m[5] * pos.y + m[6] * pos.z + m[7];
+    // the camera looks down -z
+    final var depth = -(m[8] * pos.x + m[9] * pos.y + m[10] * pos.z + m[11]);
+
+    final var minDepth = max(depth - range, this.nearZ);
+    final var maxDepth = min(depth + range, this.farZ);
+    if (minDepth > maxDepth) return this.cull(bounds);
+
+    // the sphere's bounding box projects furthest to either side at one or other of its depths
+    final var minX = min((x - range) / (minDepth * tanX), (x - range) / (maxDepth * tanX));
+    final var maxX = max((x + range) / (minDepth * tanX), (x + range) / (maxDepth * tanX));
+    final var minY = min((y - range) / (minDepth * tanY), (y - range) / (maxDepth * tanY));
+    final var maxY = max((y + range) / (minDepth * tanY), (y + range) / (maxDepth * tanY));
+    if (maxX < -1 || minX > 1 || maxY < -1 || minY > 1) return this.cull(bounds);
+
+    this.lightBounds[bounds] = tileOf(minX, this.tilesX);
+    this.lightBounds[bounds + 1] = tileOf(maxX, this.tilesX);
+    this.lightBounds[bounds + 2] = tileOf(minY, this.tilesY);
+    this.lightBounds[bounds + 3] = tileOf(maxY, this.tilesY);
+    this.lightBounds[bounds + 4] = this.sliceOf(minDepth, sliceScale);
+    this.lightBounds[bounds + 5] = this.sliceOf(maxDepth, sliceScale);
+    return true;
+  }
+
+  private boolean cull(int bounds) {
+    // an empty range, so the light isn't in any clusters
+    this.lightBounds[bounds] = 0;
+    this.lightBounds[bounds + 1] = -1;
+    return false;
+  }
+
+  private void countLight(int idx) {
+    final var b = BOUNDS_SIZE * idx;
+    for (var z = this.lightBounds[b + 4]; z <= this.lightBounds[b + 5]; z++) {
+      for (var y = this.lightBounds[b + 2]; y <= this.lightBounds[b + 3]; y++) {
+        for (var x = this.lightBounds[b]; x <= this.lightBounds[b + 1]; x++) {
+          this.cursors[this.getClusterIndex(x, y, z)]++;
+        }
+      }
+    }
+  }
+
+  /** @return how many clusters the light overlaps, including any it didn't fit into */
+  private int writeLight(int idx) {
+    final var b = BOUNDS_SIZE * idx;
+    var overlapped = 0;
+    for (var z = this.lightBounds[b + 4]; z <= this.lightBounds[b + 5]; z++) {
+      for (var y = this.lightBounds[b + 2]; y <= this.lightBounds[b + 3]; y++) {
+        for (var x = this.lightBounds[b]; x <= this.lightBounds[b + 1]; x++) {
+          final var cluster = this.getClusterIndex(x, y, z);
+          final var end = this.clusters[2 * cluster] + this.clusters[2 * cluster + 1];
+          if (this.cursors[cluster] < end) this.lightIndices[this.cursors[cluster]++] = idx;
+          overlapped++;
+        }
+      }
+    }
+    return overlapped;
+  }
+
+  /** @param ndc a normalised device coordinate, in {@code [-1, 1]} if it's on screen */
+  private static int tileOf(float ndc, int tiles) {
+    final var tile = (int) floor((ndc + 1) / 2 * tiles);
+    return max(0, min(tiles - 1, tile));
+  }
+
+  private int sliceOf(float depth, float sliceScale) {
+    final var slice = (int) floor(log(depth / this.nearZ) * sliceScale);
+    return max(0, min(this.slices - 1, slice));
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "LightClusterGrid{clusters="
+        + this.tilesX
+        + "x"
+        + this.tilesY
+        + "x"
+        + this.slices
+        + ", lightIndices="
+        + this.lightIndexCount
+        + "}";
+  }
+}
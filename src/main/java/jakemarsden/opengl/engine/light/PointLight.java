@@ -6,6 +6,14 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 public final class PointLight extends Light {
 
+  /**
+   * A light's reach ends where its intensity falls to this, and shaders fade it out to nothing
+   * as it gets there, so it's cut off without a hard edge. High enough that, with {@link
+   * Attenuation#range(float)}-style falloff, each light only reaches a few units and a scene full
+   * of them doesn't have every light reaching every fragment
+   */
+  public static final float MIN_INTENSITY = 0.5f;
+
   private @NonNull Vector3 pos;
   private @NonNull Attenuation attenuation;
 
@@ -33,6 +41,11 @@ public final class PointLight extends Light {
     return this.attenuation;
   }
 
+  /** @return how far this light reaches, beyond which it has no effect at all */
+  public float getRange() {
+    return this.attenuation.calculateRange(MIN_INTENSITY);
+  }
+
   public void setAttenuation(@NonNull Attenuation attenuation) {
     this.attenuation = attenuation;
   }
@@ -0,0 +1,161 @@
+package jakemarsden.opengl.engine.math;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/** An axis-aligned bounding box. The {@link #empty() empty} box doesn't contain anything */
+public final class Aabb {
+
+  private static final Aabb EMPTY =
+      new Aabb(
+          Float.POSITIVE_INFINITY,
+          Float.POSITIVE_INFINITY,
+          Float.POSITIVE_INFINITY,
+          Float.NEGATIVE_INFINITY,
+          Float.NEGATIVE_INFINITY,
+          Float.NEGATIVE_INFINITY);
+
+  public final float minX;
+  public final float minY;
+  public final float minZ;
+  public final float maxX;
+  public final float maxY;
+  public final float maxZ;
+
+  public static @NonNull Aabb empty() {
+    return EMPTY;
+  }
+
+  public static @NonNull Aabb of(@NonNull Vector3 min, @NonNull Vector3 max) {
+    return Aabb.of(min.x, min.y, min.z, max.x, max.y, max.z);
+  }
+
+  public static @NonNull Aabb of(
+      float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+
+    if (minX > maxX || minY > maxY || minZ > maxZ)
+      throw new IllegalArgumentException(
+          "Expected min: <=max but was: "
+              + Vector3.of(minX, minY, minZ)
+              + ", "
+              + Vector3.of(maxX, maxY, maxZ));
+    return new Aabb(minX, minY, minZ, maxX, maxY, maxZ);
+  }
+
+  /**
+   * @param positions {@code x, y, z} of each point, one after the other
+   * @return the smallest box containing every point, or the {@link #empty() empty} box if there
+   *     aren't any
+   */
+  public static @NonNull Aabb enclosing(float @NonNull [] positions) {
+    if (positions.length % 3 != 0)
+      throw new IllegalArgumentException(
+          "Expected length: multiple of 3 but was: " + positions.length);
+    if (positions.length == 0) return EMPTY;
+
+    var minX = Float.POSITIVE_INFINITY;
+    var minY = Float.POSITIVE_INFINITY;
+    var minZ = Float.POSITIVE_INFINITY;
+    var maxX = Float.NEGATIVE_INFINITY;
+    var maxY = Float.NEGATIVE_INFINITY;
+    var maxZ = Float.NEGATIVE_INFINITY;
+    for (var idx = 0; idx < positions.length; idx += 3) {
+      minX = min(minX, positions[idx]);
+      minY = min(minY, positions[idx + 1]);
+      minZ = min(minZ, positions[idx + 2]);
+      maxX = max(maxX, positions[idx]);
+      maxY = max(maxY, positions[idx + 1]);
+      maxZ = max(maxZ, positions[idx + 2]);
+    }
+    return new Aabb(minX, minY, minZ, maxX, maxY, maxZ);
+  }
+
+  private Aabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    this.minX = minX;
+    this.minY = minY;
+    this.minZ = minZ;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    this.maxZ = maxZ;
+  }
+
+  public boolean isEmpty() {
+    return this.minX > this.maxX;
+  }
+
+  public @NonNull Vector3 getMin() {
+    return Vector3.of(this.minX, this.minY, this.minZ);
+  }
+
+  public @NonNull Vector3 getMax() {
+    return Vector3.of(this.maxX, this.maxY, this.maxZ);
+  }
+
+  public @NonNull Vector3 getCentre() {
+    return Vector3.of(
+        (this.minX + this.maxX) / 2, (this.minY + this.maxY) / 2, (this.minZ + this.maxZ) / 2);
+  }
+
+  /** @return half of this box's size along each axis */
+  public @NonNull Vector3 getExtent() {
+    return Vector3.of(
+        (this.maxX - this.minX) / 2, (this.maxY - this.minY) / 2, (this.maxZ - this.minZ) / 2);
+  }
+
+  /** @return the radius of the smallest sphere around {@link #getCentre()} containing this box */
+  public float calculateBoundingRadius() {
+    return this.getExtent().length();
+  }
+
+  public @NonNull Aabb union(@NonNull Aabb other) {
+    if (other.isEmpty()) return this;
+    if (this.isEmpty()) return other;
+    return new Aabb(
+        min(this.minX, other.minX),
+        min(this.minY, other.minY),
+        min(this.minZ, other.minZ),
+        max(this.maxX, other.maxX),
+        max(this.maxY, other.maxY),
+        max(this.maxZ, other.maxZ));
+  }
+
+  public boolean intersects(@NonNull Aabb other) {
+    return this.minX <= other.maxX
+        && this.maxX >= other.minX
+        && this.minY <= other.maxY
+        && this.maxY >= other.minY
+        && this.minZ <= other.maxZ
+        && this.maxZ >= other.minZ;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    if (this.isEmpty()) return "Aabb{empty}";
+    return String.format(
+        "Aabb{%.2f, %.2f, %.2f -> %.2f, %.2f, %.2f}",
+        this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) return true;
+    if (o == null) return false;
+    if (o.getClass() != Aabb.class) return false;
+    final var obj = (Aabb) o;
+    return this.minX == obj.minX
+        && this.minY == obj.minY
+        && this.minZ == obj.minZ
+        && this.maxX == obj.maxX
+        && this.maxY == obj.maxY
+        && this.maxZ == obj.maxZ;
+  }
+}
@@ -0,0 +1,105 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.sqrt;
+
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The six planes bounding the volume a camera can see, extracted from its combined projection and
+ * view transform (the Gribb/Hartmann method). Each plane is stored as {@code a, b, c, d}, with its
+ * normal pointing into the frustum, so a point is on the inside of a plane when {@code a*x + b*y +
+ * c*z + d >= 0}. Mutable, so the same frustum can be reused every frame
+ *
+ * @see <a
+ *     href="https://www.gamedevs.org/uploads/fast-extraction-viewing-frustum-planes-from-world-view-projection-matrix.pdf">Fast
+ *     Extraction of Viewing Frustum Planes from the World-View-Projection Matrix</a>
+ */
+public final class Frustum {
+
+  private static final int PLANE_COUNT = 6;
+
+  /** {@code left, right, bottom, top, near, far} */
+  private final float[] planes = new float[4 * PLANE_COUNT];
+  /** Reused for reading the matrix's elements */
+  private final float[] m = new float[4 * 4];
+
+  public static @NonNull Frustum create() {
+    return new Frustum();
+  }
+
+  private Frustum() {}
+
+  /** @param pv a combined projection and view transform */
+  public @NonNull Frustum set(@NonNull Matrix4 pv) {
+    pv.toArray(this.m);
+    return this.extractPlanes();
+  }
+
+  /** @param pv a combined projection and view transform */
+  public @NonNull Frustum set(@NonNull MutableMatrix4 pv) {
+    pv.toArray(this.m);
+    return this.extractPlanes();
+  }
+
+  /**
+   * @return {@code false} if the box is definitely outside the frustum. Boxes near the frustum's
+   *     corners may be reported as intersecting it when they don't quite, which is fine for culling
+   */
+  public boolean intersects(
+      float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+
+    final var p = this.planes;
+    for (var idx = 0; idx < p.length; idx += 4) {
+      // the corner of the box furthest along the plane's normal
+      final var x = p[idx] >= 0 ? maxX : minX;
+      final var y = p[idx + 1] >= 0 ? maxY : minY;
+      final var z = p[idx + 2] >= 0 ? maxZ : minZ;
+      if (p[idx] * x + p[idx + 1] * y + p[idx + 2] * z + p[idx + 3] < 0) return false;
+    }
+    return true;
+  }
+
+  /** @see #intersects(float, float, float, float, float, float) */
+  public boolean intersects(@NonNull Aabb box) {
+    return this.intersects(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+  }
+
+  /** @return {@code false} if the sphere is definitely outside the frustum */
+  public boolean intersectsSphere(float x, float y, float z, float radius) {
+    final var p = this.planes;
+    for (var idx = 0; idx < p.length; idx += 4) {
+      if (p[idx] * x + p[idx + 1] * y + p[idx + 2] * z + p[idx + 3] < -radius) return false;
+    }
+    return true;
+  }
+
+  public boolean contains(@NonNull Vector3 point) {
+    return this.intersectsSphere(point.x, point.y, point.z, 0);
+  }
+
+  private @NonNull Frustum extractPlanes() {
+    // each plane is the sum or difference of the last row and one of the others
+    for (var plane = 0; plane < PLANE_COUNT; plane++) {
+      final var row = plane / 2;
+      final var sign = plane % 2 == 0 ? 1 : -1;
+      final var a = this.m[12] + sign * this.m[4 * row];
+      final var b = this.m[13] + sign * this.m[4 * row + 1];
+      final var c = this.m[14] + sign * this.m[4 * row + 2];
+      final var d = this.m[15] + sign * this.m[4 * row + 3];
+
+      // normalised, so distances to the plane can be compared against a sphere's radius
+      final var length = sqrt(a * a + b * b + c * c);
+      this.planes[4 * plane] = a / length;
+      this.planes[4 * plane + 1] = b / length;
+      this.planes[4 * plane + 2] = c / length;
+      this.planes[4 * plane + 3] = d / length;
+    }
+    return this;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "Frustum{planes=" + Arrays.toString(this.planes) + "}";
+  }
+}
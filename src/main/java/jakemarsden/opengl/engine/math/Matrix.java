@@ -23,4 +23,7 @@ interface Matrix<TVec extends Vector<TVec>, TThis extends Matrix<TVec, TThis>> {
   TThis times(@NonNull TThis factor);
 
   float[] toArray();
+
+  /** Like {@link #toArray()}, but copies into {@code dest} rather than allocating a new array */
+  void toArray(float @NonNull [] dest);
 }
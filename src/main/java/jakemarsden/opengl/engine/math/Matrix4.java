@@ -25,7 +25,8 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
     IDENTITY = new Matrix4(m);
   }
 
-  private final float[] m;
+  /** Package-private so {@link MutableMatrix4} can copy it without allocating */
+  final float[] m;
 
   public static @NonNull Matrix4 identity() {
     return IDENTITY;
@@ -33,23 +34,82 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
 
   public static @NonNull Matrix4 transform(
       @NonNull Vector3 translation, @NonNull Vector3 rotation) {
-    final var t = Matrix4.translate(translation);
-    final var r = Matrix4.rotate(rotation);
-    return t.times(r);
+    return Matrix4.transform(translation, rotation, 1);
   }
 
   public static @NonNull Matrix4 transform(
       @NonNull Vector3 translation, @NonNull Vector3 rotation, float scale) {
-    final var tr = Matrix4.transform(translation, rotation);
-    final var s = Matrix4.scale(scale);
-    return tr.times(s);
+    final var m = new float[SIZE];
+    setTransform(
+        m,
+        translation.x,
+        translation.y,
+        translation.z,
+        rotation.x,
+        rotation.y,
+        rotation.z,
+        scale,
+        scale,
+        scale);
+    return new Matrix4(m);
   }
 
+  /** {@code translate(translation) * rotate(rotation) * scale(scale)}, built in one pass */
   public static @NonNull Matrix4 transform(
       @NonNull Vector3 translation, @NonNull Vector3 rotation, @NonNull Vector3 scale) {
-    final var tr = Matrix4.transform(translation, rotation);
-    final var s = Matrix4.scale(scale);
-    return tr.times(s);
+    final var m = new float[SIZE];
+    setTransform(
+        m,
+        translation.x,
+        translation.y,
+        translation.z,
+        rotation.x,
+        rotation.y,
+        rotation.z,
+        scale.x,
+        scale.y,
+        scale.z);
+    return new Matrix4(m);
+  }
+
+  /** {@code translate(translation) * rotation.toMatrix() * scale(scale)}, built in one pass */
+  public static @NonNull Matrix4 transform(
+      @NonNull Vector3 translation, @NonNull Quaternion rotation, @NonNull Vector3 scale) {
+    final var m = new float[SIZE];
+    setTransform(
+        m,
+        translation.x,
+        translation.y,
+        translation.z,
+        rotation.x,
+        rotation.y,
+        rotation.z,
+        rotation.w,
+        scale.x,
+        scale.y,
+        scale.z);
+    return new Matrix4(m);
+  }
+
+  /**
+   * @return the inverse-transpose of any {@link #transform(Vector3, Vector3, Vector3) transform}
+   *     with this rotation and scale, for transforming normals. Translation doesn't affect normals,
+   *     so it's left out. Built in one pass, without inverting anything
+   */
+  public static @NonNull Matrix4 normalTransform(
+      @NonNull Vector3 rotation, @NonNull Vector3 scale) {
+    final var m = new float[SIZE];
+    setNormalTransform(m, rotation.x, rotation.y, rotation.z, scale.x, scale.y, scale.z);
+    return new Matrix4(m);
+  }
+
+  /** Like {@link #normalTransform(Vector3, Vector3)}, but for a quaternion rotation */
+  public static @NonNull Matrix4 normalTransform(
+      @NonNull Quaternion rotation, @NonNull Vector3 scale) {
+    final var m = new float[SIZE];
+    setNormalTransform(
+        m, rotation.x, rotation.y, rotation.z, rotation.w, scale.x, scale.y, scale.z);
+    return new Matrix4(m);
   }
 
   public static @NonNull Matrix4 translate(@NonNull Vector3 v) {
@@ -91,6 +151,12 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
     return new Matrix4(m);
   }
 
+  public static @NonNull Matrix4 rotate(@NonNull Quaternion q) {
+    final var m = new float[SIZE];
+    setTransform(m, 0, 0, 0, q.x, q.y, q.z, q.w, 1, 1, 1);
+    return new Matrix4(m);
+  }
+
   public static @NonNull Matrix4 scale(float s) {
     return Matrix4.scale(s, s, s);
   }
@@ -163,6 +229,13 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
     return Arrays.copyOf(this.m, SIZE);
   }
 
+  @Override
+  public void toArray(float @NonNull [] dest) {
+    if (dest.length < SIZE)
+      throw new IllegalArgumentException("Expected length: >=" + SIZE + " but was: " + dest.length);
+    System.arraycopy(this.m, 0, dest, 0, SIZE);
+  }
+
   @Override
   public @NonNull String toString() {
     final var sb = new StringBuilder(128);
@@ -194,6 +267,137 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
     return Arrays.equals(this.m, obj.m);
   }
 
+  /**
+   * Writes {@code T * R * S} into {@code m}. {@code R}'s columns are scaled by {@code S}, and the
+   * translation goes in the last column, so only 12 elements need to be calculated
+   */
+  static void setTransform(
+      float[] m,
+      float translationX,
+      float translationY,
+      float translationZ,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    final var a = cos(rotationX);
+    final var b = sin(rotationX);
+    final var c = cos(rotationY);
+    final var d = sin(rotationY);
+    final var e = cos(rotationZ);
+    final var f = sin(rotationZ);
+    final var ad = a * d;
+    final var bd = b * d;
+    m[0] = c * e * scaleX;
+    m[1] = -c * f * scaleY;
+    m[2] = d * scaleZ;
+    m[3] = translationX;
+    m[4] = (bd * e + a * f) * scaleX;
+    m[5] = (-bd * f + a * e) * scaleY;
+    m[6] = -b * c * scaleZ;
+    m[7] = translationY;
+    m[8] = (-ad * e + b * f) * scaleX;
+    m[9] = (ad * f + b * e) * scaleY;
+    m[10] = a * c * scaleZ;
+    m[11] = translationZ;
+    m[12] = 0;
+    m[13] = 0;
+    m[14] = 0;
+    m[15] = 1;
+  }
+
+  /**
+   * Writes the inverse-transpose of {@code R * S} into {@code m}. {@code R} is orthonormal, so
+   * {@code (R * S)^-T = R^-T * S^-T = R * S^-1}: the same as {@link #setTransform} with the
+   * reciprocal of the scale
+   */
+  static void setNormalTransform(
+      float[] m,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    setTransform(m, 0, 0, 0, rotationX, rotationY, rotationZ, 1 / scaleX, 1 / scaleY, 1 / scaleZ);
+  }
+
+  /**
+   * Like {@link #setTransform(float[], float, float, float, float, float, float, float, float,
+   * float)}, but with the rotation as a unit quaternion, which needs no trig to expand
+   */
+  static void setTransform(
+      float[] m,
+      float translationX,
+      float translationY,
+      float translationZ,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float rotationW,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    final var xx = rotationX * rotationX;
+    final var yy = rotationY * rotationY;
+    final var zz = rotationZ * rotationZ;
+    final var xy = rotationX * rotationY;
+    final var xz = rotationX * rotationZ;
+    final var yz = rotationY * rotationZ;
+    final var wx = rotationW * rotationX;
+    final var wy = rotationW * rotationY;
+    final var wz = rotationW * rotationZ;
+    m[0] = (1 - 2 * (yy + zz)) * scaleX;
+    m[1] = 2 * (xy - wz) * scaleY;
+    m[2] = 2 * (xz + wy) * scaleZ;
+    m[3] = translationX;
+    m[4] = 2 * (xy + wz) * scaleX;
+    m[5] = (1 - 2 * (xx + zz)) * scaleY;
+    m[6] = 2 * (yz - wx) * scaleZ;
+    m[7] = translationY;
+    m[8] = 2 * (xz - wy) * scaleX;
+    m[9] = 2 * (yz + wx) * scaleY;
+    m[10] = (1 - 2 * (xx + yy)) * scaleZ;
+    m[11] = translationZ;
+    m[12] = 0;
+    m[13] = 0;
+    m[14] = 0;
+    m[15] = 1;
+  }
+
+  /**
+   * Like {@link #setNormalTransform(float[], float, float, float, float, float, float)}, but with
+   * the rotation as a unit quaternion
+   */
+  static void setNormalTransform(
+      float[] m,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float rotationW,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    setTransform(
+        m,
+        0,
+        0,
+        0,
+        rotationX,
+        rotationY,
+        rotationZ,
+        rotationW,
+        1 / scaleX,
+        1 / scaleY,
+        1 / scaleZ);
+  }
+
   /**
    * I don't know how this works. I don't <em>want</em> to know how this works. I shamelessly stole
    * it from <a href="https://stackoverflow.com/a/1148405/6314470">here</a> and now I'm going to go
@@ -203,7 +407,7 @@ public final class Matrix4 implements Matrix<Vector4, Matrix4> {
    *     Overflow</a>
    * @see <a href="https://cgit.freedesktop.org/mesa/glu/tree/src/libutil/project.c#n163"></a>
    */
-  private static void scaryInvert(float[] m, float[] inv) {
+  static void scaryInvert(float[] m, float[] inv) {
     inv[0] =
         m[5] * m[10] * m[15]
             - m[5] * m[11] * m[14]
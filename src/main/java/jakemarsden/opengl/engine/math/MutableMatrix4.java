@@ -0,0 +1,380 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.cos;
+import static jakemarsden.opengl.engine.math.Math.sin;
+
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A {@link Matrix4} which is modified in place, for use in hot paths where allocating a new matrix
+ * (and its backing array) for every operation would be too expensive. Every operation modifies
+ * {@code this} and returns it to allow chaining, e.g. {@code
+ * normal.set(model).invert().transpose()}. Elements are stored in the same (row-major) order as
+ * {@link Matrix4}.
+ *
+ * <p>Prefer {@link Matrix4} everywhere else; it's far harder to misuse
+ */
+public final class MutableMatrix4 {
+
+  private static final int COLS = 4;
+  private static final int ROWS = 4;
+  private static final int SIZE = COLS * ROWS;
+
+  private final float[] m = new float[SIZE];
+  /** Somewhere to put intermediate results for operations which can't be done in-place */
+  private final float[] tmp = new float[SIZE];
+
+  public static @NonNull MutableMatrix4 identity() {
+    return new MutableMatrix4().setIdentity();
+  }
+
+  public static @NonNull MutableMatrix4 of(@NonNull Matrix4 m) {
+    return new MutableMatrix4().set(m);
+  }
+
+  private MutableMatrix4() {}
+
+  public @NonNull MutableMatrix4 set(@NonNull Matrix4 m) {
+    System.arraycopy(m.m, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  public @NonNull MutableMatrix4 set(@NonNull MutableMatrix4 m) {
+    System.arraycopy(m.m, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  /** Copies 16 elements from {@code src}, starting at {@code offset}, in row-major order */
+  public @NonNull MutableMatrix4 set(float @NonNull [] src, int offset) {
+    System.arraycopy(src, offset, this.m, 0, SIZE);
+    return this;
+  }
+
+  /**
+   * Copies 9 elements from {@code src}, starting at {@code offset}, in row-major order, into the
+   * upper-left 3x3 of this matrix. The rest is set to the identity
+   *
+   * @see #toMat3Array(float[], int)
+   */
+  public @NonNull MutableMatrix4 setMat3(float @NonNull [] src, int offset) {
+    for (var row = 0; row < 3; row++) {
+      System.arraycopy(src, offset + 3 * row, this.m, row * COLS, 3);
+      this.m[3 + row * COLS] = 0;
+    }
+    this.m[12] = 0;
+    this.m[13] = 0;
+    this.m[14] = 0;
+    this.m[15] = 1;
+    return this;
+  }
+
+  public @NonNull MutableMatrix4 setIdentity() {
+    Arrays.fill(this.m, 0);
+    this.m[0] = 1;
+    this.m[5] = 1;
+    this.m[10] = 1;
+    this.m[15] = 1;
+    return this;
+  }
+
+  /** @see Matrix4#translate(float, float, float) */
+  public @NonNull MutableMatrix4 setTranslate(float x, float y, float z) {
+    this.setIdentity();
+    this.m[3] = x;
+    this.m[7] = y;
+    this.m[11] = z;
+    return this;
+  }
+
+  /** @see Matrix4#rotate(float, float, float) */
+  public @NonNull MutableMatrix4 setRotate(float x, float y, float z) {
+    final var a = cos(x);
+    final var b = sin(x);
+    final var c = cos(y);
+    final var d = sin(y);
+    final var e = cos(z);
+    final var f = sin(z);
+    Arrays.fill(this.m, 0);
+    this.m[0] = c * e;
+    this.m[1] = -c * f;
+    this.m[2] = d;
+    this.m[4] = b * d * e + a * f;
+    this.m[5] = -b * d * f + a * e;
+    this.m[6] = -b * c;
+    this.m[8] = -a * d * e + b * f;
+    this.m[9] = a * d * f + b * e;
+    this.m[10] = a * c;
+    this.m[15] = 1;
+    return this;
+  }
+
+  /** @see Matrix4#scale(float, float, float) */
+  public @NonNull MutableMatrix4 setScale(float x, float y, float z) {
+    this.setIdentity();
+    this.m[0] = x;
+    this.m[5] = y;
+    this.m[10] = z;
+    return this;
+  }
+
+  /** @see Matrix4#transform(Vector3, Vector3, Vector3) */
+  public @NonNull MutableMatrix4 setTransform(
+      @NonNull Vector3 translation, @NonNull Vector3 rotation, @NonNull Vector3 scale) {
+
+    return this.setTransform(
+        translation.x,
+        translation.y,
+        translation.z,
+        rotation.x,
+        rotation.y,
+        rotation.z,
+        scale.x,
+        scale.y,
+        scale.z);
+  }
+
+  /** @see Matrix4#transform(Vector3, Vector3, Vector3) */
+  public @NonNull MutableMatrix4 setTransform(
+      float translationX,
+      float translationY,
+      float translationZ,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    Matrix4.setTransform(
+        this.m,
+        translationX,
+        translationY,
+        translationZ,
+        rotationX,
+        rotationY,
+        rotationZ,
+        scaleX,
+        scaleY,
+        scaleZ);
+    return this;
+  }
+
+  /** @see Matrix4#transform(Vector3, Quaternion, Vector3) */
+  public @NonNull MutableMatrix4 setTransform(
+      @NonNull Vector3 translation, @NonNull Quaternion rotation, @NonNull Vector3 scale) {
+
+    return this.setTransform(
+        translation.x,
+        translation.y,
+        translation.z,
+        rotation.x,
+        rotation.y,
+        rotation.z,
+        rotation.w,
+        scale.x,
+        scale.y,
+        scale.z);
+  }
+
+  /**
+   * Like {@link #setTransform(float, float, float, float, float, float, float, float, float)}, but
+   * with the rotation as a unit quaternion {@code x, y, z, w}
+   *
+   * @see Matrix4#transform(Vector3, Quaternion, Vector3)
+   */
+  public @NonNull MutableMatrix4 setTransform(
+      float translationX,
+      float translationY,
+      float translationZ,
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float rotationW,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    Matrix4.setTransform(
+        this.m,
+        translationX,
+        translationY,
+        translationZ,
+        rotationX,
+        rotationY,
+        rotationZ,
+        rotationW,
+        scaleX,
+        scaleY,
+        scaleZ);
+    return this;
+  }
+
+  /** @see Matrix4#normalTransform(Vector3, Vector3) */
+  public @NonNull MutableMatrix4 setNormalTransform(
+      @NonNull Vector3 rotation, @NonNull Vector3 scale) {
+
+    return this.setNormalTransform(rotation.x, rotation.y, rotation.z, scale.x, scale.y, scale.z);
+  }
+
+  /** @see Matrix4#normalTransform(Vector3, Vector3) */
+  public @NonNull MutableMatrix4 setNormalTransform(
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    Matrix4.setNormalTransform(this.m, rotationX, rotationY, rotationZ, scaleX, scaleY, scaleZ);
+    return this;
+  }
+
+  /** @see Matrix4#normalTransform(Quaternion, Vector3) */
+  public @NonNull MutableMatrix4 setNormalTransform(
+      @NonNull Quaternion rotation, @NonNull Vector3 scale) {
+
+    return this.setNormalTransform(
+        rotation.x, rotation.y, rotation.z, rotation.w, scale.x, scale.y, scale.z);
+  }
+
+  /** Like {@link #setNormalTransform(float, float, float, float, float, float)}, for quaternions */
+  public @NonNull MutableMatrix4 setNormalTransform(
+      float rotationX,
+      float rotationY,
+      float rotationZ,
+      float rotationW,
+      float scaleX,
+      float scaleY,
+      float scaleZ) {
+
+    Matrix4.setNormalTransform(
+        this.m, rotationX, rotationY, rotationZ, rotationW, scaleX, scaleY, scaleZ);
+    return this;
+  }
+
+  /**
+   * Sets this to the inverse-transpose of {@code model}, for transforming normals, when the
+   * components it was built from aren't available. {@code model} must be a {@link
+   * #setTransform(Vector3, Vector3, Vector3) transform} without any shear, whose upper 3x3 is
+   * {@code R * S}. Then {@code (R * S)^-T = R * S^-1 = (R * S) * S^-2}, and each column's length is
+   * the scale along that axis, so dividing each column by its squared length gives the result
+   * without a general inversion. Translation doesn't affect normals, so it's left out. {@code
+   * model} may be {@code this}
+   */
+  public @NonNull MutableMatrix4 setNormalTransform(@NonNull MutableMatrix4 model) {
+    final var src = model.m;
+    for (var col = 0; col < 3; col++) {
+      final var x = src[col];
+      final var y = src[col + COLS];
+      final var z = src[col + 2 * COLS];
+      final var invLength2 = 1 / (x * x + y * y + z * z);
+      this.m[col] = x * invLength2;
+      this.m[col + COLS] = y * invLength2;
+      this.m[col + 2 * COLS] = z * invLength2;
+      this.m[col + 3 * COLS] = 0;
+    }
+    this.m[3] = 0;
+    this.m[7] = 0;
+    this.m[11] = 0;
+    this.m[15] = 1;
+    return this;
+  }
+
+  /** {@code this = this * factor} */
+  public @NonNull MutableMatrix4 multiply(@NonNull Matrix4 factor) {
+    multiply(this.m, factor.m, this.tmp);
+    System.arraycopy(this.tmp, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  /** {@code this = this * factor} */
+  public @NonNull MutableMatrix4 multiply(@NonNull MutableMatrix4 factor) {
+    multiply(this.m, factor.m, this.tmp);
+    System.arraycopy(this.tmp, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  /** {@code this = a * b}. Either operand may be {@code this} */
+  public @NonNull MutableMatrix4 setProduct(@NonNull MutableMatrix4 a, @NonNull MutableMatrix4 b) {
+    multiply(a.m, b.m, this.tmp);
+    System.arraycopy(this.tmp, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  /** @see Matrix4#invert() */
+  public @NonNull MutableMatrix4 invert() {
+    Matrix4.scaryInvert(this.m, this.tmp);
+    System.arraycopy(this.tmp, 0, this.m, 0, SIZE);
+    return this;
+  }
+
+  /** @see Matrix4#transpose() */
+  public @NonNull MutableMatrix4 transpose() {
+    for (var row = 0; row < ROWS; row++) {
+      for (var col = row + 1; col < COLS; col++) {
+        final var tmp = this.m[col + row * COLS];
+        this.m[col + row * COLS] = this.m[row + col * COLS];
+        this.m[row + col * COLS] = tmp;
+      }
+    }
+    return this;
+  }
+
+  /** Transforms {@code v} in place, treating it as a position (i.e. {@code w = 1}) */
+  public @NonNull MutableVector3 transformPosition(@NonNull MutableVector3 v) {
+    final var x = v.x;
+    final var y = v.y;
+    final var z = v.z;
+    return v.set(
+        this.m[0] * x + this.m[1] * y + this.m[2] * z + this.m[3],
+        this.m[4] * x + this.m[5] * y + this.m[6] * z + this.m[7],
+        this.m[8] * x + this.m[9] * y + this.m[10] * z + this.m[11]);
+  }
+
+  public float get(int row, int col) {
+    return this.m[col + row * COLS];
+  }
+
+  /** Copies this matrix's elements into {@code dest}, in row-major order */
+  public void toArray(float @NonNull [] dest) {
+    if (dest.length < SIZE)
+      throw new IllegalArgumentException("Expected length: >=" + SIZE + " but was: " + dest.length);
+    System.arraycopy(this.m, 0, dest, 0, SIZE);
+  }
+
+  /** Copies this matrix's elements into {@code dest}, starting at {@code offset} */
+  public void toArray(float @NonNull [] dest, int offset) {
+    System.arraycopy(this.m, 0, dest, offset, SIZE);
+  }
+
+  /**
+   * Copies the upper-left 3x3 of this matrix into {@code dest}, starting at {@code offset}, in
+   * row-major order. For a {@link #setNormalTransform normal transform}, that's all there is
+   */
+  public void toMat3Array(float @NonNull [] dest, int offset) {
+    for (var row = 0; row < 3; row++) {
+      System.arraycopy(this.m, row * COLS, dest, offset + 3 * row, 3);
+    }
+  }
+
+  /** @return a new, immutable copy of this matrix's current value */
+  public @NonNull Matrix4 toImmutable() {
+    return Matrix4.of(this.m);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "Mutable" + this.toImmutable();
+  }
+
+  private static void multiply(float[] a, float[] b, float[] dest) {
+    for (var row = 0; row < ROWS; row++) {
+      for (var col = 0; col < COLS; col++) {
+        var sum = 0f;
+        for (var i = 0; i < COLS; i++) sum += a[i + row * COLS] * b[col + i * COLS];
+        dest[col + row * COLS] = sum;
+      }
+    }
+  }
+}
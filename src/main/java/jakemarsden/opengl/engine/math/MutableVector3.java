@@ -0,0 +1,153 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.sqrt;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A {@link Vector3} which is modified in place, for use in hot paths where allocating a new vector
+ * for every operation would be too expensive. Every operation modifies {@code this} and returns it
+ * to allow chaining, e.g. {@code pos.addScaled(vel, deltaTime)}.
+ *
+ * <p>Prefer {@link Vector3} everywhere else; it's far harder to misuse
+ */
+public final class MutableVector3 {
+
+  public float x;
+  public float y;
+  public float z;
+
+  public static @NonNull MutableVector3 zero() {
+    return MutableVector3.of(0, 0, 0);
+  }
+
+  public static @NonNull MutableVector3 of(@NonNull Vector3 v) {
+    return MutableVector3.of(v.x, v.y, v.z);
+  }
+
+  public static @NonNull MutableVector3 of(float x, float y, float z) {
+    return new MutableVector3(x, y, z);
+  }
+
+  private MutableVector3(float x, float y, float z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+
+  public @NonNull MutableVector3 set(@NonNull Vector3 v) {
+    return this.set(v.x, v.y, v.z);
+  }
+
+  public @NonNull MutableVector3 set(@NonNull MutableVector3 v) {
+    return this.set(v.x, v.y, v.z);
+  }
+
+  public @NonNull MutableVector3 set(float x, float y, float z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    return this;
+  }
+
+  public boolean isZero() {
+    return this.x == 0 && this.y == 0 && this.z == 0;
+  }
+
+  public float length() {
+    return sqrt(this.length2());
+  }
+
+  public float length2() {
+    return this.x * this.x + this.y * this.y + this.z * this.z;
+  }
+
+  public float dot(@NonNull Vector3 operand) {
+    return this.x * operand.x + this.y * operand.y + this.z * operand.z;
+  }
+
+  public float dot(@NonNull MutableVector3 operand) {
+    return this.x * operand.x + this.y * operand.y + this.z * operand.z;
+  }
+
+  public @NonNull MutableVector3 normalise() {
+    final var length2 = this.length2();
+    if (length2 == 0 || length2 == 1) return this;
+    return this.scale(1 / sqrt(length2));
+  }
+
+  public @NonNull MutableVector3 negate() {
+    return this.set(-this.x, -this.y, -this.z);
+  }
+
+  /** <strong><em>Order is important!</em></strong> ({@code a.cross(b) != b.cross(a)} */
+  public @NonNull MutableVector3 cross(@NonNull Vector3 v) {
+    return this.set(
+        this.y * v.z - this.z * v.y, this.z * v.x - this.x * v.z, this.x * v.y - this.y * v.x);
+  }
+
+  public @NonNull MutableVector3 add(@NonNull Vector3 addend) {
+    return this.add(addend.x, addend.y, addend.z);
+  }
+
+  public @NonNull MutableVector3 add(@NonNull MutableVector3 addend) {
+    return this.add(addend.x, addend.y, addend.z);
+  }
+
+  public @NonNull MutableVector3 add(float addendX, float addendY, float addendZ) {
+    this.x += addendX;
+    this.y += addendY;
+    this.z += addendZ;
+    return this;
+  }
+
+  /** Equivalent to {@code this.add(addend.times(factor))}, without the intermediate vector */
+  public @NonNull MutableVector3 addScaled(@NonNull Vector3 addend, float factor) {
+    return this.add(addend.x * factor, addend.y * factor, addend.z * factor);
+  }
+
+  /** Equivalent to {@code this.add(addend.times(factor))}, without the intermediate vector */
+  public @NonNull MutableVector3 addScaled(@NonNull MutableVector3 addend, float factor) {
+    return this.add(addend.x * factor, addend.y * factor, addend.z * factor);
+  }
+
+  public @NonNull MutableVector3 subtract(@NonNull Vector3 subtrahend) {
+    return this.subtract(subtrahend.x, subtrahend.y, subtrahend.z);
+  }
+
+  public @NonNull MutableVector3 subtract(@NonNull MutableVector3 subtrahend) {
+    return this.subtract(subtrahend.x, subtrahend.y, subtrahend.z);
+  }
+
+  public @NonNull MutableVector3 subtract(float subtrahendX, float subtrahendY, float subtrahendZ) {
+    this.x -= subtrahendX;
+    this.y -= subtrahendY;
+    this.z -= subtrahendZ;
+    return this;
+  }
+
+  public @NonNull MutableVector3 scale(float factor) {
+    return this.scale(factor, factor, factor);
+  }
+
+  public @NonNull MutableVector3 scale(@NonNull Vector3 factor) {
+    return this.scale(factor.x, factor.y, factor.z);
+  }
+
+  public @NonNull MutableVector3 scale(float factorX, float factorY, float factorZ) {
+    this.x *= factorX;
+    this.y *= factorY;
+    this.z *= factorZ;
+    return this;
+  }
+
+  /** @return a new, immutable copy of this vector's current value */
+  public @NonNull Vector3 toImmutable() {
+    return Vector3.of(this.x, this.y, this.z);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return String.format("MutableVector3{%.2f, %.2f, %.2f}", this.x, this.y, this.z);
+  }
+}
@@ -0,0 +1,254 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.cos;
+import static jakemarsden.opengl.engine.math.Math.sin;
+import static jakemarsden.opengl.engine.math.Math.sqrt;
+
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A rotation, as a unit quaternion {@code w + xi + yj + zk}. Unlike Euler angles, rotations can be
+ * combined with a handful of multiplications, interpolated smoothly, and turned into a matrix
+ * without any trig
+ */
+public final class Quaternion {
+
+  private static final Quaternion IDENTITY = new Quaternion(0, 0, 0, 1);
+
+  /**
+   * Above this cosine of the angle between two rotations (i.e. below about 2 degrees), {@link
+   * #slerp} falls back to {@link #nlerp}, rather than dividing by almost zero
+   */
+  private static final float SLERP_THRESHOLD = 0.9995f;
+
+  public final float x;
+  public final float y;
+  public final float z;
+  public final float w;
+
+  public static @NonNull Quaternion identity() {
+    return IDENTITY;
+  }
+
+  /** @param axis needn't be normalised, but mustn't be zero */
+  public static @NonNull Quaternion axisAngle(@NonNull Vector3 axis, float angle) {
+    final var unit = axis.normalise();
+    final var s = sin(angle / 2);
+    return new Quaternion(unit.x * s, unit.y * s, unit.z * s, cos(angle / 2));
+  }
+
+  /** The same rotation as {@link Matrix4#rotate(Vector3)} with these Euler angles */
+  public static @NonNull Quaternion euler(@NonNull Vector3 angles) {
+    return Quaternion.euler(angles.x, angles.y, angles.z);
+  }
+
+  /** The same rotation as {@link Matrix4#rotate(float, float, float)} with these Euler angles */
+  public static @NonNull Quaternion euler(float x, float y, float z) {
+    // rotX * rotY * rotZ, expanded
+    final var sx = sin(x / 2);
+    final var cx = cos(x / 2);
+    final var sy = sin(y / 2);
+    final var cy = cos(y / 2);
+    final var sz = sin(z / 2);
+    final var cz = cos(z / 2);
+    return new Quaternion(
+        sx * cy * cz + cx * sy * sz,
+        cx * sy * cz - sx * cy * sz,
+        cx * cy * sz + sx * sy * cz,
+        cx * cy * cz - sx * sy * sz);
+  }
+
+  /** Normalises {@code x, y, z, w}, which mustn't all be zero */
+  public static @NonNull Quaternion of(float x, float y, float z, float w) {
+    final var length = sqrt(x * x + y * y + z * z + w * w);
+    if (length == 0) throw new ArithmeticException("Division by zero: can't normalise zero");
+    return new Quaternion(x / length, y / length, z / length, w / length);
+  }
+
+  private Quaternion(float x, float y, float z, float w) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.w = w;
+  }
+
+  /**
+   * <strong><em>Order is important!</em></strong> {@code a.times(b)} rotates by {@code b}, then by
+   * {@code a}, like {@code Matrix4.rotate(a).times(Matrix4.rotate(b))}
+   */
+  public @NonNull Quaternion times(@NonNull Quaternion q) {
+    return new Quaternion(
+        this.w * q.x + this.x * q.w + this.y * q.z - this.z * q.y,
+        this.w * q.y - this.x * q.z + this.y * q.w + this.z * q.x,
+        this.w * q.z + this.x * q.y - this.y * q.x + this.z * q.w,
+        this.w * q.w - this.x * q.x - this.y * q.y - this.z * q.z);
+  }
+
+  /** @return the opposite rotation */
+  public @NonNull Quaternion conjugate() {
+    return new Quaternion(-this.x, -this.y, -this.z, this.w);
+  }
+
+  public float dot(@NonNull Quaternion q) {
+    return this.x * q.x + this.y * q.y + this.z * q.z + this.w * q.w;
+  }
+
+  public @NonNull Vector3 rotate(@NonNull Vector3 v) {
+    // v + 2w(u x v) + 2u x (u x v), where u = (x, y, z)
+    final var tx = 2 * (this.y * v.z - this.z * v.y);
+    final var ty = 2 * (this.z * v.x - this.x * v.z);
+    final var tz = 2 * (this.x * v.y - this.y * v.x);
+    return Vector3.of(
+        v.x + this.w * tx + this.y * tz - this.z * ty,
+        v.y + this.w * ty + this.z * tx - this.x * tz,
+        v.z + this.w * tz + this.x * ty - this.y * tx);
+  }
+
+  /**
+   * @param angularVelocity the axis to rotate about, in world space, scaled by the speed to rotate
+   *     at, in radians per second
+   * @return this rotation, followed by rotating at {@code angularVelocity} for {@code deltaTime}
+   * @see #integrate(float[], int, float, float, float, float)
+   */
+  public @NonNull Quaternion integrate(@NonNull Vector3 angularVelocity, float deltaTime) {
+    final float[] q = {this.x, this.y, this.z, this.w};
+    integrate(q, 0, angularVelocity.x, angularVelocity.y, angularVelocity.z, deltaTime);
+    return new Quaternion(q[0], q[1], q[2], q[3]);
+  }
+
+  /**
+   * Spherical linear interpolation, along the shortest arc, at a constant angular speed
+   *
+   * @param t {@code 0} for {@code this}, {@code 1} for {@code to}
+   */
+  public @NonNull Quaternion slerp(@NonNull Quaternion to, float t) {
+    var cosTheta = this.dot(to);
+    // q and -q are the same rotation, but only one of them is the short way round
+    final var sign = cosTheta < 0 ? -1 : 1;
+    cosTheta *= sign;
+    if (cosTheta > SLERP_THRESHOLD) return this.nlerp(to, t);
+
+    final var theta = (float) java.lang.Math.acos(cosTheta);
+    final var sinTheta = sin(theta);
+    final var a = sin((1 - t) * theta) / sinTheta;
+    final var b = sign * sin(t * theta) / sinTheta;
+    return Quaternion.of(
+        a * this.x + b * to.x, a * this.y + b * to.y, a * this.z + b * to.z, a * this.w + b * to.w);
+  }
+
+  /**
+   * Normalised linear interpolation, along the shortest arc. Cheaper than {@link #slerp}, and
+   * indistinguishable from it for the small steps between two updates, but doesn't rotate at a
+   * constant speed over bigger ones
+   *
+   * @param t {@code 0} for {@code this}, {@code 1} for {@code to}
+   */
+  public @NonNull Quaternion nlerp(@NonNull Quaternion to, float t) {
+    final var b = this.dot(to) < 0 ? -t : t;
+    final var a = 1 - t;
+    return Quaternion.of(
+        a * this.x + b * to.x, a * this.y + b * to.y, a * this.z + b * to.z, a * this.w + b * to.w);
+  }
+
+  public @NonNull Matrix4 toMatrix() {
+    return Matrix4.rotate(this);
+  }
+
+  /**
+   * Rotates the quaternion {@code q[offset + 0..3]} ({@code x, y, z, w}) in place, at the angular
+   * velocity {@code (angularVelocityX, angularVelocityY, angularVelocityZ)} for {@code deltaTime},
+   * without any trig.
+   *
+   * <p>The rotation over one step, {@code exp(angularVelocity * deltaTime / 2)}, is approximated
+   * by the first few terms of the series for its {@code sin} and {@code cos}, which is accurate to
+   * within float precision for the small angles an entity turns between two updates. The result is
+   * renormalised, so errors don't build up over many steps
+   */
+  public static void integrate(
+      float @NonNull [] q,
+      int offset,
+      float angularVelocityX,
+      float angularVelocityY,
+      float angularVelocityZ,
+      float deltaTime) {
+
+    final var hx = angularVelocityX * deltaTime / 2;
+    final var hy = angularVelocityY * deltaTime / 2;
+    final var hz = angularVelocityZ * deltaTime / 2;
+    final var hh = hx * hx + hy * hy + hz * hz;
+    // sin(h) / h and cos(h), where h is the half-angle turned
+    final var s = 1 - hh / 6 + hh * hh / 120;
+    final var c = 1 - hh / 2 + hh * hh / 24;
+    final var dx = hx * s;
+    final var dy = hy * s;
+    final var dz = hz * s;
+
+    final var x = q[offset];
+    final var y = q[offset + 1];
+    final var z = q[offset + 2];
+    final var w = q[offset + 3];
+    // (dx, dy, dz, c) * q
+    final var rx = c * x + dx * w + dy * z - dz * y;
+    final var ry = c * y - dx * z + dy * w + dz * x;
+    final var rz = c * z + dx * y - dy * x + dz * w;
+    final var rw = c * w - dx * x - dy * y - dz * z;
+    final var length = sqrt(rx * rx + ry * ry + rz * rz + rw * rw);
+    q[offset] = rx / length;
+    q[offset + 1] = ry / length;
+    q[offset + 2] = rz / length;
+    q[offset + 3] = rw / length;
+  }
+
+  /**
+   * Like {@link #nlerp(Quaternion, float)}, but between the quaternions {@code from[fromOffset +
+   * 0..3]} and {@code to[toOffset + 0..3]} ({@code x, y, z, w}), into {@code dest[destOffset +
+   * 0..3]}, without allocating
+   */
+  public static void nlerp(
+      float @NonNull [] from,
+      int fromOffset,
+      float @NonNull [] to,
+      int toOffset,
+      float t,
+      float @NonNull [] dest,
+      int destOffset) {
+
+    final var dot =
+        from[fromOffset] * to[toOffset]
+            + from[fromOffset + 1] * to[toOffset + 1]
+            + from[fromOffset + 2] * to[toOffset + 2]
+            + from[fromOffset + 3] * to[toOffset + 3];
+    final var b = dot < 0 ? -t : t;
+    final var a = 1 - t;
+    final var x = a * from[fromOffset] + b * to[toOffset];
+    final var y = a * from[fromOffset + 1] + b * to[toOffset + 1];
+    final var z = a * from[fromOffset + 2] + b * to[toOffset + 2];
+    final var w = a * from[fromOffset + 3] + b * to[toOffset + 3];
+    final var length = sqrt(x * x + y * y + z * z + w * w);
+    dest[destOffset] = x / length;
+    dest[destOffset + 1] = y / length;
+    dest[destOffset + 2] = z / length;
+    dest[destOffset + 3] = w / length;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return String.format("Quaternion{%.2f, %.2f, %.2f, %.2f}", this.x, this.y, this.z, this.w);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.x, this.y, this.z, this.w);
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) return true;
+    if (o == null) return false;
+    if (o.getClass() != Quaternion.class) return false;
+    final var obj = (Quaternion) o;
+    return this.x == obj.x && this.y == obj.y && this.z == obj.z && this.w == obj.w;
+  }
+}
@@ -0,0 +1,82 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Batch operations over flat arrays of matrices, points and bounding boxes, for transforming a
+ * whole column of entities at once rather than one object at a time. Matrices are 16 elements in
+ * the same (row-major) order as {@link jakemarsden.opengl.engine.math.Matrix4}, points are {@code
+ * x, y, z} and boxes are {@code minX, minY, minZ, maxX, maxY, maxZ}, each one straight after the
+ * previous one.
+ *
+ * <p>{@link #best()} uses the incubating Vector API when it's available (on JDK 16+, with {@code
+ * --add-modules jdk.incubator.vector}), and plain scalar code otherwise. Both give the same results
+ * to within rounding. None of the operations allocate
+ */
+public interface MathKernels {
+
+  /** @return the fastest kernels available on this JVM */
+  static @NonNull MathKernels best() {
+    final var vector = MathKernelsLoader.VECTOR;
+    return vector != null ? vector : MathKernelsLoader.SCALAR;
+  }
+
+  static @NonNull MathKernels scalar() {
+    return MathKernelsLoader.SCALAR;
+  }
+
+  /** @return kernels using the Vector API, or {@code null} if it isn't available on this JVM */
+  static @Nullable MathKernels vector() {
+    return MathKernelsLoader.VECTOR;
+  }
+
+  /** @return a short name for these kernels, e.g. for logging which are in use */
+  @NonNull
+  String getName();
+
+  /**
+   * Multiplies the single matrix {@code a} by each of {@code count} matrices in {@code b}, i.e.
+   * {@code dest[i] = a * b[i]}, e.g. to combine the camera's transform with a column of model
+   * transforms. {@code dest} may be {@code b}, but mustn't overlap {@code a}
+   */
+  void multiply(
+      float @NonNull [] a,
+      int aOffset,
+      float @NonNull [] b,
+      int bOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count);
+
+  /**
+   * Transforms each of {@code count} points in {@code src} by the affine matrix {@code m}, as if
+   * each had {@code w = 1}. {@code dest} may be {@code src}
+   */
+  void transformPoints(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count);
+
+  /**
+   * Transforms each of {@code count} boxes in {@code src} by the affine matrix {@code m}, into the
+   * box enclosing it once transformed. Empty boxes (where {@code minX > maxX}) are copied as-is.
+   * {@code dest} may be {@code src}
+   *
+   * @see <a
+   *     href="https://github.com/erich666/GraphicsGems/blob/master/gems/TransBox.c">Transforming
+   *     Axis-Aligned Bounding Boxes (Graphics Gems)</a>
+   */
+  void transformBounds(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count);
+}
@@ -0,0 +1,43 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.fissore.slf4j.FluentLogger;
+
+/**
+ * Decides once which {@link MathKernels} are available. The Vector API kernels are compiled
+ * separately (they need a newer JDK than the rest of the engine), so they're only ever loaded by
+ * name, after checking the incubator module they depend on is present
+ */
+final class MathKernelsLoader {
+
+  private static final FluentLogger LOGGER = getLogger(MathKernelsLoader.class);
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_CLASS =
+      MathKernelsLoader.class.getPackageName() + ".VectorMathKernels";
+
+  static final @NonNull MathKernels SCALAR = new ScalarMathKernels();
+  static final @Nullable MathKernels VECTOR = loadVector();
+
+  private static @Nullable MathKernels loadVector() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      LOGGER.info().log("Module {} isn't available, using scalar math kernels", VECTOR_MODULE);
+      return null;
+    }
+    try {
+      final var kernels =
+          (MathKernels) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+      LOGGER.info().log("Using {} math kernels", kernels.getName());
+      return kernels;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // not compiled into this build, or compiled for a newer JDK than this one
+      LOGGER.warn().log("Couldn't load {}, using scalar math kernels: {}", VECTOR_CLASS, e);
+      return null;
+    }
+  }
+
+  private MathKernelsLoader() {}
+}
@@ -0,0 +1,124 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import static java.lang.Math.abs;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/** Plain Java {@link MathKernels}, which work everywhere */
+final class ScalarMathKernels implements MathKernels {
+
+  private static final int MATRIX_SIZE = 16;
+  private static final int POINT_SIZE = 3;
+  private static final int BOUNDS_SIZE = 6;
+
+  @Override
+  public @NonNull String getName() {
+    return "scalar";
+  }
+
+  @Override
+  public void multiply(
+      float @NonNull [] a,
+      int aOffset,
+      float @NonNull [] b,
+      int bOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    for (var i = 0; i < count; i++) {
+      final var bi = bOffset + MATRIX_SIZE * i;
+      final var di = destOffset + MATRIX_SIZE * i;
+      // each column of the result only depends on the same column of b, so b can be overwritten
+      // one column at a time
+      for (var col = 0; col < 4; col++) {
+        final var b0 = b[bi + col];
+        final var b1 = b[bi + col + 4];
+        final var b2 = b[bi + col + 8];
+        final var b3 = b[bi + col + 12];
+        for (var row = 0; row < 4; row++) {
+          final var ar = aOffset + 4 * row;
+          dest[di + col + 4 * row] = a[ar] * b0 + a[ar + 1] * b1 + a[ar + 2] * b2 + a[ar + 3] * b3;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void transformPoints(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    final var m0 = m[mOffset];
+    final var m1 = m[mOffset + 1];
+    final var m2 = m[mOffset + 2];
+    final var m3 = m[mOffset + 3];
+    final var m4 = m[mOffset + 4];
+    final var m5 = m[mOffset + 5];
+    final var m6 = m[mOffset + 6];
+    final var m7 = m[mOffset + 7];
+    final var m8 = m[mOffset + 8];
+    final var m9 = m[mOffset + 9];
+    final var m10 = m[mOffset + 10];
+    final var m11 = m[mOffset + 11];
+    for (var i = 0; i < count; i++) {
+      final var s = srcOffset + POINT_SIZE * i;
+      final var d = destOffset + POINT_SIZE * i;
+      final var x = src[s];
+      final var y = src[s + 1];
+      final var z = src[s + 2];
+      dest[d] = m0 * x + m1 * y + m2 * z + m3;
+      dest[d + 1] = m4 * x + m5 * y + m6 * z + m7;
+      dest[d + 2] = m8 * x + m9 * y + m10 * z + m11;
+    }
+  }
+
+  @Override
+  public void transformBounds(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    for (var i = 0; i < count; i++) {
+      final var s = srcOffset + BOUNDS_SIZE * i;
+      final var d = destOffset + BOUNDS_SIZE * i;
+      if (src[s] > src[s + 3]) {
+        System.arraycopy(src, s, dest, d, BOUNDS_SIZE);
+        continue;
+      }
+
+      final var centreX = (src[s] + src[s + 3]) / 2;
+      final var centreY = (src[s + 1] + src[s + 4]) / 2;
+      final var centreZ = (src[s + 2] + src[s + 5]) / 2;
+      final var extentX = (src[s + 3] - src[s]) / 2;
+      final var extentY = (src[s + 4] - src[s + 1]) / 2;
+      final var extentZ = (src[s + 5] - src[s + 2]) / 2;
+      for (var row = 0; row < 3; row++) {
+        final var mr = mOffset + 4 * row;
+        final var m0 = m[mr];
+        final var m1 = m[mr + 1];
+        final var m2 = m[mr + 2];
+        final var centre = m0 * centreX + m1 * centreY + m2 * centreZ + m[mr + 3];
+        final var extent = abs(m0) * extentX + abs(m1) * extentY + abs(m2) * extentZ;
+        dest[d + row] = centre - extent;
+        dest[d + 3 + row] = centre + extent;
+      }
+    }
+  }
+
+  static void checkCount(int count) {
+    if (count < 0) throw new IllegalArgumentException("Expected count: >=0 but was: " + count);
+  }
+}
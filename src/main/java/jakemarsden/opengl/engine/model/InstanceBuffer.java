@@ -0,0 +1,144 @@
+package jakemarsden.opengl.engine.model;
+
+import static org.lwjgl.BufferUtils.createFloatBuffer;
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_NONE;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import java.nio.FloatBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A vertex buffer holding one model transform and normal transform per instance, re-uploaded every
+ * time it's drawn. Each model transform takes up four consecutive vertex attributes (one per
+ * column), followed by three for the normal transform's upper-left 3x3, all of which advance once
+ * per instance rather than once per vertex. Passing the normal transform in means the vertex
+ * shader doesn't have to invert every instance's transform for every vertex
+ */
+final class InstanceBuffer {
+
+  /** Number of vertex attributes taken up by each instance's model transform */
+  static final int TRANSFORM_ATTRIB_COUNT = 4;
+  /** Number of vertex attributes taken up by each instance's normal transform */
+  static final int NORMAL_ATTRIB_COUNT = 3;
+  /** Number of vertex attributes taken up by each instance */
+  static final int ATTRIB_COUNT = TRANSFORM_ATTRIB_COUNT + NORMAL_ATTRIB_COUNT;
+
+  private static final int TRANSFORM_FLOATS = 4 * 4;
+  private static final int FLOATS_PER_INSTANCE = TRANSFORM_FLOATS + 3 * 3;
+  private static final int BYTES_PER_INSTANCE = Float.BYTES * FLOATS_PER_INSTANCE;
+
+  private final @NonNull Gl gl;
+  private final int vbo;
+
+  /** Column-major, ready to be uploaded as-is */
+  private @NonNull FloatBuffer data;
+
+  private int size = 0;
+
+  static @NonNull InstanceBuffer create(@NonNull Gl gl, int initialCapacity) {
+    if (initialCapacity <= 0)
+      throw new IllegalArgumentException("Expected capacity: >0 but was: " + initialCapacity);
+    return new InstanceBuffer(gl, gl.genBuffers(), initialCapacity);
+  }
+
+  private InstanceBuffer(@NonNull Gl gl, int vbo, int capacity) {
+    this.gl = gl;
+    this.vbo = vbo;
+    this.data = createFloatBuffer(FLOATS_PER_INSTANCE * capacity);
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  int capacity() {
+    return this.data.capacity() / FLOATS_PER_INSTANCE;
+  }
+
+  void clear() {
+    this.size = 0;
+  }
+
+  /** @param normal only its upper-left 3x3 is used */
+  void add(@NonNull MutableMatrix4 transform, @NonNull MutableMatrix4 normal) {
+    if (this.size == this.capacity()) this.grow();
+
+    final var data = this.data;
+    var idx = FLOATS_PER_INSTANCE * this.size++;
+    for (var col = 0; col < 4; col++) {
+      for (var row = 0; row < 4; row++) data.put(idx++, transform.get(row, col));
+    }
+    for (var col = 0; col < 3; col++) {
+      for (var row = 0; row < 3; row++) data.put(idx++, normal.get(row, col));
+    }
+  }
+
+  /**
+   * Points vertex attributes {@code [firstAttrib, firstAttrib + ATTRIB_COUNT)} of the currently
+   * bound vertex array at this buffer
+   */
+  void attach(int firstAttrib) {
+    this.gl.bindBuffer(GL_ARRAY_BUFFER, this.vbo);
+    for (var col = 0; col < TRANSFORM_ATTRIB_COUNT; col++) {
+      final var attrib = firstAttrib + col;
+      final var offset = (long) Float.BYTES * 4 * col;
+      this.gl.vertexAttribPointer(attrib, 4, GL_FLOAT, false, BYTES_PER_INSTANCE, offset);
+      this.gl.vertexAttribDivisor(attrib, 1);
+    }
+    for (var col = 0; col < NORMAL_ATTRIB_COUNT; col++) {
+      final var attrib = firstAttrib + TRANSFORM_ATTRIB_COUNT + col;
+      final var offset = (long) Float.BYTES * (TRANSFORM_FLOATS + 3 * col);
+      this.gl.vertexAttribPointer(attrib, 3, GL_FLOAT, false, BYTES_PER_INSTANCE, offset);
+      this.gl.vertexAttribDivisor(attrib, 1);
+    }
+    this.gl.bindBuffer(GL_ARRAY_BUFFER, GL_NONE);
+  }
+
+  void enable(int firstAttrib) {
+    for (var col = 0; col < ATTRIB_COUNT; col++) {
+      this.gl.enableVertexAttribArray(firstAttrib + col);
+    }
+  }
+
+  void disable(int firstAttrib) {
+    for (var col = 0; col < ATTRIB_COUNT; col++) {
+      this.gl.disableVertexAttribArray(firstAttrib + col);
+    }
+  }
+
+  /**
+   * Uploads every instance added since the last {@link #clear()}, then draws them all with a
+   * single draw call. Does nothing if there aren't any instances
+   */
+  void draw(int mode, int indexCount, int indexType) {
+    if (this.size == 0) return;
+
+    final var data = this.data;
+    data.position(0).limit(FLOATS_PER_INSTANCE * this.size);
+
+    this.gl.bindBuffer(GL_ARRAY_BUFFER, this.vbo);
+    // orphan the previous frame's storage, so we don't have to wait for the GPU to finish with it
+    final var capacityBytes = (long) BYTES_PER_INSTANCE * this.capacity();
+    this.gl.bufferData(GL_ARRAY_BUFFER, capacityBytes, GL_STREAM_DRAW);
+    this.gl.bufferSubData(GL_ARRAY_BUFFER, 0, data);
+    this.gl.bindBuffer(GL_ARRAY_BUFFER, GL_NONE);
+    data.clear();
+
+    this.gl.drawElementsInstanced(mode, indexCount, indexType, 0, this.size);
+  }
+
+  void destroy() {
+    this.gl.deleteBuffers(this.vbo);
+  }
+
+  private void grow() {
+    final var grown = createFloatBuffer(2 * this.data.capacity());
+    this.data.clear();
+    grown.put(this.data).clear();
+    this.data = grown;
+  }
+}
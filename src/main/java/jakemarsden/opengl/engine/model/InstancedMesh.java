@@ -0,0 +1,85 @@
+package jakemarsden.opengl.engine.model;
+
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.res.material.Material;
+import jakemarsden.opengl.engine.shader.Shader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Draws many copies of a {@link StaticMesh}, each with its own model transform, in a single draw
+ * call. The geometry and material are shared with the underlying mesh rather than copied, and it
+ * remains owned by whoever created it: destroying this mesh only destroys the per-instance data.
+ *
+ * <p>Instances are added every frame, between a call to {@link #clear()} and the call to {@link
+ * #draw(Shader)}
+ */
+public final class InstancedMesh implements Mesh {
+
+  /**
+   * The first of the {@link InstanceBuffer#ATTRIB_COUNT} attributes holding each instance's model
+   * and normal transforms
+   */
+  static final int ATTRIB_INSTANCE_TRANSFORM = 3;
+
+  private final @NonNull StaticMesh mesh;
+  private final @NonNull InstanceBuffer instances;
+
+  InstancedMesh(@NonNull StaticMesh mesh, @NonNull InstanceBuffer instances) {
+    this.mesh = mesh;
+    this.instances = instances;
+  }
+
+  /** @return the number of instances which will be drawn by the next call to {@link #draw} */
+  public int size() {
+    return this.instances.size();
+  }
+
+  public void clear() {
+    this.instances.clear();
+  }
+
+  /**
+   * @param normal the inverse-transpose of {@code transform}, e.g. from {@link
+   *     jakemarsden.opengl.engine.entity.Entity#getNormalTransform}. Only its upper-left 3x3 is
+   *     used
+   */
+  public void add(@NonNull MutableMatrix4 transform, @NonNull MutableMatrix4 normal) {
+    this.instances.add(transform, normal);
+  }
+
+  @Override
+  public void destroy() {
+    this.instances.destroy();
+  }
+
+  @Override
+  public @NonNull Material getMaterial() {
+    return this.mesh.getMaterial();
+  }
+
+  /** @return the bounds of a single instance, before its transform is applied */
+  @Override
+  public @NonNull Aabb getBounds() {
+    return this.mesh.getBounds();
+  }
+
+  @Override
+  public void bind() {
+    this.mesh.bind();
+    this.instances.enable(ATTRIB_INSTANCE_TRANSFORM);
+  }
+
+  @Override
+  public void unbind() {
+    this.instances.disable(ATTRIB_INSTANCE_TRANSFORM);
+    this.mesh.unbind();
+  }
+
+  @Override
+  public void draw(@NonNull Shader shader) {
+    shader.setInstanced(true);
+    this.mesh.drawInstanced(this.instances);
+    shader.setInstanced(false);
+  }
+}
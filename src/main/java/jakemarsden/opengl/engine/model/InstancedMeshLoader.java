@@ -0,0 +1,32 @@
+package jakemarsden.opengl.engine.model;
+
+import static org.lwjgl.opengl.GL11.GL_NONE;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public final class InstancedMeshLoader {
+
+  /** @param initialCapacity how many instances to make room for, before having to grow */
+  public static @NonNull InstancedMesh load(@NonNull StaticMesh mesh, int initialCapacity) {
+    return InstancedMeshLoader.load(LwjglGl.create(), mesh, initialCapacity);
+  }
+
+  /** @param initialCapacity how many instances to make room for, before having to grow */
+  public static @NonNull InstancedMesh load(
+      @NonNull Gl gl, @NonNull StaticMesh mesh, int initialCapacity) {
+
+    final var instances = InstanceBuffer.create(gl, initialCapacity);
+
+    gl.bindVertexArray(mesh.vao);
+    instances.attach(InstancedMesh.ATTRIB_INSTANCE_TRANSFORM);
+    gl.bindVertexArray(GL_NONE);
+
+    return new InstancedMesh(mesh, instances);
+  }
+
+  private InstancedMeshLoader() {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -1,14 +1,29 @@
 package jakemarsden.opengl.engine.model;
 
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.res.material.Material;
 import jakemarsden.opengl.engine.shader.Shader;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public interface Mesh {
 
+  /**
+   * The material to draw this mesh with. It isn't bound by {@link #bind()}, so meshes which share
+   * a material can be drawn one after the other without binding it again each time
+   */
+  @NonNull
+  Material getMaterial();
+
+  /** @return the bounds of this mesh's vertices, in model space */
+  @NonNull
+  Aabb getBounds();
+
+  /** Binds this mesh's geometry, but not its {@link #getMaterial() material} */
   void bind();
 
   void unbind();
 
+  /** Expects both this mesh and its material to already be bound */
   void draw(@NonNull Shader shader);
 
   void destroy();
@@ -1,14 +1,25 @@
 package jakemarsden.opengl.engine.model;
 
+import jakemarsden.opengl.engine.math.Aabb;
 import jakemarsden.opengl.engine.shader.Shader;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public final class Model {
 
   private final @NonNull Mesh @NonNull [] meshes;
+  private final @NonNull Aabb bounds;
 
   Model(@NonNull Mesh @NonNull [] meshes) {
     this.meshes = meshes;
+
+    var bounds = Aabb.empty();
+    for (final var mesh : meshes) bounds = bounds.union(mesh.getBounds());
+    this.bounds = bounds;
+  }
+
+  /** @return the bounds of every mesh in this model, in model space */
+  public @NonNull Aabb getBounds() {
+    return this.bounds;
   }
 
   public void destroy() {
@@ -17,9 +28,15 @@ public final class Model {
 
   public void draw(@NonNull Shader shader) {
     for (final var mesh : this.meshes) {
+      final var mat = mesh.getMaterial();
+      mat.bind();
+      shader.setMaterial(mat);
+
       mesh.bind();
       mesh.draw(shader);
       mesh.unbind();
+
+      mat.unbind();
     }
   }
 }
@@ -1,8 +1,11 @@
 package jakemarsden.opengl.engine.model;
 
-import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL11.GL_NONE;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+import static org.lwjgl.opengl.GL15.GL_ELEMENT_ARRAY_BUFFER;
 
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.math.Aabb;
 import jakemarsden.opengl.engine.res.material.Material;
 import jakemarsden.opengl.engine.shader.Shader;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -13,67 +16,85 @@ public final class StaticMesh implements Mesh {
   static final int ATTRIB_NORMAL = 1;
   static final int ATTRIB_TEX_COORD = 2;
 
-  private final int vao;
-  private final int vbo;
-  private final int nbo;
-  private final int tbo;
+  private final @NonNull Gl gl;
+
+  final int vao;
+  /** Either one interleaved buffer, or one buffer per attribute */
+  private final int @NonNull [] vbos;
+
   private final int ebo;
   private final int size;
 
   private final int type;
   private final Material mat;
+  private final Aabb bounds;
 
   /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
   StaticMesh(
-      int vao, int vbo, int nbo, int tbo, int ebo, int size, int type, @NonNull Material mat) {
-
+      @NonNull Gl gl,
+      int vao,
+      int @NonNull [] vbos,
+      int ebo,
+      int size,
+      int type,
+      @NonNull Material mat,
+      @NonNull Aabb bounds) {
+
+    this.gl = gl;
     this.vao = vao;
-    this.vbo = vbo;
-    this.nbo = nbo;
-    this.tbo = tbo;
+    this.vbos = vbos;
     this.ebo = ebo;
     this.size = size;
 
     this.type = type;
     this.mat = mat;
+    this.bounds = bounds;
   }
 
   @Override
   public void destroy() {
-    glDeleteBuffers(this.ebo);
-    glDeleteBuffers(this.vbo);
-    glDeleteBuffers(this.nbo);
-    glDeleteBuffers(this.tbo);
-    glDeleteVertexArrays(this.vao);
+    this.gl.deleteBuffers(this.ebo);
+    for (final var vbo : this.vbos) this.gl.deleteBuffers(vbo);
+    this.gl.deleteVertexArrays(this.vao);
 
     this.mat.destroy();
   }
 
   @Override
-  public void bind() {
-    glBindVertexArray(this.vao);
-    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ebo);
-    glEnableVertexAttribArray(StaticMesh.ATTRIB_POSITION);
-    glEnableVertexAttribArray(StaticMesh.ATTRIB_NORMAL);
-    glEnableVertexAttribArray(StaticMesh.ATTRIB_TEX_COORD);
+  public @NonNull Material getMaterial() {
+    return this.mat;
+  }
 
-    this.mat.bind();
+  @Override
+  public @NonNull Aabb getBounds() {
+    return this.bounds;
   }
 
   @Override
-  public void unbind() {
-    this.mat.unbind();
+  public void bind() {
+    this.gl.bindVertexArray(this.vao);
+    this.gl.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ebo);
+    this.gl.enableVertexAttribArray(StaticMesh.ATTRIB_POSITION);
+    this.gl.enableVertexAttribArray(StaticMesh.ATTRIB_NORMAL);
+    this.gl.enableVertexAttribArray(StaticMesh.ATTRIB_TEX_COORD);
+  }
 
-    glDisableVertexAttribArray(StaticMesh.ATTRIB_POSITION);
-    glDisableVertexAttribArray(StaticMesh.ATTRIB_NORMAL);
-    glDisableVertexAttribArray(StaticMesh.ATTRIB_TEX_COORD);
-    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, GL_NONE);
-    glBindVertexArray(GL_NONE);
+  @Override
+  public void unbind() {
+    this.gl.disableVertexAttribArray(StaticMesh.ATTRIB_POSITION);
+    this.gl.disableVertexAttribArray(StaticMesh.ATTRIB_NORMAL);
+    this.gl.disableVertexAttribArray(StaticMesh.ATTRIB_TEX_COORD);
+    this.gl.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, GL_NONE);
+    this.gl.bindVertexArray(GL_NONE);
   }
 
   @Override
   public void draw(@NonNull Shader shader) {
-    shader.setMaterial(this.mat);
-    glDrawElements(this.type, this.size, GL_UNSIGNED_SHORT, 0);
+    this.gl.drawElements(this.type, this.size, GL_UNSIGNED_SHORT, 0);
+  }
+
+  /** Draws every instance in {@code instances} with a single draw call */
+  void drawInstanced(@NonNull InstanceBuffer instances) {
+    instances.draw(this.type, this.size, GL_UNSIGNED_SHORT);
   }
 }
@@ -1,29 +1,135 @@
 package jakemarsden.opengl.engine.model;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
 import static org.lwjgl.opengl.GL11.GL_NONE;
 import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
-import static org.lwjgl.opengl.GL30.glBindVertexArray;
-import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static org.lwjgl.system.MemoryUtil.memAllocFloat;
+import static org.lwjgl.system.MemoryUtil.memFree;
 
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
+import jakemarsden.opengl.engine.math.Aabb;
 import jakemarsden.opengl.engine.res.material.Material;
+import java.nio.FloatBuffer;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public final class StaticMeshLoader {
 
+  /** How the vertex attributes of a mesh are laid out in its vertex buffer(s) */
+  public enum Layout {
+    /**
+     * One buffer, with each vertex's position, normal and texture coordinates next to each other.
+     * Fewer GL objects, and better locality for the GPU's vertex fetch
+     */
+    INTERLEAVED,
+    /** One buffer per attribute */
+    SPLIT
+  }
+
+  /** Number of floats in each interleaved vertex: position, then normal, then texture coordinate */
+  static final int INTERLEAVED_VERTEX_SIZE = 3 + 3 + 2;
+
   /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
-  public static StaticMesh load(
+  public static @NonNull StaticMesh load(
       int type,
       @NonNull Vertex @NonNull [] vertices,
       short @NonNull [] indices,
       @NonNull Material mat) {
 
-    final var positions = new float[3 * vertices.length];
-    for (var idx = 0; idx < vertices.length; idx++) {
-      positions[0 + 3 * idx] = vertices[idx].position.x;
-      positions[1 + 3 * idx] = vertices[idx].position.y;
-      positions[2 + 3 * idx] = vertices[idx].position.z;
+    return StaticMeshLoader.load(LwjglGl.create(), type, vertices, indices, mat);
+  }
+
+  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
+  public static @NonNull StaticMesh load(
+      @NonNull Gl gl,
+      int type,
+      @NonNull Vertex @NonNull [] vertices,
+      short @NonNull [] indices,
+      @NonNull Material mat) {
+
+    return StaticMeshLoader.load(gl, type, vertices, indices, mat, Layout.INTERLEAVED);
+  }
+
+  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
+  public static @NonNull StaticMesh load(
+      int type,
+      @NonNull Vertex @NonNull [] vertices,
+      short @NonNull [] indices,
+      @NonNull Material mat,
+      @NonNull Layout layout) {
+
+    return StaticMeshLoader.load(LwjglGl.create(), type, vertices, indices, mat, layout);
+  }
+
+  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
+  public static @NonNull StaticMesh load(
+      @NonNull Gl gl,
+      int type,
+      @NonNull Vertex @NonNull [] vertices,
+      short @NonNull [] indices,
+      @NonNull Material mat,
+      @NonNull Layout layout) {
+
+    switch (layout) {
+      case INTERLEAVED:
+        return StaticMeshLoader.loadInterleaved(gl, type, vertices, indices, mat);
+      case SPLIT:
+        return StaticMeshLoader.loadSplit(gl, type, vertices, indices, mat);
+      default:
+        throw new UnsupportedOperationException("Unsupported layout: " + layout);
     }
+  }
+
+  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
+  public static @NonNull StaticMesh load(
+      int type,
+      float @NonNull [] positions,
+      float @NonNull [] normals,
+      float @NonNull [] texCoords,
+      short @NonNull [] indices,
+      @NonNull Material mat) {
+
+    return StaticMeshLoader.load(
+        LwjglGl.create(), type, positions, normals, texCoords, indices, mat);
+  }
+
+  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
+  public static @NonNull StaticMesh load(
+      @NonNull Gl gl,
+      int type,
+      float @NonNull [] positions,
+      float @NonNull [] normals,
+      float @NonNull [] texCoords,
+      short @NonNull [] indices,
+      @NonNull Material mat) {
+
+    final var vao = gl.genVertexArrays();
+    final var vbo = gl.genBuffers();
+    final var nbo = gl.genBuffers();
+    final var tbo = gl.genBuffers();
+
+    gl.bindVertexArray(vao);
+    populateAttribArrayBuffer(gl, vbo, StaticMesh.ATTRIB_POSITION, positions, 3);
+    populateAttribArrayBuffer(gl, nbo, StaticMesh.ATTRIB_NORMAL, normals, 3);
+    populateAttribArrayBuffer(gl, tbo, StaticMesh.ATTRIB_TEX_COORD, texCoords, 2);
+    gl.bindVertexArray(GL_NONE);
+
+    final var ebo = StaticMeshLoader.populateElementArrayBuffer(gl, indices);
+    final var bounds = Aabb.enclosing(positions);
+    final var vbos = new int[] {vbo, nbo, tbo};
+    return new StaticMesh(gl, vao, vbos, ebo, indices.length, type, mat, bounds);
+  }
+
+  private static @NonNull StaticMesh loadSplit(
+      @NonNull Gl gl,
+      int type,
+      @NonNull Vertex @NonNull [] vertices,
+      short @NonNull [] indices,
+      @NonNull Material mat) {
+
+    final var positions = StaticMeshLoader.positionsOf(vertices);
 
     final var normals = new float[3 * vertices.length];
     for (var idx = 0; idx < vertices.length; idx++) {
@@ -38,44 +144,107 @@ public final class StaticMeshLoader {
       texCoords[1 + 2 * idx] = vertices[idx].texCoord.y;
     }
 
-    return StaticMeshLoader.load(type, positions, normals, texCoords, indices, mat);
+    return StaticMeshLoader.load(gl, type, positions, normals, texCoords, indices, mat);
   }
 
-  /** @param type one of {@code GL_TRIANGLE_STRIP}, {@code GL_TRIANGLES}, {@code GL_POINTS}... */
-  public static @NonNull StaticMesh load(
+  private static @NonNull StaticMesh loadInterleaved(
+      @NonNull Gl gl,
       int type,
-      float @NonNull [] positions,
-      float @NonNull [] normals,
-      float @NonNull [] texCoords,
+      @NonNull Vertex @NonNull [] vertices,
       short @NonNull [] indices,
       @NonNull Material mat) {
 
-    final var vao = glGenVertexArrays();
-    final var vbo = glGenBuffers();
-    final var nbo = glGenBuffers();
-    final var tbo = glGenBuffers();
-    final var ebo = glGenBuffers();
+    final var vao = gl.genVertexArrays();
+    final var vbo = gl.genBuffers();
+
+    // built off-heap, so it can be handed straight to GL without being copied first
+    final var data = memAllocFloat(INTERLEAVED_VERTEX_SIZE * vertices.length);
+    final Aabb bounds;
+    try {
+      bounds = StaticMeshLoader.interleave(vertices, data);
+
+      gl.bindVertexArray(vao);
+      gl.bindBuffer(GL_ARRAY_BUFFER, vbo);
+      gl.bufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+
+      final var stride = Float.BYTES * INTERLEAVED_VERTEX_SIZE;
+      gl.vertexAttribPointer(StaticMesh.ATTRIB_POSITION, 3, GL_FLOAT, false, stride, 0);
+      gl.vertexAttribPointer(StaticMesh.ATTRIB_NORMAL, 3, GL_FLOAT, false, stride, Float.BYTES * 3);
+      gl.vertexAttribPointer(
+          StaticMesh.ATTRIB_TEX_COORD, 2, GL_FLOAT, false, stride, Float.BYTES * (3 + 3));
+
+      gl.bindBuffer(GL_ARRAY_BUFFER, GL_NONE);
+      gl.bindVertexArray(GL_NONE);
+    } finally {
+      memFree(data);
+    }
 
-    glBindVertexArray(vao);
-    StaticMeshLoader.populateAttribArrayBuffer(vbo, StaticMesh.ATTRIB_POSITION, positions, 3);
-    StaticMeshLoader.populateAttribArrayBuffer(nbo, StaticMesh.ATTRIB_NORMAL, normals, 3);
-    StaticMeshLoader.populateAttribArrayBuffer(tbo, StaticMesh.ATTRIB_TEX_COORD, texCoords, 2);
-    glBindVertexArray(GL_NONE);
+    final var ebo = StaticMeshLoader.populateElementArrayBuffer(gl, indices);
+    return new StaticMesh(gl, vao, new int[] {vbo}, ebo, indices.length, type, mat, bounds);
+  }
 
-    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
-    glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
-    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, GL_NONE);
+  private static float @NonNull [] positionsOf(@NonNull Vertex @NonNull [] vertices) {
+    final var positions = new float[3 * vertices.length];
+    for (var idx = 0; idx < vertices.length; idx++) {
+      positions[0 + 3 * idx] = vertices[idx].position.x;
+      positions[1 + 3 * idx] = vertices[idx].position.y;
+      positions[2 + 3 * idx] = vertices[idx].position.z;
+    }
+    return positions;
+  }
 
-    return new StaticMesh(vao, vbo, nbo, tbo, ebo, indices.length, type, mat);
+  /**
+   * Writes every vertex into {@code dest} in the {@link Layout#INTERLEAVED interleaved} layout,
+   * then flips it ready for reading
+   *
+   * @return the smallest box containing every vertex's position, found along the way, or the
+   *     {@link Aabb#empty() empty} box if there aren't any
+   */
+  static @NonNull Aabb interleave(
+      @NonNull Vertex @NonNull [] vertices, @NonNull FloatBuffer dest) {
+
+    if (vertices.length == 0) {
+      dest.flip();
+      return Aabb.empty();
+    }
+    var minX = Float.POSITIVE_INFINITY;
+    var minY = Float.POSITIVE_INFINITY;
+    var minZ = Float.POSITIVE_INFINITY;
+    var maxX = Float.NEGATIVE_INFINITY;
+    var maxY = Float.NEGATIVE_INFINITY;
+    var maxZ = Float.NEGATIVE_INFINITY;
+    for (final var vertex : vertices) {
+      final var pos = vertex.position;
+      dest.put(pos.x).put(pos.y).put(pos.z);
+      dest.put(vertex.normal.x).put(vertex.normal.y).put(vertex.normal.z);
+      dest.put(vertex.texCoord.x).put(vertex.texCoord.y);
+
+      minX = min(minX, pos.x);
+      minY = min(minY, pos.y);
+      minZ = min(minZ, pos.z);
+      maxX = max(maxX, pos.x);
+      maxY = max(maxY, pos.y);
+      maxZ = max(maxZ, pos.z);
+    }
+    dest.flip();
+    return Aabb.of(minX, minY, minZ, maxX, maxY, maxZ);
   }
 
   private static void populateAttribArrayBuffer(
-      int id, int attribIdx, float[] data, int dimensions) {
+      @NonNull Gl gl, int id, int attribIdx, float[] data, int dimensions) {
+
+    gl.bindBuffer(GL_ARRAY_BUFFER, id);
+    gl.bufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+    gl.vertexAttribPointer(attribIdx, dimensions, GL_FLOAT, false, 0, 0);
+    gl.bindBuffer(GL_ARRAY_BUFFER, GL_NONE);
+  }
 
-    glBindBuffer(GL_ARRAY_BUFFER, id);
-    glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
-    glVertexAttribPointer(attribIdx, dimensions, GL_FLOAT, false, 0, 0);
-    glBindBuffer(GL_ARRAY_BUFFER, GL_NONE);
+  private static int populateElementArrayBuffer(@NonNull Gl gl, short @NonNull [] indices) {
+    final var ebo = gl.genBuffers();
+    gl.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+    gl.bufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+    gl.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, GL_NONE);
+    return ebo;
   }
 
   private StaticMeshLoader() {
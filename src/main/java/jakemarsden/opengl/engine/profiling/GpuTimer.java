@@ -0,0 +1,118 @@
+package jakemarsden.opengl.engine.profiling;
+
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL33.GL_TIMESTAMP;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Times how long the GPU spends on a section of each frame, using a pair of timestamp queries
+ * around it. The GPU runs a few frames behind the CPU, so the results aren't waited for: each pair
+ * of queries is kept in a ring of {@value #FRAMES_IN_FLIGHT} and read back once the GPU says it's
+ * available. If it still isn't by the time its slot comes round again, the sample is dropped rather
+ * than stalling the pipeline.
+ *
+ * <p>Must only be used on the thread which owns the GL context, and can't be nested inside itself
+ */
+public final class GpuTimer {
+
+  static final int FRAMES_IN_FLIGHT = 4;
+
+  private final @NonNull String name;
+  /** {@code null} if profiling is disabled */
+  private final @Nullable Gl gl;
+
+  private final @Nullable SampleHistory history;
+
+  private final int[] startQueries = new int[FRAMES_IN_FLIGHT];
+  private final int[] endQueries = new int[FRAMES_IN_FLIGHT];
+  /** Whether each slot's queries have been issued, but their result hasn't been read yet */
+  private final boolean[] pending = new boolean[FRAMES_IN_FLIGHT];
+  /** The slot to use next, which is also the oldest one which might still be pending */
+  private int nextSlot = 0;
+
+  private boolean running = false;
+  private long droppedCount = 0;
+
+  GpuTimer(@NonNull String name, @Nullable Gl gl, @Nullable SampleHistory history) {
+    this.name = name;
+    this.gl = gl;
+    this.history = history;
+    if (gl == null) return;
+    for (var slot = 0; slot < FRAMES_IN_FLIGHT; slot++) {
+      this.startQueries[slot] = gl.genQueries();
+      this.endQueries[slot] = gl.genQueries();
+    }
+  }
+
+  public @NonNull String getName() {
+    return this.name;
+  }
+
+  /** @return how many samples have been dropped because the GPU took too long to produce them */
+  public long getDroppedCount() {
+    return this.droppedCount;
+  }
+
+  public void begin() {
+    final var gl = this.gl;
+    if (gl == null) return;
+    if (this.running) throw new IllegalStateException("GPU timer already running: " + this.name);
+    this.collect();
+
+    final var slot = this.nextSlot;
+    if (this.pending[slot]) {
+      this.pending[slot] = false;
+      this.droppedCount++;
+    }
+    gl.queryCounter(this.startQueries[slot], GL_TIMESTAMP);
+    this.running = true;
+  }
+
+  public void end() {
+    final var gl = this.gl;
+    if (gl == null || !this.running) return;
+    final var slot = this.nextSlot;
+    gl.queryCounter(this.endQueries[slot], GL_TIMESTAMP);
+    this.pending[slot] = true;
+    this.nextSlot = (slot + 1) % FRAMES_IN_FLIGHT;
+    this.running = false;
+  }
+
+  /** Records the results of every finished pair of queries, without waiting for any others */
+  public void collect() {
+    final var gl = this.gl;
+    final var history = this.history;
+    if (gl == null || history == null) return;
+
+    // oldest first, and the GPU finishes them in order, so stop at the first unfinished one
+    for (var i = 0; i < FRAMES_IN_FLIGHT; i++) {
+      final var slot = (this.nextSlot + i) % FRAMES_IN_FLIGHT;
+      if (!this.pending[slot]) continue;
+      if (gl.getQueryObjecti(this.endQueries[slot], GL_QUERY_RESULT_AVAILABLE) == 0) break;
+
+      final var start = gl.getQueryObjectui64(this.startQueries[slot], GL_QUERY_RESULT);
+      final var end = gl.getQueryObjectui64(this.endQueries[slot], GL_QUERY_RESULT);
+      history.add(end - start);
+      this.pending[slot] = false;
+    }
+  }
+
+  public void destroy() {
+    final var gl = this.gl;
+    if (gl == null) return;
+    for (var slot = 0; slot < FRAMES_IN_FLIGHT; slot++) {
+      gl.deleteQueries(this.startQueries[slot]);
+      gl.deleteQueries(this.endQueries[slot]);
+      this.pending[slot] = false;
+    }
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "GpuTimer{" + this.name + "}";
+  }
+}
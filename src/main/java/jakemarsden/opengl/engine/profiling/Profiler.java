@@ -0,0 +1,159 @@
+package jakemarsden.opengl.engine.profiling;
+
+import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.fissore.slf4j.FluentLogger;
+
+/**
+ * Keeps a history of how long each named section of a frame took, e.g. the {@link
+ * jakemarsden.opengl.engine.Engine Engine}'s input, update and render phases, along with any
+ * sections the game times itself. Sections are timed with a {@link ScopedTimer} on the CPU, or a
+ * {@link GpuTimer} on the GPU, and {@link #getStats() summarised} as percentiles over their most
+ * recent samples. Once a {@link #setSummaryInterval summary interval} has been set, {@link
+ * #endFrame()} also logs a one-line summary of every section that often.
+ *
+ * <p>Timers for different sections can be used from different threads, and stats can be read from
+ * any thread. A {@link #disabled() disabled} profiler hands out timers which don't do anything
+ */
+public final class Profiler {
+
+  private static final FluentLogger LOGGER = getLogger(Profiler.class);
+
+  public static final int DEFAULT_HISTORY_SIZE = 512;
+
+  private static final Profiler DISABLED = new Profiler(false, 1, System::nanoTime);
+
+  private final boolean enabled;
+  private final int historySize;
+  private final @NonNull LongSupplier nanoTime;
+
+  private final Map<String, SampleHistory> histories = new ConcurrentHashMap<>();
+  /** Every section's name, in the order they were first timed */
+  private final List<String> names = new CopyOnWriteArrayList<>();
+
+  private final Map<String, ScopedTimer> timers = new ConcurrentHashMap<>();
+
+  /** {@code 0} if summaries shouldn't be logged */
+  private long summaryInterval = 0;
+
+  private long lastSummaryTime;
+
+  public static @NonNull Profiler create() {
+    return create(DEFAULT_HISTORY_SIZE, System::nanoTime);
+  }
+
+  /** @param historySize how many of each section's most recent samples to keep */
+  public static @NonNull Profiler create(int historySize) {
+    return create(historySize, System::nanoTime);
+  }
+
+  static @NonNull Profiler create(int historySize, @NonNull LongSupplier nanoTime) {
+    if (historySize <= 0)
+      throw new IllegalArgumentException("Expected history size: >0 but was: " + historySize);
+    return new Profiler(true, historySize, nanoTime);
+  }
+
+  /** @return a profiler which doesn't record or log anything */
+  public static @NonNull Profiler disabled() {
+    return DISABLED;
+  }
+
+  private Profiler(boolean enabled, int historySize, @NonNull LongSupplier nanoTime) {
+    this.enabled = enabled;
+    this.historySize = historySize;
+    this.nanoTime = nanoTime;
+    this.lastSummaryTime = nanoTime.getAsLong();
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /** @return the timer for the section with the given name, which is the same one every time */
+  public @NonNull ScopedTimer section(@NonNull String name) {
+    return this.timers.computeIfAbsent(
+        name, key -> new ScopedTimer(key, this.getHistory(key), this.nanoTime));
+  }
+
+  /**
+   * @param gl must have a current context, on this thread
+   * @return a new timer for the section with the given name, which should be {@link
+   *     GpuTimer#destroy() destroyed} once it's finished with
+   */
+  public @NonNull GpuTimer gpuTimer(@NonNull String name, @NonNull Gl gl) {
+    if (!this.enabled) return new GpuTimer(name, null, null);
+    return new GpuTimer(name, gl, this.getHistory(name));
+  }
+
+  /**
+   * Logs a summary of every section if it's been at least {@code interval} since the last one.
+   * {@link Duration#ZERO} stops summaries from being logged, which is the default
+   */
+  public void setSummaryInterval(@NonNull Duration interval) {
+    if (interval.isNegative())
+      throw new IllegalArgumentException("Expected summary interval: >=0 but was: " + interval);
+    this.summaryInterval = interval.toNanos();
+  }
+
+  /** Called once at the end of each frame, to log a summary if one is due */
+  public void endFrame() {
+    if (!this.enabled || this.summaryInterval == 0) return;
+    final var time = this.nanoTime.getAsLong();
+    if (time - this.lastSummaryTime < this.summaryInterval) return;
+    this.lastSummaryTime = time;
+    LOGGER.info().log("{}", this.formatSummary());
+  }
+
+  /** @return every section's stats, in the order they were first timed */
+  public @NonNull List<@NonNull TimingStats> getStats() {
+    final var stats = new ArrayList<TimingStats>(this.names.size());
+    for (final var name : this.names) {
+      final var section = this.getStats(name);
+      if (section != null) stats.add(section);
+    }
+    return stats;
+  }
+
+  /** @return {@code null} if nothing called {@code name} has been timed */
+  public @Nullable TimingStats getStats(@NonNull String name) {
+    final var history = this.histories.get(name);
+    if (history == null) return null;
+    final var samples = history.snapshot();
+    // read after the snapshot, so it covers at least every sample in it
+    return TimingStats.of(name, samples, history.getCount());
+  }
+
+  /** @return e.g. {@code "frame 16.67/17.02/18.50ms | update 1.20/1.45/2.10ms"}, p50/p95/p99 */
+  public @NonNull String formatSummary() {
+    return this.getStats().stream()
+        .filter(stats -> stats.sampleCount != 0)
+        .map(TimingStats::toSummaryString)
+        .collect(Collectors.joining(" | "));
+  }
+
+  private @Nullable SampleHistory getHistory(@NonNull String name) {
+    if (!this.enabled) return null;
+    return this.histories.computeIfAbsent(
+        name,
+        key -> {
+          this.names.add(key);
+          return SampleHistory.create(this.historySize);
+        });
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return this.enabled ? "Profiler{sections=" + this.names + "}" : "Profiler{disabled}";
+  }
+}
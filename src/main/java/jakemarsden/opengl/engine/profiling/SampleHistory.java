@@ -0,0 +1,77 @@
+package jakemarsden.opengl.engine.profiling;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The most recent samples recorded by a single thread, in a fixed-size ring which overwrites the
+ * oldest sample once it's full. Adding a sample doesn't lock or allocate, and other threads can
+ * take a {@link #snapshot()} at any time without holding up the writer
+ */
+final class SampleHistory {
+
+  private final long[] samples;
+  private final int mask;
+  /** How many samples have ever been added, only ever written by the writer */
+  private final AtomicLong count = new AtomicLong();
+  /**
+   * How many samples have ever been started, which is one more than {@link #count} while a sample
+   * is part way through being written
+   */
+  private final AtomicLong started = new AtomicLong();
+
+  /** @param capacity rounded up to the next power of two */
+  static @NonNull SampleHistory create(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30)
+      throw new IllegalArgumentException("Expected capacity: 1..2^30 but was: " + capacity);
+    return new SampleHistory(capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+  }
+
+  private SampleHistory(int capacity) {
+    this.samples = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /** Must only ever be called from one thread at a time */
+  void add(long sample) {
+    final var count = this.count.get();
+    // lets readers know the oldest sample is about to be overwritten, before it is
+    this.started.lazySet(count + 1);
+    VarHandle.storeStoreFence();
+    this.samples[(int) (count & this.mask)] = sample;
+    // publishes the sample to readers, who read the count first
+    this.count.lazySet(count + 1);
+  }
+
+  int getCapacity() {
+    return this.samples.length;
+  }
+
+  long getCount() {
+    return this.count.get();
+  }
+
+  /**
+   * @return the most recent samples, oldest first. Any which were overwritten while they were being
+   *     copied are left out
+   */
+  long @NonNull [] snapshot() {
+    final var samples = this.samples;
+    final var end = this.count.get();
+    final var start = Math.max(0, end - samples.length);
+    final var copy = new long[(int) (end - start)];
+    for (var i = start; i < end; i++) {
+      copy[(int) (i - start)] = samples[(int) (i & this.mask)];
+    }
+
+    // keeps the copy above from being read after the count below
+    VarHandle.acquireFence();
+    // anything before this may have been overwritten by the writer lapping us, including by a
+    // sample it's still part way through writing
+    final var firstIntact = this.started.get() - samples.length;
+    if (firstIntact <= start) return copy;
+    return Arrays.copyOfRange(copy, (int) Math.min(firstIntact - start, copy.length), copy.length);
+  }
+}
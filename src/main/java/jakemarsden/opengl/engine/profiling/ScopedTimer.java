@@ -0,0 +1,71 @@
+package jakemarsden.opengl.engine.profiling;
+
+import java.util.function.LongSupplier;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Times one section of code at a time, adding how long it took to its {@link Profiler}'s history
+ * when it's closed, e.g.
+ *
+ * <pre>{@code
+ * try (var timer = profiler.section("physics").start()) {
+ *   ...
+ * }
+ * }</pre>
+ *
+ * A timer only remembers one start time, so each section should only be timed from one thread, and
+ * can't be nested inside itself. Starting and stopping a timer doesn't allocate
+ */
+public final class ScopedTimer implements AutoCloseable {
+
+  private final @NonNull String name;
+  /** {@code null} if profiling is disabled */
+  private final @Nullable SampleHistory history;
+
+  private final @NonNull LongSupplier nanoTime;
+  private long startTime = -1;
+
+  ScopedTimer(
+      @NonNull String name, @Nullable SampleHistory history, @NonNull LongSupplier nanoTime) {
+    this.name = name;
+    this.history = history;
+    this.nanoTime = nanoTime;
+  }
+
+  public @NonNull String getName() {
+    return this.name;
+  }
+
+  public boolean isRunning() {
+    return this.startTime != -1;
+  }
+
+  public @NonNull ScopedTimer start() {
+    if (this.history != null) this.startTime = this.nanoTime.getAsLong();
+    return this;
+  }
+
+  /** Records how long it's been since the timer was {@link #start() started} */
+  public void stop() {
+    if (this.startTime == -1) return;
+    final var elapsed = this.nanoTime.getAsLong() - this.startTime;
+    this.startTime = -1;
+    this.record(elapsed);
+  }
+
+  /** Records a time measured some other way */
+  public void record(long nanos) {
+    if (this.history != null) this.history.add(nanos);
+  }
+
+  @Override
+  public void close() {
+    this.stop();
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "ScopedTimer{" + this.name + "}";
+  }
+}
@@ -0,0 +1,85 @@
+package jakemarsden.opengl.engine.profiling;
+
+import java.util.Arrays;
+import java.util.Locale;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A snapshot of how long a section has taken over its most recent samples. Every time is in
+ * nanoseconds, and percentiles use the nearest-rank method, so they're always a time which was
+ * actually recorded. When there aren't any samples yet, every time is {@code 0}
+ */
+public final class TimingStats {
+
+  public final @NonNull String name;
+  /** How many samples these stats cover, at most the profiler's history size */
+  public final int sampleCount;
+  /** How many samples have ever been recorded, including those no longer in the history */
+  public final long totalCount;
+
+  public final long min;
+  public final long mean;
+  public final long p50;
+  public final long p95;
+  public final long p99;
+  public final long max;
+
+  static @NonNull TimingStats of(@NonNull String name, long @NonNull [] samples, long totalCount) {
+    final var sorted = samples.clone();
+    Arrays.sort(sorted);
+    return new TimingStats(name, sorted, totalCount);
+  }
+
+  private TimingStats(@NonNull String name, long @NonNull [] sorted, long totalCount) {
+    this.name = name;
+    this.sampleCount = sorted.length;
+    this.totalCount = totalCount;
+
+    var sum = 0L;
+    for (final var sample : sorted) sum += sample;
+    this.mean = sorted.length == 0 ? 0 : sum / sorted.length;
+    this.min = percentile(sorted, 0);
+    this.p50 = percentile(sorted, 0.50);
+    this.p95 = percentile(sorted, 0.95);
+    this.p99 = percentile(sorted, 0.99);
+    this.max = percentile(sorted, 1);
+  }
+
+  /** In the format used by the profiler's summary line, e.g. {@code "update 1.20/1.45/2.10ms"} */
+  @NonNull
+  String toSummaryString() {
+    return String.format(
+        Locale.ROOT,
+        "%s %.2f/%.2f/%.2fms",
+        this.name,
+        millis(this.p50),
+        millis(this.p95),
+        millis(this.p99));
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return String.format(
+        Locale.ROOT,
+        "TimingStats{%s: n=%d, min=%.3fms, mean=%.3fms, "
+            + "p50=%.3fms, p95=%.3fms, p99=%.3fms, max=%.3fms}",
+        this.name,
+        this.sampleCount,
+        millis(this.min),
+        millis(this.mean),
+        millis(this.p50),
+        millis(this.p95),
+        millis(this.p99),
+        millis(this.max));
+  }
+
+  private static long percentile(long @NonNull [] sorted, double p) {
+    if (sorted.length == 0) return 0;
+    final var rank = (int) Math.ceil(p * sorted.length);
+    return sorted[Math.max(rank - 1, 0)];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
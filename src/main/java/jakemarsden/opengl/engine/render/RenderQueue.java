@@ -0,0 +1,300 @@
+package jakemarsden.opengl.engine.render;
+
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.res.material.Material;
+import jakemarsden.opengl.engine.shader.Shader;
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Collects everything to be drawn in a frame, then draws it all in an order which minimises the
+ * number of state changes, only binding a shader, material or mesh when it differs from the one
+ * already bound.
+ *
+ * <p>Each item is sorted by a single {@code long} key, packed from most to least significant as
+ * (shader, material, mesh, depth, submission order). Shader, material and mesh are replaced by
+ * small IDs, assigned in the order they're first submitted each frame. Within the same state,
+ * items are drawn front-to-back
+ */
+public final class RenderQueue {
+
+  static final int SHADER_BITS = 6;
+  static final int MATERIAL_BITS = 12;
+  static final int MESH_BITS = 13;
+  static final int DEPTH_BITS = 16;
+  static final int ITEM_BITS = 16;
+
+  static final int ITEM_SHIFT = 0;
+  static final int DEPTH_SHIFT = ITEM_SHIFT + ITEM_BITS;
+  static final int MESH_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+  static final int MATERIAL_SHIFT = MESH_SHIFT + MESH_BITS;
+  static final int SHADER_SHIFT = MATERIAL_SHIFT + MATERIAL_BITS;
+
+  private static final int TRANSFORM_SIZE = 16;
+
+  /** Depths further away than this all end up in the same bucket */
+  private final float maxDepth;
+
+  private final Ids<Shader> shaders = new Ids<>(SHADER_BITS);
+  private final Ids<Material> materials = new Ids<>(MATERIAL_BITS);
+  private final Ids<Mesh> meshes = new Ids<>(MESH_BITS);
+
+  private long[] keys;
+  private float[] transforms;
+  private boolean[] hasTransform;
+  private int size = 0;
+
+  /** Used for uploading each item's transform */
+  private final MutableMatrix4 tmpTransform = MutableMatrix4.identity();
+
+  private int drawCalls = 0;
+  private int shaderBinds = 0;
+  private int shaderBindsSkipped = 0;
+  private int materialBinds = 0;
+  private int materialBindsSkipped = 0;
+  private int meshBinds = 0;
+  private int meshBindsSkipped = 0;
+
+  /** @param maxDepth usually the far plane of the camera */
+  public static @NonNull RenderQueue create(float maxDepth) {
+    if (!(maxDepth > 0))
+      throw new IllegalArgumentException("Expected max depth: >0 but was: " + maxDepth);
+    return new RenderQueue(maxDepth, 64);
+  }
+
+  private RenderQueue(float maxDepth, int capacity) {
+    this.maxDepth = maxDepth;
+    this.keys = new long[capacity];
+    this.transforms = new float[TRANSFORM_SIZE * capacity];
+    this.hasTransform = new boolean[capacity];
+  }
+
+  /** @return the number of items submitted since the last {@link #flush()} */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Queues {@code mesh} to be drawn by the next {@link #flush()}
+   *
+   * @param transform copied, so may be reused once this returns. Instanced meshes don't need one
+   * @param depth distance from the camera, only used to decide the order of otherwise-equal items
+   */
+  public void submit(
+      @NonNull Shader shader,
+      @NonNull Mesh mesh,
+      @Nullable MutableMatrix4 transform,
+      float depth) {
+
+    if (this.size == 1 << ITEM_BITS)
+      throw new IllegalStateException("Too many items in one frame: " + this.size);
+    if (this.size == this.keys.length) this.grow();
+
+    final var item = this.size++;
+    this.keys[item] =
+        RenderQueue.key(
+            this.shaders.idOf(shader),
+            this.materials.idOf(mesh.getMaterial()),
+            this.meshes.idOf(mesh),
+            this.quantiseDepth(depth),
+            item);
+    this.hasTransform[item] = transform != null;
+    if (transform != null) transform.toArray(this.transforms, TRANSFORM_SIZE * item);
+  }
+
+  /**
+   * Draws every submitted item in sorted order, then empties the queue ready for the next frame.
+   * Leaves nothing bound once it's done
+   */
+  public void flush() {
+    this.resetCounters();
+    Arrays.sort(this.keys, 0, this.size);
+
+    @Nullable Shader boundShader = null;
+    @Nullable Material boundMat = null;
+    @Nullable Mesh boundMesh = null;
+    for (var idx = 0; idx < this.size; idx++) {
+      final var key = this.keys[idx];
+      final var shader = this.shaders.get(field(key, SHADER_SHIFT, SHADER_BITS));
+      final var mat = this.materials.get(field(key, MATERIAL_SHIFT, MATERIAL_BITS));
+      final var mesh = this.meshes.get(field(key, MESH_SHIFT, MESH_BITS));
+      final var item = field(key, ITEM_SHIFT, ITEM_BITS);
+
+      final var shaderChanged = shader != boundShader;
+      if (shaderChanged) {
+        shader.start();
+        boundShader = shader;
+        this.shaderBinds++;
+      } else {
+        this.shaderBindsSkipped++;
+      }
+
+      if (mat != boundMat) {
+        mat.bind();
+        shader.setMaterial(mat);
+        boundMat = mat;
+        this.materialBinds++;
+      } else {
+        // its textures are still bound, but the new shader's material uniforms haven't been set
+        if (shaderChanged) shader.setMaterial(mat);
+        this.materialBindsSkipped++;
+      }
+
+      if (mesh != boundMesh) {
+        if (boundMesh != null) boundMesh.unbind();
+        mesh.bind();
+        boundMesh = mesh;
+        this.meshBinds++;
+      } else {
+        this.meshBindsSkipped++;
+      }
+
+      if (this.hasTransform[item]) {
+        shader.setModelTransform(this.tmpTransform.set(this.transforms, TRANSFORM_SIZE * item));
+      }
+      mesh.draw(shader);
+      this.drawCalls++;
+    }
+
+    if (boundMesh != null) boundMesh.unbind();
+    if (boundMat != null) boundMat.unbind();
+    if (boundShader != null) boundShader.stop();
+
+    this.size = 0;
+    this.shaders.clear();
+    this.materials.clear();
+    this.meshes.clear();
+  }
+
+  /** @return the number of draw calls made by the last {@link #flush()} */
+  public int getDrawCalls() {
+    return this.drawCalls;
+  }
+
+  public int getShaderBinds() {
+    return this.shaderBinds;
+  }
+
+  /** @return the number of times the last flush didn't need to bind a shader */
+  public int getShaderBindsSkipped() {
+    return this.shaderBindsSkipped;
+  }
+
+  public int getMaterialBinds() {
+    return this.materialBinds;
+  }
+
+  /** @return the number of times the last flush didn't need to bind a material */
+  public int getMaterialBindsSkipped() {
+    return this.materialBindsSkipped;
+  }
+
+  public int getMeshBinds() {
+    return this.meshBinds;
+  }
+
+  /** @return the number of times the last flush didn't need to bind a mesh */
+  public int getMeshBindsSkipped() {
+    return this.meshBindsSkipped;
+  }
+
+  private void resetCounters() {
+    this.drawCalls = 0;
+    this.shaderBinds = 0;
+    this.shaderBindsSkipped = 0;
+    this.materialBinds = 0;
+    this.materialBindsSkipped = 0;
+    this.meshBinds = 0;
+    this.meshBindsSkipped = 0;
+  }
+
+  private int quantiseDepth(float depth) {
+    final var max = (1 << DEPTH_BITS) - 1;
+    if (!(depth > 0)) return 0;
+    if (depth >= this.maxDepth) return max;
+    return (int) (depth / this.maxDepth * max);
+  }
+
+  private void grow() {
+    final var capacity = 2 * this.keys.length;
+    this.keys = Arrays.copyOf(this.keys, capacity);
+    this.transforms = Arrays.copyOf(this.transforms, TRANSFORM_SIZE * capacity);
+    this.hasTransform = Arrays.copyOf(this.hasTransform, capacity);
+  }
+
+  static long key(int shader, int material, int mesh, int depth, int item) {
+    return (long) shader << SHADER_SHIFT
+        | (long) material << MATERIAL_SHIFT
+        | (long) mesh << MESH_SHIFT
+        | (long) depth << DEPTH_SHIFT
+        | (long) item << ITEM_SHIFT;
+  }
+
+  static int field(long key, int shift, int bits) {
+    return (int) (key >>> shift) & ((1 << bits) - 1);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "RenderQueue{size=" + this.size + "}";
+  }
+
+  /**
+   * Hands out a small, dense ID to each distinct instance, by identity. Looked up in an
+   * open-addressed table of instances and their IDs, rather than a map, so IDs aren't boxed
+   */
+  private static final class Ids<T> {
+
+    /** Twice as many slots as there can be instances, so there's always an empty one */
+    private final @Nullable Object @NonNull [] slotInstances;
+    /** The ID of the instance in each slot */
+    private final int @NonNull [] slotIds;
+    /** The instance with each ID */
+    private final @Nullable Object @NonNull [] instances;
+    /** The slot each ID's instance is in, so only those slots need clearing */
+    private final int @NonNull [] slots;
+
+    private int size = 0;
+
+    private Ids(int bits) {
+      this.slotInstances = new Object[2 << bits];
+      this.slotIds = new int[2 << bits];
+      this.instances = new Object[1 << bits];
+      this.slots = new int[1 << bits];
+    }
+
+    int idOf(@NonNull T instance) {
+      final var mask = this.slotInstances.length - 1;
+      var slot = System.identityHashCode(instance) & mask;
+      while (this.slotInstances[slot] != null) {
+        if (this.slotInstances[slot] == instance) return this.slotIds[slot];
+        slot = (slot + 1) & mask;
+      }
+
+      if (this.size == this.instances.length)
+        throw new IllegalStateException("Too many distinct instances in one frame: " + this.size);
+      final var id = this.size++;
+      this.slotInstances[slot] = instance;
+      this.slotIds[slot] = id;
+      this.instances[id] = instance;
+      this.slots[id] = slot;
+      return id;
+    }
+
+    @NonNull
+    T get(int id) {
+      @SuppressWarnings("unchecked")
+      final var instance = (@Nullable T) this.instances[id];
+      if (instance == null) throw new IllegalArgumentException("Unknown ID: " + id);
+      return instance;
+    }
+
+    void clear() {
+      for (var id = 0; id < this.size; id++) this.slotInstances[this.slots[id]] = null;
+      Arrays.fill(this.instances, 0, this.size, null);
+      this.size = 0;
+    }
+  }
+}
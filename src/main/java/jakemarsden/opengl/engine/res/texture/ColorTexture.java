@@ -17,7 +17,7 @@ public final class ColorTexture extends Texture {
       @NonNull Color4 color,
       @NonNull TextureLoader loader) {
 
-    super(id, width, height, format);
+    super(loader.gl, id, width, height, format);
     this.color = color;
     this.loader = loader;
   }
@@ -2,6 +2,7 @@ package jakemarsden.opengl.engine.res.texture;
 
 import static org.lwjgl.opengl.GL11.GL_NONE;
 
+import jakemarsden.opengl.engine.gl.LwjglGl;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -14,7 +15,8 @@ public final class EmptyTexture extends Texture {
   }
 
   private EmptyTexture() {
-    super(GL_NONE, 0, 0, 0);
+    // never used, as binding it doesn't do anything
+    super(LwjglGl.create(), GL_NONE, 0, 0, 0);
   }
 
   @Override
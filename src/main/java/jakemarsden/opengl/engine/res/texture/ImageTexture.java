@@ -1,13 +1,24 @@
 package jakemarsden.opengl.engine.res.texture;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+/**
+ * A texture loaded from an image. When {@link TextureLoader#async loaded in the background}, it
+ * shows a placeholder until its pixels have been {@link TextureLoader#processUploads uploaded}, and
+ * keeps showing it if the image can't be loaded
+ */
 public final class ImageTexture extends Texture {
 
   private final @NonNull TextureLoader loader;
 
   final @NonNull String path;
 
+  /** Shown until the real image has been uploaded, and then released */
+  @Nullable ColorTexture placeholder;
+  /** Set once destroyed, so a background decode which finishes afterwards is thrown away */
+  boolean destroyed = false;
+
   ImageTexture(
       int id,
       int format,
@@ -16,11 +27,28 @@ public final class ImageTexture extends Texture {
       @NonNull String path,
       @NonNull TextureLoader loader) {
 
-    super(id, width, height, format);
+    super(loader.gl, id, width, height, format);
     this.path = path;
     this.loader = loader;
   }
 
+  ImageTexture(
+      @NonNull ColorTexture placeholder, @NonNull String path, @NonNull TextureLoader loader) {
+    this(
+        placeholder.id,
+        placeholder.getFormat(),
+        placeholder.getWidth(),
+        placeholder.getHeight(),
+        path,
+        loader);
+    this.placeholder = placeholder;
+  }
+
+  /** @return {@code false} while it's still showing its placeholder */
+  public boolean isLoaded() {
+    return this.placeholder == null;
+  }
+
   @Override
   public void destroy() {
     this.loader.destroyImage(this);
@@ -30,4 +58,18 @@ public final class ImageTexture extends Texture {
   public @NonNull String toString() {
     return "ImageTexture{" + this.path + "}";
   }
+
+  /** By path rather than by ID, as the ID changes when the placeholder's replaced */
+  @Override
+  public int hashCode() {
+    return this.path.hashCode();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) return true;
+    if (!(o instanceof ImageTexture)) return false;
+    final var obj = (ImageTexture) o;
+    return obj.path.equals(this.path);
+  }
 }
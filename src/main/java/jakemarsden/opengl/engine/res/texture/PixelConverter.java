@@ -0,0 +1,233 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static org.lwjgl.BufferUtils.createByteBuffer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Converts a {@link BufferedImage} into tightly-packed RGB or RGBA bytes, ready to upload as a
+ * texture.
+ *
+ * <p>The image types which {@code ImageIO} decodes most PNGs and JPEGs into ({@code
+ * TYPE_3BYTE_BGR}, {@code TYPE_4BYTE_ABGR}, {@code TYPE_INT_RGB} and {@code TYPE_INT_ARGB}) are
+ * read straight from their backing arrays, rather than a pixel at a time through {@link
+ * BufferedImage#getRGB(int, int)} and the image's colour model. Anything else is still read
+ * through the colour model, but a whole row at a time. Each row is built up in an array and then
+ * copied into the buffer in one go.
+ *
+ * <p>Every row only depends on the image, so in {@link #parallel() parallel} mode large images are
+ * split into ranges of rows which are converted concurrently on a {@link ForkJoinPool}. Both modes
+ * produce exactly the same bytes as {@code getRGB} would
+ */
+public final class PixelConverter {
+
+  /** Ranges of rows with fewer pixels than this aren't worth the overhead of splitting further */
+  private static final int DEFAULT_GRAIN_SIZE = 256 * 1024;
+
+  /** {@code null} in sequential mode */
+  private final @Nullable ForkJoinPool pool;
+
+  /** In pixels rather than rows, so it means the same whatever the width of the image */
+  private final int grainSize;
+
+  public static @NonNull PixelConverter sequential() {
+    return new PixelConverter(null, Integer.MAX_VALUE);
+  }
+
+  public static @NonNull PixelConverter parallel() {
+    return PixelConverter.parallel(ForkJoinPool.commonPool(), DEFAULT_GRAIN_SIZE);
+  }
+
+  public static @NonNull PixelConverter parallel(@NonNull ForkJoinPool pool, int grainSize) {
+    if (grainSize <= 0)
+      throw new IllegalArgumentException("Expected grain size: >0 but was: " + grainSize);
+    return new PixelConverter(pool, grainSize);
+  }
+
+  private PixelConverter(@Nullable ForkJoinPool pool, int grainSize) {
+    this.pool = pool;
+    this.grainSize = grainSize;
+  }
+
+  public boolean isParallel() {
+    return this.pool != null;
+  }
+
+  /**
+   * @param useAlpha whether to include each pixel's alpha, which is always opaque for images
+   *     without any
+   * @return a buffer of exactly the image's pixels, with its rows in order from the top
+   */
+  public @NonNull ByteBuffer convert(@NonNull BufferedImage img, boolean useAlpha) {
+    final var pixBuf = createByteBuffer(img.getWidth() * img.getHeight() * (useAlpha ? 4 : 3));
+    this.convert(img, useAlpha, pixBuf);
+    return pixBuf;
+  }
+
+  /**
+   * Writes the image's pixels into {@code dst} from its current position, which is left where it
+   * is. Each byte is only written once. In sequential mode they're also written in order, so
+   * {@code dst} can be write-combined memory, e.g. a mapped GL buffer. In parallel mode ranges of
+   * rows are written concurrently, in no particular order
+   */
+  public void convert(@NonNull BufferedImage img, boolean useAlpha, @NonNull ByteBuffer dst) {
+    final var width = img.getWidth();
+    final var height = img.getHeight();
+    final var byteCount = width * height * (useAlpha ? 4 : 3);
+    if (dst.remaining() < byteCount)
+      throw new IllegalArgumentException(
+          "Expected remaining: >=" + byteCount + " but was: " + dst.remaining());
+
+    final var pool = this.pool;
+    final var grainRows = Math.max(1, this.grainSize / Math.max(1, width));
+    if (pool == null || height <= grainRows) {
+      convertRows(img, useAlpha, dst, 0, height);
+    } else {
+      pool.invoke(new ConvertTask(img, useAlpha, dst, 0, height, grainRows));
+    }
+  }
+
+  /** Writes rows {@code from} (inclusive) to {@code to} (exclusive), leaving pixBuf's position */
+  private static void convertRows(
+      @NonNull BufferedImage img, boolean useAlpha, @NonNull ByteBuffer pixBuf, int from, int to) {
+
+    final var width = img.getWidth();
+    final var row = new byte[width * (useAlpha ? 4 : 3)];
+    final var out = pixBuf.duplicate();
+    out.position(pixBuf.position() + from * row.length);
+
+    final var raster = img.getRaster();
+    // where (0, 0) is in the backing array, which isn't the start of it for a sub-image
+    final var offsetX = -raster.getSampleModelTranslateX();
+    final var offsetY = -raster.getSampleModelTranslateY();
+
+    switch (img.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        {
+          final var sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+          final var data = (DataBufferByte) raster.getDataBuffer();
+          final var src = data.getData();
+          final var bands = sm.getBandOffsets();
+          final var hasAlpha = bands.length == 4;
+          final var pixelStride = sm.getPixelStride();
+          final var scanlineStride = sm.getScanlineStride();
+          final var base = data.getOffset() + offsetX * pixelStride;
+
+          for (var y = from; y < to; y++) {
+            var s = base + (offsetY + y) * scanlineStride;
+            var d = 0;
+            for (var x = 0; x < width; x++, s += pixelStride) {
+              row[d++] = src[s + bands[0]];
+              row[d++] = src[s + bands[1]];
+              row[d++] = src[s + bands[2]];
+              if (useAlpha) row[d++] = hasAlpha ? src[s + bands[3]] : (byte) 0xff;
+            }
+            out.put(row);
+          }
+          return;
+        }
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        {
+          final var sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+          final var data = (DataBufferInt) raster.getDataBuffer();
+          final var src = data.getData();
+          // the top byte of an INT_RGB pixel isn't necessarily set
+          final var opaque = img.getType() == BufferedImage.TYPE_INT_RGB ? 0xff000000 : 0;
+          final var scanlineStride = sm.getScanlineStride();
+          final var base = data.getOffset() + offsetX;
+
+          for (var y = from; y < to; y++) {
+            final var s = base + (offsetY + y) * scanlineStride;
+            packRow(src, s, width, opaque, useAlpha, row);
+            out.put(row);
+          }
+          return;
+        }
+      default:
+        {
+          final var argb = new int[width];
+          for (var y = from; y < to; y++) {
+            img.getRGB(0, y, width, 1, argb, 0, width);
+            packRow(argb, 0, width, 0, useAlpha, row);
+            out.put(row);
+          }
+        }
+    }
+  }
+
+  /** Unpacks {@code width} ARGB pixels, starting at {@code src[offset]}, into {@code row} */
+  private static void packRow(
+      int @NonNull [] src,
+      int offset,
+      int width,
+      int opaque,
+      boolean useAlpha,
+      byte @NonNull [] row) {
+
+    var d = 0;
+    for (var x = 0; x < width; x++) {
+      final var pix = src[offset + x] | opaque;
+      row[d++] = (byte) (pix >> 16);
+      row[d++] = (byte) (pix >> 8);
+      row[d++] = (byte) pix;
+      if (useAlpha) row[d++] = (byte) (pix >> 24);
+    }
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return this.pool != null
+        ? "PixelConverter{parallelism=" + this.pool.getParallelism() + "}"
+        : "PixelConverter{sequential}";
+  }
+
+  private static final class ConvertTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient BufferedImage img;
+    private final boolean useAlpha;
+    private final transient ByteBuffer pixBuf;
+    private final int from;
+    private final int to;
+    private final int grainRows;
+
+    private ConvertTask(
+        @NonNull BufferedImage img,
+        boolean useAlpha,
+        @NonNull ByteBuffer pixBuf,
+        int from,
+        int to,
+        int grainRows) {
+      this.img = img;
+      this.useAlpha = useAlpha;
+      this.pixBuf = pixBuf;
+      this.from = from;
+      this.to = to;
+      this.grainRows = grainRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= this.grainRows) {
+        convertRows(this.img, this.useAlpha, this.pixBuf, this.from, this.to);
+        return;
+      }
+      final var mid = (this.from + this.to) >>> 1;
+      invokeAll(
+          new ConvertTask(this.img, this.useAlpha, this.pixBuf, this.from, mid, this.grainRows),
+          new ConvertTask(this.img, this.useAlpha, this.pixBuf, mid, this.to, this.grainRows));
+    }
+  }
+}
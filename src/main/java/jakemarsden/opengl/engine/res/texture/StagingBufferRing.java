@@ -0,0 +1,152 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
+import static org.lwjgl.opengl.GL11.GL_NONE;
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL30.GL_MAP_INVALIDATE_BUFFER_BIT;
+import static org.lwjgl.opengl.GL30.GL_MAP_WRITE_BIT;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import java.nio.ByteBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.fissore.slf4j.FluentLogger;
+
+/**
+ * A ring of pixel buffer objects for staging texture uploads. Pixels are written straight into a
+ * mapped buffer, and the texture is then filled from the buffer rather than from client memory, so
+ * the driver can copy it over to the GPU whenever suits it rather than before {@code glTexImage2D}
+ * returns.
+ *
+ * <p>Each upload uses the next buffer in the ring, so one which the GPU could still be reading from
+ * isn't written to again until the others have had a turn. Buffers are created the first time
+ * they're needed, and grow to fit the largest upload they've seen, so once they're big enough the
+ * same memory is reused for every texture rather than reallocated. A buffer which has grown beyond
+ * {@code maxRetainedBytes}, e.g. for a one-off huge texture, is shrunk back down to fit the next
+ * smaller upload, rather than holding onto all that memory for good. Each buffer's mapped with
+ * {@code GL_MAP_INVALIDATE_BUFFER_BIT}, so if the GPU still hasn't finished with it, the driver can
+ * hand out fresh memory rather than stalling
+ */
+final class StagingBufferRing {
+
+  private static final FluentLogger LOGGER = getLogger(StagingBufferRing.class);
+
+  /** Enough for a 2048x2048 RGBA texture */
+  private static final long DEFAULT_MAX_RETAINED_BYTES = 2048 * 2048 * 4;
+
+  private final @NonNull Gl gl;
+  /** {@code 0} for buffers which haven't been created yet */
+  private final int @NonNull [] ids;
+  /** In bytes */
+  private final long @NonNull [] capacities;
+  /** How many bytes each buffer's most recent upload staged */
+  private final long @NonNull [] stagedBytes;
+  /** Buffers bigger than this are shrunk to fit the next upload which is smaller */
+  private final long maxRetainedBytes;
+
+  private int next = 0;
+  /** The sum of every buffer's capacity, in bytes */
+  private long capacity = 0;
+
+  static @NonNull StagingBufferRing create(@NonNull Gl gl, int size) {
+    return StagingBufferRing.create(gl, size, DEFAULT_MAX_RETAINED_BYTES);
+  }
+
+  static @NonNull StagingBufferRing create(@NonNull Gl gl, int size, long maxRetainedBytes) {
+    if (size <= 0) throw new IllegalArgumentException("Expected size: >0 but was: " + size);
+    if (maxRetainedBytes < 0)
+      throw new IllegalArgumentException(
+          "Expected max retained bytes: >=0 but was: " + maxRetainedBytes);
+    return new StagingBufferRing(gl, size, maxRetainedBytes);
+  }
+
+  private StagingBufferRing(@NonNull Gl gl, int size, long maxRetainedBytes) {
+    this.gl = gl;
+    this.ids = new int[size];
+    this.capacities = new long[size];
+    this.stagedBytes = new long[size];
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  /** @return how much staging memory is held onto between uploads, in bytes */
+  long getCapacity() {
+    return this.capacity;
+  }
+
+  /** @return how many bytes the most recent upload through each buffer staged, in total */
+  long getStagedBytes() {
+    var total = 0L;
+    for (final var bytes : this.stagedBytes) total += bytes;
+    return total;
+  }
+
+  /**
+   * Binds the next buffer in the ring to {@code GL_PIXEL_UNPACK_BUFFER}, growing it if it's smaller
+   * than {@code byteCount} (or shrinking it if it's grown too big), and maps its first {@code
+   * byteCount} bytes for writing
+   *
+   * @return {@code null} if it couldn't be mapped, in which case it's left unbound
+   */
+  @Nullable
+  ByteBuffer map(long byteCount) {
+    final var gl = this.gl;
+    final var idx = this.next;
+    this.next = (idx + 1) % this.ids.length;
+
+    if (this.ids[idx] == 0) this.ids[idx] = gl.genBuffers();
+    gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, this.ids[idx]);
+
+    final var capacity = this.capacities[idx];
+    final var oversized = capacity > this.maxRetainedBytes && capacity > byteCount;
+    if (capacity < byteCount || oversized) {
+      gl.bufferData(GL_PIXEL_UNPACK_BUFFER, byteCount, GL_STREAM_DRAW);
+      this.capacity += byteCount - capacity;
+      this.capacities[idx] = byteCount;
+      LOGGER
+          .debug()
+          .log("Staging buffer {} {} to {} bytes", idx, oversized ? "shrunk" : "grown", byteCount);
+    }
+    this.stagedBytes[idx] = byteCount;
+
+    final var access = GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT;
+    final var mapped = gl.mapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0, byteCount, access);
+    if (mapped == null) gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, GL_NONE);
+    return mapped;
+  }
+
+  /**
+   * Unmaps the buffer which was just {@link #map mapped}, leaving it bound so a texture can be
+   * filled from it
+   *
+   * @return {@code false} if what was written to it was lost while it was mapped
+   */
+  boolean unmap() {
+    return this.gl.unmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+  }
+
+  void unbind() {
+    this.gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, GL_NONE);
+  }
+
+  void destroy() {
+    for (var idx = 0; idx < this.ids.length; idx++) {
+      if (this.ids[idx] != 0) this.gl.deleteBuffers(this.ids[idx]);
+      this.ids[idx] = 0;
+      this.capacities[idx] = 0;
+      this.stagedBytes[idx] = 0;
+    }
+    this.capacity = 0;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "StagingBufferRing{size="
+        + this.ids.length
+        + ", capacity="
+        + this.capacity
+        + ", staged="
+        + this.getStagedBytes()
+        + "}";
+  }
+}
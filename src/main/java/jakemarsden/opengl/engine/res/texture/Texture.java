@@ -1,19 +1,30 @@
 package jakemarsden.opengl.engine.res.texture;
 
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.glActiveTexture;
 
+import jakemarsden.opengl.engine.gl.Gl;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 public abstract class Texture {
 
-  final int id;
-  private final int width;
-  private final int height;
-  private final int format;
+  private final @NonNull Gl gl;
+  // only change when an image which was loaded in the background replaces its placeholder
+  int id;
+  private int width;
+  private int height;
+  private int format;
 
-  Texture(int id, int width, int height, int format) {
+  Texture(@NonNull Gl gl, int id, int width, int height, int format) {
+    this.gl = gl;
+    this.id = id;
+    this.width = width;
+    this.height = height;
+    this.format = format;
+  }
+
+  /** Points this texture at a different GL texture, which the caller is now responsible for */
+  void replace(int id, int width, int height, int format) {
     this.id = id;
     this.width = width;
     this.height = height;
@@ -34,13 +45,13 @@ public abstract class Texture {
   }
 
   public void bindTo(int unit) {
-    glActiveTexture(unit);
-    glBindTexture(GL_TEXTURE_2D, this.id);
+    this.gl.activeTexture(unit);
+    this.gl.bindTexture(GL_TEXTURE_2D, this.id);
   }
 
   public void unbindFrom(int unit) {
-    glActiveTexture(unit);
-    glBindTexture(GL_TEXTURE_2D, GL_NONE);
+    this.gl.activeTexture(unit);
+    this.gl.bindTexture(GL_TEXTURE_2D, GL_NONE);
   }
 
   public abstract void destroy();
@@ -1,11 +1,12 @@
 package jakemarsden.opengl.engine.res.texture;
 
+import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
 import static org.lwjgl.BufferUtils.createByteBuffer;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL13.GL_TEXTURE15;
-import static org.lwjgl.opengl.GL13.glActiveTexture;
-import static org.lwjgl.opengl.GL30.glGenerateMipmap;
 
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
 import jakemarsden.opengl.engine.math.Color3;
 import jakemarsden.opengl.engine.math.Color4;
 import jakemarsden.opengl.engine.res.ResourceLoader;
@@ -13,29 +14,129 @@ import jakemarsden.opengl.engine.util.CountedRef;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.checkerframework.checker.nullness.qual.NonNull;
-
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.fissore.slf4j.FluentLogger;
+
+/**
+ * Loads and caches textures, which are shared between everyone who loads the same image or colour
+ * until they've all been destroyed.
+ *
+ * <p>An {@link #async async} loader decodes images on a background {@link Executor} rather than on
+ * the GL thread, and hands out an {@link ImageTexture} straight away which shows a plain {@link
+ * #PLACEHOLDER_COLOR placeholder}. The decoded pixels are queued up, and uploaded when the GL
+ * thread calls {@link #processUploads(Duration)}, at which point the texture starts showing the
+ * real image. Decoding mostly means blocking on disk reads, so by default it's done on the
+ * loader's own few daemon threads, rather than holding up the CPU-bound work on the common pool
+ */
 public final class TextureLoader {
 
+  private static final FluentLogger LOGGER = getLogger(TextureLoader.class);
+
+  /** What images which are being loaded in the background look like in the meantime */
+  public static final Color4 PLACEHOLDER_COLOR = Color4.gray(0.5f, 1);
+
   /** The texture unit to use for loading textures */
   private static final int TEXTURE_UNIT = GL_TEXTURE15;
 
   private static final int COLOR_TEXTURE_WIDTH = 4;
   private static final int COLOR_TEXTURE_HEIGHT = 4;
 
+  /** How many textures can be uploaded before the first staging buffer's used again */
+  private static final int STAGING_RING_SIZE = 3;
+
+  /** How many images an {@link #async(Gl, ResourceLoader) async} loader decodes at once */
+  private static final int DECODE_THREADS = 2;
+
   private final @NonNull Map<String, CountedRef<ImageTexture>> imageCache = new HashMap<>();
   private final @NonNull Map<Color4, CountedRef<ColorTexture>> colorCache = new HashMap<>();
 
+  /** Also used for binding the textures it loads */
+  final @NonNull Gl gl;
+
   private final @NonNull ResourceLoader resLoader;
+  /**
+   * Converts decoded images into client memory, so large ones are converted on the common pool,
+   * whichever thread they're decoded on
+   */
+  private final @NonNull PixelConverter pixelConverter = PixelConverter.parallel();
+  /** Converts images straight into mapped staging buffers, which must be written in order */
+  private final @NonNull PixelConverter stagingConverter = PixelConverter.sequential();
+  /** Every texture's pixels are uploaded through it, rather than straight from client memory */
+  private final @NonNull StagingBufferRing staging;
+
+  /** {@code null} if images are loaded on the calling thread */
+  private final @Nullable Executor decodeExecutor;
+  /** {@code null} unless the decode executor was created by, and so is shut down by, this loader */
+  private final @Nullable ExecutorService ownedDecodeExecutor;
+  /** Set once destroyed, after which images which finish decoding are thrown away */
+  private volatile boolean destroyed = false;
+  /** Filled from the decode executor, and drained on the GL thread */
+  private final @NonNull Queue<DecodedImage> uploadQueue = new ConcurrentLinkedQueue<>();
 
   public static @NonNull TextureLoader create(@NonNull ResourceLoader resLoader) {
-    return new TextureLoader(resLoader);
+    return TextureLoader.create(LwjglGl.create(), resLoader);
+  }
+
+  public static @NonNull TextureLoader create(@NonNull Gl gl, @NonNull ResourceLoader resLoader) {
+    return new TextureLoader(gl, resLoader, null, null);
+  }
+
+  /** Decodes images on its own daemon threads, which are shut down when it's destroyed */
+  public static @NonNull TextureLoader async(@NonNull Gl gl, @NonNull ResourceLoader resLoader) {
+    final var threadCount = new AtomicInteger();
+    final var decodeExecutor =
+        Executors.newFixedThreadPool(
+            DECODE_THREADS,
+            task -> {
+              final var name = "texture-decode-" + threadCount.incrementAndGet();
+              final var thread = new Thread(task, name);
+              thread.setDaemon(true);
+              return thread;
+            });
+    return new TextureLoader(gl, resLoader, decodeExecutor, decodeExecutor);
+  }
+
+  /** @param decodeExecutor not shut down when the loader's destroyed */
+  public static @NonNull TextureLoader async(
+      @NonNull Gl gl, @NonNull ResourceLoader resLoader, @NonNull Executor decodeExecutor) {
+    return new TextureLoader(gl, resLoader, decodeExecutor, null);
   }
 
-  private TextureLoader(@NonNull ResourceLoader resLoader) {
+  private TextureLoader(
+      @NonNull Gl gl,
+      @NonNull ResourceLoader resLoader,
+      @Nullable Executor decodeExecutor,
+      @Nullable ExecutorService ownedDecodeExecutor) {
+    this.gl = gl;
     this.resLoader = resLoader;
+    this.decodeExecutor = decodeExecutor;
+    this.ownedDecodeExecutor = ownedDecodeExecutor;
+    this.staging = StagingBufferRing.create(gl, STAGING_RING_SIZE);
+  }
+
+  public boolean isAsync() {
+    return this.decodeExecutor != null;
+  }
+
+  /** @return how much memory is set aside for staging texture uploads, in bytes */
+  public long getStagingCapacity() {
+    return this.staging.getCapacity();
+  }
+
+  /** @return how many bytes the most recent uploads staged, one per staging buffer */
+  public long getStagedBytes() {
+    return this.staging.getStagedBytes();
   }
 
   public @NonNull ImageTexture loadImage(@NonNull String name) {
@@ -48,6 +149,27 @@ public final class TextureLoader {
         .takeRef();
   }
 
+  /**
+   * Uploads images which have finished decoding in the background, until either there aren't any
+   * left or {@code budget} has been used up. At least one is uploaded if there are any, so loading
+   * always makes progress however small the budget. Must be called on the GL thread
+   *
+   * @return how many were taken off the queue
+   */
+  public int processUploads(@NonNull Duration budget) {
+    final var budgetNanos = budget.toNanos();
+    final var startTime = System.nanoTime();
+    var count = 0;
+
+    DecodedImage decoded;
+    while ((decoded = this.uploadQueue.poll()) != null) {
+      this.finishLoading(decoded);
+      count++;
+      if (System.nanoTime() - startTime >= budgetNanos) break;
+    }
+    return count;
+  }
+
   public @NonNull ColorTexture loadColor(@NonNull Color3 color) {
     return this.loadColor(Color4.rgba(color, 1), false);
   }
@@ -62,6 +184,18 @@ public final class TextureLoader {
         .takeRef();
   }
 
+  /**
+   * Releases the staging buffers and stops decoding images, but doesn't release any textures which
+   * are still in use. Images which haven't been uploaded yet keep their placeholders
+   */
+  public void destroy() {
+    this.destroyed = true;
+    final var ownedDecodeExecutor = this.ownedDecodeExecutor;
+    if (ownedDecodeExecutor != null) ownedDecodeExecutor.shutdownNow();
+    this.uploadQueue.clear();
+    this.staging.destroy();
+  }
+
   void destroyImage(@NonNull ImageTexture tex) {
     this.imageCache.compute(
         tex.path,
@@ -85,6 +219,9 @@ public final class TextureLoader {
   }
 
   private @NonNull ImageTexture loadImageTexture(@NonNull String name, boolean useAlpha) {
+    final var decodeExecutor = this.decodeExecutor;
+    if (decodeExecutor != null) return this.loadImageTextureAsync(name, useAlpha, decodeExecutor);
+
     final BufferedImage img;
     try {
       img = this.resLoader.loadImage(name);
@@ -96,18 +233,68 @@ public final class TextureLoader {
     final var height = img.getHeight();
     final var format = useAlpha ? GL_RGBA : GL_RGB;
 
-    final var pixBuf = this.asRgbaPixelBuffer(img, width, height, useAlpha);
-    final var texId = this.loadPixels(pixBuf, width, height, format);
+    // converted straight into the staging buffer, so there's no copy of it in client memory
+    final var converter = this.stagingConverter;
+    final var texId =
+        this.loadPixels(width, height, format, dst -> converter.convert(img, useAlpha, dst));
     return new ImageTexture(texId, format, width, height, name, this);
   }
 
+  private @NonNull ImageTexture loadImageTextureAsync(
+      @NonNull String name, boolean useAlpha, @NonNull Executor decodeExecutor) {
+
+    final var tex = new ImageTexture(this.loadColor(PLACEHOLDER_COLOR), name, this);
+    // nothing but the decoded pixels cross back over to the GL thread, via the queue
+    decodeExecutor.execute(
+        () -> {
+          final BufferedImage img;
+          try {
+            img = this.resLoader.loadImage(name);
+          } catch (IOException | RuntimeException e) {
+            // most likely interrupted by being shut down
+            if (this.destroyed) return;
+            LOGGER.error().log("Unable to load texture: {}", name, e);
+            this.uploadQueue.add(new DecodedImage(tex, null, 0, 0, 0));
+            return;
+          }
+          final var width = img.getWidth();
+          final var height = img.getHeight();
+          final var format = useAlpha ? GL_RGBA : GL_RGB;
+          // nobody's going to upload it
+          if (this.destroyed) return;
+          final var pixBuf = this.pixelConverter.convert(img, useAlpha);
+          this.uploadQueue.add(new DecodedImage(tex, pixBuf, width, height, format));
+          // in case it was destroyed while this was being converted
+          if (this.destroyed) this.uploadQueue.clear();
+        });
+    return tex;
+  }
+
+  private void finishLoading(@NonNull DecodedImage decoded) {
+    final var tex = decoded.texture;
+    // destroyed before it finished loading, so its placeholder's already been released
+    if (tex.destroyed) return;
+    // couldn't be loaded, so it keeps its placeholder until it's destroyed
+    final var pixBuf = decoded.pixBuf;
+    if (pixBuf == null) return;
+
+    final var texId =
+        this.loadPixels(
+            decoded.width, decoded.height, decoded.format, dst -> dst.put(pixBuf.duplicate()));
+    tex.replace(texId, decoded.width, decoded.height, decoded.format);
+    final var placeholder = tex.placeholder;
+    tex.placeholder = null;
+    if (placeholder != null) placeholder.destroy();
+  }
+
   private @NonNull ColorTexture loadColorTexture(@NonNull Color4 color, boolean useAlpha) {
     final var width = COLOR_TEXTURE_WIDTH;
     final var height = COLOR_TEXTURE_HEIGHT;
     final var format = useAlpha ? GL_RGBA : GL_RGB;
 
-    final var pixBuf = this.asRgbaPixelBuffer(color, width, height, useAlpha);
-    final var texId = this.loadPixels(pixBuf, width, height, format);
+    final var texId =
+        this.loadPixels(
+            width, height, format, dst -> putColor(color, width * height, useAlpha, dst));
     return new ColorTexture(texId, format, width, height, color, this);
   }
 
@@ -132,57 +319,67 @@ public final class TextureLoader {
     this.unloadPixels(tex.id);
   }
 
-  /** @param format one of {@code GL_RGB}, {@code GL_RGBA}... */
-  private int loadPixels(@NonNull ByteBuffer pixBuf, int width, int height, int format) {
-
-    final int texId = glGenTextures();
-    glActiveTexture(TEXTURE_UNIT);
-    glBindTexture(GL_TEXTURE_2D, texId);
-
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST_MIPMAP_NEAREST);
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+  private void unloadTexture(@NonNull ImageTexture tex) {
+    tex.destroyed = true;
+    final var placeholder = tex.placeholder;
+    if (placeholder == null) {
+      this.unloadPixels(tex.id);
+    } else {
+      // its ID is still the placeholder's, which isn't ours to delete
+      tex.placeholder = null;
+      placeholder.destroy();
+    }
+  }
 
-    glTexImage2D(GL_TEXTURE_2D, 0, format, width, height, 0, format, GL_UNSIGNED_BYTE, pixBuf);
-    glGenerateMipmap(GL_TEXTURE_2D);
+  /**
+   * @param format one of {@code GL_RGB}, {@code GL_RGBA}
+   * @param writePixels writes every pixel into the given buffer, starting at its position
+   */
+  private int loadPixels(
+      int width, int height, int format, @NonNull Consumer<ByteBuffer> writePixels) {
+
+    final var gl = this.gl;
+    final int texId = gl.genTextures();
+    gl.activeTexture(TEXTURE_UNIT);
+    gl.bindTexture(GL_TEXTURE_2D, texId);
+
+    gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+    gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+    gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST_MIPMAP_NEAREST);
+    gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+
+    // rows are tightly packed, rather than padded out to the default of 4 bytes
+    gl.pixelStorei(GL_UNPACK_ALIGNMENT, 1);
+    final var byteCount = width * height * (format == GL_RGBA ? 4 : 3);
+    var staged = false;
+    final var stagingBuf = this.staging.map(byteCount);
+    if (stagingBuf != null) {
+      writePixels.accept(stagingBuf);
+      // only fails if the buffer's contents were lost while it was mapped, e.g. on a mode switch
+      staged = this.staging.unmap();
+      if (staged) {
+        gl.texImage2D(GL_TEXTURE_2D, 0, format, width, height, 0, format, GL_UNSIGNED_BYTE, 0L);
+      }
+      this.staging.unbind();
+    }
+    if (!staged) {
+      final var pixBuf = createByteBuffer(byteCount);
+      writePixels.accept(pixBuf);
+      pixBuf.rewind();
+      gl.texImage2D(GL_TEXTURE_2D, 0, format, width, height, 0, format, GL_UNSIGNED_BYTE, pixBuf);
+    }
+    gl.generateMipmap(GL_TEXTURE_2D);
 
-    glBindTexture(GL_TEXTURE_2D, GL_NONE);
+    gl.bindTexture(GL_TEXTURE_2D, GL_NONE);
     return texId;
   }
 
   private void unloadPixels(int texId) {
-    glDeleteTextures(texId);
+    this.gl.deleteTextures(texId);
   }
 
-  private @NonNull ByteBuffer asRgbaPixelBuffer(
-      @NonNull BufferedImage img, int width, int height, boolean useAlpha) {
-
-    final var pixSize = useAlpha ? 4 : 3;
-    final var pixBuf = createByteBuffer(width * height * pixSize);
-
-    for (var y = 0; y < height; y++) {
-      for (var x = 0; x < width; x++) {
-        final var pix = img.getRGB(x, y);
-
-        final var a = (byte) (0xff & (pix >> 24));
-        final var r = (byte) (0xff & (pix >> 16));
-        final var g = (byte) (0xff & (pix >> 8));
-        final var b = (byte) (0xff & pix);
-
-        pixBuf.put(r);
-        pixBuf.put(g);
-        pixBuf.put(b);
-        if (useAlpha) pixBuf.put(a);
-      }
-    }
-
-    pixBuf.flip();
-    return pixBuf;
-  }
-
-  private @NonNull ByteBuffer asRgbaPixelBuffer(
-      @NonNull Color4 color, int width, int height, boolean useAlpha) {
+  private static void putColor(
+      @NonNull Color4 color, int pixCount, boolean useAlpha, @NonNull ByteBuffer dst) {
 
     final var pixSize = useAlpha ? 4 : 3;
     final var pix = new byte[pixSize];
@@ -191,10 +388,31 @@ public final class TextureLoader {
     pix[2] = (byte) (0xff * color.b);
     if (useAlpha) pix[3] = (byte) (0xff * color.a);
 
-    final var pixBuf = createByteBuffer(width * height * pixSize);
-    for (var idx = 0; idx < width * height; idx++) pixBuf.put(pix);
+    for (var idx = 0; idx < pixCount; idx++) dst.put(pix);
+  }
 
-    pixBuf.flip();
-    return pixBuf;
+  /** An image which has been decoded in the background, and is waiting to be uploaded */
+  private static final class DecodedImage {
+
+    final @NonNull ImageTexture texture;
+    /** {@code null} if the image couldn't be loaded */
+    final @Nullable ByteBuffer pixBuf;
+
+    final int width;
+    final int height;
+    final int format;
+
+    DecodedImage(
+        @NonNull ImageTexture texture,
+        @Nullable ByteBuffer pixBuf,
+        int width,
+        int height,
+        int format) {
+      this.texture = texture;
+      this.pixBuf = pixBuf;
+      this.width = width;
+      this.height = height;
+      this.format = format;
+    }
   }
 }
@@ -0,0 +1,763 @@
+package jakemarsden.opengl.engine.scene;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import jakemarsden.opengl.engine.entity.Entity;
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A bounding volume hierarchy over the world bounds of a set of entities, for finding the ones in a
+ * frustum, box or sphere, hit by a ray, or nearest to a point without testing every one of them.
+ *
+ * <p>The tree is built by splitting each node's entities in half along the longest axis of their
+ * centres, and its nodes are stored depth-first in flat arrays. As entities move, {@link #refit()}
+ * recalculates each node's bounds without changing the tree's shape, which is cheap but makes the
+ * nodes overlap more and more. {@link #update()} refits the tree, then rebuilds it from scratch
+ * once that has made it too much worse than when it was built. In {@link #parallel() parallel}
+ * mode, the top of the tree is built concurrently on a {@link ForkJoinPool}.
+ *
+ * <p>Queries don't allocate, and report what they find to a visitor. A BVH isn't thread-safe, and
+ * can't be queried again from inside one of its own visitors. Entities added to or removed from
+ * their store aren't noticed until the BVH is {@link #build built} again
+ */
+public final class Bvh {
+
+  /** Nodes with this many entities or fewer aren't split any further */
+  static final int MAX_LEAF_SIZE = 4;
+  /** Once refitting has made the tree this much worse than when it was built, rebuild it */
+  private static final float DEFAULT_REBUILD_THRESHOLD = 1.5f;
+  /** Subtrees with fewer entities than this aren't worth building in parallel */
+  private static final int DEFAULT_GRAIN_SIZE = 4096;
+
+  /** {@code minX, minY, minZ, maxX, maxY, maxZ} */
+  private static final int BOUNDS_SIZE = 6;
+  /** Deeper than any tree built by splitting at the median can be */
+  private static final int STACK_SIZE = 64;
+  /** What a ray which misses a box is as far along as, or a point is from an empty box */
+  private static final float MISS = Float.POSITIVE_INFINITY;
+
+  /** {@code null} in sequential mode */
+  private final @Nullable ForkJoinPool pool;
+
+  private final int grainSize;
+  private final float rebuildThreshold;
+
+  private @Nullable Entity[] entities = new Entity[0];
+  private int size = 0;
+  private float[] entityBounds = new float[0];
+  /** {@code x, y, z} of the centre of each entity's bounds */
+  private float[] centres = new float[0];
+  /** Indices into {@link #entities}, ordered so each leaf's entities are next to each other */
+  private int[] order = new int[0];
+
+  private int nodeCount = 0;
+  private float[] nodeBounds = new float[0];
+  /** How many entities are in each leaf, or {@code 0} for internal nodes */
+  private int[] nodeSizes = new int[0];
+  /**
+   * The index of each leaf's first entity in {@link #order}, or each internal node's right child.
+   * An internal node's left child always comes straight after it
+   */
+  private int[] nodeOffsets = new int[0];
+
+  /** The total surface area of every node, when the tree was built */
+  private float builtCost = 0;
+
+  private float cost = 0;
+
+  /** Reused between queries, so they don't have to allocate anything */
+  private final int[] stack = new int[STACK_SIZE];
+
+  private final FrustumQuery frustumQuery = new FrustumQuery();
+  private final BoxQuery boxQuery = new BoxQuery();
+  private final SphereQuery sphereQuery = new SphereQuery();
+
+  private @Nullable Entity closest = null;
+  private final RayVisitor closestVisitor =
+      (entity, distance) -> {
+        this.closest = entity;
+        return distance;
+      };
+
+  public static @NonNull Bvh sequential() {
+    return new Bvh(null, Integer.MAX_VALUE, DEFAULT_REBUILD_THRESHOLD);
+  }
+
+  public static @NonNull Bvh parallel() {
+    return Bvh.parallel(ForkJoinPool.commonPool(), DEFAULT_GRAIN_SIZE, DEFAULT_REBUILD_THRESHOLD);
+  }
+
+  /**
+   * @param rebuildThreshold how much worse, as a ratio of its {@link #getCost() cost} when it was
+   *     built, {@link #update()} lets the tree get before rebuilding it
+   */
+  public static @NonNull Bvh parallel(
+      @NonNull ForkJoinPool pool, int grainSize, float rebuildThreshold) {
+
+    if (grainSize <= 0)
+      throw new IllegalArgumentException("Expected grain size: >0 but was: " + grainSize);
+    if (!(rebuildThreshold >= 1))
+      throw new IllegalArgumentException(
+          "Expected rebuild threshold: >=1 but was: " + rebuildThreshold);
+    return new Bvh(pool, grainSize, rebuildThreshold);
+  }
+
+  private Bvh(@Nullable ForkJoinPool pool, int grainSize, float rebuildThreshold) {
+    this.pool = pool;
+    this.grainSize = grainSize;
+    this.rebuildThreshold = rebuildThreshold;
+  }
+
+  public boolean isParallel() {
+    return this.pool != null;
+  }
+
+  /** Builds a new tree over the first {@code count} {@code entities}, replacing the old one */
+  public void build(@NonNull Entity @NonNull [] entities, int count) {
+    if (count < 0 || count > entities.length)
+      throw new IllegalArgumentException(
+          "Expected count: 0-" + entities.length + " but was: " + count);
+
+    if (this.entities.length < count) {
+      this.entities = new Entity[count];
+      this.entityBounds = new float[BOUNDS_SIZE * count];
+      this.centres = new float[3 * count];
+      this.order = new int[count];
+    }
+    System.arraycopy(entities, 0, this.entities, 0, count);
+    Arrays.fill(this.entities, count, this.entities.length, null);
+    this.size = count;
+
+    final var nodeCount = calculateNodeCount(count);
+    if (this.nodeSizes.length < nodeCount) {
+      this.nodeBounds = new float[BOUNDS_SIZE * nodeCount];
+      this.nodeSizes = new int[nodeCount];
+      this.nodeOffsets = new int[nodeCount];
+    }
+    this.nodeCount = nodeCount;
+    this.rebuild();
+  }
+
+  /** Rebuilds the tree over the same entities, from their current bounds */
+  public void rebuild() {
+    this.readBounds();
+    final var bounds = this.entityBounds;
+    final var centres = this.centres;
+    for (var idx = 0; idx < this.size; idx++) {
+      this.order[idx] = idx;
+      for (var axis = 0; axis < 3; axis++) {
+        final var min = bounds[BOUNDS_SIZE * idx + axis];
+        final var max = bounds[BOUNDS_SIZE * idx + 3 + axis];
+        // entities without any geometry don't have a centre, but still need to go somewhere
+        centres[3 * idx + axis] = min <= max ? (min + max) / 2 : 0;
+      }
+    }
+
+    if (this.size != 0) {
+      final var pool = this.pool;
+      if (pool == null || this.size <= this.grainSize) {
+        this.buildNode(0, 0, this.size);
+      } else {
+        pool.invoke(new BuildTask(0, 0, this.size));
+      }
+    }
+    this.cost = this.calculateCost();
+    this.builtCost = this.cost;
+  }
+
+  /**
+   * Recalculates the bounds of every node from its entities' current bounds, without changing the
+   * tree's shape
+   */
+  public void refit() {
+    this.readBounds();
+    for (var node = this.nodeCount - 1; node >= 0; node--) {
+      // children always come after their parent, so they've already been refitted
+      if (this.nodeSizes[node] != 0) {
+        this.fitLeaf(node);
+      } else {
+        this.fitInternal(node);
+      }
+    }
+    this.cost = this.calculateCost();
+  }
+
+  /**
+   * {@link #refit() Refits} the tree, then {@link #rebuild() rebuilds} it if that has made it too
+   * much worse than when it was built
+   *
+   * @return whether the tree was rebuilt
+   */
+  public boolean update() {
+    this.refit();
+    if (this.getDegradation() <= this.rebuildThreshold) return false;
+    this.rebuild();
+    return true;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * @return the total surface area of every node. The more the nodes overlap, the higher this is
+   *     and the slower queries get
+   */
+  public float getCost() {
+    return this.cost;
+  }
+
+  /** @return the tree's {@link #getCost() cost}, as a ratio of its cost when it was built */
+  public float getDegradation() {
+    return this.builtCost != 0 ? this.cost / this.builtCost : 1;
+  }
+
+  /** Visits every entity whose bounds might be inside {@code frustum} */
+  public void queryFrustum(@NonNull Frustum frustum, @NonNull Visitor visitor) {
+    this.frustumQuery.frustum = frustum;
+    this.query(this.frustumQuery, visitor);
+    this.frustumQuery.frustum = null;
+  }
+
+  /** Visits every entity whose bounds overlap {@code box} */
+  public void queryBox(@NonNull Aabb box, @NonNull Visitor visitor) {
+    this.boxQuery.box = box;
+    this.query(this.boxQuery, visitor);
+    this.boxQuery.box = null;
+  }
+
+  /** Visits every entity whose bounds overlap the sphere */
+  public void querySphere(@NonNull Vector3 centre, float radius, @NonNull Visitor visitor) {
+    if (radius < 0) throw new IllegalArgumentException("Expected radius: >=0 but was: " + radius);
+    this.sphereQuery.x = centre.x;
+    this.sphereQuery.y = centre.y;
+    this.sphereQuery.z = centre.z;
+    this.sphereQuery.radiusSquared = radius * radius;
+    this.query(this.sphereQuery, visitor);
+  }
+
+  /**
+   * Visits the entities whose bounds the ray hits, roughly nearest first. Distances along the ray
+   * are measured in multiples of {@code direction}'s length
+   *
+   * @param maxDistance entities further along the ray than this aren't visited
+   */
+  public void raycast(
+      @NonNull Vector3 origin,
+      @NonNull Vector3 direction,
+      float maxDistance,
+      @NonNull RayVisitor visitor) {
+
+    if (this.nodeCount == 0) return;
+    final var ox = origin.x;
+    final var oy = origin.y;
+    final var oz = origin.z;
+    final var invX = 1 / direction.x;
+    final var invY = 1 / direction.y;
+    final var invZ = 1 / direction.z;
+    final var nodeBounds = this.nodeBounds;
+    final var stack = this.stack;
+    var top = 0;
+    stack[top++] = 0;
+
+    while (top > 0) {
+      final var node = stack[--top];
+      final var b = BOUNDS_SIZE * node;
+      // the max distance might have shrunk since this node was pushed
+      final var nodeDistance =
+          intersectRay(nodeBounds, b, ox, oy, oz, invX, invY, invZ, maxDistance);
+      if (!within(nodeDistance, maxDistance)) continue;
+
+      final var nodeSize = this.nodeSizes[node];
+      if (nodeSize != 0) {
+        final var offset = this.nodeOffsets[node];
+        for (var idx = offset; idx < offset + nodeSize; idx++) {
+          final var entity = this.order[idx];
+          final var e = BOUNDS_SIZE * entity;
+          final var distance =
+              intersectRay(this.entityBounds, e, ox, oy, oz, invX, invY, invZ, maxDistance);
+          if (!within(distance, maxDistance)) continue;
+          maxDistance = visitor.visit(this.entity(entity), distance);
+          if (maxDistance < 0) return;
+        }
+        continue;
+      }
+
+      final var left = node + 1;
+      final var right = this.nodeOffsets[node];
+      final var leftDistance =
+          intersectRay(nodeBounds, BOUNDS_SIZE * left, ox, oy, oz, invX, invY, invZ, maxDistance);
+      final var rightDistance =
+          intersectRay(nodeBounds, BOUNDS_SIZE * right, ox, oy, oz, invX, invY, invZ, maxDistance);
+      // push the nearer child last, so it's visited first
+      if (leftDistance <= rightDistance) {
+        if (within(rightDistance, maxDistance)) stack[top++] = right;
+        if (within(leftDistance, maxDistance)) stack[top++] = left;
+      } else {
+        if (within(leftDistance, maxDistance)) stack[top++] = left;
+        if (within(rightDistance, maxDistance)) stack[top++] = right;
+      }
+    }
+  }
+
+  /**
+   * @return the entity whose bounds the ray hits first, or {@code null} if it doesn't hit any
+   *     within {@code maxDistance}
+   * @see #raycast
+   */
+  public @Nullable Entity raycastClosest(
+      @NonNull Vector3 origin, @NonNull Vector3 direction, float maxDistance) {
+
+    this.closest = null;
+    this.raycast(origin, direction, maxDistance, this.closestVisitor);
+    final var closest = this.closest;
+    this.closest = null;
+    return closest;
+  }
+
+  /**
+   * @return the entity whose bounds are nearest to {@code point}, or {@code null} if none are
+   *     within {@code maxDistance} of it. Entities whose bounds contain the point are at a distance
+   *     of {@code 0}
+   */
+  public @Nullable Entity findNearest(@NonNull Vector3 point, float maxDistance) {
+    if (this.nodeCount == 0) return null;
+    final var x = point.x;
+    final var y = point.y;
+    final var z = point.z;
+    final var nodeBounds = this.nodeBounds;
+    final var stack = this.stack;
+    var top = 0;
+    stack[top++] = 0;
+
+    var nearest = -1;
+    var nearestDistanceSquared = maxDistance * maxDistance;
+    while (top > 0) {
+      final var node = stack[--top];
+      final var nodeDistanceSquared = distanceSquared(nodeBounds, BOUNDS_SIZE * node, x, y, z);
+      if (!within(nodeDistanceSquared, nearestDistanceSquared)) continue;
+
+      final var nodeSize = this.nodeSizes[node];
+      if (nodeSize != 0) {
+        final var offset = this.nodeOffsets[node];
+        for (var idx = offset; idx < offset + nodeSize; idx++) {
+          final var entity = this.order[idx];
+          final var distanceSquared =
+              distanceSquared(this.entityBounds, BOUNDS_SIZE * entity, x, y, z);
+          if (within(distanceSquared, nearestDistanceSquared)) {
+            nearest = entity;
+            nearestDistanceSquared = distanceSquared;
+          }
+        }
+        continue;
+      }
+
+      final var left = node + 1;
+      final var right = this.nodeOffsets[node];
+      // push the nearer child last, so it's visited first
+      if (distanceSquared(nodeBounds, BOUNDS_SIZE * left, x, y, z)
+          <= distanceSquared(nodeBounds, BOUNDS_SIZE * right, x, y, z)) {
+        stack[top++] = right;
+        stack[top++] = left;
+      } else {
+        stack[top++] = left;
+        stack[top++] = right;
+      }
+    }
+    return nearest != -1 ? this.entity(nearest) : null;
+  }
+
+  private void query(@NonNull Query query, @NonNull Visitor visitor) {
+    if (this.nodeCount == 0) return;
+    final var stack = this.stack;
+    var top = 0;
+    stack[top++] = 0;
+
+    while (top > 0) {
+      final var node = stack[--top];
+      if (!query.overlaps(this.nodeBounds, BOUNDS_SIZE * node)) continue;
+
+      final var nodeSize = this.nodeSizes[node];
+      if (nodeSize != 0) {
+        final var offset = this.nodeOffsets[node];
+        for (var idx = offset; idx < offset + nodeSize; idx++) {
+          final var entity = this.order[idx];
+          if (query.overlaps(this.entityBounds, BOUNDS_SIZE * entity)
+              && !visitor.visit(this.entity(entity))) return;
+        }
+        continue;
+      }
+      stack[top++] = this.nodeOffsets[node];
+      stack[top++] = node + 1;
+    }
+  }
+
+  private @NonNull Entity entity(int idx) {
+    final var entity = this.entities[idx];
+    assert entity != null;
+    return entity;
+  }
+
+  private void readBounds() {
+    for (var idx = 0; idx < this.size; idx++)
+      this.entity(idx).getBounds(this.entityBounds, BOUNDS_SIZE * idx);
+  }
+
+  private void buildNode(int node, int from, int to) {
+    if (to - from <= MAX_LEAF_SIZE) {
+      this.makeLeaf(node, from, to);
+      return;
+    }
+    final var mid = this.split(from, to);
+    final var right = node + 1 + calculateNodeCount(mid - from);
+    this.nodeSizes[node] = 0;
+    this.nodeOffsets[node] = right;
+    this.buildNode(node + 1, from, mid);
+    this.buildNode(right, mid, to);
+    this.fitInternal(node);
+  }
+
+  private void makeLeaf(int node, int from, int to) {
+    this.nodeSizes[node] = to - from;
+    this.nodeOffsets[node] = from;
+    this.fitLeaf(node);
+  }
+
+  /**
+   * Partially sorts {@code order[from, to)} along the longest axis of its entities' centres, so the
+   * first half are all before the second half
+   *
+   * @return the index of the first entity in the second half
+   */
+  private int split(int from, int to) {
+    final var centres = this.centres;
+    final var order = this.order;
+    var minX = Float.POSITIVE_INFINITY;
+    var minY = Float.POSITIVE_INFINITY;
+    var minZ = Float.POSITIVE_INFINITY;
+    var maxX = Float.NEGATIVE_INFINITY;
+    var maxY = Float.NEGATIVE_INFINITY;
+    var maxZ = Float.NEGATIVE_INFINITY;
+    for (var idx = from; idx < to; idx++) {
+      final var centre = 3 * order[idx];
+      minX = min(minX, centres[centre]);
+      minY = min(minY, centres[centre + 1]);
+      minZ = min(minZ, centres[centre + 2]);
+      maxX = max(maxX, centres[centre]);
+      maxY = max(maxY, centres[centre + 1]);
+      maxZ = max(maxZ, centres[centre + 2]);
+    }
+    final var sizeX = maxX - minX;
+    final var sizeY = maxY - minY;
+    final var sizeZ = maxZ - minZ;
+    final var axis = sizeX >= sizeY && sizeX >= sizeZ ? 0 : sizeY >= sizeZ ? 1 : 2;
+
+    final var mid = (from + to) >>> 1;
+    this.select(from, to - 1, mid, axis);
+    return mid;
+  }
+
+  /** Quickselect: moves the {@code nth} entity along {@code axis} into place in {@code [lo, hi]} */
+  private void select(int lo, int hi, int nth, int axis) {
+    final var centres = this.centres;
+    final var order = this.order;
+    while (lo < hi) {
+      final var pivot = centres[3 * order[(lo + hi) >>> 1] + axis];
+      var i = lo;
+      var j = hi;
+      while (i <= j) {
+        while (centres[3 * order[i] + axis] < pivot) i++;
+        while (centres[3 * order[j] + axis] > pivot) j--;
+        if (i <= j) {
+          final var tmp = order[i];
+          order[i] = order[j];
+          order[j] = tmp;
+          i++;
+          j--;
+        }
+      }
+      if (nth <= j) {
+        hi = j;
+      } else if (nth >= i) {
+        lo = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private void fitLeaf(int node) {
+    var minX = Float.POSITIVE_INFINITY;
+    var minY = Float.POSITIVE_INFINITY;
+    var minZ = Float.POSITIVE_INFINITY;
+    var maxX = Float.NEGATIVE_INFINITY;
+    var maxY = Float.NEGATIVE_INFINITY;
+    var maxZ = Float.NEGATIVE_INFINITY;
+    final var bounds = this.entityBounds;
+    final var offset = this.nodeOffsets[node];
+    for (var idx = offset; idx < offset + this.nodeSizes[node]; idx++) {
+      final var b = BOUNDS_SIZE * this.order[idx];
+      minX = min(minX, bounds[b]);
+      minY = min(minY, bounds[b + 1]);
+      minZ = min(minZ, bounds[b + 2]);
+      maxX = max(maxX, bounds[b + 3]);
+      maxY = max(maxY, bounds[b + 4]);
+      maxZ = max(maxZ, bounds[b + 5]);
+    }
+    this.setNodeBounds(node, minX, minY, minZ, maxX, maxY, maxZ);
+  }
+
+  private void fitInternal(int node) {
+    final var b = this.nodeBounds;
+    final var left = BOUNDS_SIZE * (node + 1);
+    final var right = BOUNDS_SIZE * this.nodeOffsets[node];
+    this.setNodeBounds(
+        node,
+        min(b[left], b[right]),
+        min(b[left + 1], b[right + 1]),
+        min(b[left + 2], b[right + 2]),
+        max(b[left + 3], b[right + 3]),
+        max(b[left + 4], b[right + 4]),
+        max(b[left + 5], b[right + 5]));
+  }
+
+  private void setNodeBounds(
+      int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+
+    final var b = BOUNDS_SIZE * node;
+    this.nodeBounds[b] = minX;
+    this.nodeBounds[b + 1] = minY;
+    this.nodeBounds[b + 2] = minZ;
+    this.nodeBounds[b + 3] = maxX;
+    this.nodeBounds[b + 4] = maxY;
+    this.nodeBounds[b + 5] = maxZ;
+  }
+
+  private float calculateCost() {
+    final var b = this.nodeBounds;
+    var cost = 0.0;
+    for (var offset = 0; offset < BOUNDS_SIZE * this.nodeCount; offset += BOUNDS_SIZE) {
+      if (isEmpty(b, offset)) continue;
+      final var x = b[offset + 3] - b[offset];
+      final var y = b[offset + 4] - b[offset + 1];
+      final var z = b[offset + 5] - b[offset + 2];
+      cost += 2 * (x * y + y * z + z * x);
+    }
+    return (float) cost;
+  }
+
+  /**
+   * @return how many nodes there are in a tree over {@code count} entities. Each node's entities
+   *     are split in half, rounding down, so the subtrees at each depth all have either {@code n}
+   *     or {@code n + 1} entities, and this can be counted without building the tree
+   */
+  static int calculateNodeCount(int count) {
+    if (count == 0) return 0;
+    var small = count;
+    var smallCount = 1;
+    var largeCount = 0;
+    var leafCount = 0;
+    while (smallCount + largeCount != 0) {
+      if (small + 1 <= MAX_LEAF_SIZE) {
+        leafCount += smallCount + largeCount;
+        break;
+      }
+      if (small <= MAX_LEAF_SIZE) {
+        leafCount += smallCount;
+        smallCount = 0;
+      }
+      // an even n splits into (n/2, n/2), and an odd one into (n/2, n/2 + 1)
+      final var nextSmallCount = small % 2 == 0 ? 2 * smallCount + largeCount : smallCount;
+      final var nextLargeCount = small % 2 == 0 ? largeCount : smallCount + 2 * largeCount;
+      small /= 2;
+      smallCount = nextSmallCount;
+      largeCount = nextLargeCount;
+    }
+    return 2 * leafCount - 1;
+  }
+
+  private static boolean isEmpty(float @NonNull [] bounds, int offset) {
+    return bounds[offset] > bounds[offset + 3];
+  }
+
+  /**
+   * Whether {@code distance}, from {@link #intersectRay} or {@link #distanceSquared}, is a hit no
+   * further than {@code maxDistance}. A miss never is, even when there's no max distance
+   */
+  private static boolean within(float distance, float maxDistance) {
+    return distance != MISS && distance <= maxDistance;
+  }
+
+  /**
+   * Slab test
+   *
+   * @return how far along the ray it enters the box at {@code offset}, {@code 0} if it starts
+   *     inside, or {@link #MISS} if it misses
+   */
+  private static float intersectRay(
+      float @NonNull [] bounds,
+      int offset,
+      float ox,
+      float oy,
+      float oz,
+      float invX,
+      float invY,
+      float invZ,
+      float maxDistance) {
+
+    final var b = offset;
+    if (isEmpty(bounds, b)) return MISS;
+    final var x1 = (bounds[b] - ox) * invX;
+    final var x2 = (bounds[b + 3] - ox) * invX;
+    final var y1 = (bounds[b + 1] - oy) * invY;
+    final var y2 = (bounds[b + 4] - oy) * invY;
+    final var z1 = (bounds[b + 2] - oz) * invZ;
+    final var z2 = (bounds[b + 5] - oz) * invZ;
+    final var near = max(max(0, min(x1, x2)), max(min(y1, y2), min(z1, z2)));
+    final var far = min(min(maxDistance, max(x1, x2)), min(max(y1, y2), max(z1, z2)));
+    // also false when a NaN crept in, from a ray parallel to and exactly on one of the box's faces
+    return near <= far ? near : MISS;
+  }
+
+  /**
+   * @return the squared distance from the point to the box at {@code offset}, {@code 0} if it's
+   *     inside, or {@link #MISS} if the box is empty
+   */
+  private static float distanceSquared(
+      float @NonNull [] bounds, int offset, float x, float y, float z) {
+
+    final var b = offset;
+    if (isEmpty(bounds, b)) return MISS;
+    final var dx = max(0, max(bounds[b] - x, x - bounds[b + 3]));
+    final var dy = max(0, max(bounds[b + 1] - y, y - bounds[b + 4]));
+    final var dz = max(0, max(bounds[b + 2] - z, z - bounds[b + 5]));
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "Bvh{size="
+        + this.size
+        + ", nodes="
+        + this.nodeCount
+        + ", degradation="
+        + this.getDegradation()
+        + "}";
+  }
+
+  @FunctionalInterface
+  public interface Visitor {
+
+    /** @return {@code false} to stop the query early */
+    boolean visit(@NonNull Entity entity);
+  }
+
+  @FunctionalInterface
+  public interface RayVisitor {
+
+    /**
+     * @param distance how far along the ray it enters the entity's bounds
+     * @return how far along the ray to keep looking: {@code distance} to only look for nearer
+     *     entities, the previous max distance to look for all of them, or {@code <0} to stop
+     */
+    float visit(@NonNull Entity entity, float distance);
+  }
+
+  private abstract static class Query {
+
+    abstract boolean overlaps(float @NonNull [] bounds, int offset);
+  }
+
+  private static final class FrustumQuery extends Query {
+
+    private @Nullable Frustum frustum;
+
+    @Override
+    boolean overlaps(float @NonNull [] bounds, int offset) {
+      final var frustum = this.frustum;
+      assert frustum != null;
+      return !isEmpty(bounds, offset)
+          && frustum.intersects(
+              bounds[offset],
+              bounds[offset + 1],
+              bounds[offset + 2],
+              bounds[offset + 3],
+              bounds[offset + 4],
+              bounds[offset + 5]);
+    }
+  }
+
+  private static final class BoxQuery extends Query {
+
+    private @Nullable Aabb box;
+
+    @Override
+    boolean overlaps(float @NonNull [] bounds, int offset) {
+      final var box = this.box;
+      assert box != null;
+      return bounds[offset] <= box.maxX
+          && bounds[offset + 3] >= box.minX
+          && bounds[offset + 1] <= box.maxY
+          && bounds[offset + 4] >= box.minY
+          && bounds[offset + 2] <= box.maxZ
+          && bounds[offset + 5] >= box.minZ;
+    }
+  }
+
+  private static final class SphereQuery extends Query {
+
+    private float x;
+    private float y;
+    private float z;
+    private float radiusSquared;
+
+    @Override
+    boolean overlaps(float @NonNull [] bounds, int offset) {
+      return distanceSquared(bounds, offset, this.x, this.y, this.z)
+          <= this.radiusSquared;
+    }
+  }
+
+  private final class BuildTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int node;
+    private final int from;
+    private final int to;
+
+    private BuildTask(int node, int from, int to) {
+      this.node = node;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      final var bvh = Bvh.this;
+      if (this.to - this.from <= bvh.grainSize) {
+        bvh.buildNode(this.node, this.from, this.to);
+        return;
+      }
+      // each subtree's nodes are at known indices, so both halves can be built at the same time
+      final var mid = bvh.split(this.from, this.to);
+      final var right = this.node + 1 + calculateNodeCount(mid - this.from);
+      bvh.nodeSizes[this.node] = 0;
+      bvh.nodeOffsets[this.node] = right;
+      invokeAll(new BuildTask(this.node + 1, this.from, mid), new BuildTask(right, mid, this.to));
+      bvh.fitInternal(this.node);
+    }
+  }
+}
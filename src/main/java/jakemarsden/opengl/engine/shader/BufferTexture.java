@@ -0,0 +1,98 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.lwjgl.BufferUtils.createIntBuffer;
+import static org.lwjgl.opengl.GL11.GL_NONE;
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+import static org.lwjgl.opengl.GL31.GL_TEXTURE_BUFFER;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A buffer which shader programs read through a {@code samplerBuffer} (or {@code usamplerBuffer},
+ * etc.) uniform, using {@code texelFetch}. Unlike a {@link UniformBuffer} its size is only limited
+ * by {@code GL_MAX_TEXTURE_BUFFER_SIZE}, so it suits large, variable amounts of per-frame data
+ */
+public final class BufferTexture {
+
+  private final @NonNull Gl gl;
+  private final int bufferId;
+  private final int textureId;
+  private final int unit;
+
+  /** Staging space for {@link #upload(int[], int)} */
+  private IntBuffer intData = createIntBuffer(0);
+
+  /**
+   * @param format the internal format of each texel, e.g. {@code GL_RGBA32F} or {@code GL_R32UI}
+   * @param unit one of {@code GL_TEXTURE0}, {@code GL_TEXTURE1}, {@code GL_TEXTURE2}...
+   */
+  public static @NonNull BufferTexture create(int format, int unit) {
+    return BufferTexture.create(LwjglGl.create(), format, unit);
+  }
+
+  /**
+   * @param format the internal format of each texel, e.g. {@code GL_RGBA32F} or {@code GL_R32UI}
+   * @param unit one of {@code GL_TEXTURE0}, {@code GL_TEXTURE1}, {@code GL_TEXTURE2}...
+   */
+  public static @NonNull BufferTexture create(@NonNull Gl gl, int format, int unit) {
+    final var bufferId = gl.genBuffers();
+    gl.bindBuffer(GL_TEXTURE_BUFFER, bufferId);
+    gl.bufferData(GL_TEXTURE_BUFFER, 0, GL_STREAM_DRAW);
+    gl.bindBuffer(GL_TEXTURE_BUFFER, GL_NONE);
+
+    final var textureId = gl.genTextures();
+    gl.activeTexture(unit);
+    gl.bindTexture(GL_TEXTURE_BUFFER, textureId);
+    gl.texBuffer(GL_TEXTURE_BUFFER, format, bufferId);
+    return new BufferTexture(gl, bufferId, textureId, unit);
+  }
+
+  private BufferTexture(@NonNull Gl gl, int bufferId, int textureId, int unit) {
+    this.gl = gl;
+    this.bufferId = bufferId;
+    this.textureId = textureId;
+    this.unit = unit;
+  }
+
+  public int getUnit() {
+    return this.unit;
+  }
+
+  /** Replaces the buffer's contents with the remaining contents of {@code data} */
+  public void upload(@NonNull FloatBuffer data) {
+    this.gl.bindBuffer(GL_TEXTURE_BUFFER, this.bufferId);
+    this.gl.bufferData(GL_TEXTURE_BUFFER, data, GL_STREAM_DRAW);
+    this.gl.bindBuffer(GL_TEXTURE_BUFFER, GL_NONE);
+  }
+
+  /** Replaces the buffer's contents with the first {@code length} elements of {@code data} */
+  public void upload(int @NonNull [] data, int length) {
+    if (this.intData.capacity() < length) this.intData = createIntBuffer(length);
+    this.intData.clear();
+    this.intData.put(data, 0, length).flip();
+
+    this.gl.bindBuffer(GL_TEXTURE_BUFFER, this.bufferId);
+    this.gl.bufferData(GL_TEXTURE_BUFFER, this.intData, GL_STREAM_DRAW);
+    this.gl.bindBuffer(GL_TEXTURE_BUFFER, GL_NONE);
+  }
+
+  /** Binds the texture to its unit, where a shader program can sample it */
+  public void bind() {
+    this.gl.activeTexture(this.unit);
+    this.gl.bindTexture(GL_TEXTURE_BUFFER, this.textureId);
+  }
+
+  public void destroy() {
+    this.gl.deleteTextures(this.textureId);
+    this.gl.deleteBuffers(this.bufferId);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "BufferTexture{unit=" + this.unit + "}";
+  }
+}
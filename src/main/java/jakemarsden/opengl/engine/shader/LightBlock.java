@@ -0,0 +1,134 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.lwjgl.BufferUtils.createByteBuffer;
+
+import jakemarsden.opengl.engine.light.DirectionalLight;
+import jakemarsden.opengl.engine.light.Light;
+import jakemarsden.opengl.engine.light.SpotLight;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.nio.ByteBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The directional light and spotlights in the scene, laid out as a {@code std140} uniform block so
+ * they can be uploaded into a {@link UniformBuffer} in one go, once per frame, rather than as
+ * dozens of individual uniforms per draw. Point lights are too numerous for a uniform block, so
+ * live in a {@link PointLightBuffer} instead. Matches the following GLSL declaration:
+ *
+ * <pre>{@code
+ * layout (std140) uniform Lights {
+ *   DirectionalLight directionalLight;
+ *   SpotLight spotLights[MAX_SPOT_LIGHTS];
+ *   int spotLightCount;
+ * };
+ * }</pre>
+ *
+ * <p>where each light struct has the same members, in the same order, as its Java counterpart
+ */
+public final class LightBlock {
+
+  private static final int VEC3_ALIGN = 16;
+
+  /** {@code direction, ambient, diffuse, specular} */
+  static final int DIRECTIONAL_LIGHT_SIZE = 4 * VEC3_ALIGN;
+  /**
+   * {@code position, direction, aperture, outerAperture, ambient, diffuse, specular}. {@code
+   * aperture} fits into the space left after {@code direction}
+   */
+  static final int SPOT_LIGHT_SIZE = 6 * VEC3_ALIGN;
+
+  static final int DIRECTIONAL_LIGHT_OFFSET = 0;
+  static final int SPOT_LIGHTS_OFFSET = DIRECTIONAL_LIGHT_OFFSET + DIRECTIONAL_LIGHT_SIZE;
+
+  private final int maxSpotLights;
+  private final int countOffset;
+
+  private final @NonNull ByteBuffer data;
+
+  public static @NonNull LightBlock create(int maxSpotLights) {
+    if (maxSpotLights <= 0)
+      throw new IllegalArgumentException("Expected spot lights: >0 but was: " + maxSpotLights);
+    return new LightBlock(maxSpotLights);
+  }
+
+  private LightBlock(int maxSpotLights) {
+    this.maxSpotLights = maxSpotLights;
+    this.countOffset = SPOT_LIGHTS_OFFSET + SPOT_LIGHT_SIZE * maxSpotLights;
+
+    // the size of a uniform block is rounded up to a multiple of a vec4
+    final var size = this.countOffset + Integer.BYTES;
+    this.data = createByteBuffer((size + VEC3_ALIGN - 1) / VEC3_ALIGN * VEC3_ALIGN);
+  }
+
+  public int getMaxSpotLights() {
+    return this.maxSpotLights;
+  }
+
+  /** @return this block's size, in bytes */
+  public int size() {
+    return this.data.capacity();
+  }
+
+  /** @return the block's current contents, ready to be uploaded */
+  public @NonNull ByteBuffer getData() {
+    return this.data.clear();
+  }
+
+  /**
+   * Replaces every light in the block
+   *
+   * @throws IllegalArgumentException if there are more lights than the block has room for
+   */
+  public void set(
+      @NonNull DirectionalLight directionalLight, @NonNull SpotLight @NonNull [] spotLights) {
+
+    if (spotLights.length > this.maxSpotLights)
+      throw new IllegalArgumentException(
+          "Expected spot lights: <=" + this.maxSpotLights + " but was: " + spotLights.length);
+
+    this.putDirectionalLight(DIRECTIONAL_LIGHT_OFFSET, directionalLight);
+    for (var idx = 0; idx < spotLights.length; idx++) {
+      this.putSpotLight(SPOT_LIGHTS_OFFSET + SPOT_LIGHT_SIZE * idx, spotLights[idx]);
+    }
+    this.data.putInt(this.countOffset, spotLights.length);
+  }
+
+  private void putDirectionalLight(int offset, @NonNull DirectionalLight light) {
+    this.putVec3(offset, light.getDirection());
+    this.putLight(offset + VEC3_ALIGN, light);
+  }
+
+  private void putSpotLight(int offset, @NonNull SpotLight light) {
+    this.putVec3(offset, light.getPosition());
+    this.putVec3(offset + VEC3_ALIGN, light.getDirection());
+    this.data.putFloat(offset + VEC3_ALIGN + 3 * Float.BYTES, light.getAperture());
+    this.data.putFloat(offset + 2 * VEC3_ALIGN, light.getOuterAperture());
+    this.putLight(offset + 3 * VEC3_ALIGN, light);
+  }
+
+  private void putLight(int offset, @NonNull Light light) {
+    this.putVec3(offset, light.getAmbient());
+    this.putVec3(offset + VEC3_ALIGN, light.getDiffuse());
+    this.putVec3(offset + 2 * VEC3_ALIGN, light.getSpecular());
+  }
+
+  private void putVec3(int offset, @NonNull Vector3 value) {
+    this.putVec3(offset, value.x, value.y, value.z);
+  }
+
+  private void putVec3(int offset, @NonNull Color3 value) {
+    this.putVec3(offset, value.r, value.g, value.b);
+  }
+
+  private void putVec3(int offset, float x, float y, float z) {
+    this.data.putFloat(offset, x);
+    this.data.putFloat(offset + Float.BYTES, y);
+    this.data.putFloat(offset + 2 * Float.BYTES, z);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "LightBlock{maxSpotLights=" + this.maxSpotLights + "}";
+  }
+}
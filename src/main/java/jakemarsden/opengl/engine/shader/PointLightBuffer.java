@@ -0,0 +1,109 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.lwjgl.BufferUtils.createFloatBuffer;
+
+import jakemarsden.opengl.engine.light.Attenuation;
+import jakemarsden.opengl.engine.light.PointLight;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.nio.FloatBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Every point light in the scene, packed for uploading into an {@code RGBA32F} {@link
+ * BufferTexture}. There can be far more of them than fit in a uniform block, and the shader only
+ * reads the few it needs for each fragment. Each light is {@value #TEXELS_PER_LIGHT} texels:
+ *
+ * <pre>{@code
+ * position.xyz, -
+ * attenuation.klq, range
+ * ambient.rgb, -
+ * diffuse.rgb, -
+ * specular.rgb, -
+ * }</pre>
+ */
+public final class PointLightBuffer {
+
+  public static final int TEXELS_PER_LIGHT = 5;
+  private static final int TEXEL_SIZE = 4;
+  private static final int LIGHT_SIZE = TEXELS_PER_LIGHT * TEXEL_SIZE;
+
+  private final int maxLights;
+  private final @NonNull FloatBuffer data;
+  private int size = 0;
+
+  public static @NonNull PointLightBuffer create(int maxLights) {
+    if (maxLights <= 0)
+      throw new IllegalArgumentException("Expected point lights: >0 but was: " + maxLights);
+    return new PointLightBuffer(maxLights);
+  }
+
+  private PointLightBuffer(int maxLights) {
+    this.maxLights = maxLights;
+    this.data = createFloatBuffer(LIGHT_SIZE * maxLights);
+  }
+
+  public int getMaxLights() {
+    return this.maxLights;
+  }
+
+  /** @return how many lights are currently in the buffer */
+  public int size() {
+    return this.size;
+  }
+
+  /** @return the buffer's current contents, ready to be uploaded */
+  public @NonNull FloatBuffer getData() {
+    return this.data.clear().limit(LIGHT_SIZE * this.size);
+  }
+
+  /**
+   * Replaces every light in the buffer with the first {@code count} elements of {@code lights}.
+   * Light {@code i} is stored at index {@code i}
+   *
+   * @throws IllegalArgumentException if there are more lights than the buffer has room for
+   */
+  public void set(@Nullable PointLight @NonNull [] lights, int count) {
+    if (count > this.maxLights)
+      throw new IllegalArgumentException(
+          "Expected point lights: <=" + this.maxLights + " but was: " + count);
+
+    for (var idx = 0; idx < count; idx++) {
+      final var light = lights[idx];
+      if (light == null) throw new IllegalArgumentException("Null point light at: " + idx);
+
+      final var offset = LIGHT_SIZE * idx;
+      this.putTexel(offset, light.getPosition());
+      this.putTexel(offset + TEXEL_SIZE, light.getAttenuation());
+      this.data.put(offset + TEXEL_SIZE + 3, light.getRange());
+      this.putTexel(offset + 2 * TEXEL_SIZE, light.getAmbient());
+      this.putTexel(offset + 3 * TEXEL_SIZE, light.getDiffuse());
+      this.putTexel(offset + 4 * TEXEL_SIZE, light.getSpecular());
+    }
+    this.size = count;
+  }
+
+  private void putTexel(int offset, @NonNull Vector3 value) {
+    this.putTexel(offset, value.x, value.y, value.z);
+  }
+
+  private void putTexel(int offset, @NonNull Color3 value) {
+    this.putTexel(offset, value.r, value.g, value.b);
+  }
+
+  private void putTexel(int offset, @NonNull Attenuation value) {
+    this.putTexel(offset, value.k, value.l, value.q);
+  }
+
+  private void putTexel(int offset, float x, float y, float z) {
+    this.data.put(offset, x);
+    this.data.put(offset + 1, y);
+    this.data.put(offset + 2, z);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "PointLightBuffer{size=" + this.size + "}";
+  }
+}
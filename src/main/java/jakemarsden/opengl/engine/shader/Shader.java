@@ -1,28 +1,63 @@
 package jakemarsden.opengl.engine.shader;
 
 import jakemarsden.opengl.engine.light.DirectionalLight;
+import jakemarsden.opengl.engine.light.LightClusterGrid;
 import jakemarsden.opengl.engine.light.PointLight;
 import jakemarsden.opengl.engine.light.SpotLight;
 import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
 import jakemarsden.opengl.engine.math.Vector3;
 import jakemarsden.opengl.engine.res.material.Material;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+/**
+ * Uniforms which apply to a whole frame (the camera and the lights) can be set before the shader's
+ * {@link #start() started}, e.g. before handing it to a {@link
+ * jakemarsden.opengl.engine.render.RenderQueue}, and are uploaded when it next is. Everything else
+ * expects it to already be started
+ */
 public interface Shader {
 
-  byte getMaxSupportedPointLights();
-
   void setCameraPosition(@NonNull Vector3 pos);
 
   void setCameraTransform(@NonNull Matrix4 camera);
 
+  /** Also calculates the matching normal transform */
   void setModelTransform(@NonNull Matrix4 model);
 
-  void setDirectionalLight(@NonNull DirectionalLight light);
+  /** Also calculates the matching normal transform */
+  void setModelTransform(@NonNull MutableMatrix4 model);
+
+  /**
+   * @param normal the inverse-transpose of {@code model}, when it's already known. Only its
+   *     upper-left 3x3 is used
+   */
+  void setModelTransform(@NonNull MutableMatrix4 model, @NonNull MutableMatrix4 normal);
+
+  /**
+   * When {@code true}, each instance's model transform is read from its per-instance vertex
+   * attributes instead of the value set by {@link #setModelTransform}
+   */
+  void setInstanced(boolean instanced);
 
-  void setPointLights(@NonNull PointLight @NonNull [] lights);
+  /**
+   * Uploads every light in the scene in one go. They're shared by every draw until the next call,
+   * so this only needs to be called once per frame. Only the first {@code pointLightCount} elements
+   * of {@code pointLights} are used
+   */
+  void setLights(
+      @NonNull DirectionalLight directionalLight,
+      @Nullable PointLight @NonNull [] pointLights,
+      int pointLightCount,
+      @NonNull SpotLight @NonNull [] spotLights);
 
-  void setSpotLights(@NonNull SpotLight @NonNull [] lights);
+  /**
+   * Uploads which point lights affect each cluster of the view frustum, so each fragment only
+   * considers the lights which can reach it. {@code clusters} must have been binned from the same
+   * point lights, in the same order, as were last passed to {@link #setLights}
+   */
+  void setLightClusters(@NonNull LightClusterGrid clusters);
 
   void setMaterial(@NonNull Material mat);
 
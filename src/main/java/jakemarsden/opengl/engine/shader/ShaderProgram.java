@@ -3,7 +3,9 @@ package jakemarsden.opengl.engine.shader;
 import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
 import static org.lwjgl.opengl.GL11.GL_NONE;
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
 
+import jakemarsden.opengl.engine.gl.Gl;
 import jakemarsden.opengl.engine.light.Attenuation;
 import jakemarsden.opengl.engine.math.*;
 import java.util.HashMap;
@@ -13,62 +15,146 @@ import org.fissore.slf4j.FluentLogger;
 
 public final class ShaderProgram {
 
-  private final Map<String, Integer> uniformLocationCache = new HashMap<>();
+  /** Every uniform which has been looked up, so each one's location is only looked up once */
+  private final Map<String, Uniform> uniforms = new HashMap<>();
+  /** Reused for uploading matrices, to avoid allocating a copy of each one */
+  private final float[] mat3Buf = new float[3 * 3];
+  private final float[] mat4Buf = new float[4 * 4];
 
   private final FluentLogger LOGGER;
+  private final @NonNull Gl gl;
   private final int id;
 
-  ShaderProgram(int id, @NonNull String name) {
+  ShaderProgram(@NonNull Gl gl, int id, @NonNull String name) {
     this.LOGGER = getLogger(name);
+    this.gl = gl;
     this.id = id;
   }
 
   public void start() {
-    glUseProgram(this.id);
+    this.gl.useProgram(this.id);
   }
 
   public void stop() {
-    glUseProgram(GL_NONE);
+    this.gl.useProgram(GL_NONE);
   }
 
   public void setUniformBool(@NonNull String name, boolean value) {
-    this.setUniformInt(name, value ? GL_TRUE : GL_FALSE);
+    this.setUniformBool(this.getUniform(name), value);
+  }
+
+  public void setUniformBool(@NonNull Uniform uniform, boolean value) {
+    this.setUniformInt(uniform, value ? GL_TRUE : GL_FALSE);
   }
 
   public void setUniformInt(@NonNull String name, int value) {
-    glUniform1i(this.findUniform(name), value);
+    this.setUniformInt(this.getUniform(name), value);
+  }
+
+  public void setUniformInt(@NonNull Uniform uniform, int value) {
+    final var location = this.locationOf(uniform);
+    if (uniform.update(value)) this.gl.uniform1i(location, value);
+  }
+
+  /** Sets every element of an {@code int[]} uniform, starting from the first */
+  public void setUniformInts(@NonNull String name, int @NonNull [] values) {
+    this.setUniformInts(this.getUniform(name), values);
+  }
+
+  /** Sets every element of an {@code int[]} uniform, starting from the first. Always uploaded */
+  public void setUniformInts(@NonNull Uniform uniform, int @NonNull [] values) {
+    final var location = this.locationOf(uniform);
+    uniform.forget();
+    this.gl.uniform1iv(location, values);
   }
 
   public void setUniformFloat(@NonNull String name, float value) {
-    glUniform1f(this.findUniform(name), value);
+    this.setUniformFloat(this.getUniform(name), value);
+  }
+
+  public void setUniformFloat(@NonNull Uniform uniform, float value) {
+    final var location = this.locationOf(uniform);
+    if (uniform.update(value)) this.gl.uniform1f(location, value);
   }
 
   public void setUniformVec2(@NonNull String name, @NonNull Vector2 value) {
-    glUniform2f(this.findUniform(name), value.x, value.y);
+    this.setUniformVec2(this.getUniform(name), value);
+  }
+
+  public void setUniformVec2(@NonNull Uniform uniform, @NonNull Vector2 value) {
+    this.setUniform2f(uniform, value.x, value.y);
   }
 
   public void setUniformVec3(@NonNull String name, @NonNull Vector3 value) {
-    glUniform3f(this.findUniform(name), value.x, value.y, value.z);
+    this.setUniformVec3(this.getUniform(name), value);
+  }
+
+  public void setUniformVec3(@NonNull Uniform uniform, @NonNull Vector3 value) {
+    this.setUniform3f(uniform, value.x, value.y, value.z);
   }
 
   public void setUniformVec3(@NonNull String name, @NonNull Color3 value) {
-    glUniform3f(this.findUniform(name), value.r, value.g, value.b);
+    this.setUniformVec3(this.getUniform(name), value);
+  }
+
+  public void setUniformVec3(@NonNull Uniform uniform, @NonNull Color3 value) {
+    this.setUniform3f(uniform, value.r, value.g, value.b);
   }
 
   public void setUniformVec3(@NonNull String name, @NonNull Attenuation value) {
-    glUniform3f(this.findUniform(name), value.k, value.l, value.q);
+    this.setUniformVec3(this.getUniform(name), value);
+  }
+
+  public void setUniformVec3(@NonNull Uniform uniform, @NonNull Attenuation value) {
+    this.setUniform3f(uniform, value.k, value.l, value.q);
   }
 
   public void setUniformVec4(@NonNull String name, @NonNull Vector4 value) {
-    glUniform4f(this.findUniform(name), value.x, value.y, value.z, value.w);
+    this.setUniformVec4(this.getUniform(name), value);
+  }
+
+  public void setUniformVec4(@NonNull Uniform uniform, @NonNull Vector4 value) {
+    this.setUniform4f(uniform, value.x, value.y, value.z, value.w);
   }
 
   public void setUniformVec4(@NonNull String name, @NonNull Color4 value) {
-    glUniform4f(this.findUniform(name), value.r, value.g, value.b, value.a);
+    this.setUniformVec4(this.getUniform(name), value);
+  }
+
+  public void setUniformVec4(@NonNull Uniform uniform, @NonNull Color4 value) {
+    this.setUniform4f(uniform, value.r, value.g, value.b, value.a);
+  }
+
+  /** Uploads the upper-left 3x3 of {@code value} */
+  public void setUniformMat3(@NonNull String name, @NonNull MutableMatrix4 value) {
+    this.setUniformMat3(this.getUniform(name), value);
+  }
+
+  /** Uploads the upper-left 3x3 of {@code value} */
+  public void setUniformMat3(@NonNull Uniform uniform, @NonNull MutableMatrix4 value) {
+    final var location = this.locationOf(uniform);
+    value.toMat3Array(this.mat3Buf, 0);
+    if (uniform.update(this.mat3Buf)) this.gl.uniformMatrix3fv(location, true, this.mat3Buf);
   }
 
   public void setUniformMat4(@NonNull String name, @NonNull Matrix4 value) {
-    glUniformMatrix4fv(this.findUniform(name), true, value.toArray());
+    this.setUniformMat4(this.getUniform(name), value);
+  }
+
+  public void setUniformMat4(@NonNull Uniform uniform, @NonNull Matrix4 value) {
+    final var location = this.locationOf(uniform);
+    value.toArray(this.mat4Buf);
+    if (uniform.update(this.mat4Buf)) this.gl.uniformMatrix4fv(location, true, this.mat4Buf);
+  }
+
+  public void setUniformMat4(@NonNull String name, @NonNull MutableMatrix4 value) {
+    this.setUniformMat4(this.getUniform(name), value);
+  }
+
+  public void setUniformMat4(@NonNull Uniform uniform, @NonNull MutableMatrix4 value) {
+    final var location = this.locationOf(uniform);
+    value.toArray(this.mat4Buf);
+    if (uniform.update(this.mat4Buf)) this.gl.uniformMatrix4fv(location, true, this.mat4Buf);
   }
 
   /** @param value one of {@code GL_TEXTURE0}, {@code GL_TEXTURE1}, {@code GL_TEXTURE2}... */
@@ -76,18 +162,64 @@ public final class ShaderProgram {
     this.setUniformInt(name, value - GL_TEXTURE0);
   }
 
+  /** @param value one of {@code GL_TEXTURE0}, {@code GL_TEXTURE1}, {@code GL_TEXTURE2}... */
+  public void setUniformTexture(@NonNull Uniform uniform, int value) {
+    this.setUniformInt(uniform, value - GL_TEXTURE0);
+  }
+
+  /**
+   * Looks up the location of the uniform called {@code name}, the first time it's asked for.
+   * Intended to be called just after the program's loaded, with the result kept for setting the
+   * uniform by handle from then on. Every handle to the same uniform is the same object, so it
+   * remembers the value last uploaded to it whichever way it was set
+   */
+  public @NonNull Uniform getUniform(@NonNull String name) {
+    return this.uniforms.computeIfAbsent(
+        name, it -> new Uniform(this.id, this.calculateUniformLocation(it), it));
+  }
+
+  /**
+   * Tells this program to read the uniform block called {@code blockName} from whichever {@link
+   * UniformBuffer} is bound to {@code binding}
+   */
+  public void bindUniformBlock(@NonNull String blockName, int binding) {
+    final var idx = this.gl.getUniformBlockIndex(this.id, blockName);
+    if (idx == GL_INVALID_INDEX) {
+      LOGGER.warn().log("No such uniform block: " + blockName);
+      return;
+    }
+    this.gl.uniformBlockBinding(this.id, idx, binding);
+  }
+
   public void destroy() {
-    ShaderProgramLoader.destroy(this.id);
-    this.uniformLocationCache.clear();
+    this.gl.deleteProgram(this.id);
+    this.uniforms.clear();
+  }
+
+  private void setUniform2f(@NonNull Uniform uniform, float x, float y) {
+    final var location = this.locationOf(uniform);
+    if (uniform.update(x, y)) this.gl.uniform2f(location, x, y);
+  }
+
+  private void setUniform3f(@NonNull Uniform uniform, float x, float y, float z) {
+    final var location = this.locationOf(uniform);
+    if (uniform.update(x, y, z)) this.gl.uniform3f(location, x, y, z);
+  }
+
+  private void setUniform4f(@NonNull Uniform uniform, float x, float y, float z, float w) {
+    final var location = this.locationOf(uniform);
+    if (uniform.update(x, y, z, w)) this.gl.uniform4f(location, x, y, z, w);
   }
 
-  private int findUniform(@NonNull String name) {
-    return this.uniformLocationCache.computeIfAbsent(name, this::calculateUniformLocation);
+  private int locationOf(@NonNull Uniform uniform) {
+    if (uniform.program != this.id)
+      throw new IllegalArgumentException("Uniform belongs to a different program: " + uniform);
+    return uniform.location;
   }
 
   private int calculateUniformLocation(@NonNull String name) {
-    final int loc = glGetUniformLocation(this.id, name);
-    if (loc == -1) LOGGER.warn().log("No such uniform: " + name);
+    final int loc = this.gl.getUniformLocation(this.id, name);
+    if (loc == Uniform.NO_LOCATION) LOGGER.warn().log("No such uniform: " + name);
     return loc;
   }
 }
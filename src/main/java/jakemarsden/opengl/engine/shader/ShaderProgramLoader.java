@@ -3,6 +3,8 @@ package jakemarsden.opengl.engine.shader;
 import static org.fissore.slf4j.FluentLoggerFactory.getLogger;
 import static org.lwjgl.opengl.GL20.*;
 
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -14,60 +16,62 @@ public final class ShaderProgramLoader {
 
   public static @NonNull ShaderProgram load(@NonNull String name, @NonNull Class<?> clazz)
       throws IOException {
+    return ShaderProgramLoader.load(LwjglGl.create(), name, clazz);
+  }
+
+  public static @NonNull ShaderProgram load(
+      @NonNull Gl gl, @NonNull String name, @NonNull Class<?> clazz) throws IOException {
 
-    final var vertId = compile(GL_VERTEX_SHADER, name + ".vert.glsl", clazz);
-    final var fragId = compile(GL_FRAGMENT_SHADER, name + ".frag.glsl", clazz);
+    final var vertId = compile(gl, GL_VERTEX_SHADER, name + ".vert.glsl", clazz);
+    final var fragId = compile(gl, GL_FRAGMENT_SHADER, name + ".frag.glsl", clazz);
 
     final var prettyName = clazz.getPackageName() + "." + name;
     final int id;
     try {
-      id = link(vertId, fragId, prettyName);
+      id = link(gl, vertId, fragId, prettyName);
     } finally {
-      glDeleteShader(vertId);
-      glDeleteShader(fragId);
+      gl.deleteShader(vertId);
+      gl.deleteShader(fragId);
     }
-    return new ShaderProgram(id, prettyName);
-  }
-
-  static void destroy(int id) {
-    glDeleteProgram(id);
+    return new ShaderProgram(gl, id, prettyName);
   }
 
-  private static int link(int vertId, int fragId, @NonNull String prettyName) throws IOException {
-    final var id = glCreateProgram();
-    glAttachShader(id, vertId);
-    glAttachShader(id, fragId);
+  private static int link(@NonNull Gl gl, int vertId, int fragId, @NonNull String prettyName)
+      throws IOException {
+    final var id = gl.createProgram();
+    gl.attachShader(id, vertId);
+    gl.attachShader(id, fragId);
 
-    glLinkProgram(id);
-    if (glGetProgrami(id, GL_LINK_STATUS) != GL_TRUE) {
-      LOGGER.error().log(() -> glGetProgramInfoLog(id));
+    gl.linkProgram(id);
+    if (gl.getProgrami(id, GL_LINK_STATUS) != GL_TRUE) {
+      LOGGER.error().log(() -> gl.getProgramInfoLog(id));
       throw new IOException("Shader linking failed: " + prettyName);
     }
-    LOGGER.trace().log(() -> glGetProgramInfoLog(id));
+    LOGGER.trace().log(() -> gl.getProgramInfoLog(id));
 
-    glValidateProgram(id);
-    if (glGetProgrami(id, GL_VALIDATE_STATUS) != GL_TRUE) {
-      LOGGER.error().log(() -> glGetProgramInfoLog(id));
+    gl.validateProgram(id);
+    if (gl.getProgrami(id, GL_VALIDATE_STATUS) != GL_TRUE) {
+      LOGGER.error().log(() -> gl.getProgramInfoLog(id));
       throw new IOException("Shader validation failed: " + prettyName);
     }
-    LOGGER.trace().log(() -> glGetProgramInfoLog(id));
+    LOGGER.trace().log(() -> gl.getProgramInfoLog(id));
 
     return id;
   }
 
-  private static int compile(int type, @NonNull String name, @NonNull Class<?> clazz)
-      throws IOException {
+  private static int compile(
+      @NonNull Gl gl, int type, @NonNull String name, @NonNull Class<?> clazz) throws IOException {
     final var src = readFromClasspath(name, clazz);
-    final var id = glCreateShader(type);
-    glShaderSource(id, src);
+    final var id = gl.createShader(type);
+    gl.shaderSource(id, src);
 
-    glCompileShader(id);
-    if (glGetShaderi(id, GL_COMPILE_STATUS) != GL_TRUE) {
-      LOGGER.error().log(() -> glGetShaderInfoLog(id));
-      glDeleteShader(id);
+    gl.compileShader(id);
+    if (gl.getShaderi(id, GL_COMPILE_STATUS) != GL_TRUE) {
+      LOGGER.error().log(() -> gl.getShaderInfoLog(id));
+      gl.deleteShader(id);
       throw new IOException("Shader compilation failed: " + clazz.getPackageName() + "/" + name);
     }
-    LOGGER.trace().log(() -> glGetShaderInfoLog(id));
+    LOGGER.trace().log(() -> gl.getShaderInfoLog(id));
 
     return id;
   }
@@ -0,0 +1,116 @@
+package jakemarsden.opengl.engine.shader;
+
+import static java.lang.Float.floatToRawIntBits;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A handle to one uniform of a {@link ShaderProgram}, resolved once up front by {@link
+ * ShaderProgram#getUniform(String)} so that setting it doesn't need to look its location up by name
+ * every time.
+ *
+ * <p>It also remembers the last value uploaded to it, bit for bit, so setting it to the value it
+ * already has can skip the upload. A program keeps its uniforms' values while it's not in use, so
+ * this holds however often it's started and stopped
+ */
+public final class Uniform {
+
+  /** Location of a uniform which doesn't exist (or was optimised out), which GL silently ignores */
+  static final int NO_LOCATION = -1;
+
+  final int program;
+  final int location;
+  private final @NonNull String name;
+
+  /** The bits of each component of the last value uploaded */
+  private final int @NonNull [] value = new int[4 * 4];
+  /** The number of components in {@link #value}, or {@code 0} if it's unknown */
+  private int valueLength = 0;
+
+  Uniform(int program, int location, @NonNull String name) {
+    this.program = program;
+    this.location = location;
+    this.name = name;
+  }
+
+  public @NonNull String getName() {
+    return this.name;
+  }
+
+  /** @return {@code false} if the program has no such uniform, so setting it does nothing */
+  public boolean exists() {
+    return this.location != NO_LOCATION;
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(int x) {
+    if (this.valueLength == 1 && this.value[0] == x) return false;
+    this.value[0] = x;
+    this.valueLength = 1;
+    return true;
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(float x) {
+    return this.update(floatToRawIntBits(x));
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(float x, float y) {
+    return this.update(2, x, y, 0, 0);
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(float x, float y, float z) {
+    return this.update(3, x, y, z, 0);
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(float x, float y, float z, float w) {
+    return this.update(4, x, y, z, w);
+  }
+
+  /** @return {@code false} if it already has this value, so it doesn't need uploading again */
+  boolean update(float @NonNull [] values) {
+    final var length = values.length;
+    var changed = this.valueLength != length;
+    for (var idx = 0; idx < length; idx++) {
+      final var bits = floatToRawIntBits(values[idx]);
+      if (this.value[idx] != bits) {
+        this.value[idx] = bits;
+        changed = true;
+      }
+    }
+    this.valueLength = length;
+    return changed;
+  }
+
+  /** Forgets its last value, e.g. because it was set some way which isn't remembered */
+  void forget() {
+    this.valueLength = 0;
+  }
+
+  private boolean update(int length, float x, float y, float z, float w) {
+    final var value = this.value;
+    final var xBits = floatToRawIntBits(x);
+    final var yBits = floatToRawIntBits(y);
+    final var zBits = floatToRawIntBits(z);
+    final var wBits = floatToRawIntBits(w);
+    if (this.valueLength == length
+        && value[0] == xBits
+        && value[1] == yBits
+        && value[2] == zBits
+        && value[3] == wBits) return false;
+    value[0] = xBits;
+    value[1] = yBits;
+    value[2] = zBits;
+    value[3] = wBits;
+    this.valueLength = length;
+    return true;
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "Uniform{" + this.name + "@" + this.location + "}";
+  }
+}
@@ -0,0 +1,69 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.lwjgl.opengl.GL11.GL_NONE;
+import static org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.LwjglGl;
+import java.nio.ByteBuffer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A buffer holding the contents of a uniform block, bound to a fixed binding point which shader
+ * programs can then {@link ShaderProgram#bindUniformBlock(String, int) read it from}. One buffer
+ * can be shared by every program which declares the same block
+ */
+public final class UniformBuffer {
+
+  private final @NonNull Gl gl;
+  private final int id;
+  private final int binding;
+  private final int size;
+
+  /** @param size in bytes */
+  public static @NonNull UniformBuffer create(int size, int binding) {
+    return UniformBuffer.create(LwjglGl.create(), size, binding);
+  }
+
+  /** @param size in bytes */
+  public static @NonNull UniformBuffer create(@NonNull Gl gl, int size, int binding) {
+    final var id = gl.genBuffers();
+    gl.bindBuffer(GL_UNIFORM_BUFFER, id);
+    gl.bufferData(GL_UNIFORM_BUFFER, size, GL_DYNAMIC_DRAW);
+    gl.bindBuffer(GL_UNIFORM_BUFFER, GL_NONE);
+    gl.bindBufferBase(GL_UNIFORM_BUFFER, binding, id);
+    return new UniformBuffer(gl, id, binding, size);
+  }
+
+  private UniformBuffer(@NonNull Gl gl, int id, int binding, int size) {
+    this.gl = gl;
+    this.id = id;
+    this.binding = binding;
+    this.size = size;
+  }
+
+  public int getBinding() {
+    return this.binding;
+  }
+
+  /** Replaces the buffer's contents with the remaining contents of {@code data} */
+  public void upload(@NonNull ByteBuffer data) {
+    if (data.remaining() > this.size)
+      throw new IllegalArgumentException(
+          "Expected size: <=" + this.size + " but was: " + data.remaining());
+
+    this.gl.bindBuffer(GL_UNIFORM_BUFFER, this.id);
+    this.gl.bufferSubData(GL_UNIFORM_BUFFER, 0, data);
+    this.gl.bindBuffer(GL_UNIFORM_BUFFER, GL_NONE);
+  }
+
+  public void destroy() {
+    this.gl.deleteBuffers(this.id);
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return "UniformBuffer{binding=" + this.binding + ", size=" + this.size + "}";
+  }
+}
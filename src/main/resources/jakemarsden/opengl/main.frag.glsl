@@ -1,10 +1,12 @@
 # version 330 core
 
 /**
- * Maximum number of point lights allowed in one frame. Must match the shader class' corresponding
- * constant
+ * Number of light clusters across, up and into the screen. Must match the shader class'
+ * corresponding constants
  */
-# define MAX_POINT_LIGHTS 4
+# define CLUSTER_TILES_X 16
+# define CLUSTER_TILES_Y 9
+# define CLUSTER_SLICES 24
 /**
  * Maximum number of spotlights allowed in one frame. Must match the shader class' corresponding
  * constant
@@ -21,6 +23,8 @@ struct DirectionalLight {
 struct PointLight {
   vec3 position;
   vec3 attenuation;
+  /** Must match `PointLight.getRange()`, which it's binned into clusters by */
+  float range;
   vec3 ambient;
   vec3 diffuse;
   vec3 specular;
@@ -47,21 +51,63 @@ struct Material {
 in vec3 Position;
 in vec3 Normal;
 in vec2 TexCoord;
+in vec4 ClipPosition;
 
 out vec4 FragColor;
 
 uniform vec3 cameraPosition;
 uniform Material material;
-uniform DirectionalLight directionalLight;
-uniform PointLight[MAX_POINT_LIGHTS] pointLights;
-uniform SpotLight[MAX_SPOT_LIGHTS] spotLights;
+/** Uploaded once per frame. Must match `LightBlock`'s layout */
+layout (std140) uniform Lights {
+  DirectionalLight directionalLight;
+  SpotLight spotLights[MAX_SPOT_LIGHTS];
+  int spotLightCount;
+};
+/** Every point light in the scene, 5 texels each. Must match `PointLightBuffer`'s layout */
+uniform samplerBuffer pointLights;
+/** `(offset, count)` of each cluster's lights within `lightIndices` */
+uniform usamplerBuffer lightClusters;
+/** Indices into `pointLights`, grouped by cluster */
+uniform usamplerBuffer lightIndices;
+/** Depth range covered by the clusters */
+uniform float clusterNearZ;
+uniform float clusterFarZ;
 
 float clampedDot(vec3 a, vec3 b) {
   return max(dot(a, b), 0.0);
 }
 
-float calcLightIntensity(vec3 attn, float distance) {
-  return 1 / (attn.x + attn.y * distance + attn.z * pow(distance, 2));
+PointLight fetchPointLight(int idx) {
+  int texel = 5 * idx;
+  PointLight light;
+  light.position = texelFetch(pointLights, texel).xyz;
+  vec4 attenuation = texelFetch(pointLights, texel + 1);
+  light.attenuation = attenuation.xyz;
+  light.range = attenuation.w;
+  light.ambient = texelFetch(pointLights, texel + 2).xyz;
+  light.diffuse = texelFetch(pointLights, texel + 3).xyz;
+  light.specular = texelFetch(pointLights, texel + 4).xyz;
+  return light;
+}
+
+/** Must match `LightClusterGrid`'s binning */
+int findCluster() {
+  vec2 ndc = ClipPosition.xy / ClipPosition.w;
+  // for a perspective projection, w is the fragment's distance in front of the camera
+  float depth = ClipPosition.w;
+
+  ivec2 tile = ivec2(floor((ndc + 1) / 2 * vec2(CLUSTER_TILES_X, CLUSTER_TILES_Y)));
+  tile = clamp(tile, ivec2(0), ivec2(CLUSTER_TILES_X - 1, CLUSTER_TILES_Y - 1));
+  float sliceScale = CLUSTER_SLICES / log(clusterFarZ / clusterNearZ);
+  int slice = int(floor(log(depth / clusterNearZ) * sliceScale));
+  slice = clamp(slice, 0, CLUSTER_SLICES - 1);
+  return tile.x + CLUSTER_TILES_X * (tile.y + CLUSTER_TILES_Y * slice);
+}
+
+/** Faded out to nothing at `range`, so lights don't stop at the edge of the clusters they reach */
+float calcLightIntensity(vec3 attn, float range, float distance) {
+  float window = clamp(1 - pow(distance / range, 4), 0, 1);
+  return window * window / (attn.x + attn.y * distance + attn.z * pow(distance, 2));
 }
 
 vec3 calcDirectionalLight(vec3 cameraDir, vec3 matAmb, vec3 matDiff, vec3 matSpec, float matShiny) {
@@ -77,14 +123,19 @@ vec3 calcDirectionalLight(vec3 cameraDir, vec3 matAmb, vec3 matDiff, vec3 matSpe
 }
 
 vec3 calcPointLight(vec3 cameraDir, vec3 matAmb, vec3 matDiff, vec3 matSpec, float matShiny) {
+  // only the lights which can reach this fragment's cluster
+  uvec2 cluster = texelFetch(lightClusters, findCluster()).xy;
+  int offset = int(cluster.x);
+  int count = int(cluster.y);
+
   vec3 total;
-  for (int i = 0; i < MAX_POINT_LIGHTS; i++) {
-    PointLight light = pointLights[i];
+  for (int i = 0; i < count; i++) {
+    PointLight light = fetchPointLight(int(texelFetch(lightIndices, offset + i).x));
 
     vec3 lightDir = normalize(light.position - Position);
     vec3 reflectionDir = reflect(-lightDir, Normal);
     float lightDist = length(light.position - Position);
-    float lightIntensity = calcLightIntensity(light.attenuation, lightDist);
+    float lightIntensity = calcLightIntensity(light.attenuation, light.range, lightDist);
 
     vec3 amb = matAmb * light.ambient;
     vec3 diff = matDiff * light.diffuse * clampedDot(Normal, lightDir);
@@ -96,7 +147,7 @@ vec3 calcPointLight(vec3 cameraDir, vec3 matAmb, vec3 matDiff, vec3 matSpec, flo
 
 vec3 calcSpotLight(vec3 cameraDir, vec3 matAmb, vec3 matDiff, vec3 matSpec, float matShiny) {
   vec3 total;
-  for (int i = 0; i < MAX_SPOT_LIGHTS; i++) {
+  for (int i = 0; i < spotLightCount; i++) {
     SpotLight light = spotLights[i];
 
     vec3 lightDir = normalize(light.position - Position);
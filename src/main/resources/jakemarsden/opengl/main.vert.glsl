@@ -3,20 +3,31 @@
 layout (location = 0) in vec3 position;
 layout (location = 1) in vec3 normal;
 layout (location = 2) in vec2 texCoord;
+layout (location = 3) in mat4 instanceTransform;
+/** The inverse-transpose of the instance transform, calculated once per entity on the CPU */
+layout (location = 7) in mat3 instanceNormalTransform;
 
 out vec3 Position;
 out vec3 Normal;
 out vec2 TexCoord;
+/** Used for finding which light cluster each fragment is in */
+out vec4 ClipPosition;
 
 uniform mat4 cameraTransform;
 uniform mat4 modelTransform;
-uniform mat4 invModelTransform;
+uniform mat3 normalTransform;
+/** Whether to use the per-instance transform attribute, rather than the model transform uniforms */
+uniform bool instanced;
 
 void main() {
-  vec4 worldPosition = modelTransform * vec4(position, 1.0);
-  vec3 worldNormal = normalize(mat3(invModelTransform) * normal);
+  mat4 model = instanced ? instanceTransform : modelTransform;
+  mat3 normalModel = instanced ? instanceNormalTransform : normalTransform;
+
+  vec4 worldPosition = model * vec4(position, 1.0);
+  vec3 worldNormal = normalize(normalModel * normal);
 
   gl_Position = cameraTransform * worldPosition;
+  ClipPosition = gl_Position;
 
   Position = worldPosition.xyz;
   Normal = worldNormal;
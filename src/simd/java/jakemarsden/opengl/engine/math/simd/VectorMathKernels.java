@@ -0,0 +1,139 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import static jakemarsden.opengl.engine.math.simd.ScalarMathKernels.checkCount;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * {@link MathKernels} using the incubating Vector API, with one row or column of a matrix in each
+ * 4-lane vector. Only loaded by {@link MathKernelsLoader} once it knows the API is available
+ */
+final class VectorMathKernels implements MathKernels {
+
+  private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_128;
+  /** Lanes {@code x, y, z}, for storing a 3-element result without touching the next one */
+  private static final VectorMask<Float> XYZ = VectorMask.fromLong(SPECIES, 0b0111);
+  /** Offsets of the elements of a column of a row-major matrix */
+  private static final int[] COLUMN = {0, 4, 8, 12};
+
+  private static final int MATRIX_SIZE = 16;
+  private static final int POINT_SIZE = 3;
+  private static final int BOUNDS_SIZE = 6;
+
+  VectorMathKernels() {}
+
+  @Override
+  public @NonNull String getName() {
+    return "vector-" + SPECIES.vectorBitSize();
+  }
+
+  @Override
+  public void multiply(
+      float @NonNull [] a,
+      int aOffset,
+      float @NonNull [] b,
+      int bOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    final var a00 = a[aOffset];
+    final var a01 = a[aOffset + 1];
+    final var a02 = a[aOffset + 2];
+    final var a03 = a[aOffset + 3];
+    final var a10 = a[aOffset + 4];
+    final var a11 = a[aOffset + 5];
+    final var a12 = a[aOffset + 6];
+    final var a13 = a[aOffset + 7];
+    final var a20 = a[aOffset + 8];
+    final var a21 = a[aOffset + 9];
+    final var a22 = a[aOffset + 10];
+    final var a23 = a[aOffset + 11];
+    final var a30 = a[aOffset + 12];
+    final var a31 = a[aOffset + 13];
+    final var a32 = a[aOffset + 14];
+    final var a33 = a[aOffset + 15];
+    for (var i = 0; i < count; i++) {
+      final var bi = bOffset + MATRIX_SIZE * i;
+      final var di = destOffset + MATRIX_SIZE * i;
+      // every row of b is loaded before any of dest is written, so dest can be b
+      final var b0 = FloatVector.fromArray(SPECIES, b, bi);
+      final var b1 = FloatVector.fromArray(SPECIES, b, bi + 4);
+      final var b2 = FloatVector.fromArray(SPECIES, b, bi + 8);
+      final var b3 = FloatVector.fromArray(SPECIES, b, bi + 12);
+      b0.mul(a00).add(b1.mul(a01)).add(b2.mul(a02)).add(b3.mul(a03)).intoArray(dest, di);
+      b0.mul(a10).add(b1.mul(a11)).add(b2.mul(a12)).add(b3.mul(a13)).intoArray(dest, di + 4);
+      b0.mul(a20).add(b1.mul(a21)).add(b2.mul(a22)).add(b3.mul(a23)).intoArray(dest, di + 8);
+      b0.mul(a30).add(b1.mul(a31)).add(b2.mul(a32)).add(b3.mul(a33)).intoArray(dest, di + 12);
+    }
+  }
+
+  @Override
+  public void transformPoints(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    final var col0 = FloatVector.fromArray(SPECIES, m, mOffset, COLUMN, 0);
+    final var col1 = FloatVector.fromArray(SPECIES, m, mOffset + 1, COLUMN, 0);
+    final var col2 = FloatVector.fromArray(SPECIES, m, mOffset + 2, COLUMN, 0);
+    final var col3 = FloatVector.fromArray(SPECIES, m, mOffset + 3, COLUMN, 0);
+    for (var i = 0; i < count; i++) {
+      final var s = srcOffset + POINT_SIZE * i;
+      col0.mul(src[s])
+          .add(col1.mul(src[s + 1]))
+          .add(col2.mul(src[s + 2]))
+          .add(col3)
+          .intoArray(dest, destOffset + POINT_SIZE * i, XYZ);
+    }
+  }
+
+  @Override
+  public void transformBounds(
+      float @NonNull [] m,
+      int mOffset,
+      float @NonNull [] src,
+      int srcOffset,
+      float @NonNull [] dest,
+      int destOffset,
+      int count) {
+
+    checkCount(count);
+    final var col0 = FloatVector.fromArray(SPECIES, m, mOffset, COLUMN, 0);
+    final var col1 = FloatVector.fromArray(SPECIES, m, mOffset + 1, COLUMN, 0);
+    final var col2 = FloatVector.fromArray(SPECIES, m, mOffset + 2, COLUMN, 0);
+    final var col3 = FloatVector.fromArray(SPECIES, m, mOffset + 3, COLUMN, 0);
+    final var abs0 = col0.abs();
+    final var abs1 = col1.abs();
+    final var abs2 = col2.abs();
+    for (var i = 0; i < count; i++) {
+      final var s = srcOffset + BOUNDS_SIZE * i;
+      final var d = destOffset + BOUNDS_SIZE * i;
+      if (src[s] > src[s + 3]) {
+        System.arraycopy(src, s, dest, d, BOUNDS_SIZE);
+        continue;
+      }
+
+      final var centre =
+          col0.mul((src[s] + src[s + 3]) / 2)
+              .add(col1.mul((src[s + 1] + src[s + 4]) / 2))
+              .add(col2.mul((src[s + 2] + src[s + 5]) / 2))
+              .add(col3);
+      final var extent =
+          abs0.mul((src[s + 3] - src[s]) / 2)
+              .add(abs1.mul((src[s + 4] - src[s + 1]) / 2))
+              .add(abs2.mul((src[s + 5] - src[s + 2]) / 2));
+      centre.sub(extent).intoArray(dest, d, XYZ);
+      centre.add(extent).intoArray(dest, d + 3, XYZ);
+    }
+  }
+}
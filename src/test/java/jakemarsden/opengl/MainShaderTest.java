@@ -0,0 +1,72 @@
+package jakemarsden.opengl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.lwjgl.opengl.GL31.GL_MAX_TEXTURE_BUFFER_SIZE;
+
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MainShaderTest {
+
+  @Test
+  void cameraSetBeforeStartingIsUploadedOnceStarted() {
+    final var gl = RecordingGl.create();
+    final var shader = new MainShader(gl);
+    gl.reset();
+
+    shader.setCameraPosition(Vector3.of(1, 2, 3));
+    shader.setCameraTransform(Matrix4.identity());
+    assertEquals(List.of(), gl.getCommands());
+
+    shader.start();
+    assertEquals(1, gl.getStats().getProgramBinds());
+    assertEquals(2, gl.getStats().getUniformUploads());
+    assertTrue(gl.getCommands().get(1).startsWith("uniform3f("), gl.getCommands().toString());
+
+    // only uploaded the once
+    shader.stop();
+    shader.start();
+    assertEquals(2, gl.getStats().getUniformUploads());
+
+    // and straight away while it's started
+    shader.setCameraPosition(Vector3.of(4, 5, 6));
+    assertEquals(3, gl.getStats().getUniformUploads());
+    shader.stop();
+    shader.destroy();
+  }
+
+  @Test
+  void normalTransformsCalculatedForADrawAreCounted() {
+    final var gl = RecordingGl.create();
+    final var shader = new MainShader(gl);
+    shader.start();
+
+    final var model = MutableMatrix4.identity().setTranslate(1, 2, 3);
+    shader.setModelTransform(model);
+    shader.setModelTransform(model.toImmutable());
+    // already known, so nothing's calculated
+    shader.setModelTransform(model, MutableMatrix4.identity());
+    assertEquals(2, gl.getStats().getNormalTransforms());
+    shader.stop();
+    shader.destroy();
+  }
+
+  @Test
+  void clusterLightIndicesAreLimitedByTheBufferTextureSize() {
+    final var gl = RecordingGl.create();
+    assertEquals(1 << 16, new MainShader(gl).getMaxClusterLightIndices());
+
+    gl.setInteger(GL_MAX_TEXTURE_BUFFER_SIZE, 50_000);
+    assertEquals(50_000, new MainShader(gl).getMaxClusterLightIndices());
+    gl.setInteger(GL_MAX_TEXTURE_BUFFER_SIZE, 1 << 20);
+    assertEquals(1 << 16, new MainShader(gl).getMaxClusterLightIndices());
+
+    // too small for every point light
+    gl.setInteger(GL_MAX_TEXTURE_BUFFER_SIZE, 4096);
+    assertThrows(IllegalStateException.class, () -> new MainShader(gl));
+  }
+}
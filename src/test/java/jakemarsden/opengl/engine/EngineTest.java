@@ -0,0 +1,163 @@
+package jakemarsden.opengl.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.display.HeadlessDisplay;
+import jakemarsden.opengl.engine.entity.Entity;
+import jakemarsden.opengl.engine.entity.EntityStore;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import jakemarsden.opengl.engine.profiling.Profiler;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EngineTest {
+
+  private static final float STEP = 0.25f;
+
+  @Test
+  void fixedStepUpdatesInWholeStepsAndInterpolatesTheRest() {
+    // each frame takes 0.6s: 2 whole steps, and what's left over adds up to an extra one by frame 3
+    final var game = new FakeGame(3);
+    Engine.fixedStep(game, times(0, 0.6, 1.2, 1.8), STEP, 10).run();
+
+    assertEquals(List.of(STEP, STEP, STEP, STEP, STEP, STEP, STEP), game.deltaTimes);
+    assertEquals(0.25f, game.elapsedTimes.get(0), 0);
+    assertEquals(1.75f, game.elapsedTimes.get(6), 0);
+    assertEquals(3, game.alphas.size());
+    assertEquals(0.4f, game.alphas.get(0), 1e-5f);
+    assertEquals(0.8f, game.alphas.get(1), 1e-5f);
+    assertEquals(0.2f, game.alphas.get(2), 1e-5f);
+  }
+
+  @Test
+  void fixedStepDropsTimeItCantCatchUpOn() {
+    // a 10s stall would need 40 steps to catch up on
+    final var game = new FakeGame(2);
+    Engine.fixedStep(game, times(0, 10.1, 10.2), STEP, 5).run();
+
+    assertEquals(5, game.deltaTimes.size());
+    // only the partial step is kept, so the next frame doesn't try to catch up either
+    assertEquals(0.4f, game.alphas.get(0), 1e-5f);
+    assertEquals(0.8f, game.alphas.get(1), 1e-5f);
+  }
+
+  @Test
+  void variableStepUpdatesOncePerFrame() {
+    final var game = new FakeGame(3);
+    Engine.variableStep(game, times(5, 5.5, 6.25, 7)).run();
+
+    assertEquals(List.of(0f, 0.5f, 0.75f), game.deltaTimes);
+    assertEquals(List.of(0f, 0.5f, 1.25f), game.elapsedTimes);
+    assertEquals(List.of(1f, 1f, 1f), game.alphas);
+  }
+
+  @Test
+  void runsHeadlessAsFastAsItCanUpdate() {
+    final var display = HeadlessDisplay.create(640, 480, "test");
+    display.setCloseRequestedAfter(10_000);
+    final var store = EntityStore.create();
+    final var entity =
+        Entity.builder(store, ModelLoader.load(new Mesh[0]))
+            .withVelocity(Vector3.of(1, 0, 0))
+            .build();
+    final var game =
+        new FakeGame(Integer.MAX_VALUE) {
+          @Override
+          public boolean shouldContinue() {
+            return !display.isCloseRequested();
+          }
+
+          @Override
+          public void update(float deltaTime, float elapsedTime) {
+            store.update(deltaTime, elapsedTime);
+          }
+
+          @Override
+          public void render(float alpha) {
+            display.swapDrawBuffers();
+          }
+        };
+
+    // one step per frame, without waiting for any real time to pass
+    Engine.fixedStep(game, ManualClock.ticking(1 / 60.0), 1 / 60f, 5).run();
+
+    assertEquals(10_000, display.getFrameCount());
+    assertEquals(10_000 / 60f, entity.getPosition().x, 0.1f);
+  }
+
+  @Test
+  void manualClockOnlyMovesWhenAdvanced() {
+    final var clock = ManualClock.create();
+    assertEquals(0.0, clock.getTime());
+    assertEquals(0.0, clock.getTime());
+    clock.advance(1.5);
+    assertEquals(1.5, clock.getTime());
+    assertThrows(IllegalArgumentException.class, () -> clock.advance(-1));
+  }
+
+  @Test
+  void profilerTimesEachPhaseOncePerFrame() {
+    final var profiler = Profiler.create(16);
+    final var game = new FakeGame(3);
+    Engine.fixedStep(game, times(0, 0.6, 1.2, 1.8), STEP, 10).withProfiler(profiler).run();
+
+    for (final var section : List.of("frame", "input", "update", "render")) {
+      final var stats = profiler.getStats(section);
+      assertNotNull(stats, section);
+      assertEquals(3, stats.totalCount, section);
+    }
+    assertEquals(4, profiler.getStats().size());
+  }
+
+  @Test
+  void rejectsBadStepTimes() {
+    final var game = new FakeGame(0);
+    assertThrows(IllegalArgumentException.class, () -> Engine.fixedStep(game, times(0), 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> Engine.fixedStep(game, times(0), STEP, 0));
+  }
+
+  /** @return a clock which reads each of {@code times} in turn, then stays at the last one */
+  private static Clock times(double... times) {
+    final var next = new int[1];
+    return () -> times[Math.min(next[0]++, times.length - 1)];
+  }
+
+  /** Runs for {@code frameCount} frames, recording what it was given */
+  private static class FakeGame implements Game {
+
+    private int framesLeft;
+    final List<Float> deltaTimes = new ArrayList<>();
+    final List<Float> elapsedTimes = new ArrayList<>();
+    final List<Float> alphas = new ArrayList<>();
+
+    FakeGame(int frameCount) {
+      this.framesLeft = frameCount;
+    }
+
+    @Override
+    public boolean shouldContinue() {
+      return this.framesLeft > 0;
+    }
+
+    @Override
+    public void processInput() {}
+
+    @Override
+    public void update(float deltaTime, float elapsedTime) {
+      this.deltaTimes.add(deltaTime);
+      this.elapsedTimes.add(elapsedTime);
+    }
+
+    @Override
+    public void render(float alpha) {
+      this.alphas.add(alpha);
+      this.framesLeft--;
+    }
+
+    @Override
+    public void destroy() {}
+  }
+}
@@ -0,0 +1,38 @@
+package jakemarsden.opengl.engine.display;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HeadlessDisplayTest {
+
+  @Test
+  void closeIsRequestedAfterMaxFrameCount() {
+    final var display = HeadlessDisplay.create(640, 480, "test");
+    display.setCloseRequestedAfter(3);
+
+    for (var frame = 0; frame < 2; frame++) {
+      display.swapDrawBuffers();
+      assertFalse(display.isCloseRequested());
+    }
+    display.swapDrawBuffers();
+    assertTrue(display.isCloseRequested());
+    assertEquals(3, display.getFrameCount());
+  }
+
+  @Test
+  void resizingCallsTheResizeCallback() {
+    final var display = HeadlessDisplay.create(640, 480, "test");
+    final List<String> resizes = new ArrayList<>();
+    display.setResizeCallback((width, height) -> resizes.add(width + "x" + height));
+
+    display.setSize(640, 480);
+    display.setSize(800, 600);
+
+    assertEquals(List.of("800x600"), resizes);
+    assertEquals(800, display.getWidth());
+    assertEquals(600, display.getHeight());
+  }
+}
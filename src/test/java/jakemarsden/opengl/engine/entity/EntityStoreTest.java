@@ -0,0 +1,267 @@
+package jakemarsden.opengl.engine.entity;
+
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Quaternion;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.Model;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import org.junit.jupiter.api.Test;
+
+class EntityStoreTest {
+
+  private static final Model MODEL = ModelLoader.load(new Mesh[0]);
+
+  @Test
+  void updateIntegratesVelocities() {
+    final var store = EntityStore.create(1);
+    final var entity =
+        Entity.builder(store, MODEL)
+            .withPosition(Vector3.of(1, 2, 3))
+            .withVelocity(Vector3.of(2, 0, -4))
+            .withRotationalVelocity(Vector3.of(0, 1, 0))
+            .build();
+
+    store.update(0.5f, 0.5f);
+
+    assertVectorEquals(Vector3.of(2, 2, 1), entity.getPosition());
+    final var expected = Quaternion.axisAngle(Vector3.of(0, 1, 0), 0.5f);
+    final var actual = entity.getOrientation();
+    assertEquals(expected.x, actual.x, EPSILON);
+    assertEquals(expected.y, actual.y, EPSILON);
+    assertEquals(expected.z, actual.z, EPSILON);
+    assertEquals(expected.w, actual.w, EPSILON);
+  }
+
+  @Test
+  void transformMatchesMatrix4() {
+    final var store = EntityStore.create(1);
+    final var pos = Vector3.of(1, 2, 3);
+    final var rot = Vector3.of(0.1f, 0.2f, 0.3f);
+    final var scale = Vector3.of(0.5f, 1, 2);
+    final var entity =
+        Entity.builder(store, MODEL).withPosition(pos).withRotation(rot).withScale(scale).build();
+
+    store.update(1, 1);
+
+    final var expected = Matrix4.transform(pos, rot, scale);
+    final var actual = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertArrayEquals(expected.toArray(), actual.toImmutable().toArray(), EPSILON);
+  }
+
+  @Test
+  void normalTransformMatchesMatrix4() {
+    final var store = EntityStore.create(1);
+    final var rot = Vector3.of(0.1f, 0.2f, 0.3f);
+    final var scale = Vector3.of(0.5f, 1, 2);
+    final var entity =
+        Entity.builder(store, MODEL)
+            .withPosition(Vector3.of(1, 2, 3))
+            .withRotation(rot)
+            .withScale(scale)
+            .build();
+
+    final var expected = Matrix4.normalTransform(rot, scale);
+    final var actual = entity.getNormalTransform(MutableMatrix4.identity());
+    assertArrayEquals(expected.toArray(), actual.toImmutable().toArray(), EPSILON);
+  }
+
+  @Test
+  void normalTransformIsOnlyRecalculatedWhenTheEntityChanges() {
+    final var store = EntityStore.create(2);
+    final var moving =
+        Entity.builder(store, MODEL)
+            .withScale(Vector3.one())
+            .withVelocity(Vector3.of(1, 0, 0))
+            .build();
+    final var still = Entity.builder(store, MODEL).withScale(Vector3.one()).build();
+    store.update(1, 1);
+    assertEquals(2, store.getNormalTransformCount());
+
+    final var normal = MutableMatrix4.identity();
+    for (var frame = 0; frame < 3; frame++) {
+      store.resetCounters();
+      store.update(1, 1);
+      moving.getNormalTransform(normal);
+      still.getNormalTransform(normal);
+      assertEquals(1, store.getNormalTransformCount());
+    }
+
+    still.setScale(Vector3.of(2));
+    store.resetCounters();
+    still.getNormalTransform(normal);
+    assertEquals(1, store.getNormalTransformCount());
+  }
+
+  @Test
+  void interpolateBlendsBetweenTheLastTwoUpdates() {
+    final var store = EntityStore.interpolated(1);
+    final var entity =
+        Entity.builder(store, MODEL)
+            .withScale(Vector3.one())
+            .withVelocity(Vector3.of(4, 0, 0))
+            .withRotationalVelocity(Vector3.of(0, 1, 0))
+            .build();
+    store.update(1, 1);
+
+    store.interpolate(0.25f);
+    final var expected =
+        Matrix4.transform(
+            Vector3.of(1, 0, 0),
+            Quaternion.identity().nlerp(entity.getOrientation(), 0.25f),
+            Vector3.one());
+    final var actual = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertArrayEquals(expected.toArray(), actual.toImmutable().toArray(), 1e-5f);
+    // only what's rendered is interpolated, not the entity itself
+    assertVectorEquals(Vector3.of(4, 0, 0), entity.getPosition());
+
+    // once it stops, its transform catches up with where it actually is
+    entity.setVelocity(Vector3.zero());
+    entity.setRotationalVelocity(Vector3.zero());
+    store.update(1, 2);
+    store.interpolate(0.25f);
+    final var stopped = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertEquals(4, stopped.get(0, 3), EPSILON);
+  }
+
+  @Test
+  void movingEntitiesAreOnlyBuiltOncePerFrameWhileInterpolating() {
+    final var store = EntityStore.interpolated(2);
+    Entity.builder(store, MODEL).withScale(Vector3.one()).withVelocity(Vector3.of(1, 0, 0)).build();
+    Entity.builder(store, MODEL).withScale(Vector3.one()).build();
+    store.update(1, 1);
+    store.interpolate(0.5f);
+
+    for (var frame = 0; frame < 3; frame++) {
+      store.resetCounters();
+      // however many updates there were, the moving entity's only built by the interpolation
+      store.update(1, 1);
+      store.update(1, 1);
+      assertEquals(0, store.getNormalTransformCount());
+      store.interpolate(0.5f);
+      assertEquals(1, store.getNormalTransformCount());
+    }
+  }
+
+  @Test
+  void movingEntitiesKeepTheirRenderedTransformUntilTheyreInterpolated() {
+    final var store = EntityStore.interpolated(1);
+    final var entity =
+        Entity.builder(store, MODEL)
+            .withScale(Vector3.one())
+            .withVelocity(Vector3.of(4, 0, 0))
+            .build();
+    store.update(1, 1);
+    store.interpolate(0.5f);
+
+    store.resetCounters();
+    store.update(1, 2);
+    // not rebuilt by reading it, so reads don't race, and it's still only built once
+    final var rendered = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertEquals(2, rendered.get(0, 3), EPSILON);
+    assertEquals(0, store.getNormalTransformCount());
+
+    store.interpolate(0.5f);
+    final var interpolated = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertEquals(6, interpolated.get(0, 3), EPSILON);
+    assertEquals(1, store.getNormalTransformCount());
+  }
+
+  @Test
+  void onlyInterpolatedStoresCanBeInterpolated() {
+    final var store = EntityStore.create(1);
+    Entity.builder(store, MODEL).withVelocity(Vector3.of(1, 0, 0)).build();
+    store.update(1, 1);
+    assertThrows(IllegalStateException.class, () -> store.interpolate(0.5f));
+    assertFalse(store.isInterpolated());
+    assertTrue(EntityStore.interpolated().isInterpolated());
+  }
+
+  @Test
+  void settingThePositionMovesStraightThereRatherThanInterpolating() {
+    final var store = EntityStore.interpolated(1);
+    final var entity =
+        Entity.builder(store, MODEL)
+            .withScale(Vector3.one())
+            .withVelocity(Vector3.of(4, 0, 0))
+            .build();
+    store.update(1, 1);
+    store.interpolate(0.25f);
+
+    entity.setVelocity(Vector3.zero());
+    entity.setPosition(Vector3.of(100, 0, 0));
+    store.interpolate(0.25f);
+    final var actual = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertEquals(100, actual.get(0, 3), EPSILON);
+  }
+
+  @Test
+  void settersInvalidateTransform() {
+    final var store = EntityStore.create(1);
+    final var entity = Entity.builder(store, MODEL).withScale(Vector3.one()).build();
+    store.update(1, 1);
+
+    entity.setPosition(Vector3.of(4, 5, 6));
+
+    final var expected = Matrix4.translate(4, 5, 6);
+    final var actual = store.getTransform(entity.index, MutableMatrix4.identity());
+    assertArrayEquals(expected.toArray(), actual.toImmutable().toArray(), EPSILON);
+  }
+
+  @Test
+  void storeGrowsAsEntitiesAreAdded() {
+    final var store = EntityStore.create(1);
+    final var entities = new Entity[10];
+    for (var i = 0; i < entities.length; i++)
+      entities[i] = Entity.builder(store, MODEL).withPosition(Vector3.of(i)).build();
+
+    assertEquals(entities.length, store.size());
+    for (var i = 0; i < entities.length; i++)
+      assertVectorEquals(Vector3.of(i), entities[i].getPosition());
+  }
+
+  @Test
+  void removingEntityKeepsOtherHandlesValid() {
+    final var store = EntityStore.create(4);
+    final var a = Entity.builder(store, MODEL).withPosition(Vector3.of(1)).build();
+    final var b = Entity.builder(store, MODEL).withPosition(Vector3.of(2)).build();
+    final var c = Entity.builder(store, MODEL).withPosition(Vector3.of(3)).build();
+
+    a.destroy();
+
+    assertEquals(2, store.size());
+    assertVectorEquals(Vector3.of(2), b.getPosition());
+    assertVectorEquals(Vector3.of(3), c.getPosition());
+
+    c.setPosition(Vector3.of(4));
+    assertVectorEquals(Vector3.of(2), b.getPosition());
+    assertVectorEquals(Vector3.of(4), c.getPosition());
+  }
+
+  @Test
+  void destroyingAnEntityTwiceFailsWithoutRemovingAnyOther() {
+    final var store = EntityStore.create(2);
+    final var a = Entity.builder(store, MODEL).withPosition(Vector3.of(1)).build();
+    final var b = Entity.builder(store, MODEL).withPosition(Vector3.of(2)).build();
+
+    a.destroy();
+    assertEquals(-1, a.index);
+    // b has taken a's old index
+    assertEquals(0, b.index);
+    assertThrows(IllegalStateException.class, a::destroy);
+
+    assertEquals(1, store.size());
+    assertVectorEquals(Vector3.of(2), b.getPosition());
+    assertThrows(IllegalStateException.class, () -> store.remove(1));
+  }
+
+  private static void assertVectorEquals(Vector3 expected, Vector3 actual) {
+    assertEquals(expected.x, actual.x, EPSILON);
+    assertEquals(expected.y, actual.y, EPSILON);
+    assertEquals(expected.z, actual.z, EPSILON);
+  }
+}
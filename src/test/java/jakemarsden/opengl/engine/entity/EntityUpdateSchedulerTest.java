@@ -0,0 +1,116 @@
+package jakemarsden.opengl.engine.entity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.Model;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class EntityUpdateSchedulerTest {
+
+  private static final Model MODEL = ModelLoader.load(new Mesh[0]);
+
+  @Test
+  void parallelMatchesSequential() {
+    final var sequential = randomStore(EntityStore.create(), new Random(0), 5000);
+    final var parallel = randomStore(EntityStore.create(), new Random(0), 5000);
+
+    final var pool = new ForkJoinPool(4);
+    try {
+      final var scheduler = EntityUpdateScheduler.parallel(pool, 64);
+      assertTrue(scheduler.isParallel());
+      for (var frame = 0; frame < 10; frame++) {
+        EntityUpdateScheduler.sequential().update(sequential, 1 / 60f);
+        scheduler.update(parallel, 1 / 60f);
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    final var expected = MutableMatrix4.identity();
+    final var actual = MutableMatrix4.identity();
+    for (var idx = 0; idx < sequential.size(); idx++) {
+      assertEquals(sequential.getPosition(idx), parallel.getPosition(idx));
+      assertEquals(sequential.getOrientation(idx), parallel.getOrientation(idx));
+      sequential.getTransform(idx, expected);
+      parallel.getTransform(idx, actual);
+      assertEquals(expected.toImmutable(), actual.toImmutable());
+    }
+  }
+
+  @Test
+  void parallelInterpolationMatchesSequential() {
+    final var sequential = randomStore(EntityStore.interpolated(), new Random(0), 5000);
+    final var parallel = randomStore(EntityStore.interpolated(), new Random(0), 5000);
+
+    final var pool = new ForkJoinPool(4);
+    try {
+      final var scheduler = EntityUpdateScheduler.parallel(pool, 64);
+      for (var frame = 0; frame < 10; frame++) {
+        EntityUpdateScheduler.sequential().update(sequential, 1 / 60f);
+        EntityUpdateScheduler.sequential().interpolate(sequential, frame / 10f);
+        scheduler.update(parallel, 1 / 60f);
+        scheduler.interpolate(parallel, frame / 10f);
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(sequential.getNormalTransformCount(), parallel.getNormalTransformCount());
+    final var expected = MutableMatrix4.identity();
+    final var actual = MutableMatrix4.identity();
+    for (var idx = 0; idx < sequential.size(); idx++) {
+      assertFalse(parallel.isTransformDirty(idx));
+      sequential.getTransform(idx, expected);
+      parallel.getTransform(idx, actual);
+      assertEquals(expected.toImmutable(), actual.toImmutable());
+    }
+  }
+
+  @Test
+  void transformsAreRebuiltDuringUpdate() {
+    final var store = EntityStore.create(1);
+    final var entity = Entity.builder(store, MODEL).withVelocity(Vector3.of(1, 0, 0)).build();
+
+    EntityUpdateScheduler.sequential().update(store, 2);
+
+    assertFalse(store.isTransformDirty(entity.index));
+    assertEquals(2, store.getTransform(entity.index, MutableMatrix4.identity()).get(0, 3));
+  }
+
+  @Test
+  void onlyInterpolatedStoresCanBeInterpolated() {
+    final var store = EntityStore.create();
+    final var scheduler = EntityUpdateScheduler.sequential();
+    assertThrows(IllegalStateException.class, () -> scheduler.interpolate(store, 0));
+  }
+
+  @Test
+  void rejectsNonPositiveGrainSize() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> EntityUpdateScheduler.parallel(ForkJoinPool.commonPool(), 0));
+  }
+
+  private static EntityStore randomStore(EntityStore store, Random rnd, int count) {
+    for (var i = 0; i < count; i++) {
+      Entity.builder(store, MODEL)
+          .withPosition(randomVector(rnd))
+          .withRotation(randomVector(rnd))
+          .withScale(Vector3.one())
+          .withVelocity(randomVector(rnd))
+          .withRotationalVelocity(randomVector(rnd))
+          .build();
+    }
+    return store;
+  }
+
+  private static Vector3 randomVector(Random rnd) {
+    return Vector3.of(2 * rnd.nextFloat() - 1, 2 * rnd.nextFloat() - 1, 2 * rnd.nextFloat() - 1);
+  }
+}
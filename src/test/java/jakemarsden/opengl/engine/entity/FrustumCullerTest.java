@@ -0,0 +1,69 @@
+package jakemarsden.opengl.engine.entity;
+
+import static jakemarsden.opengl.engine.entity.CubeScene.PV;
+import static jakemarsden.opengl.engine.entity.CubeScene.cube;
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import org.junit.jupiter.api.Test;
+
+class FrustumCullerTest {
+
+  @Test
+  void entitiesOutsideTheFrustumAreCulled() {
+    final var store = EntityStore.create();
+    final var inFront = cube(store, Vector3.of(0, 0, -10));
+    final var behind = cube(store, Vector3.of(0, 0, 10));
+    final var toTheSide = cube(store, Vector3.of(20, 0, -10));
+    final var culler = FrustumCuller.create();
+
+    culler.cull(store, PV);
+
+    assertTrue(inFront.isVisible());
+    assertFalse(behind.isVisible());
+    assertFalse(toTheSide.isVisible());
+    assertEquals(1, culler.getVisibleCount());
+    assertEquals(2, culler.getCulledCount());
+  }
+
+  @Test
+  void boundsFollowTheEntitysTransform() {
+    final var store = EntityStore.create();
+    final var entity = cube(store, Vector3.of(11, 0, -10));
+    final var culler = FrustumCuller.create();
+    culler.cull(store, PV);
+    // only its left half is inside the frustum
+    assertTrue(entity.isVisible());
+
+    entity.setScale(Vector3.of(0.25f));
+    culler.cull(store, PV);
+    assertFalse(entity.isVisible());
+
+    entity.setRotation(Vector3.of(0, PI / 4, 0));
+    entity.setScale(Vector3.one());
+    final var bounds = entity.getBounds();
+    // rotating a cube about its centre makes its bounding box wider
+    final var halfWidth = (float) Math.sqrt(2);
+    assertEquals(11 - halfWidth, bounds.minX, EPSILON);
+    assertEquals(11 + halfWidth, bounds.maxX, EPSILON);
+    assertEquals(-1, bounds.minY, EPSILON);
+    assertEquals(1, bounds.maxY, EPSILON);
+  }
+
+  @Test
+  void entitiesWithoutGeometryAreNeverVisible() {
+    final var store = EntityStore.create();
+    final var entity =
+        Entity.builder(store, ModelLoader.load(new Mesh[0])).withScale(Vector3.one()).build();
+    final var culler = FrustumCuller.create();
+
+    culler.cull(store, PV);
+
+    assertFalse(entity.isVisible());
+    assertTrue(entity.getBounds().isEmpty());
+  }
+}
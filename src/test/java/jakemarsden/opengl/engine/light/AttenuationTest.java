@@ -76,4 +76,17 @@ class AttenuationTest {
     assertEquals(0, Attenuation.range(13).calculateIntensity(13), 0.0125f);
     assertEquals(0, Attenuation.range(7).calculateIntensity(7), 0.0125f);
   }
+
+  @Test
+  void calculatedRangeIsTheInverseOfIntensity() {
+    final var attn = Attenuation.range(30);
+    assertEquals(30, attn.calculateRange(attn.calculateIntensity(30)), 0.001f);
+    assertEquals(5, attn.calculateRange(attn.calculateIntensity(5)), 0.001f);
+    assertEquals(8, Attenuation.of(1, 0.5f, 0).calculateRange(0.2f), 0.001f);
+  }
+
+  @Test
+  void calculatedRangeIsInfiniteWithoutAttenuation() {
+    assertEquals(Float.POSITIVE_INFINITY, Attenuation.none().calculateRange(0.01f));
+  }
 }
@@ -0,0 +1,220 @@
+package jakemarsden.opengl.engine.light;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.camera.PerspectiveCamera;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LightClusterGridTest {
+
+  /** Looking down -z from the origin, 90 degrees in each direction, clusters 1-100 units deep */
+  private static final Matrix4 VIEW = Matrix4.identity();
+
+  private static final float FOV_Y = PI / 2;
+  private static final float AR = 1;
+  private static final float NEAR_Z = 1;
+  private static final float FAR_Z = 100;
+
+  /** Like {@code MainGame}'s, with a view 0.1-100 units deep */
+  private static final PerspectiveCamera MAIN_GAME_CAMERA =
+      new PerspectiveCamera(Vector3.of(0, 0, 6), Vector3.unit(0, 0, -1), 16 / 9f);
+
+  @Test
+  void lightIsOnlyInTheClustersItReaches() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 1024);
+    bin(grid, light(Vector3.of(0, 0, -10), 0.5f));
+
+    // straddles the centre of the screen, and slices 1 and 2 (which meet at a depth of 10)
+    assertEquals(8, grid.getLightIndexCount());
+    for (var z = 1; z <= 2; z++) {
+      for (var y = 1; y <= 2; y++) {
+        for (var x = 1; x <= 2; x++) {
+          assertLightsEquals(grid, grid.getClusterIndex(x, y, z), 0);
+        }
+      }
+    }
+    assertLightsEquals(grid, grid.getClusterIndex(0, 0, 0));
+    assertLightsEquals(grid, grid.getClusterIndex(3, 3, 3));
+    assertLightsEquals(grid, grid.getClusterIndex(1, 1, 3));
+  }
+
+  @Test
+  void lightsOutsideTheFrustumAreNotBinned() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 1024);
+    bin(
+        grid,
+        light(Vector3.of(0, 0, 10), 1),
+        light(Vector3.of(50, 0, -10), 1),
+        light(Vector3.of(0, 0, -200), 1));
+
+    assertEquals(0, grid.getLightIndexCount());
+    assertEquals(0, grid.getDroppedLightIndexCount());
+  }
+
+  @Test
+  void unattenuatedLightIsInEveryCluster() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 1024);
+    bin(grid, unattenuatedLight(Vector3.zero()));
+
+    assertEquals(grid.getClusterCount(), grid.getLightIndexCount());
+    for (var cluster = 0; cluster < grid.getClusterCount(); cluster++)
+      assertLightsEquals(grid, cluster, 0);
+  }
+
+  @Test
+  void eachClustersLightsArePackedTogether() {
+    final var grid = LightClusterGrid.create(2, 2, 2, 1024);
+    bin(
+        grid,
+        light(Vector3.of(-5, -5, -10), 1),
+        unattenuatedLight(Vector3.zero()),
+        light(Vector3.of(5, 5, -10), 1));
+
+    var expectedOffset = 0;
+    for (var cluster = 0; cluster < grid.getClusterCount(); cluster++) {
+      assertEquals(expectedOffset, grid.getLightOffset(cluster));
+      expectedOffset += grid.getLightCount(cluster);
+    }
+    assertEquals(expectedOffset, grid.getLightIndexCount());
+
+    // the attenuated lights are in opposite corners of the screen
+    assertLightsEquals(grid, grid.getClusterIndex(0, 0, 1), 0, 1);
+    assertLightsEquals(grid, grid.getClusterIndex(1, 1, 1), 1, 2);
+    assertLightsEquals(grid, grid.getClusterIndex(1, 0, 1), 1);
+  }
+
+  @Test
+  void rebinningReplacesThePreviousLights() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 1024);
+    bin(grid, unattenuatedLight(Vector3.zero()));
+    bin(grid, light(Vector3.of(0, 0, 10), 1));
+
+    assertEquals(0, grid.getLightIndexCount());
+    for (var cluster = 0; cluster < grid.getClusterCount(); cluster++)
+      assertLightsEquals(grid, cluster);
+  }
+
+  @Test
+  void lightIndicesBeyondTheLimitAreDropped() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 10);
+    bin(grid, unattenuatedLight(Vector3.zero()));
+
+    assertEquals(10, grid.getLightIndexCount());
+    assertEquals(grid.getClusterCount() - 10, grid.getDroppedLightIndexCount());
+  }
+
+  @Test
+  void clustersOverTheLimitAreTrimmedFairly() {
+    // 8 lights in each of 64 clusters, but only room for half of them
+    final var grid = LightClusterGrid.create(4, 4, 4, 256 + 3);
+    final var lights = new PointLight[8];
+    for (var idx = 0; idx < lights.length; idx++) lights[idx] = unattenuatedLight(Vector3.zero());
+    bin(grid, lights);
+
+    for (var cluster = 0; cluster < grid.getClusterCount(); cluster++) {
+      // the 3 left over go to the first 3 clusters
+      assertEquals(cluster < 3 ? 5 : 4, grid.getLightCount(cluster), "cluster " + cluster);
+    }
+    assertEquals(259, grid.getLightIndexCount());
+    assertEquals(512 - 259, grid.getDroppedLightIndexCount());
+  }
+
+  @Test
+  void mainGamesLampsOnlyReachAFewLightsPerCluster() {
+    final var lights = mainGameLikeLamps(Attenuation.range(30));
+    final var grid = LightClusterGrid.create(16, 9, 24, 1 << 16);
+    grid.bin(lights, lights.length, MAIN_GAME_CAMERA);
+
+    // each lamp only reaches ~2.7 units, so even binned conservatively, no cluster gets more than
+    // a fraction of them
+    assertEquals(0, grid.getDroppedLightIndexCount());
+    var maxCount = 0;
+    for (var cluster = 0; cluster < grid.getClusterCount(); cluster++)
+      maxCount = Math.max(maxCount, grid.getLightCount(cluster));
+    assertTrue(maxCount <= 24, "max " + maxCount);
+    assertTrue(grid.getLightIndexCount() < 2 * grid.getClusterCount());
+  }
+
+  @Test
+  void distantSlicesStillGetLightsInAMainGameLikeScene() {
+    // lamps which reach much further than MainGame's
+    final var lights = mainGameLikeLamps(null);
+    final var camera = MAIN_GAME_CAMERA;
+
+    final var grid = LightClusterGrid.create(16, 9, 24, 1 << 19);
+    grid.bin(lights, lights.length, camera);
+
+    assertEquals(0, grid.getDroppedLightIndexCount());
+    // the lamps reach ~34 units from ~12 units away, which is 21 of the 24 slices
+    for (var z = 0; z < 21; z++) {
+      final var cluster = grid.getClusterIndex(8, 4, z);
+      assertTrue(grid.getLightCount(cluster) > 0, "slice " + z);
+    }
+
+    // even with far less room, the farthest slices still get their share (give or take a spare)
+    final var smallGrid = LightClusterGrid.create(16, 9, 24, 1 << 16);
+    smallGrid.bin(lights, lights.length, camera);
+    final var nearCount = smallGrid.getLightCount(smallGrid.getClusterIndex(8, 4, 0));
+    final var farCount = smallGrid.getLightCount(smallGrid.getClusterIndex(8, 4, 20));
+    assertTrue(farCount > 0);
+    assertTrue(Math.abs(nearCount - farCount) <= 1, nearCount + " vs " + farCount);
+  }
+
+  @Test
+  void rejectsInvalidDepthRange() {
+    final var grid = LightClusterGrid.create(4, 4, 4, 1024);
+    final var lights = new PointLight[0];
+
+    assertThrows(
+        IllegalArgumentException.class, () -> grid.bin(lights, 0, VIEW, FOV_Y, AR, 0, FAR_Z));
+    assertThrows(
+        IllegalArgumentException.class, () -> grid.bin(lights, 0, VIEW, FOV_Y, AR, 10, 5));
+  }
+
+  private static void bin(LightClusterGrid grid, PointLight... lights) {
+    grid.bin(lights, lights.length, VIEW, FOV_Y, AR, NEAR_Z, FAR_Z);
+  }
+
+  private static void assertLightsEquals(LightClusterGrid grid, int cluster, int... expected) {
+    final var offset = grid.getLightOffset(cluster);
+    final var actual = new int[grid.getLightCount(cluster)];
+    System.arraycopy(grid.getLightIndices(), offset, actual, 0, actual.length);
+    assertArrayEquals(expected, actual, "cluster " + cluster);
+  }
+
+  /** @return a light which reaches exactly {@code range} units */
+  private static PointLight light(Vector3 pos, float range) {
+    final var attn = Attenuation.of(1, (1 / PointLight.MIN_INTENSITY - 1) / range, 0);
+    return new PointLight(pos, attn, Color3.white(), Color3.white(), Color3.white());
+  }
+
+  /**
+   * 100 lamps scattered in front of the camera, like {@link #MAIN_GAME_CAMERA}'s
+   *
+   * @param attn {@code null} for lamps which reach 34 units
+   */
+  private static PointLight[] mainGameLikeLamps(Attenuation attn) {
+    final var rnd = new Random(0);
+    final var lights = new PointLight[100];
+    for (var idx = 0; idx < lights.length; idx++) {
+      final var x = 20 * rnd.nextFloat() - 10;
+      final var y = 20 * rnd.nextFloat() - 10;
+      final var pos = Vector3.of(x, y, -4 - 4 * rnd.nextFloat());
+      lights[idx] =
+          attn != null
+              ? new PointLight(pos, attn, Color3.white(), Color3.white(), Color3.white())
+              : light(pos, 34);
+    }
+    return lights;
+  }
+
+  private static PointLight unattenuatedLight(Vector3 pos) {
+    return new PointLight(
+        pos, Attenuation.none(), Color3.white(), Color3.white(), Color3.white());
+  }
+}
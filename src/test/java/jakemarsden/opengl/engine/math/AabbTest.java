@@ -0,0 +1,41 @@
+package jakemarsden.opengl.engine.math;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AabbTest {
+
+  @Test
+  void enclosesEveryPosition() {
+    final var box = Aabb.enclosing(new float[] {1, -2, 3, -4, 5, 0, 2, 2, 2});
+
+    assertEquals(Aabb.of(-4, -2, 0, 2, 5, 3), box);
+    assertEquals(Vector3.of(-1, 1.5f, 1.5f), box.getCentre());
+    assertEquals(Vector3.of(3, 3.5f, 1.5f), box.getExtent());
+  }
+
+  @Test
+  void noPositionsAreEnclosedByTheEmptyBox() {
+    final var box = Aabb.enclosing(new float[0]);
+
+    assertTrue(box.isEmpty());
+    assertEquals(Aabb.of(1, 2, 3, 4, 5, 6), box.union(Aabb.of(1, 2, 3, 4, 5, 6)));
+    assertFalse(box.intersects(Aabb.of(-1, -1, -1, 1, 1, 1)));
+  }
+
+  @Test
+  void unionEnclosesBothBoxes() {
+    final var a = Aabb.of(0, 0, 0, 1, 1, 1);
+    final var b = Aabb.of(2, -1, 0.5f, 3, 0.5f, 0.75f);
+
+    assertEquals(Aabb.of(0, -1, 0, 3, 1, 1), a.union(b));
+    assertFalse(a.intersects(b));
+    assertTrue(a.intersects(a.union(b)));
+  }
+
+  @Test
+  void rejectsMinGreaterThanMax() {
+    assertThrows(IllegalArgumentException.class, () -> Aabb.of(1, 0, 0, 0, 1, 1));
+  }
+}
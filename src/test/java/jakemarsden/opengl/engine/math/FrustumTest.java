@@ -0,0 +1,53 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class FrustumTest {
+
+  /** At the origin, looking down -z, 90 degrees in each direction, 1-100 units deep */
+  private static final Frustum FRUSTUM =
+      Frustum.create().set(Projection.perspective(PI / 2, 1, 1, 100));
+
+  @Test
+  void containsPointsInFrontOfTheCamera() {
+    assertTrue(FRUSTUM.contains(Vector3.of(0, 0, -10)));
+    assertTrue(FRUSTUM.contains(Vector3.of(9, -9, -10)));
+    assertFalse(FRUSTUM.contains(Vector3.of(11, 0, -10)));
+    assertFalse(FRUSTUM.contains(Vector3.of(0, 0, 10)));
+    assertFalse(FRUSTUM.contains(Vector3.of(0, 0, -0.5f)));
+    assertFalse(FRUSTUM.contains(Vector3.of(0, 0, -101)));
+  }
+
+  @Test
+  void boxesIntersectIfAnyPartIsInside() {
+    assertTrue(FRUSTUM.intersects(Aabb.of(-1, -1, -11, 1, 1, -9)));
+    // straddling the right-hand plane
+    assertTrue(FRUSTUM.intersects(Aabb.of(9, -1, -11, 12, 1, -9)));
+    // enclosing the whole frustum
+    assertTrue(FRUSTUM.intersects(Aabb.of(-500, -500, -500, 500, 500, 500)));
+
+    assertFalse(FRUSTUM.intersects(Aabb.of(11, -1, -10, 12, 1, -9)));
+    assertFalse(FRUSTUM.intersects(Aabb.of(-1, -1, 5, 1, 1, 6)));
+  }
+
+  @Test
+  void spheresIntersectIfAnyPartIsInside() {
+    assertTrue(FRUSTUM.intersectsSphere(0, 0, 0, 1.5f));
+    assertTrue(FRUSTUM.intersectsSphere(12, 0, -10, 2));
+    assertFalse(FRUSTUM.intersectsSphere(12, 0, -10, 1));
+  }
+
+  @Test
+  void planesFollowTheCamera() {
+    final var pv =
+        Projection.perspective(PI / 2, 1, 1, 100)
+            .times(Projection.lookAt(Vector3.zero(), Vector3.of(1, 0, 0), Vector3.of(0, 1, 0)));
+    final var frustum = Frustum.create().set(pv);
+
+    assertTrue(frustum.contains(Vector3.of(10, 0, 0)));
+    assertFalse(frustum.contains(Vector3.of(0, 0, -10)));
+  }
+}
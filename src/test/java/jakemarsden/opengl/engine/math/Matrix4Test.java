@@ -83,6 +83,33 @@ class Matrix4Test {
     assertArrayEquals(expected, m1.toArray(), 0);
   }
 
+  @Test
+  void transformIsTranslateRotateScale() {
+    final var translation = Vector3.of(1, -2, 3);
+    final var rotation = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, 2, 3);
+
+    final var expected =
+        Matrix4.translate(translation).times(Matrix4.rotate(rotation)).times(Matrix4.scale(scale));
+    final var m1 = Matrix4.transform(translation, rotation, scale);
+    assertArrayEquals(expected.toArray(), m1.toArray(), EPSILON);
+  }
+
+  @Test
+  void normalTransformIsInverseTransposeOfTransform() {
+    final var rotation = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, -2, 3);
+
+    final var expected =
+        Matrix4.transform(Vector3.of(1, -2, 3), rotation, scale).invert().transpose().toArray();
+    // translation ends up in the bottom row, which doesn't affect normals (with w = 0)
+    expected[12] = 0;
+    expected[13] = 0;
+    expected[14] = 0;
+    final var m1 = Matrix4.normalTransform(rotation, scale);
+    assertArrayEquals(expected, m1.toArray(), EPSILON);
+  }
+
   @Test
   void identityInvertedIsIdentity() {
     final float[] expected = {
@@ -0,0 +1,116 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MutableMatrix4Test {
+
+  @Test
+  void createIdentity() {
+    assertArrayEquals(Matrix4.identity().toArray(), toArray(MutableMatrix4.identity()), 0);
+  }
+
+  @Test
+  void setTransformMatchesImmutable() {
+    final var translation = Vector3.of(1, -2, 3);
+    final var rotation = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, 2, 3);
+
+    final var expected = Matrix4.transform(translation, rotation, scale);
+    final var actual = MutableMatrix4.identity().setTransform(translation, rotation, scale);
+    assertArrayEquals(expected.toArray(), toArray(actual), EPSILON);
+  }
+
+  @Test
+  void setNormalTransformMatchesImmutable() {
+    final var rotation = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, 2, 3);
+
+    final var expected = Matrix4.normalTransform(rotation, scale);
+    final var actual = MutableMatrix4.identity().setNormalTransform(rotation, scale);
+    assertArrayEquals(expected.toArray(), toArray(actual), EPSILON);
+  }
+
+  @Test
+  void setNormalTransformOfModelMatchesComponents() {
+    final var rotation = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, -2, 3);
+
+    final var expected = Matrix4.normalTransform(rotation, scale);
+    final var model = MutableMatrix4.identity().setTransform(Vector3.of(1, 2, 3), rotation, scale);
+    assertArrayEquals(
+        expected.toArray(), toArray(MutableMatrix4.identity().setNormalTransform(model)), EPSILON);
+    assertArrayEquals(expected.toArray(), toArray(model.setNormalTransform(model)), EPSILON);
+  }
+
+  @Test
+  void mat3RoundTripsThroughUpperLeft() {
+    final var m = MutableMatrix4.identity().setTransform(1, 2, 3, 0.1f, 0.2f, 0.3f, 2, 3, 4);
+    final var mat3 = new float[10];
+    m.toMat3Array(mat3, 1);
+
+    final var expected = m.toImmutable().toArray();
+    // the translation is dropped
+    expected[3] = 0;
+    expected[7] = 0;
+    expected[11] = 0;
+    assertArrayEquals(expected, toArray(MutableMatrix4.identity().setMat3(mat3, 1)), 0);
+  }
+
+  @Test
+  void multiplyMatchesImmutable() {
+    final var a = Matrix4.transform(Vector3.of(1, 2, 3), Vector3.of(0.1f, 0.2f, 0.3f), 2);
+    final var b = Matrix4.transform(Vector3.of(-3, 0, 1), Vector3.of(0.4f, -0.5f, 0.6f), 0.5f);
+
+    final var expected = a.times(b);
+    assertArrayEquals(expected.toArray(), toArray(MutableMatrix4.of(a).multiply(b)), EPSILON);
+
+    final var mutA = MutableMatrix4.of(a);
+    final var mutB = MutableMatrix4.of(b);
+    assertArrayEquals(expected.toArray(), toArray(mutA.setProduct(mutA, mutB)), EPSILON);
+  }
+
+  @Test
+  void invertMatchesImmutable() {
+    final var m = Matrix4.transform(Vector3.of(1, 2, 3), Vector3.of(0.1f, 0.2f, 0.3f), 2);
+    assertArrayEquals(m.invert().toArray(), toArray(MutableMatrix4.of(m).invert()), EPSILON);
+  }
+
+  @Test
+  void transposeMatchesImmutable() {
+    final float[] values = {
+      1, 2, 3, 4,
+      5, 6, 7, 8,
+      9, 10, 11, 12,
+      13, 14, 15, 16
+    };
+    final var m = Matrix4.of(values);
+    assertArrayEquals(m.transpose().toArray(), toArray(MutableMatrix4.of(m).transpose()), 0);
+  }
+
+  @Test
+  void transformPositionMatchesImmutable() {
+    final var m = Matrix4.transform(Vector3.of(1, 2, 3), Vector3.of(0.1f, 0.2f, 0.3f), 2);
+    final var expected = m.times(Vector4.of(4, 5, 6, 1));
+    final var actual = MutableMatrix4.of(m).transformPosition(MutableVector3.of(4, 5, 6));
+
+    assertEquals(expected.x, actual.x, EPSILON);
+    assertEquals(expected.y, actual.y, EPSILON);
+    assertEquals(expected.z, actual.z, EPSILON);
+  }
+
+  @Test
+  void toArrayRejectsShortArray() {
+    assertThrows(
+        IllegalArgumentException.class, () -> MutableMatrix4.identity().toArray(new float[15]));
+  }
+
+  private static float[] toArray(MutableMatrix4 m) {
+    final var array = new float[16];
+    m.toArray(array);
+    return array;
+  }
+}
@@ -0,0 +1,57 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MutableVector3Test {
+
+  @Test
+  void operationsModifyInPlace() {
+    final var v1 = MutableVector3.of(1, 2, 3);
+    assertSame(v1, v1.add(Vector3.of(1, 1, 1)));
+    assertSame(v1, v1.scale(2));
+    assertVectorEquals(4, 6, 8, v1);
+
+    assertSame(v1, v1.subtract(1, 2, 3));
+    assertVectorEquals(3, 4, 5, v1);
+  }
+
+  @Test
+  void addScaled() {
+    final var v1 = MutableVector3.of(1, 2, 3).addScaled(Vector3.of(2, -4, 6), 0.5f);
+    assertVectorEquals(2, 0, 6, v1);
+  }
+
+  @Test
+  void normalise() {
+    final var v1 = MutableVector3.of(2, 3, 6).normalise();
+    assertVectorEquals(0.28571428f, 0.42857142f, 0.85714285f, v1);
+    assertEquals(1, v1.length(), EPSILON);
+  }
+
+  @Test
+  void normaliseZero() {
+    assertVectorEquals(0, 0, 0, MutableVector3.zero().normalise());
+  }
+
+  @Test
+  void crossMatchesImmutable() {
+    final var a = Vector3.of(1, 2, 3);
+    final var b = Vector3.of(-4, 5, 0.5f);
+    final var expected = a.cross(b);
+    assertVectorEquals(expected.x, expected.y, expected.z, MutableVector3.of(a).cross(b));
+  }
+
+  @Test
+  void toImmutable() {
+    assertEquals(Vector3.of(1, 2, 3), MutableVector3.of(1, 2, 3).toImmutable());
+  }
+
+  private static void assertVectorEquals(float x, float y, float z, MutableVector3 actual) {
+    assertEquals(x, actual.x, EPSILON);
+    assertEquals(y, actual.y, EPSILON);
+    assertEquals(z, actual.z, EPSILON);
+  }
+}
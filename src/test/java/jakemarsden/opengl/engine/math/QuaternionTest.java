@@ -0,0 +1,108 @@
+package jakemarsden.opengl.engine.math;
+
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class QuaternionTest {
+
+  private static final float TOLERANCE = 1e-5f;
+
+  @Test
+  void eulerMatchesMatrix4() {
+    final var angles = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    assertArrayEquals(
+        Matrix4.rotate(angles).toArray(),
+        Quaternion.euler(angles).toMatrix().toArray(),
+        TOLERANCE);
+  }
+
+  @Test
+  void transformMatchesEulerTransform() {
+    final var translation = Vector3.of(1, -2, 3);
+    final var angles = Vector3.of(PI / 3, PI / 5, -PI / 7);
+    final var scale = Vector3.of(0.5f, 2, 3);
+    final var rotation = Quaternion.euler(angles);
+
+    assertArrayEquals(
+        Matrix4.transform(translation, angles, scale).toArray(),
+        Matrix4.transform(translation, rotation, scale).toArray(),
+        TOLERANCE);
+    assertArrayEquals(
+        Matrix4.normalTransform(angles, scale).toArray(),
+        Matrix4.normalTransform(rotation, scale).toArray(),
+        TOLERANCE);
+  }
+
+  @Test
+  void timesComposesLikeMatrices() {
+    final var a = Quaternion.axisAngle(Vector3.of(1, 2, 3), 0.7f);
+    final var b = Quaternion.euler(0.1f, -0.4f, 1.3f);
+    assertArrayEquals(
+        a.toMatrix().times(b.toMatrix()).toArray(), a.times(b).toMatrix().toArray(), TOLERANCE);
+  }
+
+  @Test
+  void rotateMatchesMatrix() {
+    final var q = Quaternion.axisAngle(Vector3.of(-1, 2, 0.5f), 1.1f);
+    final var v = Vector3.of(3, -1, 2);
+    final var expected = q.toMatrix().times(Vector4.of(v, 1));
+    final var actual = q.rotate(v);
+    assertEquals(expected.x, actual.x, TOLERANCE);
+    assertEquals(expected.y, actual.y, TOLERANCE);
+    assertEquals(expected.z, actual.z, TOLERANCE);
+  }
+
+  @Test
+  void conjugateUndoesRotation() {
+    final var q = Quaternion.euler(0.3f, 0.2f, 0.1f);
+    assertQuaternionEquals(Quaternion.identity(), q.times(q.conjugate()), EPSILON);
+  }
+
+  @Test
+  void integrateMatchesAxisAngle() {
+    final var axis = Vector3.unit(1, 2, -2);
+    final var speed = 3f;
+    final var start = Quaternion.euler(0.5f, 0, 0.25f);
+
+    var q = start;
+    for (var step = 0; step < 60; step++) q = q.integrate(axis.times(speed), 1 / 60f);
+
+    final var expected = Quaternion.axisAngle(axis, speed).times(start);
+    assertQuaternionEquals(expected, q, TOLERANCE);
+  }
+
+  @Test
+  void slerpInterpolatesAtConstantSpeed() {
+    final var from = Quaternion.identity();
+    final var to = Quaternion.axisAngle(Vector3.of(0, 1, 0), PI / 2);
+
+    assertQuaternionEquals(from, from.slerp(to, 0), EPSILON);
+    assertQuaternionEquals(to, from.slerp(to, 1), EPSILON);
+    assertQuaternionEquals(
+        Quaternion.axisAngle(Vector3.of(0, 1, 0), PI / 8), from.slerp(to, 0.25f), EPSILON);
+  }
+
+  @Test
+  void slerpTakesTheShortestPath() {
+    final var from = Quaternion.identity();
+    final var to = Quaternion.axisAngle(Vector3.of(0, 0, 1), PI / 2);
+    // the same rotation as `to`, but on the opposite side of the hypersphere
+    final var negated = Quaternion.of(-to.x, -to.y, -to.z, -to.w);
+
+    final var expected = Quaternion.axisAngle(Vector3.of(0, 0, 1), PI / 4);
+    assertQuaternionEquals(expected, from.slerp(negated, 0.5f), EPSILON);
+    assertQuaternionEquals(expected, from.nlerp(negated, 0.5f), EPSILON);
+  }
+
+  /** {@code q} and {@code -q} are the same rotation */
+  private static void assertQuaternionEquals(Quaternion expected, Quaternion actual, float delta) {
+    final var sign = expected.dot(actual) < 0 ? -1 : 1;
+    assertEquals(expected.x, sign * actual.x, delta);
+    assertEquals(expected.y, sign * actual.y, delta);
+    assertEquals(expected.z, sign * actual.z, delta);
+    assertEquals(expected.w, sign * actual.w, delta);
+  }
+}
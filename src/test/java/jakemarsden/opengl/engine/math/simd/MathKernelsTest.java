@@ -0,0 +1,119 @@
+package jakemarsden.opengl.engine.math.simd;
+
+import static jakemarsden.opengl.engine.math.Math.EPSILON;
+import static jakemarsden.opengl.engine.math.Math.PI;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.Projection;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.math.Vector4;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MathKernelsTest {
+
+  private static final Matrix4 TRANSFORM =
+      Matrix4.transform(Vector3.of(1, -2, 3), Vector3.of(PI / 3, PI / 5, -PI / 7), Vector3.of(2));
+
+  @Test
+  void bestIsVectorWhenAvailable() {
+    final var vector = MathKernels.vector();
+    assertSame(vector != null ? vector : MathKernels.scalar(), MathKernels.best());
+  }
+
+  @Test
+  void multiplyMatchesMatrix4() {
+    final var a = Projection.perspective(PI / 4, 16 / 9f, 0.1f, 100);
+    final var b0 = TRANSFORM;
+    final var b1 = Matrix4.transform(Vector3.of(4, 5, 6), Vector3.of(0, PI / 2, 0), Vector3.of(3));
+    final var expected = concat(a.times(b0).toArray(), a.times(b1).toArray());
+
+    for (final var kernels : kernels()) {
+      final var dest = new float[2 * 16];
+      final var b = concat(b0.toArray(), b1.toArray());
+      kernels.multiply(a.toArray(), 0, b, 0, dest, 0, 2);
+      assertArrayEquals(expected, dest, EPSILON, kernels.getName());
+
+      // in place
+      kernels.multiply(a.toArray(), 0, b, 0, b, 0, 2);
+      assertArrayEquals(expected, b, EPSILON, kernels.getName());
+    }
+  }
+
+  @Test
+  void transformPointsMatchesMatrix4() {
+    final var p0 = TRANSFORM.times(Vector4.of(1, 2, 3, 1));
+    final var p1 = TRANSFORM.times(Vector4.of(-4, 0, 0.5f, 1));
+    final var expected = new float[] {p0.x, p0.y, p0.z, p1.x, p1.y, p1.z};
+
+    for (final var kernels : kernels()) {
+      // exactly big enough, so writing past the last point would throw
+      final var points = new float[] {9, 1, 2, 3, -4, 0, 0.5f};
+      kernels.transformPoints(TRANSFORM.toArray(), 0, points, 1, points, 1, 2);
+      assertArrayEquals(concat(new float[] {9}, expected), points, EPSILON, kernels.getName());
+    }
+  }
+
+  @Test
+  void transformBoundsEnclosesTransformedCorners() {
+    final var corners = new float[8 * 3];
+    for (var i = 0; i < 8; i++) {
+      final var corner =
+          TRANSFORM.times(
+              Vector4.of((i & 1) == 0 ? -1 : 2, (i & 2) == 0 ? -3 : 4, (i & 4) == 0 ? 5 : 6, 1));
+      corners[3 * i] = corner.x;
+      corners[3 * i + 1] = corner.y;
+      corners[3 * i + 2] = corner.z;
+    }
+    final var e = Aabb.enclosing(corners);
+    final var empty = Aabb.empty();
+    final var expected =
+        new float[] {
+          e.minX, e.minY, e.minZ, e.maxX, e.maxY, e.maxZ,
+          empty.minX, empty.minY, empty.minZ, empty.maxX, empty.maxY, empty.maxZ
+        };
+
+    for (final var kernels : kernels()) {
+      final var bounds =
+          new float[] {
+            -1, -3, 5, 2, 4, 6,
+            empty.minX, empty.minY, empty.minZ, empty.maxX, empty.maxY, empty.maxZ
+          };
+      kernels.transformBounds(TRANSFORM.toArray(), 0, bounds, 0, bounds, 0, 2);
+      assertArrayEquals(expected, bounds, 1e-4f, kernels.getName());
+    }
+  }
+
+  @Test
+  void negativeCountIsRejected() {
+    for (final var kernels : kernels()) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> kernels.transformPoints(new float[16], 0, new float[0], 0, new float[0], 0, -1));
+    }
+  }
+
+  /** @return every implementation available on this JVM */
+  private static List<MathKernels> kernels() {
+    final var kernels = new ArrayList<MathKernels>();
+    kernels.add(MathKernels.scalar());
+    final var vector = MathKernels.vector();
+    if (vector != null) kernels.add(vector);
+    return kernels;
+  }
+
+  private static float[] concat(float[]... arrays) {
+    var length = 0;
+    for (final var array : arrays) length += array.length;
+    final var result = new float[length];
+    var offset = 0;
+    for (final var array : arrays) {
+      System.arraycopy(array, 0, result, offset, array.length);
+      offset += array.length;
+    }
+    return result;
+  }
+}
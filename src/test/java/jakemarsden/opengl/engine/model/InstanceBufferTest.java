@@ -0,0 +1,77 @@
+package jakemarsden.opengl.engine.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import org.junit.jupiter.api.Test;
+
+class InstanceBufferTest {
+
+  @Test
+  void drawsEveryInstanceInOneDrawCall() {
+    final var gl = RecordingGl.create();
+    final var instances = InstanceBuffer.create(gl, 400);
+    final var transform = MutableMatrix4.identity();
+    final var normal = MutableMatrix4.identity();
+    for (var i = 0; i < 400; i++) instances.add(transform.setTranslate(i, 0, 0), normal);
+
+    instances.draw(GL_TRIANGLES, 36, GL_UNSIGNED_SHORT);
+
+    assertEquals(1, gl.getDrawCalls());
+    assertEquals(400, gl.getInstancesDrawn());
+    assertEquals(1, gl.getBufferUploads());
+    // a 4x4 model transform and a 3x3 normal transform per instance
+    assertEquals(400 * (16 + 9) * Float.BYTES, gl.getBytesUploaded());
+  }
+
+  @Test
+  void drawsNothingWithoutInstances() {
+    final var gl = RecordingGl.create();
+    final var instances = InstanceBuffer.create(gl, 4);
+
+    instances.draw(GL_TRIANGLES, 36, GL_UNSIGNED_SHORT);
+
+    assertEquals(0, gl.getDrawCalls());
+    assertEquals(0, gl.getBufferUploads());
+  }
+
+  @Test
+  void clearingStartsTheNextFrameFromScratch() {
+    final var gl = RecordingGl.create();
+    final var instances = InstanceBuffer.create(gl, 4);
+    final var transform = MutableMatrix4.identity();
+
+    for (var frame = 1; frame <= 3; frame++) {
+      instances.clear();
+      for (var i = 0; i < frame; i++) instances.add(transform, transform);
+      instances.draw(GL_TRIANGLES, 36, GL_UNSIGNED_SHORT);
+    }
+
+    assertEquals(3, gl.getDrawCalls());
+    assertEquals(1 + 2 + 3, gl.getInstancesDrawn());
+  }
+
+  @Test
+  void growsToFitExtraInstances() {
+    final var gl = RecordingGl.create();
+    final var instances = InstanceBuffer.create(gl, 1);
+    final var transform = MutableMatrix4.identity();
+    for (var i = 0; i < 10; i++) instances.add(transform, transform);
+
+    instances.draw(GL_TRIANGLES, 36, GL_UNSIGNED_SHORT);
+
+    assertEquals(10, instances.size());
+    assertTrue(instances.capacity() >= 10);
+    assertEquals(1, gl.getDrawCalls());
+    assertEquals(10, gl.getInstancesDrawn());
+  }
+
+  @Test
+  void rejectsNonPositiveCapacity() {
+    final var gl = RecordingGl.create();
+    assertThrows(IllegalArgumentException.class, () -> InstanceBuffer.create(gl, 0));
+  }
+}
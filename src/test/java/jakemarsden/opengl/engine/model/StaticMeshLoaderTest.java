@@ -0,0 +1,31 @@
+package jakemarsden.opengl.engine.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Vector2;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.nio.FloatBuffer;
+import org.junit.jupiter.api.Test;
+
+class StaticMeshLoaderTest {
+
+  @Test
+  void interleavesEachVertexsAttributes() {
+    final Vertex[] vertices = {
+      Vertex.of(Vector3.of(1, 2, 3), Vector3.of(4, 5, 6), Vector2.of(7, 8)),
+      Vertex.of(Vector3.of(9, 10, 11), Vector3.of(12, 13, 14), Vector2.of(15, 16)),
+    };
+    final var dest =
+        FloatBuffer.allocate(StaticMeshLoader.INTERLEAVED_VERTEX_SIZE * vertices.length);
+
+    final var bounds = StaticMeshLoader.interleave(vertices, dest);
+
+    assertEquals(Aabb.of(1, 2, 3, 9, 10, 11), bounds);
+    assertEquals(0, dest.position());
+    assertEquals(16, dest.limit());
+    final var actual = new float[16];
+    dest.get(actual);
+    assertArrayEquals(new float[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}, actual);
+  }
+}
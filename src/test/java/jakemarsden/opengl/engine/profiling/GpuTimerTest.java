@@ -0,0 +1,48 @@
+package jakemarsden.opengl.engine.profiling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import org.junit.jupiter.api.Test;
+
+class GpuTimerTest {
+
+  @Test
+  void recordsTheTimeBetweenTimestamps() {
+    final var gl = RecordingGl.create();
+    final var profiler = Profiler.create(16, () -> 0);
+    final var timer = profiler.gpuTimer("gpu", gl);
+
+    for (var frame = 0; frame < 3; frame++) {
+      gl.setTimestamp(frame * 1_000_000L);
+      timer.begin();
+      gl.setTimestamp(frame * 1_000_000L + 200_000 * (frame + 1));
+      timer.end();
+    }
+    // results are only read back when they're available, so the last frame's are still pending
+    final var pending = profiler.getStats("gpu");
+    assertNotNull(pending);
+    assertEquals(2, pending.sampleCount);
+
+    timer.collect();
+    final var stats = profiler.getStats("gpu");
+    assertNotNull(stats);
+    assertEquals(3, stats.sampleCount);
+    assertEquals(200_000, stats.min);
+    assertEquals(600_000, stats.max);
+    assertEquals(0, timer.getDroppedCount());
+  }
+
+  @Test
+  void disabledTimerDoesntTouchGl() {
+    final var gl = RecordingGl.create();
+    final var timer = Profiler.disabled().gpuTimer("gpu", gl);
+    timer.begin();
+    timer.end();
+    timer.collect();
+    timer.destroy();
+
+    final var probe = gl.genQueries();
+    assertEquals(1, probe);
+  }
+}
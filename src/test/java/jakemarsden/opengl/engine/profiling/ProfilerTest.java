@@ -0,0 +1,124 @@
+package jakemarsden.opengl.engine.profiling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ProfilerTest {
+
+  private long time = 0;
+
+  @Test
+  void sectionsAreTimedWithTheClock() {
+    final var profiler = Profiler.create(16, () -> this.time);
+    final var timer = profiler.section("update");
+    assertSame(timer, profiler.section("update"));
+
+    for (var i = 1; i <= 3; i++) {
+      timer.start();
+      this.time += i * 1000;
+      timer.stop();
+    }
+    // not running, so not recorded
+    timer.stop();
+
+    final var stats = profiler.getStats("update");
+    assertNotNull(stats);
+    assertEquals(3, stats.sampleCount);
+    assertEquals(1000, stats.min);
+    assertEquals(2000, stats.mean);
+    assertEquals(2000, stats.p50);
+    assertEquals(3000, stats.p99);
+    assertEquals(3000, stats.max);
+    assertNull(profiler.getStats("render"));
+  }
+
+  @Test
+  void percentilesUseTheNearestRank() {
+    final var profiler = Profiler.create(128, () -> this.time);
+    final var timer = profiler.section("frame");
+    // recorded out of order, so they have to be sorted
+    for (var i = 100; i >= 1; i--) timer.record(i);
+
+    final var stats = profiler.getStats("frame");
+    assertNotNull(stats);
+    assertEquals(50, stats.p50);
+    assertEquals(95, stats.p95);
+    assertEquals(99, stats.p99);
+    assertEquals(100, stats.max);
+  }
+
+  @Test
+  void onlyTheMostRecentSamplesAreKept() {
+    final var profiler = Profiler.create(4, () -> this.time);
+    final var timer = profiler.section("frame");
+    for (var i = 1; i <= 10; i++) timer.record(i);
+
+    final var stats = profiler.getStats("frame");
+    assertNotNull(stats);
+    assertEquals(4, stats.sampleCount);
+    assertEquals(10, stats.totalCount);
+    assertEquals(7, stats.min);
+    assertEquals(10, stats.max);
+  }
+
+  @Test
+  void historySizeIsRoundedUpToAPowerOfTwo() {
+    assertEquals(1, SampleHistory.create(1).getCapacity());
+    assertEquals(8, SampleHistory.create(5).getCapacity());
+    assertEquals(8, SampleHistory.create(8).getCapacity());
+    assertThrows(IllegalArgumentException.class, () -> SampleHistory.create(0));
+  }
+
+  @Test
+  void snapshotsTakenWhileTheWriterWrapsAroundOnlyHoldIntactSamples() throws Exception {
+    final var history = SampleHistory.create(8);
+    // each sample is its own index, so any which were overwritten stand out
+    final var writer =
+        new Thread(
+            () -> {
+              for (var i = 0; i < 2_000_000; i++) history.add(i);
+            });
+    writer.start();
+
+    var snapshots = 0;
+    while (writer.isAlive() || snapshots == 0) {
+      final var snapshot = history.snapshot();
+      for (var i = 1; i < snapshot.length; i++) {
+        assertEquals(snapshot[i - 1] + 1, snapshot[i], "snapshot " + snapshots + " at " + i);
+      }
+      snapshots++;
+    }
+    writer.join();
+    assertEquals(2_000_000, history.getCount());
+    assertEquals(1_999_999, history.snapshot()[7]);
+  }
+
+  @Test
+  void summaryListsSectionsInTheOrderTheyWereFirstTimed() {
+    final var profiler = Profiler.create(16, () -> this.time);
+    profiler.section("update").record(1_500_000);
+    profiler.section("render").record(250_000);
+    profiler.section("idle");
+
+    assertEquals("update 1.50/1.50/1.50ms | render 0.25/0.25/0.25ms", profiler.formatSummary());
+    assertEquals(3, profiler.getStats().size());
+    assertThrows(
+        IllegalArgumentException.class, () -> profiler.setSummaryInterval(Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  void disabledProfilerDoesNothing() {
+    final var profiler = Profiler.disabled();
+    final var timer = profiler.section("update");
+    timer.start();
+    assertFalse(timer.isRunning());
+    timer.record(1000);
+    profiler.endFrame();
+
+    assertFalse(profiler.isEnabled());
+    assertTrue(profiler.getStats().isEmpty());
+    assertEquals("", profiler.formatSummary());
+  }
+}
@@ -0,0 +1,261 @@
+package jakemarsden.opengl.engine.render;
+
+import static jakemarsden.opengl.engine.render.RenderQueue.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.gl.Gl;
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import jakemarsden.opengl.engine.light.DirectionalLight;
+import jakemarsden.opengl.engine.light.LightClusterGrid;
+import jakemarsden.opengl.engine.light.PointLight;
+import jakemarsden.opengl.engine.light.SpotLight;
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Color4;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.res.ResourceLoader;
+import jakemarsden.opengl.engine.res.material.ColorMaterial;
+import jakemarsden.opengl.engine.res.material.Material;
+import jakemarsden.opengl.engine.res.texture.TextureLoader;
+import jakemarsden.opengl.engine.shader.Shader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RenderQueueTest {
+
+  @Test
+  void keyFieldsFillALongWithoutTheSignBit() {
+    assertEquals(63, SHADER_SHIFT + SHADER_BITS);
+  }
+
+  @Test
+  void fieldsCanBeUnpackedFromKey() {
+    final var key = key(5, 1234, 4321, 65535, 42);
+
+    assertTrue(key >= 0);
+    assertEquals(5, field(key, SHADER_SHIFT, SHADER_BITS));
+    assertEquals(1234, field(key, MATERIAL_SHIFT, MATERIAL_BITS));
+    assertEquals(4321, field(key, MESH_SHIFT, MESH_BITS));
+    assertEquals(65535, field(key, DEPTH_SHIFT, DEPTH_BITS));
+    assertEquals(42, field(key, ITEM_SHIFT, ITEM_BITS));
+  }
+
+  @Test
+  void keysSortByShaderThenMaterialThenMeshThenDepth() {
+    final var maxItem = (1 << ITEM_BITS) - 1;
+    final var maxDepth = (1 << DEPTH_BITS) - 1;
+    final var maxMesh = (1 << MESH_BITS) - 1;
+    final var maxMat = (1 << MATERIAL_BITS) - 1;
+
+    assertTrue(key(0, maxMat, maxMesh, maxDepth, maxItem) < key(1, 0, 0, 0, 0));
+    assertTrue(key(0, 0, maxMesh, maxDepth, maxItem) < key(0, 1, 0, 0, 0));
+    assertTrue(key(0, 0, 0, maxDepth, maxItem) < key(0, 0, 1, 0, 0));
+    assertTrue(key(0, 0, 0, 0, maxItem) < key(0, 0, 0, 1, 0));
+  }
+
+  @Test
+  void rejectsNonPositiveMaxDepth() {
+    assertThrows(IllegalArgumentException.class, () -> RenderQueue.create(0));
+    assertThrows(IllegalArgumentException.class, () -> RenderQueue.create(Float.NaN));
+  }
+
+  @Test
+  void emptyQueueFlushesWithoutDrawing() {
+    final var queue = RenderQueue.create(100);
+    queue.flush();
+
+    assertEquals(0, queue.size());
+    assertEquals(0, queue.getDrawCalls());
+    assertEquals(0, queue.getShaderBinds());
+  }
+
+  @Test
+  void flushOnlyBindsEachShaderAndMaterialWhenItChanges() {
+    final var gl = RecordingGl.create();
+    final var texLoader = TextureLoader.create(gl, ResourceLoader.create(Material.class, ""));
+    final var red = ColorMaterial.create(texLoader, "red", Color4.rgba(1, 0, 0, 1));
+    final var blue = ColorMaterial.create(texLoader, "blue", Color4.rgba(0, 0, 1, 1));
+    final var redMesh = new StubMesh(red);
+    final var blueMesh = new StubMesh(blue);
+    final var shader1 = new RecordingShader(gl, 1);
+    final var shader2 = new RecordingShader(gl, 2);
+
+    final var queue = RenderQueue.create(100);
+    queue.submit(shader2, redMesh, null, 1);
+    queue.submit(shader1, redMesh, null, 2);
+    queue.submit(shader1, blueMesh, null, 3);
+    queue.submit(shader1, redMesh, null, 4);
+    final var bindRed = record(gl, red::bind);
+    final var bindBlue = record(gl, blue::bind);
+    final var unbindBlue = record(gl, blue::unbind);
+    queue.flush();
+
+    // shader2 was submitted first so it's bound first, and shader1's red meshes are drawn together.
+    // Red's textures stay bound when the shader changes, so only its uniforms are set again
+    final var expected = new ArrayList<String>();
+    expected.add("useProgram(2)");
+    expected.addAll(bindRed);
+    expected.add("useProgram(1)");
+    expected.addAll(bindBlue);
+    expected.addAll(unbindBlue);
+    expected.add("useProgram(0)");
+    assertEquals(expected, gl.getCommands());
+
+    assertEquals(4, queue.getDrawCalls());
+    assertEquals(2, queue.getShaderBinds());
+    assertEquals(2, queue.getShaderBindsSkipped());
+    assertEquals(2, queue.getMaterialBinds());
+    assertEquals(2, queue.getMaterialBindsSkipped());
+    assertEquals(List.of(red), shader2.materials);
+    assertEquals(List.of(red, blue), shader1.materials);
+    assertEquals(2, queue.getMeshBinds());
+    assertEquals(2, queue.getMeshBindsSkipped());
+    // including unbinding everything at the end
+    assertEquals(3, gl.getStats().getProgramBinds());
+    assertEquals(2 * 4 + 4, gl.getStats().getTextureBinds());
+  }
+
+  @Test
+  void eachDistinctMeshIsOnlyBoundOnce() {
+    final var gl = RecordingGl.create();
+    final var texLoader = TextureLoader.create(gl, ResourceLoader.create(Material.class, ""));
+    final var red = ColorMaterial.create(texLoader, "red", Color4.rgba(1, 0, 0, 1));
+    final var meshes = new StubMesh[1000];
+    for (var idx = 0; idx < meshes.length; idx++) meshes[idx] = new StubMesh(red);
+    final var shader = new RecordingShader(gl, 1);
+
+    final var queue = RenderQueue.create(100);
+    for (var frame = 0; frame < 2; frame++) {
+      for (final var mesh : meshes) queue.submit(shader, mesh, null, 1);
+      for (final var mesh : meshes) queue.submit(shader, mesh, null, 2);
+      queue.flush();
+
+      assertEquals(2 * meshes.length, queue.getDrawCalls());
+      assertEquals(meshes.length, queue.getMeshBinds());
+      assertEquals(meshes.length, queue.getMeshBindsSkipped());
+    }
+  }
+
+  @Test
+  void flushBindsASingleShaderAndMaterialOnce() {
+    final var gl = RecordingGl.create();
+    final var texLoader = TextureLoader.create(gl, ResourceLoader.create(Material.class, ""));
+    final var mesh = new StubMesh(ColorMaterial.create(texLoader, "red", Color4.rgba(1, 0, 0, 1)));
+    final var shader = new RecordingShader(gl, 1);
+
+    final var queue = RenderQueue.create(100);
+    for (var idx = 0; idx < 10; idx++) queue.submit(shader, mesh, null, idx);
+    gl.reset();
+    queue.flush();
+
+    assertEquals(10, queue.getDrawCalls());
+    assertEquals(9, queue.getShaderBindsSkipped());
+    assertEquals(9, queue.getMaterialBindsSkipped());
+    assertEquals(9, queue.getMeshBindsSkipped());
+    assertEquals(2, gl.getStats().getProgramBinds());
+    assertEquals(4 + 4, gl.getStats().getTextureBinds());
+  }
+
+  /** @return the commands recorded by {@code action}, with the GL reset both before and after */
+  private static List<String> record(RecordingGl gl, Runnable action) {
+    gl.reset();
+    action.run();
+    final var commands = List.copyOf(gl.getCommands());
+    gl.reset();
+    return commands;
+  }
+
+  /** Only records being started and stopped, and the materials it's given */
+  private static final class RecordingShader implements Shader {
+
+    private final Gl gl;
+    private final int program;
+    final List<Material> materials = new ArrayList<>();
+
+    RecordingShader(Gl gl, int program) {
+      this.gl = gl;
+      this.program = program;
+    }
+
+    @Override
+    public void setCameraPosition(Vector3 pos) {}
+
+    @Override
+    public void setCameraTransform(Matrix4 camera) {}
+
+    @Override
+    public void setModelTransform(Matrix4 model) {}
+
+    @Override
+    public void setModelTransform(MutableMatrix4 model) {}
+
+    @Override
+    public void setModelTransform(MutableMatrix4 model, MutableMatrix4 normal) {}
+
+    @Override
+    public void setInstanced(boolean instanced) {}
+
+    @Override
+    public void setLights(
+        DirectionalLight directionalLight,
+        PointLight[] pointLights,
+        int pointLightCount,
+        SpotLight[] spotLights) {}
+
+    @Override
+    public void setLightClusters(LightClusterGrid clusters) {}
+
+    @Override
+    public void setMaterial(Material mat) {
+      this.materials.add(mat);
+    }
+
+    @Override
+    public void start() {
+      this.gl.useProgram(this.program);
+    }
+
+    @Override
+    public void stop() {
+      this.gl.useProgram(0);
+    }
+
+    @Override
+    public void destroy() {}
+  }
+
+  /** Draws nothing, and leaves binding its geometry to whoever needs it */
+  private static final class StubMesh implements Mesh {
+
+    private final Material material;
+
+    StubMesh(Material material) {
+      this.material = material;
+    }
+
+    @Override
+    public Material getMaterial() {
+      return this.material;
+    }
+
+    @Override
+    public Aabb getBounds() {
+      return Aabb.of(-1, -1, -1, 1, 1, 1);
+    }
+
+    @Override
+    public void bind() {}
+
+    @Override
+    public void unbind() {}
+
+    @Override
+    public void draw(Shader shader) {}
+
+    @Override
+    public void destroy() {}
+  }
+}
@@ -0,0 +1,106 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class PixelConverterTest {
+
+  private static final int[] TYPES = {
+    BufferedImage.TYPE_3BYTE_BGR,
+    BufferedImage.TYPE_4BYTE_ABGR,
+    BufferedImage.TYPE_INT_RGB,
+    BufferedImage.TYPE_INT_ARGB,
+    // not read directly, so goes through the colour model
+    BufferedImage.TYPE_INT_ARGB_PRE,
+    BufferedImage.TYPE_BYTE_GRAY,
+  };
+
+  private final PixelConverter sequential = PixelConverter.sequential();
+  /** Splits into ranges of just a few rows */
+  private final PixelConverter parallel = PixelConverter.parallel(ForkJoinPool.commonPool(), 64);
+
+  @Test
+  void matchesGetRgbForEveryType() {
+    for (final var type : TYPES) {
+      final var img = randomImage(type, 37, 23);
+      for (final var useAlpha : new boolean[] {false, true}) {
+        final var expected = convertPixelByPixel(img, useAlpha);
+        assertEquals(expected, this.sequential.convert(img, useAlpha), "type " + type);
+        assertEquals(expected, this.parallel.convert(img, useAlpha), "type " + type);
+      }
+    }
+  }
+
+  @Test
+  void readsOnlyTheSubImage() {
+    for (final var type : TYPES) {
+      final var img = randomImage(type, 40, 30).getSubimage(5, 7, 20, 11);
+      final var expected = convertPixelByPixel(img, true);
+      assertEquals(expected, this.sequential.convert(img, true), "type " + type);
+      assertEquals(expected, this.parallel.convert(img, true), "type " + type);
+    }
+  }
+
+  @Test
+  void intRgbIsOpaqueWhateverItsTopByte() {
+    final var img = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+    img.getRaster().setDataElements(0, 0, new int[] {0x00123456});
+    final var pixBuf = this.sequential.convert(img, true);
+    assertEquals(4, pixBuf.remaining());
+    assertEquals(0x12, pixBuf.get(0));
+    assertEquals(0x34, pixBuf.get(1));
+    assertEquals(0x56, pixBuf.get(2));
+    assertEquals((byte) 0xff, pixBuf.get(3));
+  }
+
+  @Test
+  void writesFromTheDestinationsPositionWithoutMovingIt() {
+    final var img = randomImage(BufferedImage.TYPE_3BYTE_BGR, 9, 5);
+    final var expected = convertPixelByPixel(img, false);
+    final var dst = ByteBuffer.allocate(3 + expected.remaining());
+    dst.position(3);
+    this.parallel.convert(img, false, dst);
+    assertEquals(3, dst.position());
+    assertEquals(expected, dst);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> this.sequential.convert(img, true, ByteBuffer.allocate(10)));
+  }
+
+  @Test
+  void rejectsBadGrainSizes() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PixelConverter.parallel(ForkJoinPool.commonPool(), 0));
+  }
+
+  private static BufferedImage randomImage(int type, int width, int height) {
+    final var rnd = new Random(type);
+    final var img = new BufferedImage(width, height, type);
+    for (var y = 0; y < height; y++) {
+      for (var x = 0; x < width; x++) img.setRGB(x, y, rnd.nextInt());
+    }
+    return img;
+  }
+
+  /** How textures used to be converted */
+  private static ByteBuffer convertPixelByPixel(BufferedImage img, boolean useAlpha) {
+    final var pixBuf = ByteBuffer.allocate(img.getWidth() * img.getHeight() * (useAlpha ? 4 : 3));
+    for (var y = 0; y < img.getHeight(); y++) {
+      for (var x = 0; x < img.getWidth(); x++) {
+        final var pix = img.getRGB(x, y);
+        pixBuf.put((byte) (pix >> 16));
+        pixBuf.put((byte) (pix >> 8));
+        pixBuf.put((byte) pix);
+        if (useAlpha) pixBuf.put((byte) (pix >> 24));
+      }
+    }
+    return pixBuf.flip();
+  }
+}
@@ -0,0 +1,51 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import org.junit.jupiter.api.Test;
+
+class StagingBufferRingTest {
+
+  private final RecordingGl gl = RecordingGl.create();
+
+  @Test
+  void buffersOnlyGrowUpToTheMaxRetainedSize() {
+    final var ring = StagingBufferRing.create(this.gl, 2, 100);
+    ring.map(80);
+    ring.map(60);
+    // small enough to keep, so they're reused as they are
+    ring.map(10);
+    ring.map(20);
+    assertEquals(80 + 60, ring.getCapacity());
+    assertEquals(10 + 20, ring.getStagedBytes());
+    assertEquals(2, this.countCommands("bufferData"));
+  }
+
+  @Test
+  void oversizedBufferIsShrunkByTheNextSmallerUpload() {
+    final var ring = StagingBufferRing.create(this.gl, 2, 100);
+    ring.map(1000);
+    ring.map(50);
+    assertEquals(1000 + 50, ring.getCapacity());
+
+    ring.map(40);
+    assertEquals(40 + 50, ring.getCapacity());
+    assertEquals(40 + 50, ring.getStagedBytes());
+    assertEquals(3, this.countCommands("bufferData"));
+
+    ring.destroy();
+    assertEquals(0, ring.getCapacity());
+    assertEquals(0, ring.getStagedBytes());
+  }
+
+  @Test
+  void rejectsBadSizes() {
+    assertThrows(IllegalArgumentException.class, () -> StagingBufferRing.create(this.gl, 0));
+    assertThrows(IllegalArgumentException.class, () -> StagingBufferRing.create(this.gl, 3, -1));
+  }
+
+  private long countCommands(String name) {
+    return this.gl.getCommands().stream().filter(it -> it.startsWith(name)).count();
+  }
+}
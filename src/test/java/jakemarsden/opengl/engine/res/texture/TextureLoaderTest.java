@@ -0,0 +1,202 @@
+package jakemarsden.opengl.engine.res.texture;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
+
+import jakemarsden.opengl.Application;
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import jakemarsden.opengl.engine.math.Color4;
+import jakemarsden.opengl.engine.res.ResourceLoader;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class TextureLoaderTest {
+
+  private static final String IMAGE = "crate.texture.png";
+
+  private final RecordingGl gl = RecordingGl.create();
+  private final ResourceLoader resLoader = ResourceLoader.create(Application.class, "res");
+  /** Only decodes when told to */
+  private final Queue<Runnable> decodes = new ArrayDeque<>();
+
+  private final Executor decodeExecutor = this.decodes::add;
+
+  @Test
+  void asyncImageShowsThePlaceholderUntilItsBeenUploaded() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    final var tex = loader.loadImage(IMAGE);
+    final var placeholder = loader.loadColor(TextureLoader.PLACEHOLDER_COLOR);
+
+    assertFalse(tex.isLoaded());
+    assertEquals(placeholder.id, tex.id);
+    assertEquals(0, loader.processUploads(Duration.ZERO));
+
+    this.decodeAll();
+    assertEquals(1, loader.processUploads(Duration.ZERO));
+    assertTrue(tex.isLoaded());
+    assertNotEquals(placeholder.id, tex.id);
+    assertEquals(500, tex.getWidth());
+
+    // only the placeholder's reference taken by this test is left
+    placeholder.destroy();
+    assertTrue(this.gl.getCommands().contains("deleteTextures(" + placeholder.id + ")"));
+  }
+
+  @Test
+  void asyncImagesAreSharedLikeAnyOther() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    final var tex1 = loader.loadImage(IMAGE);
+    final var tex2 = loader.loadImage(IMAGE);
+    assertSame(tex1, tex2);
+    assertEquals(1, this.decodes.size());
+
+    this.decodeAll();
+    loader.processUploads(Duration.ZERO);
+    final var texId = tex1.id;
+    tex1.destroy();
+    assertFalse(this.gl.getCommands().contains("deleteTextures(" + texId + ")"));
+    tex2.destroy();
+    assertTrue(this.gl.getCommands().contains("deleteTextures(" + texId + ")"));
+  }
+
+  @Test
+  void destroyingBeforeItsUploadedReleasesThePlaceholderAndSkipsTheUpload() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    final var tex = loader.loadImage(IMAGE);
+    final var placeholderId = tex.id;
+    tex.destroy();
+    assertTrue(this.gl.getCommands().contains("deleteTextures(" + placeholderId + ")"));
+
+    this.decodeAll();
+    this.gl.reset();
+    assertEquals(1, loader.processUploads(Duration.ZERO));
+    assertEquals(0, this.gl.getCommands().size());
+  }
+
+  @Test
+  void imageWhichCantBeLoadedKeepsItsPlaceholder() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    final var tex = loader.loadImage("missing.png");
+    this.decodeAll();
+    assertEquals(1, loader.processUploads(Duration.ZERO));
+    assertFalse(tex.isLoaded());
+    tex.destroy();
+  }
+
+  @Test
+  void imagesWhichFinishDecodingAfterDestroyAreThrownAway() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    final var decoded = loader.loadImage(IMAGE);
+    final var inFlight = loader.loadImage("crate.texture.specular.png");
+    this.decodes.remove().run();
+
+    loader.destroy();
+    this.decodeAll();
+    assertEquals(0, loader.processUploads(Duration.ofSeconds(10)));
+    assertFalse(decoded.isLoaded());
+    assertFalse(inFlight.isLoaded());
+  }
+
+  @Test
+  void ownDecodeThreadsAreShutDownWithTheLoader() throws Exception {
+    final var loader = TextureLoader.async(this.gl, this.resLoader);
+    final var tex = loader.loadImage(IMAGE);
+    final var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!tex.isLoaded() && System.nanoTime() < deadline) {
+      loader.processUploads(Duration.ZERO);
+      Thread.sleep(1);
+    }
+    assertTrue(tex.isLoaded());
+    assertTrue(decodeThreads().allMatch(Thread::isDaemon));
+    assertTrue(decodeThreads().findAny().isPresent());
+
+    loader.destroy();
+    while (decodeThreads().findAny().isPresent() && System.nanoTime() < deadline) Thread.sleep(1);
+    assertFalse(decodeThreads().findAny().isPresent());
+  }
+
+  @Test
+  void uploadsAtLeastOnePerCallWhateverTheBudget() {
+    final var loader = TextureLoader.async(this.gl, this.resLoader, this.decodeExecutor);
+    loader.loadImage(IMAGE);
+    loader.loadImage("crate.texture.specular.png");
+    this.decodeAll();
+
+    assertEquals(1, loader.processUploads(Duration.ZERO));
+    assertEquals(1, loader.processUploads(Duration.ofSeconds(10)));
+    assertEquals(0, loader.processUploads(Duration.ofSeconds(10)));
+  }
+
+  @Test
+  void syncImageIsLoadedStraightAway() {
+    final var loader = TextureLoader.create(this.gl, this.resLoader);
+    final var tex = loader.loadImage(IMAGE);
+    assertTrue(tex.isLoaded());
+    assertTrue(this.decodes.isEmpty());
+  }
+
+  @Test
+  void imageWhoseRowsArentAMultipleOfFourBytesFitsItsStagingBuffer() {
+    final var loader = TextureLoader.create(this.gl, this.resLoader);
+    // 5 RGB pixels, so 15 bytes, per row
+    final var tex = loader.loadImage("odd.texture.png");
+
+    assertTrue(tex.isLoaded());
+    assertEquals(5, tex.getWidth());
+    assertEquals(5 * 3 * 3, loader.getStagedBytes());
+    final var commands = this.gl.getCommands();
+    final var unpackAlignment = commands.indexOf("pixelStorei(" + GL_UNPACK_ALIGNMENT + ", 1)");
+    assertTrue(unpackAlignment >= 0, commands.toString());
+    assertTrue(unpackAlignment < commands.indexOf(find(commands, "texImage2D")));
+    tex.destroy();
+  }
+
+  @Test
+  void uploadsThroughARingOfStagingBuffersWhichAreReused() {
+    final var loader = TextureLoader.create(this.gl, this.resLoader);
+    final var tex = loader.loadImage(IMAGE);
+    // the first 3 buffers are created as they're needed, and then the first one is used again
+    for (final var color : new float[] {0.1f, 0.2f, 0.3f}) loader.loadColor(Color4.gray(color, 1));
+
+    final var commands = this.gl.getCommands();
+    assertEquals(3, commands.stream().filter(it -> it.startsWith("genBuffers")).count());
+    assertEquals(4, commands.stream().filter(it -> it.startsWith("mapBufferRange")).count());
+    // all filled from the bound staging buffer, rather than from client memory
+    final var texImages =
+        commands.stream().filter(it -> it.startsWith("texImage2D")).collect(toList());
+    assertEquals(4, texImages.size());
+    assertTrue(texImages.stream().allMatch(it -> it.endsWith(", 0)")), texImages.toString());
+    // the image's buffer is big enough for every colour texture after it
+    final var imageBytes = 500 * 500 * 3;
+    final var colorBytes = 4 * 4 * 3;
+    assertEquals(imageBytes + 2 * colorBytes, loader.getStagingCapacity());
+    // but only the last colour texture is still staged in it
+    assertEquals(3 * colorBytes, loader.getStagedBytes());
+
+    tex.destroy();
+    loader.destroy();
+    assertEquals(0, loader.getStagingCapacity());
+    assertEquals(0, loader.getStagedBytes());
+    assertEquals(3, commands.stream().filter(it -> it.startsWith("deleteBuffers")).count());
+  }
+
+  private static String find(List<String> commands, String prefix) {
+    return commands.stream().filter(it -> it.startsWith(prefix)).findFirst().orElseThrow();
+  }
+
+  private static Stream<Thread> decodeThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(it -> it.getName().startsWith("texture-decode-"));
+  }
+
+  private void decodeAll() {
+    Runnable decode;
+    while ((decode = this.decodes.poll()) != null) decode.run();
+  }
+}
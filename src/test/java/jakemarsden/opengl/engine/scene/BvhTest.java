@@ -0,0 +1,248 @@
+package jakemarsden.opengl.engine.scene;
+
+import static jakemarsden.opengl.engine.entity.CubeScene.PV;
+import static jakemarsden.opengl.engine.entity.CubeScene.cube;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.entity.Entity;
+import jakemarsden.opengl.engine.entity.EntityStore;
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.math.Frustum;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class BvhTest {
+
+  @Test
+  void nodeCountMatchesTheBuiltTree() {
+    for (var count = 0; count < 300; count++)
+      assertEquals(countNodes(count), Bvh.calculateNodeCount(count), "count " + count);
+  }
+
+  @Test
+  void queriesFindTheSameEntitiesAsTestingEveryOne() {
+    final var entities = randomCubes(EntityStore.create(), 500, new Random(0));
+    final var bvh = Bvh.sequential();
+    bvh.build(entities, entities.length);
+
+    final var frustum = Frustum.create().set(PV);
+    final var box = Aabb.of(-20, -10, -30, 10, 20, 0);
+    final var centre = Vector3.of(5, -5, 10);
+    final var expectedInFrustum = new HashSet<Entity>();
+    final var expectedInBox = new HashSet<Entity>();
+    final var expectedInSphere = new HashSet<Entity>();
+    for (final var entity : entities) {
+      final var bounds = entity.getBounds();
+      if (frustum.intersects(bounds)) expectedInFrustum.add(entity);
+      if (box.intersects(bounds)) expectedInBox.add(entity);
+      if (distanceTo(entity, centre) <= 20) expectedInSphere.add(entity);
+    }
+
+    assertEquals(expectedInFrustum, collect(visitor -> bvh.queryFrustum(frustum, visitor)));
+    assertEquals(expectedInBox, collect(visitor -> bvh.queryBox(box, visitor)));
+    assertEquals(expectedInSphere, collect(visitor -> bvh.querySphere(centre, 20, visitor)));
+  }
+
+  @Test
+  void visitorCanStopTheQueryEarly() {
+    final var entities = randomCubes(EntityStore.create(), 100, new Random(0));
+    final var bvh = Bvh.sequential();
+    bvh.build(entities, entities.length);
+
+    final var visited = new int[1];
+    bvh.queryBox(
+        Aabb.of(-100, -100, -100, 100, 100, 100),
+        entity -> {
+          visited[0]++;
+          return visited[0] < 3;
+        });
+    assertEquals(3, visited[0]);
+  }
+
+  @Test
+  void raycastFindsTheClosestHit() {
+    final var store = EntityStore.create();
+    final var near = cube(store, Vector3.of(0, 0, -10));
+    final var far = cube(store, Vector3.of(0, 0, -20));
+    final var aside = cube(store, Vector3.of(5, 0, -5));
+    final var bvh = Bvh.sequential();
+    bvh.build(new Entity[] {far, aside, near}, 3);
+
+    final var forward = Vector3.unit(0, 0, -1);
+    assertSame(near, bvh.raycastClosest(Vector3.zero(), forward, 100));
+    assertSame(far, bvh.raycastClosest(Vector3.of(0, 0, -15), forward, 100));
+    assertNull(bvh.raycastClosest(Vector3.zero(), forward, 5));
+    assertNull(bvh.raycastClosest(Vector3.zero(), Vector3.unit(0, 1, 0), 100));
+
+    final var hits = new HashSet<Entity>();
+    bvh.raycast(
+        Vector3.zero(),
+        forward,
+        100,
+        (entity, distance) -> {
+          hits.add(entity);
+          return 100;
+        });
+    assertEquals(Set.of(near, far), hits);
+  }
+
+  @Test
+  void findsTheNearestEntity() {
+    final var entities = randomCubes(EntityStore.create(), 500, new Random(0));
+    final var bvh = Bvh.sequential();
+    bvh.build(entities, entities.length);
+
+    final var point = Vector3.of(3, 7, -11);
+    var expected = entities[0];
+    for (final var entity : entities) {
+      final var distance = distanceTo(entity, point);
+      if (distance < distanceTo(expected, point)) expected = entity;
+    }
+
+    final var nearest = bvh.findNearest(point, 1000);
+    assertNotNull(nearest);
+    assertEquals(distanceTo(expected, point), distanceTo(nearest, point), 1e-4f);
+    assertNull(bvh.findNearest(Vector3.of(1000, 0, 0), 10));
+  }
+
+  @Test
+  void unboundedRaycastDoesntVisitEntitiesItMisses() {
+    final var entities = randomCubes(EntityStore.create(), 500, new Random(0));
+    final var bvh = Bvh.sequential();
+    bvh.build(entities, entities.length);
+
+    // from outside every cube, pointing away from all of them
+    final var origin = Vector3.of(0, 100, 0);
+    final var up = Vector3.unit(0, 1, 0);
+    final var visited = new HashSet<Entity>();
+    bvh.raycast(
+        origin,
+        up,
+        Float.POSITIVE_INFINITY,
+        (entity, distance) -> {
+          visited.add(entity);
+          return Float.POSITIVE_INFINITY;
+        });
+    assertEquals(0, visited.size());
+    assertNull(bvh.raycastClosest(origin, up, Float.POSITIVE_INFINITY));
+    final var towards = entities[0].getPosition().minus(origin);
+    assertNotNull(bvh.raycastClosest(origin, towards, Float.POSITIVE_INFINITY));
+  }
+
+  @Test
+  void unboundedFindNearestIgnoresEntitiesWithoutBounds() {
+    final var store = EntityStore.create();
+    final var empty = ModelLoader.load(new Mesh[0]);
+    final var cube = cube(store, Vector3.of(0, 0, -10));
+    final var bounded = new Entity[] {cube, Entity.builder(store, empty).build()};
+    final var bvh = Bvh.sequential();
+    bvh.build(bounded, bounded.length);
+    assertSame(cube, bvh.findNearest(Vector3.zero(), Float.POSITIVE_INFINITY));
+
+    final var unbounded = new Entity[] {Entity.builder(store, empty).build()};
+    bvh.build(unbounded, unbounded.length);
+    assertNull(bvh.findNearest(Vector3.zero(), Float.POSITIVE_INFINITY));
+  }
+
+  @Test
+  void refittingFollowsMovedEntities() {
+    final var store = EntityStore.create();
+    final var entity = cube(store, Vector3.of(0, 0, -10));
+    final var other = cube(store, Vector3.of(0, 0, 10));
+    final var bvh = Bvh.sequential();
+    bvh.build(new Entity[] {entity, other}, 2);
+
+    entity.setPosition(Vector3.of(50, 0, 0));
+    bvh.refit();
+
+    assertNull(bvh.findNearest(Vector3.of(0, 0, -10), 5));
+    assertSame(entity, bvh.findNearest(Vector3.of(50, 0, 0), 5));
+  }
+
+  @Test
+  void updateRebuildsOnceTheTreeIsTooDegraded() {
+    final var rnd = new Random(0);
+    final var entities = randomCubes(EntityStore.create(), 500, rnd);
+    final var bvh = Bvh.sequential();
+    bvh.build(entities, entities.length);
+
+    entities[0].setPosition(entities[0].getPosition().plus(Vector3.of(0.1f, 0, 0)));
+    assertFalse(bvh.update());
+    assertTrue(bvh.getDegradation() < 1.5f);
+
+    for (final var entity : entities) entity.setPosition(randomPosition(rnd));
+    assertTrue(bvh.update());
+    assertEquals(1, bvh.getDegradation(), 0);
+  }
+
+  @Test
+  void parallelBuildMatchesSequentialBuild() {
+    final var entities = randomCubes(EntityStore.create(), 2000, new Random(0));
+    final var sequential = Bvh.sequential();
+    sequential.build(entities, entities.length);
+    final var parallel = Bvh.parallel(new ForkJoinPool(4), 16, 1.5f);
+    parallel.build(entities, entities.length);
+
+    assertEquals(sequential.getNodeCount(), parallel.getNodeCount());
+    assertEquals(sequential.getCost(), parallel.getCost(), 1e-3f * sequential.getCost());
+    final var frustum = Frustum.create().set(PV);
+    assertEquals(
+        collect(visitor -> sequential.queryFrustum(frustum, visitor)),
+        collect(visitor -> parallel.queryFrustum(frustum, visitor)));
+  }
+
+  @Test
+  void emptyTreeFindsNothing() {
+    final var bvh = Bvh.sequential();
+    bvh.build(new Entity[0], 0);
+
+    assertEquals(0, bvh.getNodeCount());
+    assertTrue(collect(visitor -> bvh.queryFrustum(Frustum.create().set(PV), visitor)).isEmpty());
+    assertNull(bvh.raycastClosest(Vector3.zero(), Vector3.unit(0, 0, -1), 100));
+    assertNull(bvh.findNearest(Vector3.zero(), 100));
+  }
+
+  /** The number of nodes in a tree built by actually splitting it at the median */
+  private static int countNodes(int count) {
+    if (count == 0) return 0;
+    if (count <= Bvh.MAX_LEAF_SIZE) return 1;
+    return 1 + countNodes(count / 2) + countNodes(count - count / 2);
+  }
+
+  private static Set<Entity> collect(Query query) {
+    final var visited = new HashSet<Entity>();
+    query.run(visited::add);
+    return visited;
+  }
+
+  private static float distanceTo(Entity entity, Vector3 point) {
+    final var b = entity.getBounds();
+    final var dx = Math.max(0, Math.max(b.minX - point.x, point.x - b.maxX));
+    final var dy = Math.max(0, Math.max(b.minY - point.y, point.y - b.maxY));
+    final var dz = Math.max(0, Math.max(b.minZ - point.z, point.z - b.maxZ));
+    return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  private static Entity[] randomCubes(EntityStore store, int count, Random rnd) {
+    final var entities = new Entity[count];
+    for (var i = 0; i < count; i++) entities[i] = cube(store, randomPosition(rnd));
+    return entities;
+  }
+
+  private static Vector3 randomPosition(Random rnd) {
+    return Vector3.of(
+        100 * rnd.nextFloat() - 50, 100 * rnd.nextFloat() - 50, 100 * rnd.nextFloat() - 50);
+  }
+
+  @FunctionalInterface
+  private interface Query {
+
+    void run(Bvh.Visitor visitor);
+  }
+}
@@ -0,0 +1,79 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.light.DirectionalLight;
+import jakemarsden.opengl.engine.light.SpotLight;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class LightBlockTest {
+
+  private static final DirectionalLight SUN =
+      new DirectionalLight(
+          Vector3.unit(0, -1, 0), Color3.rgb(0.1f, 0.2f, 0.3f), Color3.white(), Color3.black());
+
+  @Test
+  void sizeIsRoundedUpToAVec4() {
+    final var block = LightBlock.create(2);
+
+    // 64 (directional) + 2 * 96 (spot) + 4 (count) = 260
+    assertEquals(272, block.size());
+  }
+
+  @Test
+  void directionalLightIsLaidOutAsStd140() {
+    final var block = LightBlock.create(1);
+    block.set(SUN, new SpotLight[0]);
+
+    final var data = block.getData();
+    assertVec3Equals(0, -1, 0, data, 0);
+    assertVec3Equals(0.1f, 0.2f, 0.3f, data, 16);
+    assertVec3Equals(1, 1, 1, data, 32);
+    assertVec3Equals(0, 0, 0, data, 48);
+  }
+
+  @Test
+  void spotLightApertureIsPackedAfterItsDirection() {
+    final var block = LightBlock.create(1);
+    final var spot = spotLight(Vector3.of(1, 2, 3));
+    block.set(SUN, new SpotLight[] {spot});
+
+    final var data = block.getData();
+    final var offset = 64;
+    assertVec3Equals(1, 2, 3, data, offset);
+    assertVec3Equals(0, 0, -1, data, offset + 16);
+    assertEquals(0.25f, data.getFloat(offset + 28));
+    assertEquals(0.5f, data.getFloat(offset + 32));
+    assertVec3Equals(1, 1, 1, data, offset + 64);
+    // spot light count, after the spot lights
+    assertEquals(1, data.getInt(offset + 96));
+  }
+
+  @Test
+  void rejectsTooManyLights() {
+    final var block = LightBlock.create(1);
+    final var lights = new SpotLight[] {spotLight(Vector3.zero()), spotLight(Vector3.zero())};
+
+    assertThrows(IllegalArgumentException.class, () -> block.set(SUN, lights));
+  }
+
+  private static SpotLight spotLight(Vector3 pos) {
+    return new SpotLight(
+        pos,
+        Vector3.unit(0, 0, -1),
+        0.25f,
+        0.5f,
+        Color3.black(),
+        Color3.white(),
+        Color3.white());
+  }
+
+  private static void assertVec3Equals(float x, float y, float z, ByteBuffer data, int offset) {
+    assertEquals(x, data.getFloat(offset));
+    assertEquals(y, data.getFloat(offset + 4));
+    assertEquals(z, data.getFloat(offset + 8));
+  }
+}
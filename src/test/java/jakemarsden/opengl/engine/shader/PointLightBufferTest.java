@@ -0,0 +1,61 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.engine.light.Attenuation;
+import jakemarsden.opengl.engine.light.PointLight;
+import jakemarsden.opengl.engine.math.Color3;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.nio.FloatBuffer;
+import org.junit.jupiter.api.Test;
+
+class PointLightBufferTest {
+
+  @Test
+  void eachLightIsFiveTexels() {
+    final var buffer = PointLightBuffer.create(4);
+    final var a = pointLight(Vector3.of(1, 2, 3));
+    final var b = pointLight(Vector3.of(4, 5, 6));
+    buffer.set(new PointLight[] {a, b, null}, 2);
+
+    final var data = buffer.getData();
+    assertEquals(2 * 5 * 4, data.remaining());
+    assertTexelEquals(1, 2, 3, data, 0);
+    assertTexelEquals(1, 0.5f, 0.25f, data, 1);
+    assertEquals(a.getRange(), data.get(4 * 1 + 3));
+    assertTexelEquals(0.1f, 0.1f, 0.1f, data, 2);
+    assertTexelEquals(1, 1, 1, data, 3);
+    assertTexelEquals(0, 0, 0, data, 4);
+    assertTexelEquals(4, 5, 6, data, 5);
+  }
+
+  @Test
+  void onlyTheCurrentLightsAreUploaded() {
+    final var buffer = PointLightBuffer.create(4);
+    final var light = pointLight(Vector3.zero());
+    buffer.set(new PointLight[] {light, light, light}, 3);
+    buffer.set(new PointLight[] {light}, 1);
+
+    assertEquals(1, buffer.size());
+    assertEquals(5 * 4, buffer.getData().remaining());
+  }
+
+  @Test
+  void rejectsTooManyLights() {
+    final var buffer = PointLightBuffer.create(1);
+    final var lights = new PointLight[] {pointLight(Vector3.zero()), pointLight(Vector3.zero())};
+
+    assertThrows(IllegalArgumentException.class, () -> buffer.set(lights, 2));
+  }
+
+  private static PointLight pointLight(Vector3 pos) {
+    return new PointLight(
+        pos, Attenuation.of(1, 0.5f, 0.25f), Color3.gray(0.1f), Color3.white(), Color3.black());
+  }
+
+  private static void assertTexelEquals(float x, float y, float z, FloatBuffer data, int texel) {
+    assertEquals(x, data.get(4 * texel));
+    assertEquals(y, data.get(4 * texel + 1));
+    assertEquals(z, data.get(4 * texel + 2));
+  }
+}
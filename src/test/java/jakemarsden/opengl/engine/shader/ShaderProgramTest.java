@@ -0,0 +1,147 @@
+package jakemarsden.opengl.engine.shader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakemarsden.opengl.Application;
+import jakemarsden.opengl.engine.gl.NoopGl;
+import jakemarsden.opengl.engine.gl.RecordingGl;
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.MutableMatrix4;
+import jakemarsden.opengl.engine.math.Vector3;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ShaderProgramTest {
+
+  @Test
+  void programBindsAndUniformUploadsAreCounted() {
+    final var gl = RecordingGl.create();
+    final var program = new ShaderProgram(gl, 7, "test");
+    final var colour = new Uniform(7, 0, "colour");
+    final var transform = new Uniform(7, 1, "transform");
+
+    program.start();
+    program.setUniformVec3(colour, Vector3.of(1, 0, 0));
+    program.setUniformMat4(transform, MutableMatrix4.identity());
+    program.setUniformMat3(transform, MutableMatrix4.identity());
+    program.stop();
+
+    final var stats = gl.getStats();
+    assertEquals(2, stats.getProgramBinds());
+    assertEquals(3, stats.getUniformUploads());
+    assertEquals(0, stats.getDrawCalls());
+
+    stats.reset();
+    assertEquals(0, stats.getProgramBinds());
+    assertEquals(0, stats.getUniformUploads());
+  }
+
+  @Test
+  void uniformsFromOtherProgramsAreRejected() {
+    final var program = new ShaderProgram(RecordingGl.create(), 7, "test");
+    final var other = new Uniform(8, 0, "colour");
+    assertThrows(IllegalArgumentException.class, () -> program.setUniformFloat(other, 1));
+  }
+
+  @Test
+  void loadingCompilesAndLinksThroughTheGivenGl() throws IOException {
+    final var gl = RecordingGl.create();
+    final var program = ShaderProgramLoader.load(gl, "main", Application.class);
+    final var commands = gl.getCommands();
+
+    assertEquals("createShader(35633)", commands.get(0));
+    assertTrue(commands.get(1).startsWith("shaderSource(1, char["), commands.get(1));
+    assertEquals("compileShader(1)", commands.get(2));
+    assertEquals(
+        List.of(
+            "createProgram()",
+            "attachShader(3, 1)",
+            "attachShader(3, 2)",
+            "linkProgram(3)",
+            "validateProgram(3)",
+            "deleteShader(1)",
+            "deleteShader(2)"),
+        commands.subList(6, commands.size()));
+
+    gl.reset();
+    program.start();
+    program.setUniformFloat("shininess", 32);
+    program.destroy();
+    assertEquals(
+        List.of(
+            "useProgram(3)",
+            "getUniformLocation(3, shininess)",
+            "uniform1f(0, 32.0)",
+            "deleteProgram(3)"),
+        gl.getCommands());
+  }
+
+  @Test
+  void eachUniformIsOnlyLookedUpOnce() throws IOException {
+    final var gl = RecordingGl.create();
+    final var program = ShaderProgramLoader.load(gl, "main", Application.class);
+    gl.reset();
+
+    final var shininess = program.getUniform("material.shininess");
+    assertSame(shininess, program.getUniform("material.shininess"));
+    program.start();
+    program.setUniformFloat("material.shininess", 32);
+    program.setUniformFloat("material.shininess", 16);
+    program.setUniformFloat(shininess, 8);
+    program.stop();
+
+    final var lookups =
+        gl.getCommands().stream().filter(it -> it.startsWith("getUniformLocation")).count();
+    assertEquals(1, lookups);
+    assertEquals(3, gl.getStats().getUniformUploads());
+  }
+
+  @Test
+  void uploadsOfTheValueAUniformAlreadyHasAreSkipped() {
+    final var gl = RecordingGl.create();
+    final var program = new ShaderProgram(gl, 7, "test");
+    final var shininess = new Uniform(7, 0, "shininess");
+    final var colour = new Uniform(7, 1, "colour");
+    final var transform = new Uniform(7, 2, "transform");
+    final var matrix = MutableMatrix4.identity();
+
+    program.start();
+    program.setUniformFloat(shininess, 32);
+    program.setUniformVec3(colour, Vector3.of(1, 0, 0));
+    program.setUniformMat4(transform, matrix);
+    assertEquals(3, gl.getStats().getUniformUploads());
+
+    // still the same values, even after the program's been stopped and started again
+    program.stop();
+    program.start();
+    program.setUniformFloat(shininess, 32);
+    program.setUniformVec3(colour, Vector3.of(1, 0, 0));
+    program.setUniformMat4(transform, matrix);
+    assertEquals(3, gl.getStats().getUniformUploads());
+
+    program.setUniformFloat(shininess, 16);
+    program.setUniformVec3(colour, Vector3.of(1, 0, 1));
+    program.setUniformMat4(transform, matrix.set(Matrix4.translate(1, 2, 3)));
+    assertEquals(6, gl.getStats().getUniformUploads());
+    assertEquals(
+        List.of(
+            "uniform1f(0, 16.0)",
+            "uniform3f(1, 1.0, 0.0, 1.0)",
+            "uniformMatrix4fv(2, true, float[16])"),
+        gl.getCommands().subList(gl.getCommands().size() - 3, gl.getCommands().size()));
+    program.stop();
+  }
+
+  @Test
+  void noopGlDoesntCountAnything() throws IOException {
+    final var gl = NoopGl.create();
+    final var program = ShaderProgramLoader.load(gl, "main", Application.class);
+    program.start();
+    program.setUniformFloat("shininess", 32);
+    program.stop();
+
+    assertEquals(0, gl.getStats().getProgramBinds());
+    assertEquals(0, gl.getStats().getUniformUploads());
+  }
+}
@@ -0,0 +1,31 @@
+package jakemarsden.opengl.engine.entity;
+
+import static jakemarsden.opengl.engine.math.Math.PI;
+
+import jakemarsden.opengl.engine.math.Matrix4;
+import jakemarsden.opengl.engine.math.Projection;
+import jakemarsden.opengl.engine.math.Vector3;
+import jakemarsden.opengl.engine.model.BoxMesh;
+import jakemarsden.opengl.engine.model.Mesh;
+import jakemarsden.opengl.engine.model.Model;
+import jakemarsden.opengl.engine.model.ModelLoader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Unit cubes, and a camera to look at them through. Shared by the tests which cull or query
+ * entities by their bounds
+ */
+public final class CubeScene {
+
+  /** At the origin, looking down -z, 90 degrees in each direction, 1-100 units deep */
+  public static final Matrix4 PV = Projection.perspective(PI / 2, 1, 1, 100);
+
+  public static final Model CUBE = ModelLoader.load(new Mesh[] {new BoxMesh()});
+
+  private CubeScene() {}
+
+  /** @return a new {@link #CUBE} entity, centred on {@code pos} */
+  public static @NonNull Entity cube(@NonNull EntityStore store, @NonNull Vector3 pos) {
+    return Entity.builder(store, CUBE).withPosition(pos).withScale(Vector3.one()).build();
+  }
+}
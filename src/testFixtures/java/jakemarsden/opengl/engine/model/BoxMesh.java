@@ -0,0 +1,41 @@
+package jakemarsden.opengl.engine.model;
+
+import jakemarsden.opengl.engine.math.Aabb;
+import jakemarsden.opengl.engine.res.material.Material;
+import jakemarsden.opengl.engine.shader.Shader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A {@code 2x2x2} cube around the origin, which can't be drawn. Shared by the tests and benchmarks
+ * which only need a mesh's bounds, e.g. for culling
+ */
+public final class BoxMesh implements Mesh {
+
+  @Override
+  public @NonNull Material getMaterial() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public @NonNull Aabb getBounds() {
+    return Aabb.of(-1, -1, -1, 1, 1, 1);
+  }
+
+  @Override
+  public void bind() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void unbind() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void draw(@NonNull Shader shader) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void destroy() {}
+}
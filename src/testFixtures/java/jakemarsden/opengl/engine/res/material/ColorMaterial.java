@@ -0,0 +1,29 @@
+package jakemarsden.opengl.engine.res.material;
+
+import jakemarsden.opengl.engine.math.Color4;
+import jakemarsden.opengl.engine.res.ResourceLoader;
+import jakemarsden.opengl.engine.res.texture.TextureLoader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Builds materials with every map the same colour, without loading a description of them from a
+ * file. They don't belong to a loader's cache, so can't be {@link Material#destroy() destroyed}
+ */
+public final class ColorMaterial {
+
+  private ColorMaterial() {}
+
+  public static @NonNull Material create(
+      @NonNull TextureLoader texLoader, @NonNull String name, @NonNull Color4 color) {
+
+    final var loader = MaterialLoader.create(ResourceLoader.create(Material.class, ""), texLoader);
+    return new Material(
+        loader,
+        name,
+        texLoader.loadColor(color),
+        texLoader.loadColor(color),
+        texLoader.loadColor(color),
+        texLoader.loadColor(color),
+        32);
+  }
+}